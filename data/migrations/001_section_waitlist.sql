@@ -0,0 +1,15 @@
+-- Registration waitlist (JOIN_WAITLIST / LEAVE_WAITLIST / GET_WAITLIST_POSITION).
+-- Order within a section is waitlist_id (insertion order). Idempotent.
+-- Run with: mysql -u root -p < data/migrations/001_section_waitlist.sql
+
+USE erp_db;
+
+CREATE TABLE IF NOT EXISTS section_waitlist (
+  waitlist_id BIGINT PRIMARY KEY AUTO_INCREMENT,
+  section_id INT NOT NULL,
+  student_id INT NOT NULL,
+  joined_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  UNIQUE KEY uq_waitlist_section_student (section_id, student_id),
+  KEY idx_waitlist_section_order (section_id, waitlist_id),
+  CONSTRAINT fk_waitlist_section FOREIGN KEY (section_id) REFERENCES sections (section_id) ON DELETE CASCADE
+);
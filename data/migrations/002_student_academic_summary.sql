@@ -0,0 +1,46 @@
+-- Materialized CGPA / credits per student (GET_CGPA, GET_CGPA_RANKING).
+-- Maintained by the server whenever a final grade is written; REBUILD_ACADEMIC_SUMMARY regenerates it.
+-- This script creates the table and fills it from existing grades. Idempotent.
+-- Run with: mysql -u root -p < data/migrations/002_student_academic_summary.sql
+
+USE erp_db;
+
+CREATE TABLE IF NOT EXISTS student_academic_summary (
+  student_id INT PRIMARY KEY,
+  graded_credits DECIMAL(8,2) NOT NULL DEFAULT 0,
+  grade_points DECIMAL(10,2) NOT NULL DEFAULT 0,
+  credits_earned DECIMAL(8,2) NOT NULL DEFAULT 0,
+  cgpa DECIMAL(4,2) NULL,
+  updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  KEY idx_summary_ranking (cgpa, credits_earned)
+);
+
+-- Same point mapping as GradeUtils.gradeToPoints; IP / unknown grades and zero-credit courses are skipped.
+INSERT INTO student_academic_summary (student_id, graded_credits, grade_points, credits_earned, cgpa)
+SELECT a.student_id, a.graded_credits, a.grade_points, a.credits_earned,
+       CASE WHEN a.graded_credits > 0 THEN ROUND(a.grade_points / a.graded_credits, 2) END
+FROM (
+  SELECT x.student_id,
+         SUM(x.credits) AS graded_credits,
+         SUM(x.points * x.credits) AS grade_points,
+         SUM(CASE WHEN x.points > 0 THEN x.credits ELSE 0 END) AS credits_earned
+  FROM (
+    SELECT e.student_id, c.credits,
+           CASE UPPER(TRIM(g.final_grade))
+             WHEN 'A' THEN 10.0 WHEN 'A-' THEN 9.0 WHEN 'B' THEN 8.0 WHEN 'B-' THEN 7.0
+             WHEN 'C' THEN 6.0 WHEN 'C-' THEN 5.0 WHEN 'D' THEN 4.0 WHEN 'F' THEN 0.0
+             ELSE NULL END AS points
+    FROM enrollments e
+    JOIN sections s ON e.section_id = s.section_id
+    JOIN courses c ON s.course_code = c.code
+    JOIN grades g ON e.enrollment_id = g.enrollment_id AND g.component = 'FinalGrade'
+    WHERE c.credits > 0
+  ) x
+  WHERE x.points IS NOT NULL
+  GROUP BY x.student_id
+) a
+ON DUPLICATE KEY UPDATE
+  graded_credits = VALUES(graded_credits),
+  grade_points = VALUES(grade_points),
+  credits_earned = VALUES(credits_earned),
+  cgpa = VALUES(cgpa);
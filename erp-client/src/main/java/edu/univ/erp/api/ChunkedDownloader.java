@@ -0,0 +1,88 @@
+package edu.univ.erp.api;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HexFormat;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Client side of chunked downloads: a *_BEGIN command opens the download, DOWNLOAD_CHUNK
+ * fetches it by offset and DOWNLOAD_END releases it. Chunks go straight to the output file
+ * while a SHA-256 is updated, and the result is checked against the server's digest, so a
+ * large backup is never held in memory.
+ */
+public class ChunkedDownloader {
+
+    /** Decoded bytes requested per chunk (the server may cap it lower). */
+    public static final int CHUNK_BYTES = 1024 * 1024;
+    private static final int CHUNK_ATTEMPTS = 3;
+
+    /** Receives bytes written so far and the total size. Called on the downloading thread. */
+    public interface Progress {
+        void update(long done, long total);
+    }
+
+    /**
+     * Runs {@code beginCommand} (e.g. DB_BACKUP_BEGIN) and writes the download to {@code out}.
+     * On failure the partial file is deleted.
+     * @param progress may be null
+     * @return the SHA-256 (hex) of the downloaded file, as verified
+     */
+    public static String download(String beginCommand, Path out, Progress progress) throws Exception {
+        String resp = ClientRequest.send(beginCommand);
+        JsonObject info = JsonParser.parseString(resp.substring("SUCCESS:".length())).getAsJsonObject();
+        String downloadId = info.get("downloadId").getAsString();
+        long size = info.get("size").getAsLong();
+        String expectedSha = info.get("sha256").getAsString();
+        int chunkBytes = Math.min(CHUNK_BYTES, info.get("maxChunkBytes").getAsInt());
+
+        boolean ok = false;
+        try (OutputStream os = Files.newOutputStream(out)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long offset = 0;
+            if (progress != null) progress.update(0, size);
+            while (offset < size) {
+                byte[] data = fetchChunk(downloadId, offset, chunkBytes);
+                if (data.length == 0) throw new Exception("Download ended early at " + offset + " of " + size + " bytes.");
+                os.write(data);
+                digest.update(data);
+                offset += data.length;
+                if (progress != null) progress.update(offset, size);
+            }
+            String actualSha = HexFormat.of().formatHex(digest.digest());
+            if (!actualSha.equalsIgnoreCase(expectedSha)) {
+                throw new Exception("Downloaded file is corrupt: SHA-256 " + actualSha + " does not match " + expectedSha + ".");
+            }
+            ok = true;
+            return actualSha;
+        } finally {
+            try { ClientRequest.send("DOWNLOAD_END:" + downloadId); } catch (Exception ignore) { }
+            if (!ok) {
+                try { Files.deleteIfExists(out); } catch (Exception ignore) { }
+            }
+        }
+    }
+
+    // A failed chunk is requested again from the same offset; the server keeps the file until DOWNLOAD_END.
+    private static byte[] fetchChunk(String downloadId, long offset, int chunkBytes) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                String resp = ClientRequest.send("DOWNLOAD_CHUNK:" + downloadId + ":" + offset + ":" + chunkBytes);
+                return Base64.getDecoder().decode(resp.substring("SUCCESS:".length()));
+            } catch (Exception e) {
+                String msg = e.getMessage() == null ? "" : e.getMessage();
+                // Session loss and protocol errors will not fix themselves.
+                if (attempt >= CHUNK_ATTEMPTS || msg.startsWith("DOWNLOAD_") || msg.startsWith("Persistent session lost")
+                        || msg.startsWith("Session invalidated")) {
+                    throw e;
+                }
+                System.err.println("CLIENT WARN: download chunk at offset " + offset + " failed, retrying: " + msg);
+            }
+        }
+    }
+}
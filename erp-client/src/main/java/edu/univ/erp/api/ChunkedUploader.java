@@ -0,0 +1,74 @@
+package edu.univ.erp.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.function.LongConsumer;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Client side of the chunked upload sub-protocol: UPLOAD_BEGIN, numbered UPLOAD_CHUNK lines,
+ * then UPLOAD_END with the SHA-256 of everything sent. Files are read one chunk at a time, so
+ * a large backup never has to fit in memory or on one protocol line.
+ */
+public class ChunkedUploader {
+
+    /** Decoded bytes per chunk (the server may ask for less). */
+    public static final int CHUNK_BYTES = 512 * 1024;
+
+    /**
+     * Uploads a file and returns the server's response to UPLOAD_END (the import or restore result).
+     * @param purpose IMPORT_GRADES or DB_RESTORE
+     * @param args purpose arguments (instructorId, sectionId for IMPORT_GRADES)
+     * @param progress receives the bytes acknowledged so far; may be null
+     */
+    public static String uploadFile(Path file, String purpose, String[] args, LongConsumer progress) throws Exception {
+        long size = Files.size(file);
+        try (InputStream in = Files.newInputStream(file)) {
+            return upload(in, size, purpose, args, progress);
+        }
+    }
+
+    public static String uploadBytes(byte[] data, String purpose, String... args) throws Exception {
+        return upload(new ByteArrayInputStream(data), data.length, purpose, args, null);
+    }
+
+    private static String upload(InputStream in, long size, String purpose, String[] args, LongConsumer progress) throws Exception {
+        StringBuilder begin = new StringBuilder("UPLOAD_BEGIN:").append(purpose).append(':').append(size);
+        for (String a : args) begin.append(':').append(a);
+        String resp = ClientRequest.send(begin.toString());
+        JsonObject info = JsonParser.parseString(resp.substring("SUCCESS:".length())).getAsJsonObject();
+        String uploadId = info.get("uploadId").getAsString();
+        int chunkBytes = Math.min(CHUNK_BYTES, info.get("maxChunkBytes").getAsInt());
+
+        boolean finished = false;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buf = new byte[chunkBytes];
+            long sent = 0;
+            int seq = 0;
+            int n;
+            while ((n = in.readNBytes(buf, 0, buf.length)) > 0) {
+                digest.update(buf, 0, n);
+                String b64 = Base64.getEncoder().encodeToString(n == buf.length ? buf : java.util.Arrays.copyOf(buf, n));
+                ClientRequest.send("UPLOAD_CHUNK:" + uploadId + ":" + seq++ + ":" + b64);
+                sent += n;
+                if (progress != null) progress.accept(sent);
+            }
+            String result = ClientRequest.send("UPLOAD_END:" + uploadId + ":" + HexFormat.of().formatHex(digest.digest()));
+            finished = true;
+            return result;
+        } finally {
+            if (!finished) {
+                // Harmless if the server already dropped or consumed the upload.
+                try { ClientRequest.send("UPLOAD_ABORT:" + uploadId); } catch (Exception ignore) { }
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package edu.univ.erp.api;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Conditional fetch for large read commands (GET_CATALOG, GET_ALL_*).
+ *
+ * Keeps the last payload and its server token per command and sends
+ * {@code IF_NONE_MATCH:<token>:<COMMAND>}. When the server answers {@code NOT_MODIFIED}
+ * the kept payload is returned, so refreshing an unchanged list costs one short line.
+ */
+public class ConditionalRequest {
+
+    private record Cached(String token, String payload) { }
+
+    private static final Map<String, Cached> LAST = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the current JSON payload for a cacheable command.
+     * @param command e.g. "GET_CATALOG"
+     */
+    public static String fetch(String command) throws Exception {
+        Cached cached = LAST.get(command);
+        String token = cached == null ? "-" : cached.token();
+        String response = ClientRequest.send("IF_NONE_MATCH:" + token + ":" + command);
+
+        if (response.startsWith("NOT_MODIFIED:") && cached != null) {
+            return cached.payload();
+        }
+        if (response.startsWith("ETAG:")) {
+            // Format: ETAG:<token>:<payload>
+            int sep = response.indexOf(':', "ETAG:".length());
+            if (sep < 0) throw new Exception("Malformed ETAG response for " + command);
+            String newToken = response.substring("ETAG:".length(), sep);
+            String payload = response.substring(sep + 1);
+            LAST.put(command, new Cached(newToken, payload));
+            return payload;
+        }
+        throw new Exception("Unexpected response for " + command + ": " + response);
+    }
+
+    /** Drops all kept payloads (e.g. on logout). */
+    public static void clear() {
+        LAST.clear();
+    }
+}
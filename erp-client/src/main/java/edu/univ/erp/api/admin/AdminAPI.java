@@ -7,6 +7,7 @@ import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
 import edu.univ.erp.api.ClientRequest;
+import edu.univ.erp.api.ConditionalRequest;
 import edu.univ.erp.domain.CourseCatalog;
 import edu.univ.erp.domain.Instructor;
 import edu.univ.erp.domain.Student;
@@ -120,41 +121,23 @@ public class AdminAPI {
     // ----------------------------------------------------------------------
   
     public List<CourseCatalog> getAllCourses() throws Exception {
-        String request = "GET_ALL_COURSES";
-        String response = ClientRequest.send(request);
-
-        if (response.startsWith("SUCCESS:")) {
-            String json = response.substring("SUCCESS:".length());
-            Type listType = new TypeToken<List<CourseCatalog>>() {}.getType();
-            return gson.fromJson(json, listType);
-        }
-        throw new Exception(response.startsWith("ERROR:") ? response.substring("ERROR:".length()) : "Unknown error fetching courses");
+        String json = ConditionalRequest.fetch("GET_ALL_COURSES");
+        Type listType = new TypeToken<List<CourseCatalog>>() {}.getType();
+        return gson.fromJson(json, listType);
     }
 
     // ----------------------------------------------------------------------
   
     public List<Student> getAllStudents() throws Exception {
-        String request = "GET_ALL_STUDENTS";
-        String response = ClientRequest.send(request);
-
-        if (response.startsWith("SUCCESS:")) {
-            String json = response.substring("SUCCESS:".length());
-            Type listType = new TypeToken<List<Student>>() {}.getType();
-            return gson.fromJson(json, listType);
-        }
-        throw new Exception(response.startsWith("ERROR:") ? response.substring("ERROR:".length()) : "Unknown error fetching students");
+        String json = ConditionalRequest.fetch("GET_ALL_STUDENTS");
+        Type listType = new TypeToken<List<Student>>() {}.getType();
+        return gson.fromJson(json, listType);
     }
 
     public java.util.List<java.util.Map<String,Object>> getAllInstructors() throws Exception {
-        String request = "GET_ALL_INSTRUCTORS";
-        String response = ClientRequest.send(request);
-
-        if (response.startsWith("SUCCESS:")) {
-            String json = response.substring("SUCCESS:".length());
-            Type listType = new TypeToken<java.util.List<java.util.Map<String,Object>>>() {}.getType();
-            return gson.fromJson(json, listType);
-        }
-        throw new Exception(response.startsWith("ERROR:") ? response.substring("ERROR:".length()) : "Unknown error fetching instructors");
+        String json = ConditionalRequest.fetch("GET_ALL_INSTRUCTORS");
+        Type listType = new TypeToken<java.util.List<java.util.Map<String,Object>>>() {}.getType();
+        return gson.fromJson(json, listType);
     }
 
     public String createInstructor(Instructor instructor, String password) throws Exception {
@@ -215,4 +198,28 @@ public class AdminAPI {
         if (response.startsWith("SUCCESS:")) return response.substring("SUCCESS:".length());
         throw new Exception(response.startsWith("ERROR:") ? response.substring("ERROR:".length()) : "Unknown error sending notification");
     }
+
+    /** Polling interval for {@link #awaitRestore}. */
+    private static final long RESTORE_POLL_MS = 500;
+
+    /**
+     * Polls GET_RESTORE_PROGRESS until the restore started by a chunked DB_RESTORE upload ends.
+     * @param onProgress receives each progress snapshot (state, percent, statements, ...); may be null
+     * @return the server's completion message
+     * @throws Exception with the server's message when the restore failed
+     */
+    public String awaitRestore(java.util.function.Consumer<com.google.gson.JsonObject> onProgress) throws Exception {
+        while (true) {
+            String response = ClientRequest.send("GET_RESTORE_PROGRESS");
+            com.google.gson.JsonObject progress = com.google.gson.JsonParser
+                    .parseString(response.substring("SUCCESS:".length())).getAsJsonObject();
+            if (onProgress != null) onProgress.accept(progress);
+            String state = progress.get("state").getAsString();
+            String message = progress.has("message") ? progress.get("message").getAsString() : null;
+            if ("DONE".equals(state)) return message == null ? "DB restore completed." : message;
+            if ("FAILED".equals(state)) throw new Exception("DB restore failed: " + message);
+            if ("NONE".equals(state)) throw new Exception("No restore is running on the server.");
+            Thread.sleep(RESTORE_POLL_MS);
+        }
+    }
 }
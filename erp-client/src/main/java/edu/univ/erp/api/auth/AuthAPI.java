@@ -34,7 +34,7 @@ public class AuthAPI {
             }
 
             conn = new ClientConnection("localhost", 9090);
-            response = conn.send(request);
+            response = sendRetryingWhenBusy(conn, request);
         } catch (Exception e) {
             if (conn != null) try { conn.close(); } catch (Exception ex) { /* ignore */ }
             throw e;
@@ -63,6 +63,29 @@ public class AuthAPI {
         throw new Exception("Unexpected response during login.");
     }
 
+    private static final int LOGIN_BUSY_ATTEMPTS = 5;
+
+    /**
+     * Sends LOGIN, waiting and retrying on the same connection while the server answers
+     * LOGIN_BUSY:retryAfterMs (its password-check pool is saturated during a login wave).
+     * A little jitter keeps retries from arriving together.
+     */
+    private static String sendRetryingWhenBusy(ClientConnection conn, String request) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return conn.send(request);
+            } catch (Exception e) {
+                String msg = e.getMessage();
+                if (msg == null || !msg.startsWith("LOGIN_BUSY:")) throw e;
+                String[] p = msg.split(":", 3);
+                if (attempt == LOGIN_BUSY_ATTEMPTS) throw new Exception(p.length > 2 ? p[2] : msg);
+                long retryAfterMs;
+                try { retryAfterMs = Long.parseLong(p[1]); } catch (NumberFormatException nfe) { retryAfterMs = 500; }
+                Thread.sleep(retryAfterMs + java.util.concurrent.ThreadLocalRandom.current().nextLong(retryAfterMs / 2 + 1));
+            }
+        }
+    }
+
     /**
      *  Sends a request to the server to change the user's password.
      * @param userId The ID of the currently logged-in user.
@@ -113,8 +136,9 @@ public class AuthAPI {
             edu.univ.erp.net.ClientSession.setSuppressSessionLost(true);
             try {
                 String resp = conn.send("LOGOUT");
-                // clear local session
+                // clear local session and any kept conditional-fetch payloads
                 edu.univ.erp.net.ClientSession.clear();
+                edu.univ.erp.api.ConditionalRequest.clear();
                 return resp.startsWith("SUCCESS:") ? resp.substring("SUCCESS:".length()) : resp;
             } finally {
                 // Re-enable notifier for subsequent unexpected disconnects
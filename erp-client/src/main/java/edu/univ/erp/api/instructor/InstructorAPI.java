@@ -92,6 +92,25 @@ public class InstructorAPI {
         }
     }
 
+    /**
+     * Computes and records final grades for every registered student in a section in one
+     * server-side transaction.
+     * Command: COMPUTE_FINAL_GRADES_SECTION:sectionId
+     * @return letter grade -> number of students, best grade first
+     */
+    public java.util.Map<String, Integer> computeFinalGradesForSection(int sectionId) throws Exception {
+        String response = ClientRequest.send("COMPUTE_FINAL_GRADES_SECTION:" + sectionId);
+
+        if (response.startsWith("SUCCESS:")) {
+            com.google.gson.JsonObject obj = com.google.gson.JsonParser
+                    .parseString(response.substring("SUCCESS:".length())).getAsJsonObject();
+            Type mapType = new TypeToken<java.util.LinkedHashMap<String, Integer>>() {}.getType();
+            return gson.fromJson(obj.get("distribution"), mapType);
+        } else {
+            throw new Exception("Final grade computation failed due to an unexpected server response.");
+        }
+    }
+
     /**
      * Exports grades CSV for a section. Returns the raw CSV string (decoded).
      * Command: EXPORT_GRADES:instructorId:sectionId
@@ -122,12 +141,12 @@ public class InstructorAPI {
 
     /**
      * Imports grades CSV for a section. Accepts raw CSV string; returns server summary.
-     * Command: IMPORT_GRADES:instructorId:sectionId:BASE64:<payload>
+     * Sent as a chunked upload (UPLOAD_BEGIN:IMPORT_GRADES:size:instructorId:sectionId ... UPLOAD_END).
      */
     public String importGrades(int instructorId, int sectionId, String csvContent) throws Exception {
-        String b64 = java.util.Base64.getEncoder().encodeToString(csvContent.getBytes(java.nio.charset.StandardCharsets.UTF_8));
-        String request = String.format("IMPORT_GRADES:%d:%d:BASE64:%s", instructorId, sectionId, b64);
-        String response = ClientRequest.send(request);
+        byte[] csv = csvContent.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        String response = edu.univ.erp.api.ChunkedUploader.uploadBytes(csv, "IMPORT_GRADES",
+                String.valueOf(instructorId), String.valueOf(sectionId));
 
         if (response.startsWith("SUCCESS:")) {
             return response.substring("SUCCESS:".length());
@@ -9,6 +9,7 @@ import com.google.gson.JsonParser;
 import com.google.gson.reflect.TypeToken;
 
 import edu.univ.erp.api.ClientRequest;
+import edu.univ.erp.api.ConditionalRequest;
 import edu.univ.erp.domain.CourseCatalog;
 import edu.univ.erp.domain.Grade;
 
@@ -40,6 +41,42 @@ public class StudentAPI {
         throw new Exception("Enrollment failed due to an unexpected server response.");
     }
     
+    /** Outcome of one section in a REGISTER_BATCH request. */
+    public static class BatchResult {
+        public int sectionId;
+        public String status;
+        public String message;
+    }
+
+    /**
+     * Registers all given sections in one all-or-nothing request.
+     * Command: REGISTER_BATCH:userId:id,id,...
+     * @return one result per section; if any status is not REGISTERED, nothing was registered
+     */
+    public List<BatchResult> registerCourses(int userId, List<Integer> sectionIds) throws Exception {
+        StringBuilder ids = new StringBuilder();
+        for (Integer id : sectionIds) {
+            if (ids.length() > 0) ids.append(',');
+            ids.append(id);
+        }
+        String json;
+        try {
+            String response = ClientRequest.send("REGISTER_BATCH:" + userId + ":" + ids);
+            if (!response.startsWith("SUCCESS:")) {
+                throw new Exception("Batch registration failed due to an unexpected server response.");
+            }
+            json = response.substring("SUCCESS:".length());
+        } catch (Exception e) {
+            // A rejected cart still carries the per-section results.
+            String msg = e.getMessage() == null ? "" : e.getMessage();
+            if (!msg.startsWith("BATCH_REJECTED:")) throw e;
+            json = msg.substring("BATCH_REJECTED:".length());
+        }
+        JsonObject obj = JsonParser.parseString(json).getAsJsonObject();
+        Type listType = new TypeToken<List<BatchResult>>() {}.getType();
+        return gson.fromJson(obj.get("results"), listType);
+    }
+
     /**
      * Sends a request to the server to drop the student from a specific section.
      * Command: DROP_SECTION:userId:sectionId
@@ -67,6 +104,45 @@ public class StudentAPI {
     }
 
 
+    /**
+     * Queues the student for a full section instead of retrying REGISTER.
+     * Command: JOIN_WAITLIST:userId:sectionId
+     * @return the student's 1-based position in the waitlist
+     */
+    public int joinWaitlist(int userId, int sectionId) throws Exception {
+        String response = ClientRequest.send("JOIN_WAITLIST:" + userId + ":" + sectionId);
+        if (!response.startsWith("SUCCESS:")) {
+            throw new Exception("Joining the waitlist failed due to an unexpected server response.");
+        }
+        JsonObject obj = JsonParser.parseString(response.substring("SUCCESS:".length())).getAsJsonObject();
+        return obj.get("position").getAsInt();
+    }
+
+    /**
+     * Command: LEAVE_WAITLIST:userId:sectionId
+     */
+    public String leaveWaitlist(int userId, int sectionId) throws Exception {
+        String response = ClientRequest.send("LEAVE_WAITLIST:" + userId + ":" + sectionId);
+        if (response.startsWith("SUCCESS:")) {
+            return response.substring("SUCCESS:".length());
+        }
+        throw new Exception("Leaving the waitlist failed due to an unexpected server response.");
+    }
+
+    /**
+     * Command: GET_WAITLIST_POSITION:userId:sectionId
+     * @return {position, waiting}; position is 0 when the student is not on the waitlist
+     */
+    public int[] getWaitlistPosition(int userId, int sectionId) throws Exception {
+        String response = ClientRequest.send("GET_WAITLIST_POSITION:" + userId + ":" + sectionId);
+        if (!response.startsWith("SUCCESS:")) {
+            throw new Exception("Failed to retrieve waitlist position: " + response);
+        }
+        JsonObject obj = JsonParser.parseString(response.substring("SUCCESS:".length())).getAsJsonObject();
+        return new int[] { obj.get("position").getAsInt(), obj.get("waiting").getAsInt() };
+    }
+
+
     // ----------------------------------------------------------------------
    
     /**
@@ -96,16 +172,10 @@ public class StudentAPI {
      */
     public List<CourseCatalog> getCourseCatalog() throws Exception {
         
-        String request = "GET_CATALOG"; 
-        String response = ClientRequest.send(request);
-
-        if (response.startsWith("SUCCESS:")) {
-            String catalogJson = response.substring("SUCCESS:".length());
-            Type listType = new TypeToken<List<CourseCatalog>>() {}.getType();
-            return gson.fromJson(catalogJson, listType);
-        } 
-        
-        throw new Exception("Unexpected response during course catalog request.");
+        // Conditional fetch: an unchanged catalog comes back as NOT_MODIFIED and the kept payload is reused.
+        String catalogJson = ConditionalRequest.fetch("GET_CATALOG");
+        Type listType = new TypeToken<List<CourseCatalog>>() {}.getType();
+        return gson.fromJson(catalogJson, listType);
     }
 
     // ----------------------------------------------------------------------
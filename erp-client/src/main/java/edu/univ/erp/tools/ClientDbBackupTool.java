@@ -2,9 +2,10 @@ package edu.univ.erp.tools;
 
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.Base64;
 
-import edu.univ.erp.api.ClientRequest;
+import edu.univ.erp.api.ChunkedDownloader;
+import edu.univ.erp.api.ChunkedUploader;
+import edu.univ.erp.api.admin.AdminAPI;
 import edu.univ.erp.api.auth.AuthAPI;
 
 /**
@@ -32,23 +33,25 @@ public class ClientDbBackupTool {
         if ("download".equalsIgnoreCase(cmd)) {
             if (args.length < 2) { System.err.println("download <outfile.gz>"); System.exit(2); }
             String outfile = args[1];
-            String resp = ClientRequest.send("DB_BACKUP");
-            if (!resp.startsWith("FILE_DOWNLOAD:")) throw new Exception("Unexpected response: " + resp);
-            // Format: FILE_DOWNLOAD:contentType:filename:BASE64:<payload>
-            String[] parts = resp.split(":", 5);
-            if (parts.length < 5) throw new Exception("Malformed FILE_DOWNLOAD response: " + resp);
-            String payload = parts[4];
-            byte[] decoded = Base64.getDecoder().decode(payload);
-            Files.write(Paths.get(outfile), decoded);
+            String sha256 = ChunkedDownloader.download("DB_BACKUP_BEGIN", Paths.get(outfile),
+                    (done, total) -> System.out.printf("\rDownloaded %d / %d bytes", done, total));
+            System.out.println();
+            System.out.println("SHA-256 " + sha256);
             System.out.println("Saved DB backup to " + outfile);
 
         } else if ("restore".equalsIgnoreCase(cmd)) {
             if (args.length < 2) { System.err.println("restore <infile.gz>"); System.exit(2); }
             String infile = args[1];
-            byte[] data = Files.readAllBytes(Paths.get(infile));
-            String b64 = Base64.getEncoder().encodeToString(data);
-            String request = "DB_RESTORE:BASE64:" + b64;
-            String resp = ClientRequest.send(request);
+            long total = Files.size(Paths.get(infile));
+            ChunkedUploader.uploadFile(Paths.get(infile), "DB_RESTORE", new String[0],
+                    sent -> System.out.printf("\rUploaded %d / %d bytes", sent, total));
+            System.out.println();
+            String resp = new AdminAPI().awaitRestore(p -> {
+                if (p.has("percent")) {
+                    System.out.printf("\rRestoring %.1f%% (%d statements)", p.get("percent").getAsDouble(), p.get("statements").getAsLong());
+                }
+            });
+            System.out.println();
             System.out.println(resp);
         } else {
             System.err.println("Unknown command: " + cmd);
@@ -4,6 +4,7 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Base64;
 
+import edu.univ.erp.api.ChunkedUploader;
 import edu.univ.erp.api.ClientRequest;
 import edu.univ.erp.api.auth.AuthAPI;
 
@@ -47,10 +48,8 @@ public class ClientGradeCsvTool {
             String instructorId = args[1];
             String sectionId = args[2];
             String infile = args[3];
-            byte[] data = Files.readAllBytes(Paths.get(infile));
-            String b64 = Base64.getEncoder().encodeToString(data);
-            String request = "IMPORT_GRADES:" + instructorId + ":" + sectionId + ":BASE64:" + b64;
-            String resp = ClientRequest.send(request);
+            String resp = ChunkedUploader.uploadFile(Paths.get(infile), "IMPORT_GRADES",
+                    new String[] { instructorId, sectionId }, null);
             System.out.println(resp);
         } else {
             System.err.println("Unknown command: " + cmd);
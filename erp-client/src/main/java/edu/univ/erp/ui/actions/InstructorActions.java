@@ -25,6 +25,10 @@ public class InstructorActions {
         return instructorApi.computeFinalGrade(instructorId, enrollmentId);
     }
     
+    public java.util.Map<String, Integer> computeFinalGradesForSection(int sectionId) throws Exception {
+        return instructorApi.computeFinalGradesForSection(sectionId);
+    }
+
     public String recordScore(int instructorId, int enrollmentId, String componentName, double score) throws Exception {
         return instructorApi.recordScore(instructorId, enrollmentId, componentName, score);
     }
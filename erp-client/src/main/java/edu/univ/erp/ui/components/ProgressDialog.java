@@ -21,6 +21,7 @@ import edu.univ.erp.net.ClientSession;
  */
 public class ProgressDialog {
     private final JDialog dlg;
+    private final JProgressBar bar;
 
     public ProgressDialog(Frame owner, String title, String message) {
         dlg = new JDialog(owner, title, Dialog.ModalityType.MODELESS);
@@ -30,7 +31,7 @@ public class ProgressDialog {
 
         JPanel p = new JPanel(new BorderLayout(8, 8));
         p.add(new JLabel(message), BorderLayout.NORTH);
-        JProgressBar bar = new JProgressBar();
+        bar = new JProgressBar(0, 1000);
         bar.setIndeterminate(true);
         p.add(bar, BorderLayout.CENTER);
 
@@ -51,6 +52,23 @@ public class ProgressDialog {
         if (!dlg.isVisible()) dlg.setVisible(true);
     }
 
+    /**
+     * Switches the bar to determinate progress. Safe to call from any thread; a non-positive
+     * total keeps it indeterminate.
+     */
+    public void setProgress(long done, long total) {
+        javax.swing.SwingUtilities.invokeLater(() -> {
+            if (total <= 0) {
+                bar.setIndeterminate(true);
+                return;
+            }
+            bar.setIndeterminate(false);
+            bar.setStringPainted(true);
+            bar.setValue((int) Math.min(1000, done * 1000 / total));
+            bar.setString(String.format("%.1f / %.1f MB", done / 1048576.0, total / 1048576.0));
+        });
+    }
+
     public void close() {
         if (dlg.isVisible()) dlg.dispose();
     }
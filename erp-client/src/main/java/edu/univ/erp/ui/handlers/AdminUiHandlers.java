@@ -724,13 +724,9 @@ public class AdminUiHandlers {
         if (ret != javax.swing.JFileChooser.APPROVE_OPTION) return;
         java.nio.file.Path out = fc.getSelectedFile().toPath();
 
-        // Show modal progress dialog while downloading
-        final javax.swing.JDialog progressDialog = new javax.swing.JDialog((java.awt.Frame) null, "Downloading...", true);
-        final javax.swing.JProgressBar pb = new javax.swing.JProgressBar();
-        pb.setIndeterminate(true);
-        progressDialog.getContentPane().add(pb);
-        progressDialog.setSize(300, 60);
-        progressDialog.setLocationRelativeTo(null);
+        // Progress dialog while the backup is created and streamed to disk; Cancel drops the session
+        final edu.univ.erp.ui.components.ProgressDialog progressDialog =
+                new edu.univ.erp.ui.components.ProgressDialog(null, "Downloading...", "Creating and downloading the backup...");
 
         javax.swing.SwingWorker<Void, Void> worker = new javax.swing.SwingWorker<>() {
             private Exception error = null;
@@ -738,13 +734,7 @@ public class AdminUiHandlers {
             @Override
             protected Void doInBackground() {
                 try {
-                    String resp = edu.univ.erp.api.ClientRequest.send("DB_BACKUP");
-                    if (!resp.startsWith("FILE_DOWNLOAD:")) throw new Exception("Unexpected response: " + resp);
-                    String[] parts = resp.split(":", 5);
-                    if (parts.length < 5) throw new Exception("Malformed FILE_DOWNLOAD response: " + resp);
-                    String payload = parts[4];
-                    byte[] decoded = java.util.Base64.getDecoder().decode(payload);
-                    java.nio.file.Files.write(out, decoded);
+                    edu.univ.erp.api.ChunkedDownloader.download("DB_BACKUP_BEGIN", out, progressDialog::setProgress);
                 } catch (Exception e) {
                     this.error = e;
                 }
@@ -753,7 +743,7 @@ public class AdminUiHandlers {
 
             @Override
             protected void done() {
-                progressDialog.dispose();
+                progressDialog.close();
                 if (this.error != null) {
                     javax.swing.JOptionPane.showMessageDialog(null, this.error.getMessage(), "Backup Failed", javax.swing.JOptionPane.ERROR_MESSAGE);
                     System.err.println("CLIENT ERROR: DB Backup: " + this.error.getMessage());
@@ -763,7 +753,7 @@ public class AdminUiHandlers {
             }
         };
         worker.execute();
-        progressDialog.setVisible(true);
+        progressDialog.showDialog();
     }
 
     /**
@@ -788,11 +778,12 @@ public class AdminUiHandlers {
             java.nio.file.Path in = fc.getSelectedFile().toPath();
 
             final javax.swing.JDialog progressDialog = new javax.swing.JDialog((java.awt.Frame) null, "Restoring...", true);
-            final javax.swing.JProgressBar pb = new javax.swing.JProgressBar();
-            pb.setIndeterminate(true);
+            final javax.swing.JProgressBar pb = new javax.swing.JProgressBar(0, 100);
+            pb.setStringPainted(true);
             progressDialog.getContentPane().add(pb);
             progressDialog.setSize(300, 60);
             progressDialog.setLocationRelativeTo(null);
+            final long total = java.nio.file.Files.size(in);
 
             javax.swing.SwingWorker<String, Void> worker = new javax.swing.SwingWorker<>() {
                 private Exception error = null;
@@ -800,11 +791,18 @@ public class AdminUiHandlers {
                 @Override
                 protected String doInBackground() {
                     try {
-                        byte[] data = java.nio.file.Files.readAllBytes(in);
-                        String b64 = java.util.Base64.getEncoder().encodeToString(data);
-                        String request = "DB_RESTORE:BASE64:" + b64;
-                        String resp = edu.univ.erp.api.ClientRequest.send(request);
-                        return resp;
+                        // Streamed in chunks; the bar follows the upload, then the server-side restore.
+                        edu.univ.erp.api.ChunkedUploader.uploadFile(in, "DB_RESTORE", new String[0], sent ->
+                                javax.swing.SwingUtilities.invokeLater(() -> {
+                                    pb.setValue((int) (sent * 100 / Math.max(1, total)));
+                                    pb.setString("Uploading " + pb.getValue() + "%");
+                                }));
+                        return new edu.univ.erp.api.admin.AdminAPI().awaitRestore(p ->
+                                javax.swing.SwingUtilities.invokeLater(() -> {
+                                    if (!p.has("percent")) return;
+                                    pb.setValue((int) p.get("percent").getAsDouble());
+                                    pb.setString("Restoring " + pb.getValue() + "% (" + p.get("statements").getAsLong() + " statements)");
+                                }));
                     } catch (Exception e) {
                         this.error = e;
                         return null;
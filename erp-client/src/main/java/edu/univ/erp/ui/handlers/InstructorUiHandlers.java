@@ -128,19 +128,17 @@ public class InstructorUiHandlers {
                 return;
             }
 
-            for (edu.univ.erp.domain.EnrollmentRecord student : roster) {
-                try {
-                    int enrollmentId = student.getEnrollmentId();
-                    instructorActions.computeFinalGrade(instructorId, enrollmentId);
-                } catch (Exception e) {
-                    // errors are surfaced via dialog below; no CLI logging
-                }
+            // One request and one server-side transaction for the whole section.
+            java.util.Map<String, Integer> distribution = instructorActions.computeFinalGradesForSection(sectionId);
+            int graded = 0;
+            StringBuilder summary = new StringBuilder();
+            for (java.util.Map.Entry<String, Integer> d : distribution.entrySet()) {
+                graded += d.getValue();
+                if (d.getValue() > 0) summary.append('\n').append(d.getKey()).append(": ").append(d.getValue());
             }
 
-            roster = instructorActions.getRoster(instructorId, sectionId);
-
             javax.swing.JOptionPane.showMessageDialog(null,
-                    "Final grades computed for all " + roster.size() + " students in section " + sectionId + ".",
+                    "Final grades computed for all " + graded + " students in section " + sectionId + "." + summary,
                     "Final Grading Complete",
                     javax.swing.JOptionPane.INFORMATION_MESSAGE);
         } catch (Exception e) {
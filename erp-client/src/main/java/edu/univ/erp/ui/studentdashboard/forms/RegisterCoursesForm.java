@@ -293,7 +293,7 @@ public class RegisterCoursesForm extends SimpleForm {
     }
 
     private JPanel createTitlePanel() {
-        JPanel titlePanel = new JPanel(new MigLayout("insets 0, fillx", "[grow][]"));
+        JPanel titlePanel = new JPanel(new MigLayout("insets 0, fillx", "[grow][][]"));
         titlePanel.setOpaque(false);
 
         titleLabel = new JLabel("Register Courses") {
@@ -319,6 +319,18 @@ public class RegisterCoursesForm extends SimpleForm {
         statsLabel.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 14));
         titlePanel.add(statsLabel, "alignx right");
 
+        // Registers every selected row (Ctrl/Shift-click) in one all-or-nothing request
+        JButton registerSelected = new RoundButton("Register Selected", 12);
+        registerSelected.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 12));
+        registerSelected.setForeground(Color.WHITE);
+        registerSelected.setBackground(Color.decode("#10B981"));
+        registerSelected.setBorder(BorderFactory.createEmptyBorder(6, 12, 6, 12));
+        registerSelected.setFocusPainted(false);
+        registerSelected.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        registerSelected.setToolTipText("Select several sections with Ctrl/Shift-click, then register them together");
+        registerSelected.addActionListener(e -> registerSelectedSections());
+        titlePanel.add(registerSelected, "gapleft 12");
+
         return titlePanel;
     }
 
@@ -936,6 +948,45 @@ public class RegisterCoursesForm extends SimpleForm {
         applyFilters(); // Refresh the display (will also update stats)
     }
 
+    private void registerSelectedSections() {
+        edu.univ.erp.domain.UserAuth cu = edu.univ.erp.ClientContext.getCurrentUser();
+        if (cu == null) {
+            JOptionPane.showMessageDialog(this, "Not authenticated.", "Register", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        List<CourseSection> cart = new ArrayList<>();
+        for (int viewRow : courseTable.getSelectedRows()) {
+            CourseSection cs = tableModel.courses.get(courseTable.convertRowIndexToModel(viewRow));
+            if (!cs.isRegistered) cart.add(cs);
+        }
+        if (cart.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Select one or more sections to register (Ctrl/Shift-click rows).",
+                    "Register", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        List<Integer> ids = cart.stream().map(cs -> Integer.parseInt(cs.sectionId)).collect(Collectors.toList());
+        int userId = cu.getUserId();
+        UIHelper.runAsync(() -> studentAPI.registerCourses(userId, ids), (List<StudentAPI.BatchResult> results) -> {
+            boolean all = results.stream().allMatch(r -> "REGISTERED".equals(r.status));
+            StringBuilder sb = new StringBuilder(all
+                    ? "Registered " + results.size() + " section(s):\n"
+                    : "Nothing was registered. Please fix the following and try again:\n");
+            for (StudentAPI.BatchResult r : results) {
+                if (all || !"NOT_REGISTERED".equals(r.status)) sb.append("\n- ").append(r.message);
+            }
+            if (all) {
+                for (CourseSection cs : cart) addToRegistered(cs);
+                try {
+                    javax.swing.SwingUtilities.invokeLater(() -> edu.univ.erp.ui.studentdashboard.menu.FormManager.refreshStudentViews());
+                } catch (Throwable ignore) {
+                }
+            }
+            JOptionPane.showMessageDialog(this, sb.toString(), "Register",
+                    all ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+        }, (Exception ex) -> JOptionPane.showMessageDialog(this, "Register failed: " + ex.getMessage(),
+                "Register", JOptionPane.ERROR_MESSAGE));
+    }
+
     // Update the stats label to reflect current available courses (filtered rows if table exists)
     private void updateStats() {
         if (statsLabel == null) {
@@ -1330,7 +1381,10 @@ public class RegisterCoursesForm extends SimpleForm {
 
         private void updateButtons(JTable table, Object value, boolean isSelected) {
             CourseSection course = (CourseSection) value;
-            registerButton.setVisible(!course.isRegistered && course.enrolledCount < course.capacity);
+            boolean full = course.enrolledCount >= course.capacity;
+            registerButton.setVisible(!course.isRegistered);
+            // Full sections offer the waitlist instead of registration
+            registerButton.setText(full ? "Waitlist" : "Register");
 
             // Disable / grey out register when maintenance mode is active
             boolean maintenance = false;
@@ -1344,8 +1398,8 @@ public class RegisterCoursesForm extends SimpleForm {
                 registerButton.setToolTipText("Registration is disabled during maintenance");
             } else {
                 registerButton.setEnabled(true);
-                registerButton.setBackground(Color.decode("#10B981"));
-                registerButton.setToolTipText(null);
+                registerButton.setBackground(Color.decode(full ? "#F59E0B" : "#10B981"));
+                registerButton.setToolTipText(full ? "Section is full: join the waitlist" : null);
             }
 
             panel.setBackground(isSelected ? table.getSelectionBackground() : table.getBackground());
@@ -1369,10 +1423,6 @@ public class RegisterCoursesForm extends SimpleForm {
             registerButton.addActionListener(e -> {
                 fireEditingStopped();
                 CourseSection cs = (CourseSection) value;
-                if (cs.enrolledCount >= cs.capacity) {
-                    JOptionPane.showMessageDialog(table, "Cannot register: section is full.", "Register", JOptionPane.WARNING_MESSAGE);
-                    return;
-                }
                 // get current user id
                 edu.univ.erp.domain.UserAuth cu = edu.univ.erp.ClientContext.getCurrentUser();
                 if (cu == null) {
@@ -1380,6 +1430,11 @@ public class RegisterCoursesForm extends SimpleForm {
                     return;
                 }
                 int userId = cu.getUserId();
+                if (cs.enrolledCount >= cs.capacity) {
+                    // Queue once instead of retrying; the server registers us when a seat opens.
+                    offerWaitlist(table, userId, cs);
+                    return;
+                }
 
                 UIHelper.runAsync(() -> {
                     // background: call register API
@@ -1414,6 +1469,10 @@ public class RegisterCoursesForm extends SimpleForm {
                     }
 
                     String lower = msg.toLowerCase();
+                    if (lower.startsWith("section is full")) {
+                        offerWaitlist(table, userId, cs);
+                        return;
+                    }
                     // Map various server error messages to a user-friendly completed message
                     if (lower.contains("completed") || lower.contains("already completed") || lower.contains("you have completed")
                             || (msg.contains("Duplicate entry") && msg.contains("enrollments.uq_student_section"))) {
@@ -1427,6 +1486,19 @@ public class RegisterCoursesForm extends SimpleForm {
             return panel;
         }
 
+        private void offerWaitlist(JTable table, int userId, CourseSection cs) {
+            int choice = JOptionPane.showConfirmDialog(table,
+                    "Section " + cs.sectionId + " is full.\nJoin the waitlist? You will be registered automatically and notified when a seat opens.",
+                    "Section Full", JOptionPane.YES_NO_OPTION);
+            if (choice != JOptionPane.YES_OPTION) return;
+            UIHelper.runAsync(() -> studentAPI.joinWaitlist(userId, Integer.parseInt(cs.sectionId)),
+                    (Integer position) -> JOptionPane.showMessageDialog(table,
+                            "You are #" + position + " on the waitlist for section " + cs.sectionId + ".",
+                            "Waitlist", JOptionPane.INFORMATION_MESSAGE),
+                    (Exception ex) -> JOptionPane.showMessageDialog(table,
+                            "Could not join the waitlist: " + ex.getMessage(), "Waitlist", JOptionPane.ERROR_MESSAGE));
+        }
+
         @Override
         public Object getCellEditorValue() {
             return null;
@@ -0,0 +1,154 @@
+package edu.univ.erp.access;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import edu.univ.erp.dao.instructor.InstructorDAO;
+import edu.univ.erp.domain.UserAuth;
+
+/**
+ * Authorization state of one logged-in session, built at LOGIN and passed down to the services
+ * that check it: the role (already on the
+ * UserAuth, so admin checks need no users_auth lookup) and, for instructors, the set of sections
+ * they teach. Ownership checks are then memory lookups.
+ *
+ * Section ownership is cached per instructor behind a global version. Anything that changes
+ * who teaches what (section creation, REASSIGN_INSTRUCTOR, a DB restore) calls
+ * {@link #ownershipChanged()}, and every session reloads its set on its next check; sets older than
+ * {@code erp.authz.ttlMs} (default 60000) are reloaded too, for edits made outside the server. The
+ * enrollment-to-section map is filled lazily and shared: an enrollment never moves to another
+ * section, so it is only cleared by {@link #ownershipChanged()} (restores reuse ids) or when it
+ * grows past {@code erp.authz.maxEnrollments} (default 200000).
+ */
+public final class AuthorizationContext {
+
+    private static final AtomicLong ownershipVersion = new AtomicLong();
+    private static final Map<Integer, Owned> ownedByInstructor = new ConcurrentHashMap<>();
+    private static final Map<Integer, Integer> sectionOfEnrollment = new ConcurrentHashMap<>();
+    private static final int MAX_ENROLLMENTS = Integer.getInteger("erp.authz.maxEnrollments", 200000);
+    private static final long TTL_NANOS = Long.getLong("erp.authz.ttlMs", 60000L) * 1_000_000L;
+    private static final InstructorDAO instructorDAO = new InstructorDAO();
+
+    private static final LongAdder memoryChecks = new LongAdder();
+    private static final LongAdder sectionLoads = new LongAdder();
+    private static final LongAdder enrollmentLookups = new LongAdder();
+    private static final LongAdder invalidations = new LongAdder();
+
+    private record Owned(long version, long loadedAtNanos, Set<Integer> sections) { }
+
+    private final int userId;
+    private final String role;
+
+    private AuthorizationContext(int userId, String role) {
+        this.userId = userId;
+        this.role = role;
+    }
+
+    /** Context for a user that just logged in; instructors get their sections loaded now. */
+    public static AuthorizationContext forUser(UserAuth user) {
+        AuthorizationContext ctx = new AuthorizationContext(user.getUserId(), user.getRole());
+        if (ctx.isInstructor()) {
+            try {
+                sectionsOf(ctx.userId);
+            } catch (SQLException e) {
+                // Not fatal for LOGIN: the first ownership check retries the load.
+                java.util.logging.Logger.getLogger(AuthorizationContext.class.getName())
+                        .warning("Could not preload sections of instructor " + ctx.userId + ": " + e.getMessage());
+            }
+        }
+        return ctx;
+    }
+
+    /** Section ownership changed somewhere; every cached ownership set is stale. */
+    public static void ownershipChanged() {
+        ownershipVersion.incrementAndGet();
+        ownedByInstructor.clear();
+        sectionOfEnrollment.clear();
+        invalidations.increment();
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public boolean isAdmin() {
+        return "ADMIN".equalsIgnoreCase(role);
+    }
+
+    public boolean isInstructor() {
+        return "INSTRUCTOR".equalsIgnoreCase(role);
+    }
+
+    /** The session's own user or an admin may act on {@code targetUserId}'s data. */
+    public boolean actsFor(int targetUserId) {
+        memoryChecks.increment();
+        return userId == targetUserId || isAdmin();
+    }
+
+    /** This session's user teaches the section. */
+    public boolean ownsSection(int sectionId) {
+        return isInstructor() && teaches(userId, sectionId);
+    }
+
+    /** This session's user teaches the section of the enrollment. */
+    public boolean ownsEnrollment(int enrollmentId) {
+        return isInstructor() && teachesEnrollment(userId, enrollmentId);
+    }
+
+    // ------------------------------------------------------------------ shared cache
+
+    private static boolean teaches(int instructorId, int sectionId) {
+        try {
+            memoryChecks.increment();
+            return sectionsOf(instructorId).contains(sectionId);
+        } catch (SQLException e) {
+            throw new RuntimeException("DB_ERROR:Failed to verify instructor assignment: " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean teachesEnrollment(int instructorId, int enrollmentId) {
+        try {
+            Integer sectionId = sectionOfEnrollment.get(enrollmentId);
+            if (sectionId == null) {
+                enrollmentLookups.increment();
+                sectionId = instructorDAO.getSectionIdOfEnrollment(enrollmentId);
+                if (sectionId == null) return false; // not cached: the enrollment may be created later
+                if (sectionOfEnrollment.size() >= MAX_ENROLLMENTS) sectionOfEnrollment.clear();
+                sectionOfEnrollment.put(enrollmentId, sectionId);
+            }
+            return teaches(instructorId, sectionId);
+        } catch (SQLException e) {
+            throw new RuntimeException("DB_ERROR:Failed to verify instructor enrollment: " + e.getMessage(), e);
+        }
+    }
+
+    private static Set<Integer> sectionsOf(int instructorId) throws SQLException {
+        long version = ownershipVersion.get();
+        Owned owned = ownedByInstructor.get(instructorId);
+        if (owned == null || owned.version() != version || System.nanoTime() - owned.loadedAtNanos() > TTL_NANOS) {
+            // Tagged with the version read before the query: a change during the load forces another one.
+            owned = new Owned(version, System.nanoTime(), Set.copyOf(instructorDAO.getSectionIdsByInstructor(instructorId)));
+            sectionLoads.increment();
+            if (ownershipVersion.get() == version) ownedByInstructor.put(instructorId, owned);
+        }
+        return owned.sections();
+    }
+
+    /** Counters for GET_SERVER_STATS. */
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ownershipVersion", ownershipVersion.get());
+        stats.put("instructorsCached", ownedByInstructor.size());
+        stats.put("enrollmentsCached", sectionOfEnrollment.size());
+        stats.put("memoryChecks", memoryChecks.sum());
+        stats.put("sectionLoads", sectionLoads.sum());
+        stats.put("enrollmentLookups", enrollmentLookups.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+}
@@ -128,6 +128,9 @@ public class AdminDAO {
             }
 
             conn.commit();
+            edu.univ.erp.dao.course.CatalogSnapshot.getInstance().invalidate();
+            edu.univ.erp.dao.enrollment.SeatAllocator.getInstance().invalidate();
+            edu.univ.erp.access.AuthorizationContext.ownershipChanged();
             return true;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "AdminDAO createCourseAndSection error: " + e.getMessage(), e);
@@ -166,6 +169,9 @@ public class AdminDAO {
             stmtSection.setString(6, course.getSemester());
             stmtSection.setInt(7, course.getYear());
             stmtSection.executeUpdate();
+            edu.univ.erp.dao.course.CatalogSnapshot.getInstance().invalidate();
+            edu.univ.erp.dao.enrollment.SeatAllocator.getInstance().invalidate();
+            edu.univ.erp.access.AuthorizationContext.ownershipChanged();
             return true;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "AdminDAO createSection error: " + e.getMessage(), e);
@@ -341,6 +347,15 @@ public class AdminDAO {
             stmt.setInt(1, newInstructorId);
             stmt.setInt(2, sectionId);
             int updated = stmt.executeUpdate();
+            if (updated > 0) {
+                // instructor name is part of the catalog rows
+                edu.univ.erp.dao.course.CatalogSnapshot.getInstance().invalidate();
+                edu.univ.erp.dao.enrollment.SeatAllocator.getInstance().invalidate();
+                // ...and of every enrolled student's cached timetable
+                edu.univ.erp.dao.grade.AcademicSummaryCache.getInstance().invalidateAll();
+                // ...and of who may grade the section
+                edu.univ.erp.access.AuthorizationContext.ownershipChanged();
+            }
             return updated > 0;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "AdminDAO reassignInstructor error: " + e.getMessage(), e);
@@ -31,6 +31,9 @@ public class AuthDAO {
     private static final String UPDATE_HASH_SQL = 
         "UPDATE users_auth SET password_hash = ? WHERE user_id = ?";
 
+    private static final String UPDATE_HASH_IF_UNCHANGED_SQL =
+        "UPDATE users_auth SET password_hash = ? WHERE user_id = ? AND password_hash = ?";
+
     // SQL for lockout management (5 attempts max)
     private static final String UPDATE_ATTEMPTS_SUCCESS_SQL = 
         "UPDATE users_auth SET failed_attempts = 0, locked_until = NULL WHERE user_id = ?";
@@ -44,6 +47,15 @@ public class AuthDAO {
     private static final String UPDATE_LAST_LOGIN_SQL =
         "UPDATE users_auth SET last_login = CURRENT_TIMESTAMP WHERE user_id = ?";
 
+    // Successful login bookkeeping in one statement; the timestamp is computed by the caller
+    private static final String LOGIN_SUCCESS_SQL =
+        "UPDATE users_auth SET failed_attempts = 0, locked_until = NULL, last_login = ? WHERE user_id = ?";
+
+    // Deferred (write-behind) bookkeeping: last_login only, never older than what is stored. It must
+    // not touch the lockout columns, which failed attempts may have set since the login it records.
+    private static final String DEFERRED_LAST_LOGIN_SQL =
+        "UPDATE users_auth SET last_login = ? WHERE user_id = ? AND (last_login IS NULL OR last_login < ?)";
+
     /**
      * Helper method to map a ResultSet row to the AuthDetails record.
      */
@@ -118,6 +130,24 @@ public class AuthDAO {
         }
     }
 
+    /**
+     * Replaces the hash only if it is still {@code expectedOldHash}, so a background rehash never
+     * overwrites a password changed in the meantime.
+     * @return true if the row was updated
+     */
+    public boolean updatePasswordHash(int userId, String newHash, String expectedOldHash) {
+        try (Connection conn = DBConnector.getAuthConnection();
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_HASH_IF_UNCHANGED_SQL)) {
+            stmt.setString(1, newHash);
+            stmt.setInt(2, userId);
+            stmt.setString(3, expectedOldHash);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("DB Error rehashing password for ID: " + userId + ". " + e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * NEW: Updates lockout metrics upon a successful or failed login.
      * Lockout is set for 30 minutes if failed_attempts >= 5.
@@ -155,4 +185,46 @@ public class AuthDAO {
             System.err.println("DB Error updating last_login for ID: " + userId + ". " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Records a successful login in one round trip: resets the lockout counters and sets
+     * last_login to {@code at} (replaces updateLoginAttempts(true) + updateLastLogin + a re-read).
+     */
+    public void recordLoginSuccess(int userId, LocalDateTime at) {
+        try (Connection conn = DBConnector.getAuthConnection();
+             PreparedStatement stmt = conn.prepareStatement(LOGIN_SUCCESS_SQL)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(at));
+            stmt.setInt(2, userId);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("DB Error recording login for ID: " + userId + ". " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sets last_login for many users in one batch (write-behind flushes). Unlike
+     * {@link #recordLoginSuccess} it leaves failed_attempts and locked_until alone, so a lockout
+     * that happened after a deferred login survives the flush.
+     * @throws SQLException so the caller can keep the entries for the next flush
+     */
+    public void recordLastLogins(java.util.Map<Integer, LocalDateTime> logins) throws SQLException {
+        if (logins.isEmpty()) return;
+        try (Connection conn = DBConnector.getAuthConnection()) {
+            recordLastLogins(conn, logins);
+        }
+    }
+
+    /** The write-behind batch on a connection the caller owns. */
+    void recordLastLogins(Connection conn, java.util.Map<Integer, LocalDateTime> logins) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(DEFERRED_LAST_LOGIN_SQL)) {
+            for (java.util.Map.Entry<Integer, LocalDateTime> e : logins.entrySet()) {
+                Timestamp at = Timestamp.valueOf(e.getValue());
+                stmt.setTimestamp(1, at);
+                stmt.setInt(2, e.getKey());
+                stmt.setTimestamp(3, at);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package edu.univ.erp.dao.auth;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes successful-login bookkeeping (lockout reset + last_login) for AuthService.
+ *
+ * By default each login writes its row at once with {@link AuthDAO#recordLoginSuccess}. With
+ * {@code -Derp.auth.loginWriteBehind=true}, logins of accounts that have nothing to reset
+ * (no failed attempts, not locked) are coalesced per user and their last_login is written in one
+ * batch on a single thread after {@code erp.auth.writeBehindMs} (default 200 ms), so a login wave
+ * costs the auth pool one connection per batch instead of one per login. The batch sets only
+ * last_login ({@link AuthDAO#recordLastLogins}); accounts with failed attempts are reset
+ * immediately, so a deferred write can never clear a lockout set after the login.
+ * A crash loses at most the pending last_login values; {@link #flush()} runs on shutdown.
+ */
+public final class LoginBookkeeping {
+    private static final Logger LOGGER = Logger.getLogger(LoginBookkeeping.class.getName());
+    private static final LoginBookkeeping INSTANCE = new LoginBookkeeping(new AuthDAO(),
+            Boolean.getBoolean("erp.auth.loginWriteBehind"), Long.getLong("erp.auth.writeBehindMs", 200L));
+
+    private final boolean writeBehind;
+    private final long delayMs;
+    private final AuthDAO authDAO;
+    private final Map<Integer, LocalDateTime> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final LongAdder immediateWrites = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "erp-login-bookkeeping");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Bookkeeping with its own settings and DAO, e.g. a benchmark that compares write-behind with
+     * immediate writes in one run. The server uses {@link #getInstance()}.
+     */
+    public LoginBookkeeping(AuthDAO authDAO, boolean writeBehind, long delayMs) {
+        this.authDAO = authDAO;
+        this.writeBehind = writeBehind;
+        this.delayMs = delayMs;
+    }
+
+    public static LoginBookkeeping getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Records a successful login at {@code at}.
+     * @param hadFailures the account had failed attempts or a lockout to clear
+     */
+    public void recordSuccess(int userId, LocalDateTime at, boolean hadFailures) {
+        if (writeBehind && !hadFailures) {
+            defer(userId, at);
+        } else {
+            authDAO.recordLoginSuccess(userId, at);
+            immediateWrites.increment();
+        }
+    }
+
+    private void defer(int userId, LocalDateTime at) {
+        pending.merge(userId, at, (a, b) -> a.isAfter(b) ? a : b);
+        deferred.increment();
+        if (scheduled.compareAndSet(false, true)) {
+            executor.schedule(this::runBatch, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void runBatch() {
+        scheduled.set(false);
+        flush();
+        if (!pending.isEmpty() && scheduled.compareAndSet(false, true)) {
+            executor.schedule(this::runBatch, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Writes everything pending now. */
+    public synchronized void flush() {
+        if (pending.isEmpty()) return;
+        Map<Integer, LocalDateTime> batch = new HashMap<>(pending);
+        try {
+            authDAO.recordLastLogins(batch);
+            // Drop only what was written; a newer login of the same user stays for the next batch.
+            batch.forEach(pending::remove);
+            batches.increment();
+            rowsWritten.add(batch.size());
+        } catch (Exception e) {
+            failures.increment();
+            LOGGER.log(Level.WARNING, "SERVER LOG: Login bookkeeping batch of " + batch.size()
+                    + " failed, will retry: " + e.getMessage());
+        }
+    }
+
+    /** Counters for GET_SERVER_STATS. */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("writeBehind", writeBehind);
+        stats.put("pending", pending.size());
+        stats.put("immediateWrites", immediateWrites.sum());
+        stats.put("deferred", deferred.sum());
+        stats.put("batches", batches.sum());
+        stats.put("rowsWritten", rowsWritten.sum());
+        stats.put("failures", failures.sum());
+        return stats;
+    }
+}
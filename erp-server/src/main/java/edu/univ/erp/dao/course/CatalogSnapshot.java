@@ -0,0 +1,279 @@
+package edu.univ.erp.dao.course;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.gson.Gson;
+
+import edu.univ.erp.domain.CourseCatalog;
+import edu.univ.erp.util.ResponseCache;
+import edu.univ.erp.util.TimeSlot;
+
+/**
+ * In-memory course catalog served to GET_CATALOG without touching MySQL.
+ *
+ * The snapshot is an immutable list of catalog rows (as produced by the catalog query) plus
+ * one atomic enrolled counter per section. Enrollment changes adjust the counters after their
+ * transaction commits ({@link #onSeatTaken(int)}, {@link #onSeatReleased(int)}); structural
+ * changes (new sections, instructor reassignment, restores) call {@link #invalidate()} and the
+ * next reader reloads. The JSON payload is serialized once per version and reused until the
+ * next change.
+ *
+ * A background reconciliation job ({@code erp.catalog.reconcileMs}, default 60 s) re-runs the
+ * catalog query, logs any counter drift against the database and replaces the snapshot.
+ */
+public final class CatalogSnapshot {
+    private static final Logger LOGGER = Logger.getLogger(CatalogSnapshot.class.getName());
+    private static final CatalogSnapshot INSTANCE = new CatalogSnapshot(new CourseDAO());
+    private static final int MAX_RELOAD_ATTEMPTS = 3;
+
+    private record Section(CourseCatalog row, AtomicInteger enrolled) { }
+
+    private record State(List<Section> sections, Map<Integer, Section> bySectionId) { }
+
+    private record Json(long version, ResponseCache.Entry entry) { }
+
+    private final CourseDAO courseDAO;
+    private final Gson gson = new Gson();
+    // Bumped by every change to counters or structure; used to detect writes racing a reload.
+    private final AtomicLong version = new AtomicLong();
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder unsettledReloads = new LongAdder();
+    private final LongAdder jsonBuilds = new LongAdder();
+    private final LongAdder reconciliations = new LongAdder();
+    private volatile State state;
+    private volatile boolean stale = true;
+    private volatile Json json;
+    private volatile String lastDrift = "none";
+    private ScheduledExecutorService reconciler;
+
+    CatalogSnapshot(CourseDAO courseDAO) {
+        this.courseDAO = courseDAO;
+    }
+
+    public static CatalogSnapshot getInstance() {
+        return INSTANCE;
+    }
+
+    /** Catalog rows with current enrolled counts, in catalog order. */
+    public List<CourseCatalog> getCatalog() throws SQLException {
+        State s = current();
+        List<CourseCatalog> out = new ArrayList<>(s.sections().size());
+        for (Section sec : s.sections()) out.add(withCount(sec));
+        return out;
+    }
+
+    /** Pre-serialized JSON array for GET_CATALOG; rebuilt at most once per change. */
+    public String getCatalogJson() throws SQLException {
+        return getCatalogEntry().payload();
+    }
+
+    /** The GET_CATALOG payload together with its content token (for IF_NONE_MATCH). */
+    public ResponseCache.Entry getCatalogEntry() throws SQLException {
+        State s = current();
+        Json j = json;
+        long v = version.get();
+        if (j != null && j.version() == v) return j.entry();
+        synchronized (this) {
+            s = current();
+            j = json;
+            v = version.get();
+            if (j != null && j.version() == v) return j.entry();
+            List<CourseCatalog> rows = new ArrayList<>(s.sections().size());
+            for (Section sec : s.sections()) rows.add(withCount(sec));
+            String payload = gson.toJson(rows);
+            jsonBuilds.increment();
+            // Counters may have moved while serializing; tag with the version read before, so the
+            // next reader rebuilds if anything changed.
+            Json built = new Json(v, new ResponseCache.Entry(ResponseCache.tokenFor(payload), payload));
+            json = built;
+            return built.entry();
+        }
+    }
+
+    /** Single section with its current count, or null when it is not in the catalog. */
+    public CourseCatalog getSection(int sectionId) throws SQLException {
+        Section sec = current().bySectionId().get(sectionId);
+        return sec == null ? null : withCount(sec);
+    }
+
+    /** Monotonic change counter; changes whenever the catalog payload may have changed. */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /** A registration for the section committed. */
+    public void onSeatTaken(int sectionId) {
+        adjust(sectionId, 1);
+    }
+
+    /** A registration for the section was dropped or completed. */
+    public void onSeatReleased(int sectionId) {
+        adjust(sectionId, -1);
+    }
+
+    /** Sections were added or changed; the next reader reloads from the database. */
+    public void invalidate() {
+        stale = true;
+        version.incrementAndGet();
+    }
+
+    private void adjust(int sectionId, int delta) {
+        State s = state;
+        version.incrementAndGet();
+        if (s == null) return;
+        Section sec = s.bySectionId().get(sectionId);
+        if (sec != null) {
+            sec.enrolled().addAndGet(delta);
+        } else {
+            // Not in the snapshot (e.g. created outside this server); pick it up on next read.
+            stale = true;
+        }
+    }
+
+    private State current() throws SQLException {
+        State s = state;
+        if (s != null && !stale) return s;
+        synchronized (this) {
+            if (state == null || stale) reload();
+            return state;
+        }
+    }
+
+    /**
+     * Reloads from the database. A counter change that commits while the catalog query runs
+     * could be missing from the rows read, so the load is retried when the version moved. If it
+     * still moved on the last attempt the rows are installed (so this reader is served) but left
+     * marked stale, and the next reader reloads instead of trusting counts that may miss a change.
+     * @return the state that was replaced (null on first load)
+     */
+    private synchronized State reload() throws SQLException {
+        State previous = state;
+        for (int attempt = 1; ; attempt++) {
+            stale = false;
+            long before = version.get();
+            List<CourseCatalog> rows = courseDAO.loadCourseCatalog();
+            if (version.get() != before && attempt < MAX_RELOAD_ATTEMPTS) continue;
+            List<Section> sections = new ArrayList<>(rows.size());
+            Map<Integer, Section> byId = new HashMap<>();
+            for (CourseCatalog row : rows) {
+                Section sec = new Section(row, new AtomicInteger(row.getEnrolledCount()));
+                // Compile the slot once here so registration conflict checks never parse strings.
+                TimeSlot.of(row.getDayTime());
+                sections.add(sec);
+                byId.put(row.getSectionId(), sec);
+            }
+            state = new State(Collections.unmodifiableList(sections), Collections.unmodifiableMap(byId));
+            if (version.get() != before) {
+                stale = true;
+                unsettledReloads.increment();
+            }
+            version.incrementAndGet();
+            reloads.increment();
+            return previous;
+        }
+    }
+
+    /**
+     * Re-derives all counts from the database, reports sections whose in-memory count drifted,
+     * and installs the fresh snapshot.
+     * @return number of sections whose counter differed from the database
+     */
+    public int reconcile() throws SQLException {
+        long versionBefore = version.get();
+        Map<Integer, Integer> before = new HashMap<>();
+        State old = state;
+        if (old != null) {
+            for (Section sec : old.sections()) before.put(sec.row().getSectionId(), sec.enrolled().get());
+        }
+        State fresh;
+        synchronized (this) {
+            reload();
+            fresh = state;
+        }
+        reconciliations.increment();
+        if (old == null) return 0;
+        // Only meaningful if nothing moved between sampling the counters and the reload.
+        if (version.get() != versionBefore + 1) {
+            lastDrift = "skipped (concurrent updates)";
+            return 0;
+        }
+        int drifted = 0;
+        StringBuilder sb = new StringBuilder();
+        for (Section sec : fresh.sections()) {
+            int sid = sec.row().getSectionId();
+            Integer mem = before.get(sid);
+            int db = sec.row().getEnrolledCount();
+            if (mem == null || mem != db) {
+                drifted++;
+                if (sb.length() < 512) sb.append(sid).append(": memory=").append(mem).append(" db=").append(db).append("; ");
+            }
+        }
+        if (before.size() != fresh.sections().size()) {
+            sb.append("sections memory=").append(before.size()).append(" db=").append(fresh.sections().size());
+        }
+        lastDrift = drifted == 0 && sb.length() == 0 ? "none" : sb.toString();
+        if (drifted > 0) {
+            String report = lastDrift;
+            LOGGER.warning(() -> "SERVER LOG: Catalog reconciliation corrected drift in " + report);
+        }
+        return drifted;
+    }
+
+    /** Loads the snapshot (best-effort) and starts the periodic reconciliation job. */
+    public synchronized void start() {
+        try {
+            current();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "SERVER LOG: Catalog snapshot not loaded at startup; will load on first request. " + e.getMessage());
+        }
+        long periodMs = Long.getLong("erp.catalog.reconcileMs", 60000L);
+        if (reconciler != null || periodMs <= 0) return;
+        reconciler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "erp-catalog-reconciler");
+            t.setDaemon(true);
+            return t;
+        });
+        reconciler.scheduleWithFixedDelay(() -> {
+            try {
+                reconcile();
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "SERVER LOG: Catalog reconciliation failed: " + e.getMessage());
+            }
+        }, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Counters for GET_SERVER_STATS. */
+    public Map<String, Object> getStats() {
+        State s = state;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sections", s == null ? 0 : s.sections().size());
+        stats.put("version", version.get());
+        stats.put("reloads", reloads.sum());
+        stats.put("unsettledReloads", unsettledReloads.sum());
+        stats.put("jsonBuilds", jsonBuilds.sum());
+        stats.put("reconciliations", reconciliations.sum());
+        stats.put("lastDrift", lastDrift);
+        return stats;
+    }
+
+    private static CourseCatalog withCount(Section sec) {
+        CourseCatalog r = sec.row();
+        return new CourseCatalog(r.getCourseCode(), r.getCourseTitle(), r.getCredits(), r.getSectionId(),
+                r.getDayTime(), r.getRoom(), r.getCapacity(), sec.enrolled().get(), r.getSemester(), r.getYear(),
+                r.getInstructorId(), r.getInstructorName(), r.getEnrollmentStatus());
+    }
+}
@@ -58,8 +58,20 @@ public class CourseDAO {
      * @return A list of CourseCatalog objects.
      */
     public List<CourseCatalog> getCourseCatalog() {
-        List<CourseCatalog> catalog = new ArrayList<>();
+        try {
+            return loadCourseCatalog();
+        } catch (SQLException e) {
+            System.err.println("DB Error fetching course catalog: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
 
+    /**
+     * Same as {@link #getCourseCatalog()} but reports database errors to the caller
+     * (used by {@link CatalogSnapshot}, which must not mistake an outage for an empty catalog).
+     */
+    public List<CourseCatalog> loadCourseCatalog() throws SQLException {
+        List<CourseCatalog> catalog = new ArrayList<>();
         try (Connection conn = DBConnector.getErpConnection();
              PreparedStatement stmt = conn.prepareStatement(GET_CATALOG_SQL);
              ResultSet rs = stmt.executeQuery()) {
@@ -67,8 +79,6 @@ public class CourseDAO {
             while (rs.next()) {
                 catalog.add(mapResultSetToCourseCatalog(rs));
             }
-        } catch (SQLException e) {
-            System.err.println("DB Error fetching course catalog: " + e.getMessage());
         }
         return catalog;
     }
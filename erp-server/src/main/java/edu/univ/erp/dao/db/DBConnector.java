@@ -29,6 +29,7 @@ public final class DBConnector {
         authCfg.setMaxLifetime(Long.parseLong(System.getProperty("erp.auth.maxLifetime", "1800000"))); // 30min
         authCfg.setLeakDetectionThreshold(Long.parseLong(System.getProperty("erp.auth.leakThreshold", "5000"))); // 5s
         // driver tuning
+        authCfg.addDataSourceProperty("rewriteBatchedStatements", "true"); // batched login bookkeeping in one statement
         authDs = new HikariDataSource(authCfg);
 
         // ERP DB pool
@@ -46,6 +47,7 @@ public final class DBConnector {
         erpCfg.addDataSourceProperty("cachePrepStmts", "true"); // enable prepared statement caching
         erpCfg.addDataSourceProperty("prepStmtCacheSize", "250"); // number of prepared statements to cache
         erpCfg.addDataSourceProperty("prepStmtCacheSqlLimit", "2048"); // max length of prepared SQL statements to cache
+        erpCfg.addDataSourceProperty("rewriteBatchedStatements", "true"); // send executeBatch() as multi-row statements
         erpDs = new HikariDataSource(erpCfg);
     }
 
@@ -59,6 +61,49 @@ public final class DBConnector {
         return erpDs.getConnection();
     }
 
+    /** Maximum size of the auth pool ({@code erp.auth.maxPool}). */
+    public static int getAuthMaxPool() {
+        return Integer.parseInt(System.getProperty("erp.auth.maxPool", "5"));
+    }
+
+    /** Maximum size of the ERP pool ({@code erp.maxPool}). */
+    public static int getErpMaxPool() {
+        return Integer.parseInt(System.getProperty("erp.maxPool", "10"));
+    }
+
+    /**
+     * Retires a borrowed connection whose session state could not be restored; the pool closes
+     * it instead of lending it out again. The caller still closes it as usual.
+     */
+    public static void evictAuthConnection(Connection conn) {
+        if (authDs != null) authDs.evictConnection(conn);
+    }
+
+    public static void evictErpConnection(Connection conn) {
+        if (erpDs != null) erpDs.evictConnection(conn);
+    }
+
+    /** Active / idle / total connections and waiting threads per pool, for GET_SERVER_STATS and benchmarks. */
+    public static java.util.Map<String, Object> getPoolStats() {
+        java.util.Map<String, Object> stats = new java.util.LinkedHashMap<>();
+        stats.put("auth", poolStats(authDs, "erp.auth.maxPool", "5"));
+        stats.put("erp", poolStats(erpDs, "erp.maxPool", "10"));
+        return stats;
+    }
+
+    private static java.util.Map<String, Object> poolStats(HikariDataSource ds, String maxProp, String maxDefault) {
+        java.util.Map<String, Object> m = new java.util.LinkedHashMap<>();
+        m.put("max", Integer.parseInt(System.getProperty(maxProp, maxDefault)));
+        com.zaxxer.hikari.HikariPoolMXBean pool = ds == null ? null : ds.getHikariPoolMXBean();
+        if (pool != null) {
+            m.put("active", pool.getActiveConnections());
+            m.put("idle", pool.getIdleConnections());
+            m.put("total", pool.getTotalConnections());
+            m.put("waiting", pool.getThreadsAwaitingConnection());
+        }
+        return m;
+    }
+
     public static void shutdown() {
         try {
             if (erpDs != null) erpDs.close();
@@ -6,8 +6,12 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiPredicate;
 
+import edu.univ.erp.dao.course.CatalogSnapshot;
 import edu.univ.erp.dao.db.DBConnector;
+import edu.univ.erp.dao.grade.AcademicSummaryCache;
+import edu.univ.erp.util.ResponseCache;
 
 public class EnrollmentDAO {
 
@@ -39,6 +43,10 @@ public class EnrollmentDAO {
     private static final String REGISTER_COURSE_SQL =
         "INSERT INTO enrollments (student_id, section_id, status) VALUES (?, ?, 'Registered')";
     
+    // Waitlist row of a promoted (or no longer eligible) student, deleted in the registration transaction
+    private static final String LEAVE_WAITLIST_SQL =
+        "DELETE FROM section_waitlist WHERE section_id = ? AND student_id = ?";
+
     // Select capacity while acquiring a row lock to prevent concurrent changes
     private static final String SELECT_SECTION_FOR_UPDATE_SQL =
         "SELECT capacity FROM sections WHERE section_id = ? FOR UPDATE";
@@ -56,6 +64,63 @@ public class EnrollmentDAO {
         "    SELECT c2.code FROM sections s2 JOIN courses c2 ON s2.course_code = c2.code WHERE s2.section_id = ?" +
         ") AND s.section_id <> ? LIMIT 1";
         
+    // Single-transaction registration: lock the section row and evaluate every eligibility rule
+    // (capacity, own enrollment, other section of the same course, completed course) in one query.
+    // FOR UPDATE OF s locks only the section, not the shared course row.
+    private static final String LOCK_SECTION_WITH_ELIGIBILITY_SQL =
+        "SELECT s.capacity, s.day_time, s.course_code, " +
+        "    (SELECT COUNT(*) FROM enrollments e WHERE e.section_id = s.section_id AND e.status = 'Registered') AS enrolled_count, " +
+        "    (SELECT e.status FROM enrollments e WHERE e.student_id = ? AND e.section_id = s.section_id LIMIT 1) AS own_status, " +
+        "    EXISTS (SELECT 1 FROM enrollments e JOIN sections s2 ON e.section_id = s2.section_id " +
+        "            WHERE e.student_id = ? AND e.status = 'Registered' AND s2.course_code = s.course_code " +
+        "              AND s2.section_id <> s.section_id) AS in_other_section, " +
+        "    EXISTS (SELECT 1 FROM enrollments e JOIN sections s2 ON e.section_id = s2.section_id " +
+        "            WHERE e.student_id = ? AND e.status = 'Completed' AND s2.course_code = s.course_code) AS completed_course " +
+        "FROM sections s WHERE s.section_id = ? FOR UPDATE OF s";
+
+    // The student's registered sections with the course details needed for a CONFLICT reply.
+    private static final String GET_STUDENT_SCHEDULE_WITH_COURSE_SQL =
+        "SELECT s.section_id, s.day_time, c.code, c.title FROM enrollments e " +
+        "JOIN sections s ON e.section_id = s.section_id " +
+        "JOIN courses c ON s.course_code = c.code " +
+        "WHERE e.student_id = ? AND e.status = 'Registered'";
+
+    // Batch variant, step 1: lock every cart section (ascending id, the PK scan order) before reading
+    // anything, so no count below comes from a snapshot taken while a later section was still contended.
+    private static final String LOCK_SECTIONS_SQL_PREFIX =
+        "SELECT s.section_id FROM sections s WHERE s.section_id IN (";
+    private static final String LOCK_SECTIONS_SQL_SUFFIX =
+        ") ORDER BY s.section_id FOR UPDATE";
+
+    // Step 2: registered counts of the locked sections as a locking (current) read.
+    private static final String COUNT_REGISTERED_LOCKING_SQL_PREFIX =
+        "SELECT e.section_id, COUNT(*) AS enrolled_count FROM enrollments e " +
+        "WHERE e.status = 'Registered' AND e.section_id IN (";
+    private static final String COUNT_REGISTERED_LOCKING_SQL_SUFFIX =
+        ") GROUP BY e.section_id FOR SHARE";
+
+    // Step 3: the student's eligibility flags per section (all rows are already locked or the student's own).
+    private static final String SECTIONS_ELIGIBILITY_SQL_PREFIX =
+        "SELECT s.section_id, s.capacity, s.day_time, s.course_code, " +
+        "    (SELECT c.title FROM courses c WHERE c.code = s.course_code) AS title, " +
+        "    (SELECT e.status FROM enrollments e WHERE e.student_id = ? AND e.section_id = s.section_id LIMIT 1) AS own_status, " +
+        "    EXISTS (SELECT 1 FROM enrollments e JOIN sections s2 ON e.section_id = s2.section_id " +
+        "            WHERE e.student_id = ? AND e.status = 'Registered' AND s2.course_code = s.course_code " +
+        "              AND s2.section_id <> s.section_id) AS in_other_section, " +
+        "    EXISTS (SELECT 1 FROM enrollments e JOIN sections s2 ON e.section_id = s2.section_id " +
+        "            WHERE e.student_id = ? AND e.status = 'Completed' AND s2.course_code = s.course_code) AS completed_course " +
+        "FROM sections s WHERE s.section_id IN (";
+    private static final String SECTIONS_ELIGIBILITY_SQL_SUFFIX =
+        ") ORDER BY s.section_id";
+
+    private static final String REACTIVATE_DROPPED_SQL =
+        "UPDATE enrollments SET status = 'Registered' WHERE student_id = ? AND section_id = ? AND status = 'Dropped'";
+
+    // Seed for SeatAllocator: capacity and registered count of one section.
+    private static final String GET_SEAT_COUNT_SQL =
+        "SELECT s.capacity, (SELECT COUNT(*) FROM enrollments e WHERE e.section_id = s.section_id AND e.status = 'Registered') AS enrolled_count " +
+        "FROM sections s WHERE s.section_id = ?";
+
     // --- NEW SQL QUERY: Update status from 'Registered' to 'Dropped' (Rule #2) ---
     private static final String DROP_COURSE_SQL =
         "UPDATE enrollments SET status = 'Dropped' WHERE student_id = ? AND section_id = ? AND status = 'Registered'";
@@ -188,6 +253,10 @@ public class EnrollmentDAO {
                         if (reactivated > 0) {
                             // Successfully reactivated a dropped enrollment
                             conn.commit();
+                            SeatAllocator.getInstance().acquire(sectionId);
+                            CatalogSnapshot.getInstance().onSeatTaken(sectionId);
+                            ResponseCache.getInstance().invalidate(ResponseCache.GET_ALL_COURSES);
+                            AcademicSummaryCache.getInstance().invalidateStudent(studentId);
                             return;
                         }
                     }
@@ -203,6 +272,10 @@ public class EnrollmentDAO {
                     }
 
             conn.commit();
+            SeatAllocator.getInstance().acquire(sectionId);
+            CatalogSnapshot.getInstance().onSeatTaken(sectionId);
+            ResponseCache.getInstance().invalidate(ResponseCache.GET_ALL_COURSES);
+            AcademicSummaryCache.getInstance().invalidateStudent(studentId);
         } catch (SQLException e) {
             if (conn != null) {
                 try { conn.rollback(); } catch (SQLException ex) { /* ignore */ }
@@ -217,6 +290,349 @@ public class EnrollmentDAO {
         }
     }
 
+    /** (capacity, registered count) for {@link SeatAllocator}, or null when the section does not exist. */
+    int[] loadSeatCount(int sectionId) throws SQLException {
+        try (Connection conn = DBConnector.getErpConnection();
+             PreparedStatement stmt = conn.prepareStatement(GET_SEAT_COUNT_SQL)) {
+            stmt.setInt(1, sectionId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) return null;
+                return new int[] { rs.getInt("capacity"), rs.getInt("enrolled_count") };
+            }
+        }
+    }
+
+    /** Outcome of {@link #registerStudentChecked}. */
+    public enum RegistrationStatus {
+        REGISTERED, SECTION_FULL, ALREADY_REGISTERED, REGISTERED_OTHER_SECTION, COURSE_COMPLETED, TIME_CONFLICT,
+        // batch only
+        SECTION_NOT_FOUND, DUPLICATE_COURSE, NOT_REGISTERED
+    }
+
+    /** A registered section of the student, as reported for a time conflict. */
+    public record ScheduledSection(int sectionId, String dayTime, String courseCode, String courseTitle) { }
+
+    /**
+     * @param courseCode course of the target section
+     * @param conflict the clashing registered section when status is TIME_CONFLICT, else null
+     */
+    public record RegistrationResult(RegistrationStatus status, String courseCode, ScheduledSection conflict) { }
+
+    /**
+     * Validates and registers in one transaction on one connection: the section row is locked and
+     * all eligibility rules are read in a single query, the student's schedule is read once for the
+     * time-conflict check, and the enrollment is inserted (or a dropped one reactivated). Rules are
+     * evaluated in the same order as the old per-check queries so callers see the same errors.
+     *
+     * @param conflicts (existingDayTime, newDayTime) -> true when the two slots overlap
+     * @throws SQLException "Section ID not found: id" when the section does not exist, or on DB errors
+     */
+    public RegistrationResult registerStudentChecked(int studentId, int sectionId,
+            BiPredicate<String, String> conflicts) throws SQLException {
+        return register(studentId, sectionId, conflicts, false);
+    }
+
+    /**
+     * Waitlist promotion: like {@link #registerStudentChecked}, but the student's waitlist row is
+     * deleted in the same transaction as the enrollment, so a promoted student is never both
+     * registered and still waiting (or removed without being registered). A student who is no
+     * longer eligible or now has a clash is removed from the waitlist. On SECTION_FULL nothing is
+     * written and the student keeps their place.
+     */
+    public RegistrationResult registerFromWaitlist(int studentId, int sectionId,
+            BiPredicate<String, String> conflicts) throws SQLException {
+        return register(studentId, sectionId, conflicts, true);
+    }
+
+    private RegistrationResult register(int studentId, int sectionId,
+            BiPredicate<String, String> conflicts, boolean leaveWaitlist) throws SQLException {
+        // A full section is rejected from the in-memory ledger without opening a transaction.
+        SeatAllocator.Reservation seat = SeatAllocator.getInstance().tryReserve(sectionId);
+        if (seat == null) {
+            return new RegistrationResult(RegistrationStatus.SECTION_FULL, null, null);
+        }
+        Connection conn = null;
+        try {
+            conn = DBConnector.getErpConnection();
+            conn.setAutoCommit(false);
+
+            String courseCode;
+            String targetDayTime;
+            String ownStatus;
+            try (PreparedStatement stmt = conn.prepareStatement(LOCK_SECTION_WITH_ELIGIBILITY_SQL)) {
+                stmt.setInt(1, studentId);
+                stmt.setInt(2, studentId);
+                stmt.setInt(3, studentId);
+                stmt.setInt(4, sectionId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        conn.rollback();
+                        throw new SQLException("Section ID not found: " + sectionId);
+                    }
+                    courseCode = rs.getString("course_code");
+                    targetDayTime = rs.getString("day_time");
+                    ownStatus = rs.getString("own_status");
+                    RegistrationStatus rejected = null;
+                    if (rs.getInt("enrolled_count") >= rs.getInt("capacity")) {
+                        rejected = RegistrationStatus.SECTION_FULL;
+                    } else if ("Registered".equalsIgnoreCase(ownStatus)) {
+                        rejected = RegistrationStatus.ALREADY_REGISTERED;
+                    } else if (rs.getBoolean("in_other_section")) {
+                        rejected = RegistrationStatus.REGISTERED_OTHER_SECTION;
+                    } else if (rs.getBoolean("completed_course")) {
+                        rejected = RegistrationStatus.COURSE_COMPLETED;
+                    }
+                    if (rejected != null) {
+                        if (leaveWaitlist && rejected != RegistrationStatus.SECTION_FULL) {
+                            leaveWaitlist(conn, studentId, sectionId);
+                            conn.commit();
+                        } else {
+                            conn.rollback();
+                        }
+                        if (rejected == RegistrationStatus.SECTION_FULL) seat.abortFull(); else seat.abort();
+                        return new RegistrationResult(rejected, courseCode, null);
+                    }
+                }
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(GET_STUDENT_SCHEDULE_WITH_COURSE_SQL)) {
+                stmt.setInt(1, studentId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        String existingTime = rs.getString("day_time");
+                        if (conflicts.test(existingTime, targetDayTime)) {
+                            ScheduledSection clash = new ScheduledSection(rs.getInt("section_id"), existingTime,
+                                    rs.getString("code"), rs.getString("title"));
+                            if (leaveWaitlist) {
+                                leaveWaitlist(conn, studentId, sectionId);
+                                conn.commit();
+                            } else {
+                                conn.rollback();
+                            }
+                            seat.abort();
+                            return new RegistrationResult(RegistrationStatus.TIME_CONFLICT, courseCode, clash);
+                        }
+                    }
+                }
+            }
+
+            // Reactivate a previously dropped row to respect the unique (student_id, section_id) key.
+            boolean dropped = "Dropped".equalsIgnoreCase(ownStatus);
+            try (PreparedStatement stmt = conn.prepareStatement(dropped ? REACTIVATE_DROPPED_SQL : REGISTER_COURSE_SQL)) {
+                stmt.setInt(1, studentId);
+                stmt.setInt(2, sectionId);
+                if (stmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    throw new SQLException("Enrollment failed, possibly due to invalid IDs.");
+                }
+            }
+
+            if (leaveWaitlist) leaveWaitlist(conn, studentId, sectionId);
+            conn.commit();
+            seat.commit();
+            CatalogSnapshot.getInstance().onSeatTaken(sectionId);
+            ResponseCache.getInstance().invalidate(ResponseCache.GET_ALL_COURSES);
+            AcademicSummaryCache.getInstance().invalidateStudent(studentId);
+            return new RegistrationResult(RegistrationStatus.REGISTERED, courseCode, null);
+        } catch (SQLException | RuntimeException e) {
+            seat.abort();
+            if (conn != null) {
+                try { conn.rollback(); } catch (SQLException ex) { /* ignore */ }
+            }
+            throw e;
+        } finally {
+            if (conn != null) try { conn.setAutoCommit(true); conn.close(); } catch (SQLException ex) { /* ignore */ }
+        }
+    }
+
+    private static void leaveWaitlist(Connection conn, int studentId, int sectionId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(LEAVE_WAITLIST_SQL)) {
+            stmt.setInt(1, sectionId);
+            stmt.setInt(2, studentId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /** Per-section outcome of {@link #registerStudentBatch}. */
+    public record BatchItem(int sectionId, RegistrationStatus status, String courseCode, ScheduledSection conflict) { }
+
+    /**
+     * All-or-nothing registration of several sections in one transaction.
+     *
+     * Sections are reserved and locked in ascending id order (one locking query for all of them), so
+     * two overlapping carts cannot deadlock. Registered counts are read only once every lock is held,
+     * with a locking read, so they are current for every section of the cart. Eligibility, clashes with the current schedule and
+     * clashes or duplicate courses within the cart are evaluated in memory; the enrollments are
+     * written and committed only if every section passes. Otherwise nothing is written and every
+     * section gets its own status (NOT_REGISTERED for sections that were fine on their own).
+     *
+     * @param sectionIds cart; duplicates are ignored
+     * @param heldBack sections that must be reported as full regardless of seats (e.g. waitlisted)
+     * @param conflicts (existingDayTime, newDayTime) -> true when the two slots overlap
+     * @return one item per distinct section, in ascending section id order
+     */
+    public List<BatchItem> registerStudentBatch(int studentId, List<Integer> sectionIds,
+            java.util.function.IntPredicate heldBack, BiPredicate<String, String> conflicts) throws SQLException {
+        List<Integer> ids = new ArrayList<>(new java.util.TreeSet<>(sectionIds));
+        java.util.Map<Integer, SeatAllocator.Reservation> seats = new java.util.LinkedHashMap<>();
+        java.util.Map<Integer, BatchItem> results = new java.util.TreeMap<>();
+        Connection conn = null;
+        boolean committed = false;
+        try {
+            for (int sid : ids) {
+                SeatAllocator.Reservation seat = heldBack.test(sid) ? null : SeatAllocator.getInstance().tryReserve(sid);
+                if (seat == null) {
+                    results.put(sid, new BatchItem(sid, RegistrationStatus.SECTION_FULL, null, null));
+                } else {
+                    seats.put(sid, seat);
+                }
+            }
+
+            conn = DBConnector.getErpConnection();
+            conn.setAutoCommit(false);
+
+            // 1. Lock all cart sections, then read their registered counts and eligibility flags.
+            java.util.Map<Integer, ScheduledSection> cart = new java.util.TreeMap<>();
+            java.util.Map<Integer, String> ownStatus = new java.util.HashMap<>();
+            java.util.Map<Integer, Integer> enrolled = new java.util.HashMap<>();
+            String placeholders = String.join(",", java.util.Collections.nCopies(ids.size(), "?"));
+            try (PreparedStatement stmt = conn.prepareStatement(LOCK_SECTIONS_SQL_PREFIX + placeholders + LOCK_SECTIONS_SQL_SUFFIX)) {
+                for (int i = 0; i < ids.size(); i++) stmt.setInt(1 + i, ids.get(i));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) { /* locks only */ }
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    COUNT_REGISTERED_LOCKING_SQL_PREFIX + placeholders + COUNT_REGISTERED_LOCKING_SQL_SUFFIX)) {
+                for (int i = 0; i < ids.size(); i++) stmt.setInt(1 + i, ids.get(i));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) enrolled.put(rs.getInt("section_id"), rs.getInt("enrolled_count"));
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    SECTIONS_ELIGIBILITY_SQL_PREFIX + placeholders + SECTIONS_ELIGIBILITY_SQL_SUFFIX)) {
+                stmt.setInt(1, studentId);
+                stmt.setInt(2, studentId);
+                stmt.setInt(3, studentId);
+                for (int i = 0; i < ids.size(); i++) stmt.setInt(4 + i, ids.get(i));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        int sid = rs.getInt("section_id");
+                        String code = rs.getString("course_code");
+                        String status = rs.getString("own_status");
+                        cart.put(sid, new ScheduledSection(sid, rs.getString("day_time"), code, rs.getString("title")));
+                        ownStatus.put(sid, status);
+                        if (results.containsKey(sid)) continue; // already rejected in memory
+                        RegistrationStatus rejected = null;
+                        if (enrolled.getOrDefault(sid, 0) >= rs.getInt("capacity")) {
+                            rejected = RegistrationStatus.SECTION_FULL;
+                            seats.remove(sid).abortFull();
+                        } else if ("Registered".equalsIgnoreCase(status)) {
+                            rejected = RegistrationStatus.ALREADY_REGISTERED;
+                        } else if (rs.getBoolean("in_other_section")) {
+                            rejected = RegistrationStatus.REGISTERED_OTHER_SECTION;
+                        } else if (rs.getBoolean("completed_course")) {
+                            rejected = RegistrationStatus.COURSE_COMPLETED;
+                        }
+                        if (rejected != null) results.put(sid, new BatchItem(sid, rejected, code, null));
+                    }
+                }
+            }
+            for (int sid : ids) {
+                if (!cart.containsKey(sid)) results.put(sid, new BatchItem(sid, RegistrationStatus.SECTION_NOT_FOUND, null, null));
+            }
+
+            // 2. Clashes with the current schedule.
+            List<ScheduledSection> schedule = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement(GET_STUDENT_SCHEDULE_WITH_COURSE_SQL)) {
+                stmt.setInt(1, studentId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        schedule.add(new ScheduledSection(rs.getInt("section_id"), rs.getString("day_time"),
+                                rs.getString("code"), rs.getString("title")));
+                    }
+                }
+            }
+            for (ScheduledSection target : cart.values()) {
+                if (results.containsKey(target.sectionId())) continue;
+                for (ScheduledSection existing : schedule) {
+                    if (conflicts.test(existing.dayTime(), target.dayTime())) {
+                        results.put(target.sectionId(), new BatchItem(target.sectionId(), RegistrationStatus.TIME_CONFLICT,
+                                target.courseCode(), existing));
+                        break;
+                    }
+                }
+            }
+
+            // 3. Clashes and duplicate courses within the cart (each pair reported on the later section).
+            List<ScheduledSection> cartList = new ArrayList<>(cart.values());
+            for (int i = 0; i < cartList.size(); i++) {
+                ScheduledSection b = cartList.get(i);
+                if (results.containsKey(b.sectionId())) continue;
+                for (int j = 0; j < i; j++) {
+                    ScheduledSection a = cartList.get(j);
+                    if (a.courseCode() != null && a.courseCode().equals(b.courseCode())) {
+                        results.put(b.sectionId(), new BatchItem(b.sectionId(), RegistrationStatus.DUPLICATE_COURSE, b.courseCode(), a));
+                        break;
+                    }
+                    if (conflicts.test(a.dayTime(), b.dayTime())) {
+                        results.put(b.sectionId(), new BatchItem(b.sectionId(), RegistrationStatus.TIME_CONFLICT, b.courseCode(), a));
+                        break;
+                    }
+                }
+            }
+
+            if (!results.isEmpty()) {
+                conn.rollback();
+                for (ScheduledSection sec : cartList) {
+                    results.putIfAbsent(sec.sectionId(), new BatchItem(sec.sectionId(), RegistrationStatus.NOT_REGISTERED, sec.courseCode(), null));
+                }
+                return new ArrayList<>(results.values());
+            }
+
+            // 4. Write all enrollments and commit once.
+            try (PreparedStatement insert = conn.prepareStatement(REGISTER_COURSE_SQL);
+                 PreparedStatement reactivate = conn.prepareStatement(REACTIVATE_DROPPED_SQL)) {
+                int inserts = 0;
+                int reactivations = 0;
+                for (int sid : ids) {
+                    PreparedStatement stmt = "Dropped".equalsIgnoreCase(ownStatus.get(sid)) ? reactivate : insert;
+                    stmt.setInt(1, studentId);
+                    stmt.setInt(2, sid);
+                    stmt.addBatch();
+                    if (stmt == insert) inserts++; else reactivations++;
+                }
+                for (int[] counts : new int[][] { inserts > 0 ? insert.executeBatch() : new int[0],
+                                                  reactivations > 0 ? reactivate.executeBatch() : new int[0] }) {
+                    for (int c : counts) {
+                        if (c == 0) throw new SQLException("Enrollment failed, possibly due to invalid IDs.");
+                    }
+                }
+            }
+            conn.commit();
+            committed = true;
+            List<BatchItem> out = new ArrayList<>(ids.size());
+            for (int sid : ids) {
+                seats.get(sid).commit();
+                CatalogSnapshot.getInstance().onSeatTaken(sid);
+                out.add(new BatchItem(sid, RegistrationStatus.REGISTERED, cart.get(sid).courseCode(), null));
+            }
+            ResponseCache.getInstance().invalidate(ResponseCache.GET_ALL_COURSES);
+            AcademicSummaryCache.getInstance().invalidateStudent(studentId);
+            return out;
+        } catch (SQLException | RuntimeException e) {
+            if (conn != null) {
+                try { conn.rollback(); } catch (SQLException ex) { /* ignore */ }
+            }
+            throw e;
+        } finally {
+            if (!committed) {
+                for (SeatAllocator.Reservation seat : seats.values()) seat.abort();
+            }
+            if (conn != null) try { conn.setAutoCommit(true); conn.close(); } catch (SQLException ex) { /* ignore */ }
+        }
+    }
+
     /**
      * Returns true if the student is already registered in another section of the same course.
      */
@@ -269,7 +685,14 @@ public class EnrollmentDAO {
             stmt.setInt(2, sectionId);
             
             // This method returns the number of rows updated (0 or 1)
-            return stmt.executeUpdate(); 
+            int updated = stmt.executeUpdate();
+            if (updated > 0) {
+                SeatAllocator.getInstance().release(sectionId);
+                CatalogSnapshot.getInstance().onSeatReleased(sectionId);
+                ResponseCache.getInstance().invalidate(ResponseCache.GET_ALL_COURSES);
+                AcademicSummaryCache.getInstance().invalidateStudent(studentId);
+            }
+            return updated;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,188 @@
+package edu.univ.erp.dao.enrollment;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process seat ledger that sits in front of the registration transaction.
+ *
+ * Each section has a counter of held seats (committed registrations plus registrations whose
+ * transaction is still running), seeded from the database on first use. A registration must
+ * obtain a {@link Reservation} before it opens a DB transaction; once the counter reaches the
+ * section capacity further attempts are rejected in memory, so a full section no longer queues
+ * on its row lock and at most {@code capacity} transactions per section are admitted.
+ *
+ * The database stays the source of truth: the transaction still locks the section row and
+ * re-checks the count, so a ledger that drifted (edits outside this server, a restore) can only
+ * cost a wasted transaction or a premature "full", never an oversubscribed section. Entries with
+ * no registration in flight are re-seeded from the database after {@code erp.seats.reseedMs}
+ * (default 60 s), and immediately after a transaction finds the section full or
+ * {@link #invalidate()} is called. Seeding is serialized per section only: concurrent first
+ * requests for one section share a single DB load, while other sections proceed.
+ */
+public final class SeatAllocator {
+
+    /** Loads (capacity, registered count) for a section; null when the section does not exist. */
+    @FunctionalInterface
+    public interface Seeder {
+        int[] load(int sectionId) throws SQLException;
+    }
+
+    private static final SeatAllocator INSTANCE =
+            new SeatAllocator(new EnrollmentDAO()::loadSeatCount, Long.getLong("erp.seats.reseedMs", 60000L));
+
+    private static final class Seats {
+        final int capacity;
+        final AtomicInteger held;
+        final AtomicInteger pending = new AtomicInteger();
+        final long seededAtNanos;
+        volatile boolean stale;
+
+        Seats(int capacity, int registered) {
+            this.capacity = capacity;
+            this.held = new AtomicInteger(registered);
+            this.seededAtNanos = System.nanoTime();
+        }
+    }
+
+    /** A held seat; exactly one of {@link #commit()} or {@link #abort()} must be called. */
+    public static final class Reservation {
+        private final Seats seats;
+        private boolean done;
+
+        private Reservation(Seats seats) {
+            this.seats = seats;
+        }
+
+        /** The registration committed; the seat stays held. */
+        public void commit() {
+            if (done) return;
+            done = true;
+            if (seats != null) seats.pending.decrementAndGet();
+        }
+
+        /** The registration did not happen; the seat is returned. */
+        public void abort() {
+            if (done) return;
+            done = true;
+            if (seats != null) {
+                seats.held.decrementAndGet();
+                seats.pending.decrementAndGet();
+            }
+        }
+
+        /** The database found the section full although the ledger had room: re-seed it. */
+        public void abortFull() {
+            if (seats != null) seats.stale = true;
+            abort();
+        }
+    }
+
+    private static final Reservation UNTRACKED = new Reservation(null);
+
+    private final Seeder seeder;
+    private final long reseedNanos;
+    private final Map<Integer, Seats> sections = new ConcurrentHashMap<>();
+    // One monitor per section, so seeding one section never waits on another section's DB load.
+    private final Map<Integer, Object> seedLocks = new ConcurrentHashMap<>();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejectedFull = new LongAdder();
+    private final LongAdder seeds = new LongAdder();
+
+    /** Separate instances are for tools that simulate the database; the server uses {@link #getInstance()}. */
+    public SeatAllocator(Seeder seeder, long reseedMs) {
+        this.seeder = seeder;
+        this.reseedNanos = reseedMs * 1_000_000L;
+    }
+
+    public static SeatAllocator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Holds a seat in the section.
+     * @return a reservation, or null when the section is full. Unknown sections get a no-op
+     *         reservation so the transaction can report them as before.
+     */
+    public Reservation tryReserve(int sectionId) throws SQLException {
+        Seats seats = seatsFor(sectionId);
+        if (seats == null) return UNTRACKED;
+        while (true) {
+            int h = seats.held.get();
+            if (h >= seats.capacity) {
+                rejectedFull.increment();
+                return null;
+            }
+            if (seats.held.compareAndSet(h, h + 1)) {
+                // pending is raised after held; a concurrent re-seed check may see it one step
+                // late, which at worst re-seeds an entry that is about to be used.
+                seats.pending.incrementAndGet();
+                admitted.increment();
+                return new Reservation(seats);
+            }
+        }
+    }
+
+    /** A committed registration left the section (dropped or completed). */
+    public void release(int sectionId) {
+        Seats seats = sections.get(sectionId);
+        if (seats != null) seats.held.decrementAndGet();
+    }
+
+    /** A registration was committed outside {@link #tryReserve} (e.g. an instructor status change). */
+    public void acquire(int sectionId) {
+        Seats seats = sections.get(sectionId);
+        if (seats != null) seats.held.incrementAndGet();
+    }
+
+    /** Sections or capacities changed; every section is re-seeded on next use. */
+    public void invalidate() {
+        for (Seats seats : sections.values()) seats.stale = true;
+    }
+
+    private Seats seatsFor(int sectionId) throws SQLException {
+        Seats seats = sections.get(sectionId);
+        if (seats != null && !needsReseed(seats)) return seats;
+        synchronized (seedLocks.computeIfAbsent(sectionId, id -> new Object())) {
+            seats = sections.get(sectionId);
+            if (seats != null && !needsReseed(seats)) return seats;
+            int[] loaded = seeder.load(sectionId);
+            seeds.increment();
+            if (loaded == null) {
+                sections.remove(sectionId);
+                return null;
+            }
+            // Registrations still in flight against the old entry finish on that entry; they are
+            // not in the DB count yet, so carry them over.
+            int inFlight = seats == null ? 0 : seats.pending.get();
+            Seats fresh = new Seats(loaded[0], loaded[1] + inFlight);
+            sections.put(sectionId, fresh);
+            return fresh;
+        }
+    }
+
+    private boolean needsReseed(Seats seats) {
+        if (seats.pending.get() > 0) return false;
+        return seats.stale || System.nanoTime() - seats.seededAtNanos >= reseedNanos;
+    }
+
+    /** Seats currently held in the ledger (committed + in flight), or -1 if not tracked. */
+    public int getHeld(int sectionId) {
+        Seats seats = sections.get(sectionId);
+        return seats == null ? -1 : seats.held.get();
+    }
+
+    /** Counters for GET_SERVER_STATS. */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sections", sections.size());
+        stats.put("admitted", admitted.sum());
+        stats.put("rejectedFull", rejectedFull.sum());
+        stats.put("seeds", seeds.sum());
+        return stats;
+    }
+}
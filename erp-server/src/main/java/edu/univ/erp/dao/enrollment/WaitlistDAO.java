@@ -0,0 +1,114 @@
+package edu.univ.erp.dao.enrollment;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import edu.univ.erp.dao.db.DBConnector;
+
+/**
+ * Persistence for the per-section registration waitlist ({@code section_waitlist}).
+ * Order within a section is the insertion order (auto-increment {@code waitlist_id}).
+ */
+public class WaitlistDAO {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO section_waitlist (section_id, student_id) VALUES (?, ?)";
+
+    private static final String DELETE_SQL =
+        "DELETE FROM section_waitlist WHERE section_id = ? AND student_id = ?";
+
+    // 1-based position of the student, 0 when not waitlisted
+    private static final String POSITION_SQL =
+        "SELECT COUNT(*) AS position FROM section_waitlist w " +
+        "JOIN section_waitlist me ON me.section_id = w.section_id " +
+        "WHERE me.section_id = ? AND me.student_id = ? AND w.waitlist_id <= me.waitlist_id";
+
+    private static final String COUNT_SQL =
+        "SELECT COUNT(*) AS waiting FROM section_waitlist WHERE section_id = ?";
+
+    private static final String HEAD_SQL =
+        "SELECT student_id FROM section_waitlist WHERE section_id = ? ORDER BY waitlist_id LIMIT ?";
+
+    private static final String WAITLISTED_SECTIONS_SQL =
+        "SELECT DISTINCT section_id FROM section_waitlist";
+
+    /**
+     * Appends the student to the section's waitlist.
+     * @return false if the student was already on it
+     */
+    public boolean join(int studentId, int sectionId) throws SQLException {
+        try (Connection conn = DBConnector.getErpConnection();
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            stmt.setInt(1, sectionId);
+            stmt.setInt(2, studentId);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // unique (section_id, student_id)
+            return false;
+        }
+    }
+
+    /** @return number of rows removed (0 or 1) */
+    public int leave(int studentId, int sectionId) throws SQLException {
+        try (Connection conn = DBConnector.getErpConnection();
+             PreparedStatement stmt = conn.prepareStatement(DELETE_SQL)) {
+            stmt.setInt(1, sectionId);
+            stmt.setInt(2, studentId);
+            return stmt.executeUpdate();
+        }
+    }
+
+    /** 1-based position in the section's waitlist, or 0 when the student is not on it. */
+    public int getPosition(int studentId, int sectionId) throws SQLException {
+        try (Connection conn = DBConnector.getErpConnection();
+             PreparedStatement stmt = conn.prepareStatement(POSITION_SQL)) {
+            stmt.setInt(1, sectionId);
+            stmt.setInt(2, studentId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt("position") : 0;
+            }
+        }
+    }
+
+    public int countWaiting(int sectionId) throws SQLException {
+        try (Connection conn = DBConnector.getErpConnection();
+             PreparedStatement stmt = conn.prepareStatement(COUNT_SQL)) {
+            stmt.setInt(1, sectionId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt("waiting") : 0;
+            }
+        }
+    }
+
+    /** The first {@code limit} student ids in waitlist order. */
+    public List<Integer> getHead(int sectionId, int limit) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection conn = DBConnector.getErpConnection();
+             PreparedStatement stmt = conn.prepareStatement(HEAD_SQL)) {
+            stmt.setInt(1, sectionId);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) ids.add(rs.getInt("student_id"));
+            }
+        }
+        return ids;
+    }
+
+    /** Sections that currently have at least one waiting student. */
+    public Set<Integer> getWaitlistedSections() throws SQLException {
+        Set<Integer> ids = new HashSet<>();
+        try (Connection conn = DBConnector.getErpConnection();
+             PreparedStatement stmt = conn.prepareStatement(WAITLISTED_SECTIONS_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) ids.add(rs.getInt("section_id"));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,180 @@
+package edu.univ.erp.dao.grade;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.univ.erp.dao.db.DBConnector;
+import edu.univ.erp.util.GradeUtils;
+
+/**
+ * Materialized CGPA / credits per student ({@code student_academic_summary}).
+ *
+ * Rows are recomputed for one student inside the transaction that writes a final grade
+ * ({@link #lockStudent} then {@link #recomputeStudent}), so GET_CGPA and the admin ranking read
+ * a single row instead of scanning every enrollment. {@link #rebuildAll()} regenerates the
+ * table from the grades (REBUILD_ACADEMIC_SUMMARY, restores). Grade points use the same
+ * mapping as {@link GradeUtils#gradeToPoints(String)}; courses with no credits or a grade
+ * without points (IP, unknown) are not counted.
+ */
+public class AcademicStandingDAO {
+
+    /** One student's row; {@code cgpa} is null when no graded credits exist. */
+    public record Standing(int studentId, String rollNo, Double cgpa, double creditsEarned) { }
+
+    // Graded, credit-bearing enrollments with their points.
+    private static final String GRADED_SQL =
+        "SELECT e.student_id, c.credits, " + GradeUtils.pointsSqlCase("g.final_grade") + " AS points " +
+        "FROM enrollments e " +
+        "JOIN sections s ON e.section_id = s.section_id " +
+        "JOIN courses c ON s.course_code = c.code " +
+        "JOIN grades g ON e.enrollment_id = g.enrollment_id AND g.component = 'FinalGrade' " +
+        "WHERE c.credits > 0";
+
+    private static final String AGGREGATE_SELECT =
+        "SELECT x.student_id, SUM(x.credits) AS graded_credits, SUM(x.points * x.credits) AS grade_points, " +
+        "SUM(CASE WHEN x.points > 0 THEN x.credits ELSE 0 END) AS credits_earned " +
+        "FROM (" + GRADED_SQL + ") x WHERE x.points IS NOT NULL";
+
+    private static final String LOCK_STUDENT_SQL =
+        "INSERT INTO student_academic_summary (student_id) VALUES (?) " +
+        "ON DUPLICATE KEY UPDATE student_id = student_id";
+
+    private static final String RECOMPUTE_STUDENT_SQL =
+        "UPDATE student_academic_summary sas " +
+        "LEFT JOIN (" + AGGREGATE_SELECT + " AND x.student_id = ? GROUP BY x.student_id) a " +
+        "ON a.student_id = sas.student_id " +
+        "SET sas.graded_credits = COALESCE(a.graded_credits, 0), " +
+        "sas.grade_points = COALESCE(a.grade_points, 0), " +
+        "sas.credits_earned = COALESCE(a.credits_earned, 0), " +
+        "sas.cgpa = CASE WHEN a.graded_credits > 0 THEN ROUND(a.grade_points / a.graded_credits, 2) END " +
+        "WHERE sas.student_id = ?";
+
+    private static final String DELETE_ALL_SQL = "DELETE FROM student_academic_summary";
+
+    private static final String REBUILD_SQL =
+        "INSERT INTO student_academic_summary (student_id, graded_credits, grade_points, credits_earned, cgpa) " +
+        "SELECT a.student_id, a.graded_credits, a.grade_points, a.credits_earned, " +
+        "CASE WHEN a.graded_credits > 0 THEN ROUND(a.grade_points / a.graded_credits, 2) END " +
+        "FROM (" + AGGREGATE_SELECT + " GROUP BY x.student_id) a";
+
+    private static final String GET_SQL =
+        "SELECT sas.student_id, st.roll_no, sas.cgpa, sas.credits_earned " +
+        "FROM student_academic_summary sas LEFT JOIN students st ON st.user_id = sas.student_id " +
+        "WHERE sas.student_id = ?";
+
+    private static final String RANKING_SQL =
+        "SELECT sas.student_id, st.roll_no, sas.cgpa, sas.credits_earned " +
+        "FROM student_academic_summary sas LEFT JOIN students st ON st.user_id = sas.student_id " +
+        "WHERE sas.cgpa IS NOT NULL " +
+        "ORDER BY sas.cgpa DESC, sas.credits_earned DESC, sas.student_id " +
+        "LIMIT ?";
+
+    /**
+     * Takes the row lock on the student's summary (creating the row if needed). Call first in a
+     * grade-writing transaction so concurrent writes for the same student serialize here.
+     */
+    public static void lockStudent(Connection conn, int studentId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(LOCK_STUDENT_SQL)) {
+            stmt.setInt(1, studentId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /** {@link #lockStudent} for several students, in the collection's iteration order (pass them sorted). */
+    public static void lockStudents(Connection conn, java.util.Collection<Integer> studentIds) throws SQLException {
+        if (studentIds.isEmpty()) return;
+        try (PreparedStatement stmt = conn.prepareStatement(LOCK_STUDENT_SQL)) {
+            for (int studentId : studentIds) {
+                stmt.setInt(1, studentId);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /** Recomputes the student's row from their grades, within the caller's transaction. */
+    public static void recomputeStudent(Connection conn, int studentId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(RECOMPUTE_STUDENT_SQL)) {
+            stmt.setInt(1, studentId);
+            stmt.setInt(2, studentId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /** {@link #recomputeStudent} for several students as one batch. */
+    public static void recomputeStudents(Connection conn, java.util.Collection<Integer> studentIds) throws SQLException {
+        if (studentIds.isEmpty()) return;
+        try (PreparedStatement stmt = conn.prepareStatement(RECOMPUTE_STUDENT_SQL)) {
+            for (int studentId : studentIds) {
+                stmt.setInt(1, studentId);
+                stmt.setInt(2, studentId);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Regenerates the whole table from the grades in one transaction.
+     * @return number of students with a summary row
+     */
+    public int rebuildAll() throws SQLException {
+        try (Connection conn = DBConnector.getErpConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement delete = conn.prepareStatement(DELETE_ALL_SQL)) {
+                    delete.executeUpdate();
+                }
+                int rows;
+                try (PreparedStatement insert = conn.prepareStatement(REBUILD_SQL)) {
+                    rows = insert.executeUpdate();
+                }
+                conn.commit();
+                return rows;
+            } catch (SQLException e) {
+                try { conn.rollback(); } catch (SQLException ignore) { }
+                throw e;
+            } finally {
+                try { conn.setAutoCommit(true); } catch (SQLException ignore) { }
+            }
+        }
+    }
+
+    /** The student's row, or null when they have no summary (nothing graded yet). */
+    public Standing get(int studentId) throws SQLException {
+        try (Connection conn = DBConnector.getErpConnection();
+             PreparedStatement stmt = conn.prepareStatement(GET_SQL)) {
+            stmt.setInt(1, studentId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? map(rs) : null;
+            }
+        }
+    }
+
+    /** Students with a CGPA, best first (ties: more credits earned, then student id). */
+    public List<Standing> getRanking(int limit) throws SQLException {
+        List<Standing> out = new ArrayList<>();
+        try (Connection conn = DBConnector.getErpConnection();
+             PreparedStatement stmt = conn.prepareStatement(RANKING_SQL)) {
+            stmt.setInt(1, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) out.add(map(rs));
+            }
+        }
+        return out;
+    }
+
+    private static Standing map(ResultSet rs) throws SQLException {
+        java.math.BigDecimal cgpa = rs.getBigDecimal("cgpa");
+        return new Standing(
+            rs.getInt("student_id"),
+            rs.getString("roll_no"),
+            cgpa == null ? null : cgpa.doubleValue(),
+            rs.getDouble("credits_earned")
+        );
+    }
+}
@@ -0,0 +1,197 @@
+package edu.univ.erp.dao.grade;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+import edu.univ.erp.domain.CourseCatalog;
+import edu.univ.erp.domain.Grade;
+
+/**
+ * Per-student academic summary (CGPA, credits earned, grade list, timetable) served to
+ * GET_CGPA, GET_GRADES, GET_TIMETABLE and DOWNLOAD_TRANSCRIPT, so a dashboard refresh does not
+ * recompute everything from MySQL.
+ *
+ * Bounded LRU of {@code erp.summaryCache.maxEntries} students (default 2000). Entries are
+ * dropped precisely: enrollment changes call {@link #invalidateStudent(int)} and grade writes
+ * call {@link #invalidateEnrollment(int)}, resolved to the student through the enrollment ids
+ * recorded when the summary was loaded (an enrollment created later invalidates the student
+ * itself). Instructor reassignment and restores call {@link #invalidateAll()}.
+ * A load is not retained when its own student, or one of the enrollments it read, was
+ * invalidated while it ran; writes for other students do not affect it.
+ * {@code erp.summaryCache.ttlMs} (default 5 min) bounds staleness after edits made outside
+ * this server.
+ */
+public final class AcademicSummaryCache {
+
+    /** Everything the student dashboard reads. Lists are not copied on read; do not modify them. */
+    public record Summary(double cgpa, double creditsEarned, List<Grade> grades,
+                          List<CourseCatalog> timetable, Set<Integer> enrollmentIds) { }
+
+    private record Cached(Summary summary, long loadedAtNanos) { }
+
+    private static final AcademicSummaryCache INSTANCE = new AcademicSummaryCache(
+            Integer.getInteger("erp.summaryCache.maxEntries", 2000),
+            Long.getLong("erp.summaryCache.ttlMs", 300000L));
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<Integer, Cached> entries;
+    // Guarded by entries, like everything below.
+    private final Map<Integer, Integer> studentByEnrollment = new HashMap<>();
+    // Invalidation stamps, kept only while a load that started before them is in flight.
+    private long clock;
+    private long allInvalidatedAt;
+    private final TreeSet<Long> loadsInFlight = new TreeSet<>();
+    private final Map<Integer, Long> studentInvalidatedAt = new HashMap<>();
+    private final Map<Integer, Long> enrollmentInvalidatedAt = new HashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    AcademicSummaryCache(int maxEntries, long ttlMs) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNanos = ttlMs * 1_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Cached> eldest) {
+                if (size() <= AcademicSummaryCache.this.maxEntries) return false;
+                unindex(eldest.getValue().summary());
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    public static AcademicSummaryCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Cached summary for the student, or the loader's result. The result is not retained when
+     * an invalidation ran while it loaded.
+     */
+    public Summary get(int studentId, Callable<Summary> loader) throws Exception {
+        long start;
+        synchronized (entries) {
+            Cached c = entries.get(studentId);
+            if (c != null && System.nanoTime() - c.loadedAtNanos() < ttlNanos) {
+                hits.increment();
+                return c.summary();
+            }
+            start = ++clock;
+            loadsInFlight.add(start);
+        }
+        misses.increment();
+        Summary summary = null;
+        try {
+            summary = loader.call();
+        } finally {
+            synchronized (entries) {
+                loadsInFlight.remove(start);
+                // Summaries without enrollments (new students, failed reads) are cheap to reload and not kept.
+                if (summary != null && !summary.enrollmentIds().isEmpty() && !invalidatedSince(start, studentId, summary)) {
+                    Cached previous = entries.put(studentId, new Cached(summary, System.nanoTime()));
+                    if (previous != null) unindex(previous.summary());
+                    for (int enrollmentId : summary.enrollmentIds()) studentByEnrollment.put(enrollmentId, studentId);
+                }
+                pruneStamps();
+            }
+        }
+        return summary;
+    }
+
+    private boolean invalidatedSince(long start, int studentId, Summary summary) {
+        if (allInvalidatedAt > start || studentInvalidatedAt.getOrDefault(studentId, 0L) > start) return true;
+        if (enrollmentInvalidatedAt.isEmpty()) return false;
+        for (int enrollmentId : summary.enrollmentIds()) {
+            if (enrollmentInvalidatedAt.getOrDefault(enrollmentId, 0L) > start) return true;
+        }
+        return false;
+    }
+
+    /** Drops stamps no in-flight load can be older than. */
+    private void pruneStamps() {
+        if (loadsInFlight.isEmpty()) {
+            studentInvalidatedAt.clear();
+            enrollmentInvalidatedAt.clear();
+        } else if (studentInvalidatedAt.size() + enrollmentInvalidatedAt.size() > 1024) {
+            long oldest = loadsInFlight.first();
+            studentInvalidatedAt.values().removeIf(t -> t < oldest);
+            enrollmentInvalidatedAt.values().removeIf(t -> t < oldest);
+        }
+    }
+
+    /** The student's enrollments changed (register, drop, status change). */
+    public void invalidateStudent(int studentId) {
+        synchronized (entries) {
+            removeStudent(studentId);
+        }
+        invalidations.increment();
+    }
+
+    /** Grades were written for the enrollment. */
+    public void invalidateEnrollment(int enrollmentId) {
+        boolean cached;
+        // Lookup and stamp under one lock: a load finishing between a miss and the stamp would keep old grades.
+        synchronized (entries) {
+            Integer studentId = studentByEnrollment.get(enrollmentId);
+            cached = studentId != null;
+            if (cached) {
+                removeStudent(studentId);
+            } else if (!loadsInFlight.isEmpty()) {
+                // Not cached; still stop a load that may have read the old grades of this enrollment.
+                enrollmentInvalidatedAt.put(enrollmentId, ++clock);
+            }
+        }
+        if (cached) invalidations.increment();
+    }
+
+    // Caller holds entries.
+    private void removeStudent(int studentId) {
+        if (!loadsInFlight.isEmpty()) studentInvalidatedAt.put(studentId, ++clock);
+        Cached c = entries.remove(studentId);
+        if (c != null) unindex(c.summary());
+    }
+
+    public void invalidateEnrollments(Collection<Integer> enrollmentIds) {
+        for (int enrollmentId : enrollmentIds) invalidateEnrollment(enrollmentId);
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            allInvalidatedAt = ++clock;
+            entries.clear();
+            studentByEnrollment.clear();
+        }
+        invalidations.increment();
+    }
+
+    private void unindex(Summary summary) {
+        for (int enrollmentId : summary.enrollmentIds()) studentByEnrollment.remove(enrollmentId);
+    }
+
+    /** Counters for GET_SERVER_STATS. */
+    public Map<String, Object> getStats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRatio", h + m == 0 ? 0.0 : Math.round(h * 1000.0 / (h + m)) / 1000.0);
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        return stats;
+    }
+}
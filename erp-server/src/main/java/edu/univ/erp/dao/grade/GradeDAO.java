@@ -5,10 +5,13 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import edu.univ.erp.dao.db.DBConnector;
 import edu.univ.erp.domain.AssessmentComponent;
+import edu.univ.erp.domain.Grade;
 
 public class GradeDAO {
     
@@ -38,6 +41,23 @@ public class GradeDAO {
     private static final String FIND_COMPONENTS_SQL = 
         "SELECT component, score FROM grades WHERE enrollment_id = ? AND component != 'FinalGrade' AND score IS NOT NULL";
 
+    // Enrollments, final grade and component scores in one pass: one row per component
+    // (or a single row with NULL component when the enrollment has none yet).
+    private static final String FIND_GRADES_WITH_COMPONENTS_SQL =
+        "SELECT " +
+        "e.enrollment_id, " +
+        "c.title AS course_title, " +
+        "fg.final_grade, " +
+        "g.component, " +
+        "g.score " +
+        "FROM enrollments e " +
+        "JOIN sections s ON e.section_id = s.section_id " +
+        "JOIN courses c ON s.course_code = c.code " +
+        "LEFT JOIN grades fg ON e.enrollment_id = fg.enrollment_id AND fg.component = 'FinalGrade' " +
+        "LEFT JOIN grades g ON e.enrollment_id = g.enrollment_id AND g.component != 'FinalGrade' AND g.score IS NOT NULL " +
+        "WHERE e.student_id = ? " +
+        "ORDER BY e.enrollment_id";
+
     
     public List<RawGradeResult> getRawGradeResultsByUserId(int userId) {
         List<RawGradeResult> rawResults = new ArrayList<>();
@@ -84,4 +104,40 @@ public class GradeDAO {
         }
         return components;
     }
-}
\ No newline at end of file
+
+    /**
+     * Every enrollment of the student with its final grade and assessment components, loaded
+     * with a single query instead of one components query per enrollment.
+     */
+    public List<Grade> getGradesByUserId(int userId) {
+        Map<Integer, Grade> byEnrollment = new LinkedHashMap<>();
+
+        try (Connection conn = DBConnector.getErpConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_GRADES_WITH_COMPONENTS_SQL)) {
+
+            stmt.setInt(1, userId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int enrollmentId = rs.getInt("enrollment_id");
+                    Grade grade = byEnrollment.get(enrollmentId);
+                    if (grade == null) {
+                        grade = new Grade(
+                            rs.getString("course_title"),
+                            rs.getString("final_grade"),
+                            new ArrayList<>()
+                        );
+                        byEnrollment.put(enrollmentId, grade);
+                    }
+                    String component = rs.getString("component");
+                    if (component != null) {
+                        grade.getComponents().add(new AssessmentComponent(component, rs.getDouble("score")));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("DB Error retrieving grades: " + e.getMessage());
+        }
+        return new ArrayList<>(byEnrollment.values());
+    }
+}
@@ -9,7 +9,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import edu.univ.erp.dao.course.CatalogSnapshot;
+import edu.univ.erp.dao.enrollment.SeatAllocator;
 import edu.univ.erp.dao.db.DBConnector;
+import edu.univ.erp.dao.grade.AcademicStandingDAO;
+import edu.univ.erp.dao.grade.AcademicSummaryCache;
+import edu.univ.erp.util.ResponseCache;
 import edu.univ.erp.domain.EnrollmentRecord;
 import edu.univ.erp.domain.Section;
 
@@ -51,6 +56,12 @@ public class InstructorDAO {
     private static final String UPDATE_ENROLLMENT_STATUS_SQL =
         "UPDATE enrollments SET status = ? WHERE enrollment_id = ?";
 
+    private static final String SELECT_ENROLLMENT_FOR_UPDATE_SQL =
+        "SELECT section_id, status FROM enrollments WHERE enrollment_id = ? FOR UPDATE";
+
+    private static final String SELECT_ENROLLMENT_STUDENT_SQL =
+        "SELECT student_id FROM enrollments WHERE enrollment_id = ?";
+
 
     /**
      * Retrieves all course sections taught by a given instructor.
@@ -196,12 +207,15 @@ public class InstructorDAO {
             stmt.setDouble(3, score);
             stmt.executeUpdate();
         } 
+        AcademicSummaryCache.getInstance().invalidateEnrollment(enrollmentId);
     }
 
     /**
      * Applies multiple grade component updates in a single transaction.
      * The updates map is keyed by enrollmentId, each value is a map of componentName->score.
      * This method guarantees all-or-nothing application: on any error the transaction is rolled back.
+     * All rows go out as one JDBC batch, which the driver rewrites into multi-row upserts
+     * (rewriteBatchedStatements, see DBConnector).
      */
     public void applyGradeUpdatesTransactional(Map<Integer, Map<String, Double>> updates) throws SQLException {
         if (updates == null || updates.isEmpty()) return;
@@ -229,6 +243,7 @@ public class InstructorDAO {
                     stmt.executeBatch();
                 }
                 conn.commit();
+                AcademicSummaryCache.getInstance().invalidateEnrollments(updates.keySet());
             } catch (SQLException ex) {
                 try { conn.rollback(); } catch (SQLException ignore) {}
                 throw ex;
@@ -239,24 +254,140 @@ public class InstructorDAO {
     }
     
     /**
-     * Updates the final letter grade for a course on a specific enrollment record.
+     * Records the final letter grade and marks the enrollment Completed in one transaction,
+     * together with the student's row in {@code student_academic_summary}.
      */
-    public void updateFinalGrade(int enrollmentId, String finalGrade) throws SQLException {
+    public void recordFinalGrade(int enrollmentId, String finalGrade) throws SQLException {
         // Targets the Grades table, using 'FinalGrade' as the component name to store the letter grade.
         String UPSERT_FINAL_GRADE_SQL = 
             "INSERT INTO Grades (enrollment_id, component, score, final_grade) " +
             "VALUES (?, 'FinalGrade', NULL, ?) " +
             "ON DUPLICATE KEY UPDATE final_grade = VALUES(final_grade)";
-            
-        try (Connection conn = DBConnector.getErpConnection();
-             PreparedStatement stmt = conn.prepareStatement(UPSERT_FINAL_GRADE_SQL)) {
-            
-            stmt.setInt(1, enrollmentId);
-            stmt.setString(2, finalGrade);
-            stmt.executeUpdate();
-        } 
+
+        try (Connection conn = DBConnector.getErpConnection()) {
+            // The enrollment's student never changes; read it before the transaction so the
+            // summary row lock is the first lock taken (and no snapshot is opened early).
+            int studentId;
+            try (PreparedStatement stmt = conn.prepareStatement(SELECT_ENROLLMENT_STUDENT_SQL)) {
+                stmt.setInt(1, enrollmentId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new SQLException("No enrollment record updated; check the enrollment ID.");
+                    }
+                    studentId = rs.getInt("student_id");
+                }
+            }
+
+            conn.setAutoCommit(false);
+            try {
+                AcademicStandingDAO.lockStudent(conn, studentId);
+                int sectionId;
+                String oldStatus;
+                try (PreparedStatement lock = conn.prepareStatement(SELECT_ENROLLMENT_FOR_UPDATE_SQL)) {
+                    lock.setInt(1, enrollmentId);
+                    try (ResultSet rs = lock.executeQuery()) {
+                        if (!rs.next()) {
+                            throw new SQLException("No enrollment record updated; check the enrollment ID.");
+                        }
+                        sectionId = rs.getInt("section_id");
+                        oldStatus = rs.getString("status");
+                    }
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(UPSERT_FINAL_GRADE_SQL)) {
+                    stmt.setInt(1, enrollmentId);
+                    stmt.setString(2, finalGrade);
+                    stmt.executeUpdate();
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(UPDATE_ENROLLMENT_STATUS_SQL)) {
+                    stmt.setString(1, "Completed");
+                    stmt.setInt(2, enrollmentId);
+                    stmt.executeUpdate();
+                }
+                AcademicStandingDAO.recomputeStudent(conn, studentId);
+                conn.commit();
+                AcademicSummaryCache.getInstance().invalidateStudent(studentId);
+                afterStatusChange(sectionId, oldStatus, "Completed");
+            } catch (SQLException e) {
+                try { conn.rollback(); } catch (SQLException ignore) { }
+                throw e;
+            } finally {
+                try { conn.setAutoCommit(true); } catch (SQLException ignore) { }
+            }
+        }
     }
     
+    /** A final grade to record for one enrollment. */
+    public record FinalGradeWrite(int enrollmentId, int studentId, String finalGrade) { }
+
+    private static final String LOCK_SECTION_REGISTERED_SQL =
+        "SELECT enrollment_id FROM enrollments WHERE section_id = ? AND status = 'Registered' FOR UPDATE";
+
+    /**
+     * Records final grades for enrollments of one section and marks them Completed in a single
+     * transaction using batched statements, keeping {@code student_academic_summary} in step.
+     * Enrollments that are no longer Registered in the section when the transaction locks them
+     * (dropped meanwhile) are skipped.
+     * @return the writes that were applied
+     */
+    public List<FinalGradeWrite> recordFinalGrades(int sectionId, List<FinalGradeWrite> writes) throws SQLException {
+        if (writes.isEmpty()) return writes;
+        String UPSERT_FINAL_GRADE_SQL = 
+            "INSERT INTO Grades (enrollment_id, component, score, final_grade) " +
+            "VALUES (?, 'FinalGrade', NULL, ?) " +
+            "ON DUPLICATE KEY UPDATE final_grade = VALUES(final_grade)";
+
+        // Summary rows are locked in student order so concurrent section batches cannot deadlock.
+        java.util.TreeSet<Integer> students = new java.util.TreeSet<>();
+        for (FinalGradeWrite w : writes) students.add(w.studentId());
+
+        try (Connection conn = DBConnector.getErpConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                AcademicStandingDAO.lockStudents(conn, students);
+
+                java.util.Set<Integer> registered = new java.util.HashSet<>();
+                try (PreparedStatement lock = conn.prepareStatement(LOCK_SECTION_REGISTERED_SQL)) {
+                    lock.setInt(1, sectionId);
+                    try (ResultSet rs = lock.executeQuery()) {
+                        while (rs.next()) registered.add(rs.getInt("enrollment_id"));
+                    }
+                }
+                List<FinalGradeWrite> applied = new ArrayList<>(writes.size());
+                for (FinalGradeWrite w : writes) {
+                    if (registered.contains(w.enrollmentId())) applied.add(w);
+                }
+
+                try (PreparedStatement grade = conn.prepareStatement(UPSERT_FINAL_GRADE_SQL);
+                     PreparedStatement status = conn.prepareStatement(UPDATE_ENROLLMENT_STATUS_SQL)) {
+                    for (FinalGradeWrite w : applied) {
+                        grade.setInt(1, w.enrollmentId());
+                        grade.setString(2, w.finalGrade());
+                        grade.addBatch();
+                        status.setString(1, "Completed");
+                        status.setInt(2, w.enrollmentId());
+                        status.addBatch();
+                    }
+                    grade.executeBatch();
+                    status.executeBatch();
+                }
+
+                java.util.Set<Integer> affected = new java.util.TreeSet<>();
+                for (FinalGradeWrite w : applied) affected.add(w.studentId());
+                AcademicStandingDAO.recomputeStudents(conn, affected);
+                conn.commit();
+
+                for (int studentId : affected) AcademicSummaryCache.getInstance().invalidateStudent(studentId);
+                for (int i = 0; i < applied.size(); i++) afterStatusChange(sectionId, "Registered", "Completed");
+                return applied;
+            } catch (SQLException e) {
+                try { conn.rollback(); } catch (SQLException ignore) { }
+                throw e;
+            } finally {
+                try { conn.setAutoCommit(true); } catch (SQLException ignore) { }
+            }
+        }
+    }
+
     // --- Access Checker Dependency Methods ---
 
     /**
@@ -275,6 +406,64 @@ public class InstructorDAO {
         }
     }
     
+    /**
+     * Enrollment IDs (any status) in the section, provided the instructor teaches it; empty otherwise.
+     * Lets bulk operations authorize every row with one query.
+     */
+    public java.util.Set<Integer> getEnrollmentIdsForInstructorSection(int instructorId, int sectionId) throws SQLException {
+        String SQL = "SELECT E.enrollment_id FROM Enrollments E JOIN Sections S ON E.section_id = S.section_id WHERE S.section_id = ? AND S.instructor_id = ?";
+        java.util.Set<Integer> ids = new java.util.HashSet<>();
+        try (Connection conn = DBConnector.getErpConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL)) {
+            stmt.setInt(1, sectionId);
+            stmt.setInt(2, instructorId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    /** Enrollment IDs (any status) in the section. */
+    public java.util.Set<Integer> getEnrollmentIdsForSection(int sectionId) throws SQLException {
+        String SQL = "SELECT enrollment_id FROM Enrollments WHERE section_id = ?";
+        java.util.Set<Integer> ids = new java.util.HashSet<>();
+        try (Connection conn = DBConnector.getErpConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL)) {
+            stmt.setInt(1, sectionId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    /** IDs of every section the instructor teaches (AuthorizationContext's ownership cache). */
+    public java.util.Set<Integer> getSectionIdsByInstructor(int instructorId) throws SQLException {
+        String SQL = "SELECT section_id FROM Sections WHERE instructor_id = ?";
+        java.util.Set<Integer> ids = new java.util.HashSet<>();
+        try (Connection conn = DBConnector.getErpConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL)) {
+            stmt.setInt(1, instructorId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    /** Section of an enrollment record, or null if there is no such enrollment. */
+    public Integer getSectionIdOfEnrollment(int enrollmentId) throws SQLException {
+        String SQL = "SELECT section_id FROM Enrollments WHERE enrollment_id = ?";
+        try (Connection conn = DBConnector.getErpConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL)) {
+            stmt.setInt(1, enrollmentId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
     /**
      * Security check: Determines if the instructor teaches the section linked to the enrollment.
      */
@@ -298,18 +487,56 @@ public class InstructorDAO {
      * @throws SQLException
      */
     public void updateEnrollmentStatus(int enrollmentId, String newStatus) throws SQLException {
-        try (Connection conn = DBConnector.getErpConnection();
-             PreparedStatement stmt = conn.prepareStatement(UPDATE_ENROLLMENT_STATUS_SQL)) {
-
-            stmt.setString(1, newStatus);
-            stmt.setInt(2, enrollmentId);
-
-            int affectedRows = stmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new SQLException("No enrollment record updated; check the enrollment ID.");
+        // Read the section and previous status in the same transaction so the catalog's
+        // registered-seat counter can follow a Registered -> Completed transition.
+        try (Connection conn = DBConnector.getErpConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int sectionId;
+                String oldStatus;
+                try (PreparedStatement lock = conn.prepareStatement(SELECT_ENROLLMENT_FOR_UPDATE_SQL)) {
+                    lock.setInt(1, enrollmentId);
+                    try (ResultSet rs = lock.executeQuery()) {
+                        if (!rs.next()) {
+                            throw new SQLException("No enrollment record updated; check the enrollment ID.");
+                        }
+                        sectionId = rs.getInt("section_id");
+                        oldStatus = rs.getString("status");
+                    }
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(UPDATE_ENROLLMENT_STATUS_SQL)) {
+                    stmt.setString(1, newStatus);
+                    stmt.setInt(2, enrollmentId);
+                    int affectedRows = stmt.executeUpdate();
+                    if (affectedRows == 0) {
+                        throw new SQLException("No enrollment record updated; check the enrollment ID.");
+                    }
+                }
+                conn.commit();
+                AcademicSummaryCache.getInstance().invalidateEnrollment(enrollmentId);
+                afterStatusChange(sectionId, oldStatus, newStatus);
+            } catch (SQLException e) {
+                try { conn.rollback(); } catch (SQLException ignore) { }
+                throw e;
+            } finally {
+                try { conn.setAutoCommit(true); } catch (SQLException ignore) { }
             }
         }
     }
-}
-
 
+    // Keeps the seat ledger and catalog counters in step with a committed status change.
+    private static void afterStatusChange(int sectionId, String oldStatus, String newStatus) {
+        boolean wasRegistered = "Registered".equalsIgnoreCase(oldStatus);
+        boolean isRegistered = "Registered".equalsIgnoreCase(newStatus);
+        if (wasRegistered != isRegistered) {
+            ResponseCache.getInstance().invalidate(ResponseCache.GET_ALL_COURSES);
+        }
+        if (wasRegistered && !isRegistered) {
+            SeatAllocator.getInstance().release(sectionId);
+            CatalogSnapshot.getInstance().onSeatReleased(sectionId);
+        } else if (!wasRegistered && isRegistered) {
+            SeatAllocator.getInstance().acquire(sectionId);
+            CatalogSnapshot.getInstance().onSeatTaken(sectionId);
+        }
+    }
+}
@@ -4,18 +4,21 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
 
 import edu.univ.erp.dao.db.DBConnector;
 
 /**
  * Data Access Object for handling global system settings.
  * Primarily used to check or update the status of Maintenance Mode.
+ * Reads are served from {@link SettingsCache}; writes go to the database and then write through to the cache.
  */
 public class SettingDAO {
 
-    // SQL to fetch a specific setting value
-    private static final String GET_SETTING_SQL = 
-        "SELECT setting_value FROM settings WHERE setting_key = ?";
+    // SQL to fetch every setting (the table is a handful of rows, loaded as one cache snapshot)
+    private static final String GET_ALL_SETTINGS_SQL =
+        "SELECT setting_key, setting_value FROM settings";
 
     // SQL to update a specific setting value
     private static final String UPDATE_SETTING_SQL =
@@ -27,19 +30,7 @@ public class SettingDAO {
      * @return The setting value as a String, or null if not found.
      */
     public String getSetting(String settingKey) throws SQLException {
-        String value = null;
-        try (Connection conn = DBConnector.getErpConnection();
-             PreparedStatement stmt = conn.prepareStatement(GET_SETTING_SQL)) {
-            
-            stmt.setString(1, settingKey);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    value = rs.getString("setting_value");
-                }
-            }
-        }
-        return value;
+        return SettingsCache.getInstance().get(settingKey);
     }
     
     /**
@@ -47,17 +38,22 @@ public class SettingDAO {
      * @return true if maintenance mode is "ON", false otherwise.
      */
     public boolean isMaintenanceModeOn() {
-        try {
-            String status = getSetting("MAINTENANCE_MODE");
-            if (status == null) {
-                // fallback to legacy key if present
-                status = getSetting("maintenance_on");
+        return SettingsCache.getInstance().isMaintenanceModeOn();
+    }
+
+    /**
+     * Reads the whole settings table straight from the database (used to fill {@link SettingsCache}).
+     */
+    Map<String, String> loadAllSettings() throws SQLException {
+        Map<String, String> values = new HashMap<>();
+        try (Connection conn = DBConnector.getErpConnection();
+             PreparedStatement stmt = conn.prepareStatement(GET_ALL_SETTINGS_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                values.put(rs.getString("setting_key"), rs.getString("setting_value"));
             }
-            return status != null && (status.equalsIgnoreCase("ON") || status.equalsIgnoreCase("TRUE"));
-        } catch (SQLException e) {
-            System.err.println("SettingDAO: Error checking maintenance mode. Defaulting to OFF. " + e.getMessage());
-            return false;
         }
+        return values;
     }
 
     public void setMaintenanceMode(boolean on) throws SQLException {
@@ -83,11 +79,14 @@ public class SettingDAO {
             try (PreparedStatement legacy = conn.prepareStatement(UPDATE_SETTING_SQL)) {
                 legacy.setString(1, value);
                 legacy.setString(2, "maintenance_on");
-                legacy.executeUpdate();
+                if (legacy.executeUpdate() > 0) {
+                    SettingsCache.getInstance().put("maintenance_on", value);
+                }
             } catch (SQLException ignore) {
                 // best-effort; ignore legacy update failures
             }
         }
+        SettingsCache.getInstance().put("MAINTENANCE_MODE", value);
     }
 
     /**
@@ -110,5 +109,6 @@ public class SettingDAO {
                 }
             }
         }
+        SettingsCache.getInstance().put(key, value);
     }
 }
@@ -0,0 +1,156 @@
+package edu.univ.erp.dao.settings;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Process-wide, read-mostly cache of the {@code settings} table.
+ *
+ * The whole table is held as an immutable, versioned snapshot behind a volatile field, so the
+ * per-request maintenance gate and lookups such as DROP_DEADLINE or the SMTP keys are plain
+ * memory reads. Writes made through {@link SettingDAO} are applied write-through; edits made
+ * directly in the database are picked up once the snapshot is older than
+ * {@code erp.settings.ttlMs} (default 5000 ms). While one caller reloads a stale snapshot,
+ * everyone else keeps reading the previous one.
+ */
+public final class SettingsCache {
+    private static final Logger LOGGER = Logger.getLogger(SettingsCache.class.getName());
+
+    private static final SettingsCache INSTANCE =
+            new SettingsCache(new SettingDAO(), Long.getLong("erp.settings.ttlMs", 5000L));
+
+    private record Snapshot(Map<String, String> values, boolean maintenanceOn, long version, long loadedAtNanos) { }
+
+    private final SettingDAO settingDAO;
+    private final long ttlNanos;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder reloadFailures = new LongAdder();
+    private volatile Snapshot snapshot;
+
+    SettingsCache(SettingDAO settingDAO, long ttlMs) {
+        this.settingDAO = settingDAO;
+        this.ttlNanos = ttlMs * 1_000_000L;
+    }
+
+    public static SettingsCache getInstance() {
+        return INSTANCE;
+    }
+
+    /** Value for a key, or null when the key is not present. */
+    public String get(String key) throws SQLException {
+        return current().values().get(key);
+    }
+
+    /**
+     * Maintenance flag (canonical MAINTENANCE_MODE key, falling back to legacy maintenance_on).
+     * Defaults to OFF when the settings cannot be loaded at all, as SettingDAO always did.
+     */
+    public boolean isMaintenanceModeOn() {
+        try {
+            return current().maintenanceOn();
+        } catch (SQLException e) {
+            System.err.println("SettingDAO: Error checking maintenance mode. Defaulting to OFF. " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Write-through update after the database write succeeded. */
+    synchronized void put(String key, String value) {
+        Snapshot s = snapshot;
+        if (s == null) return; // nothing cached yet; the first read loads the table
+        Map<String, String> values = new HashMap<>(s.values());
+        values.put(key, value);
+        snapshot = new Snapshot(Collections.unmodifiableMap(values), computeMaintenance(values), s.version() + 1, s.loadedAtNanos());
+    }
+
+    /** Forces a reload on the next read, e.g. after the settings table was restored from a backup. */
+    public synchronized void invalidate() {
+        Snapshot s = snapshot;
+        if (s != null) {
+            snapshot = new Snapshot(s.values(), s.maintenanceOn(), s.version() + 1, s.loadedAtNanos() - ttlNanos - 1);
+        }
+    }
+
+    private Snapshot current() throws SQLException {
+        Snapshot s = snapshot;
+        if (s != null && System.nanoTime() - s.loadedAtNanos() < ttlNanos) {
+            hits.increment();
+            return s;
+        }
+        misses.increment();
+        if (s == null) {
+            synchronized (this) {
+                if (snapshot == null) reload();
+                return snapshot;
+            }
+        }
+        // Stale: one caller refreshes, concurrent callers keep serving the previous snapshot.
+        if (refreshing.compareAndSet(false, true)) {
+            try {
+                reload();
+            } catch (SQLException e) {
+                reloadFailures.increment();
+                LOGGER.log(Level.WARNING, "SettingsCache: refresh failed, serving previous snapshot. " + e.getMessage());
+                synchronized (this) {
+                    // Back off for one TTL instead of retrying on every request while the DB is unavailable.
+                    Snapshot cur = snapshot;
+                    snapshot = new Snapshot(cur.values(), cur.maintenanceOn(), cur.version(), System.nanoTime());
+                }
+            } finally {
+                refreshing.set(false);
+            }
+        }
+        return snapshot;
+    }
+
+    private void reload() throws SQLException {
+        Snapshot before = snapshot;
+        long versionAtStart = before == null ? 0 : before.version();
+        Map<String, String> values = settingDAO.loadAllSettings();
+        reloads.increment();
+        synchronized (this) {
+            Snapshot cur = snapshot;
+            if (cur != null && cur.version() != versionAtStart) {
+                // A write-through landed while we were reading; our rows may predate it. Keep the
+                // newer snapshot and let the next TTL expiry reload.
+                snapshot = new Snapshot(cur.values(), cur.maintenanceOn(), cur.version(), System.nanoTime());
+                return;
+            }
+            snapshot = new Snapshot(Collections.unmodifiableMap(values), computeMaintenance(values),
+                    versionAtStart + 1, System.nanoTime());
+        }
+    }
+
+    private static boolean computeMaintenance(Map<String, String> values) {
+        String status = values.get("MAINTENANCE_MODE");
+        if (status == null) {
+            // fallback to legacy key if present
+            status = values.get("maintenance_on");
+        }
+        return status != null && (status.equalsIgnoreCase("ON") || status.equalsIgnoreCase("TRUE"));
+    }
+
+    /** Counters for GET_SERVER_STATS. */
+    public Map<String, Object> getStats() {
+        Snapshot s = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("reloads", reloads.sum());
+        stats.put("reloadFailures", reloadFailures.sum());
+        stats.put("version", s == null ? 0 : s.version());
+        stats.put("entries", s == null ? 0 : s.values().size());
+        stats.put("ttlMs", ttlNanos / 1_000_000L);
+        return stats;
+    }
+}
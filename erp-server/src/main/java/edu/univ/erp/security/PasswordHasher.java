@@ -3,8 +3,33 @@ import org.mindrot.jbcrypt.BCrypt;
 
 public class PasswordHasher {
 
-    // Define the secure workload factor (cost). 12 is a common standard.
-    private static final int WORKLOAD = 12;
+    // Secure workload factor (cost) for new hashes: erp.bcrypt.cost, default 12 (BCrypt allows 4-30).
+    // Each step doubles the time per hash; tools.BcryptCostCalibrator recommends one for this machine.
+    private static final int WORKLOAD = Math.max(4, Math.min(30, Integer.getInteger("erp.bcrypt.cost", 12)));
+
+    /** The cost new hashes are created with. */
+    public static int targetCost() {
+        return WORKLOAD;
+    }
+
+    /**
+     * The cost a stored hash was created with ("$2a$12$..." gives 12), or -1 if it is not a BCrypt hash.
+     */
+    public static int costOf(String storedHash) {
+        if (storedHash == null || storedHash.length() < 7 || storedHash.charAt(0) != '$') return -1;
+        int sep = storedHash.indexOf('$', 1);
+        if (sep < 0 || storedHash.length() < sep + 3) return -1;
+        try {
+            return Integer.parseInt(storedHash.substring(sep + 1, sep + 3));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** True when a verified hash should be replaced because it was made with a different cost. */
+    public static boolean needsRehash(String storedHash) {
+        return costOf(storedHash) != WORKLOAD;
+    }
 
     /**
      * Hashes a plaintext password for secure storage in the Auth DB.
@@ -0,0 +1,142 @@
+package edu.univ.erp.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Runs BCrypt password checks on a small dedicated pool instead of the connection thread.
+ *
+ * A check costs a few hundred milliseconds of CPU. Run inline on thousands of connection
+ * threads during a login wave it would occupy every core (and, on virtual threads, every carrier)
+ * and stall all other commands. Here at most {@code erp.bcrypt.threads} checks (default: cores)
+ * run at once and {@code erp.bcrypt.queueSize} more (default threads x 8) wait in FIFO order.
+ * Logins beyond that, or ones that waited longer than {@code erp.bcrypt.maxWaitMs} (default
+ * 5000) before a thread was free, fail with {@code LOGIN_BUSY:<retryAfterMs>:...} without
+ * touching the account's failed-attempt counter. The client retries after that delay.
+ */
+public final class PasswordVerifier {
+    private static final Logger LOGGER = Logger.getLogger(PasswordVerifier.class.getName());
+
+    private static final long DEFAULT_HASH_MS = 250;
+    private static final long MAX_RETRY_AFTER_MS = 10000;
+
+    private static final PasswordVerifier INSTANCE = create();
+
+    private final int threads;
+    private final int queueCapacity;
+    private final long maxWaitNanos;
+    private final ThreadPoolExecutor pool;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+
+    private PasswordVerifier(int threads, int queueCapacity, long maxWaitMs) {
+        this.threads = Math.max(1, threads);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.maxWaitNanos = maxWaitMs * 1_000_000L;
+        AtomicInteger seq = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(this.threads, this.threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity), r -> {
+                    Thread t = new Thread(r, "erp-bcrypt-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    private static PasswordVerifier create() {
+        int threads = Integer.getInteger("erp.bcrypt.threads", Runtime.getRuntime().availableProcessors());
+        int queueSize = Integer.getInteger("erp.bcrypt.queueSize", Math.max(1, threads) * 8);
+        long maxWaitMs = Long.getLong("erp.bcrypt.maxWaitMs", 5000L);
+        LOGGER.info(() -> "SERVER LOG: BCrypt verification pool: " + threads + " threads, queue " + queueSize
+                + ", max wait " + maxWaitMs + " ms");
+        return new PasswordVerifier(threads, queueSize, maxWaitMs);
+    }
+
+    public static PasswordVerifier getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * {@link PasswordHasher#verifyPassword} on the verification pool; blocks the caller until done.
+     * @throws Exception {@code LOGIN_BUSY:<retryAfterMs>:...} when the pool is saturated
+     */
+    public boolean verify(String plaintextPassword, String storedHash) throws Exception {
+        if (plaintextPassword == null || storedHash == null) return false;
+        long enqueued = System.nanoTime();
+        Future<Boolean> result;
+        try {
+            result = pool.submit(() -> {
+                long started = System.nanoTime();
+                long waited = started - enqueued;
+                queueWaitNanos.add(waited);
+                maxQueueWaitNanos.accumulateAndGet(waited, Math::max);
+                if (waited > maxWaitNanos) {
+                    // The queue backed up; do not spend a hash on a login that has waited this long.
+                    expired.increment();
+                    throw busy();
+                }
+                boolean ok = PasswordHasher.verifyPassword(plaintextPassword, storedHash);
+                hashNanos.add(System.nanoTime() - started);
+                completed.increment();
+                return ok;
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw busy();
+        }
+        submitted.increment();
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception ex) throw ex;
+            throw new Exception("Password verification failed: " + cause, cause);
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new Exception("Password verification interrupted.");
+        }
+    }
+
+    /** How long the current queue takes to drain, from the average hash time so far. */
+    private Exception busy() {
+        long done = completed.sum();
+        long avgHashMs = done == 0 ? DEFAULT_HASH_MS : Math.max(1, hashNanos.sum() / done / 1_000_000L);
+        long retryAfterMs = Math.min(MAX_RETRY_AFTER_MS, (pool.getQueue().size() / threads + 1) * avgHashMs);
+        return new Exception("LOGIN_BUSY:" + retryAfterMs + ":Too many logins in progress. Please retry shortly.");
+    }
+
+    /** Counters for GET_SERVER_STATS. */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long started = completed.sum() + expired.sum();
+        long done = completed.sum();
+        stats.put("threads", threads);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("queued", pool.getQueue().size());
+        stats.put("active", pool.getActiveCount());
+        stats.put("submitted", submitted.sum());
+        stats.put("completed", done);
+        stats.put("rejected", rejected.sum());
+        stats.put("expired", expired.sum());
+        stats.put("avgQueueWaitMs", started == 0 ? 0.0 : queueWaitNanos.sum() / (double) started / 1_000_000.0);
+        stats.put("maxQueueWaitMs", maxQueueWaitNanos.get() / 1_000_000.0);
+        stats.put("avgHashMs", done == 0 ? 0.0 : hashNanos.sum() / (double) done / 1_000_000.0);
+        return stats;
+    }
+}
@@ -0,0 +1,68 @@
+package edu.univ.erp.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Line reader for the blocking transport that, unlike {@code BufferedReader.readLine()}, gives up
+ * on a line longer than {@code maxLineBytes} instead of buffering it whole. Lines end at '\n'
+ * (a preceding '\r' is dropped), like the NIO transport's framing.
+ */
+final class BoundedLineReader {
+
+    /** Thrown when a request line exceeds the limit; the connection should be closed. */
+    static final class LineTooLongException extends IOException {
+        LineTooLongException(int maxLineBytes) {
+            super("Request exceeds " + maxLineBytes + " bytes.");
+        }
+    }
+
+    private final InputStream in;
+    private final Charset charset;
+    private final int maxLineBytes;
+    private final byte[] buf = new byte[16 * 1024];
+    private int pos;
+    private int limit;
+    private byte[] line = new byte[256];
+
+    BoundedLineReader(InputStream in, Charset charset, int maxLineBytes) {
+        this.in = in;
+        this.charset = charset;
+        this.maxLineBytes = maxLineBytes;
+    }
+
+    /** The next line without its terminator, or null at end of stream. */
+    String readLine() throws IOException {
+        int length = 0;
+        while (true) {
+            if (pos == limit) {
+                int n = in.read(buf);
+                if (n < 0) return length == 0 ? null : decode(length);
+                pos = 0;
+                limit = n;
+            }
+            int start = pos;
+            while (pos < limit && buf[pos] != '\n') pos++;
+            int chunk = pos - start;
+            if (length + chunk > maxLineBytes) throw new LineTooLongException(maxLineBytes);
+            if (length + chunk > line.length) {
+                line = Arrays.copyOf(line, (int) Math.min((long) maxLineBytes, Math.max(line.length * 2L, length + chunk)));
+            }
+            System.arraycopy(buf, start, line, length, chunk);
+            length += chunk;
+            if (pos < limit) {
+                pos++; // the '\n'
+                String s = decode(length);
+                if (line.length > buf.length) line = new byte[256]; // release large request buffers
+                return s;
+            }
+        }
+    }
+
+    private String decode(int length) {
+        if (length > 0 && line[length - 1] == '\r') length--;
+        return new String(line, 0, length, charset);
+    }
+}
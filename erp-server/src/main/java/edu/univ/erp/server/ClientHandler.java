@@ -1,8 +1,6 @@
 package edu.univ.erp.server;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.net.Socket;
 import java.nio.charset.StandardCharsets;
@@ -30,42 +28,69 @@ import edu.univ.erp.service.auth.AuthService;
 import edu.univ.erp.service.instructor.InstructorService;
 import edu.univ.erp.service.student.StudentService;
 import edu.univ.erp.util.MailUtil;
+import edu.univ.erp.server.session.SessionStore;
+import edu.univ.erp.util.ResponseCache;
 
 public class ClientHandler implements Runnable {
 private static final Logger LOGGER = Logger.getLogger(ClientHandler.class.getName());
 private final Socket clientSocket;
-private final Gson gson = new Gson();
+// Gson is thread-safe; one instance serves every connection.
+private static final Gson gson = new Gson();
+// Longest request line either transport accepts: one upload chunk plus its command (erp.server.maxLineBytes)
+static final int MAX_LINE_BYTES = Integer.getInteger("erp.server.maxLineBytes", UploadRegistry.getInstance().maxRequestLineBytes());
 private final SettingDAO settingDAO = new SettingDAO(); 
     
 private final InstructorService instructorService = new InstructorService();
 private final AdminService adminService = new AdminService();
 
-  // Per-connection authenticated user 
-  private edu.univ.erp.domain.UserAuth currentUser = null;
+  // Session bound to this connection by an un-prefixed LOGIN (the desktop client's model)
+  private SessionStore.Session connectionSession = null;
+  // Session of the request being processed: from its SESSION:<token>: prefix, else connectionSession.
+  // Requests of one connection are processed one at a time, so a field is enough.
+  private SessionStore.Session requestSession = null;
 
   // ----------------- Session / Authorization helpers -----------------
   private edu.univ.erp.domain.UserAuth requireAuthenticated() throws Exception {
-    if (this.currentUser == null) {
+    if (this.requestSession == null) {
       throw new Exception("NOT_AUTHENTICATED:Login required to perform this action.");
     }
-    return this.currentUser;
+    return this.requestSession.getUser();
   }
 
-  private void requireAdmin(edu.univ.erp.domain.UserAuth current) throws Exception {
-    edu.univ.erp.access.AccessChecker checker = new edu.univ.erp.access.AccessChecker();
-    if (!checker.isAdmin(current.getUserId())) {
+  /** Role and section ownership of the logged-in user, built at LOGIN so authorization is a memory check. */
+  private edu.univ.erp.access.AuthorizationContext authz() throws Exception {
+    requireAuthenticated();
+    return this.requestSession.getAuthContext();
+  }
+
+  private void requireAdmin() throws Exception {
+    if (!authz().isAdmin()) {
       throw new Exception("NOT_AUTHORIZED:Only admins may perform this action.");
     }
   }
 
   // private void requireSameUserOrAdmin(edu.univ.erp.domain.UserAuth current, int userId) throws Exception {
   //   if (current.getUserId() != userId) {
-  //     requireAdmin(current);
+  //     requireAdmin();
   //   }
   // }
 
 
 public ClientHandler(Socket socket) { this.clientSocket = socket; }
+
+  /**
+   * Session-only handler for transports that own the socket themselves (see NioServer).
+   * Such transports call {@link #processRequest(String)} per line and {@link #onDisconnect()} on close.
+   */
+  ClientHandler() { this.clientSocket = null; }
+
+  /** Ends the connection's own session when the transport closes the connection; token sessions live on. */
+  void onDisconnect() {
+    SessionStore.getInstance().invalidate(this.connectionSession);
+    this.connectionSession = null;
+    this.requestSession = null;
+  }
+
  @Override
   public void run() { 
     // Apply a socket read timeout to avoid handler threads blocking forever on dead clients
@@ -74,9 +99,9 @@ public ClientHandler(Socket socket) { this.clientSocket = socket; }
       clientSocket.setSoTimeout(timeoutMs);
     } catch (Exception ignore) {}
 
-    try (BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-      PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), true)
-    ) {
+    try (PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), true)) {
+      // Lines are capped like NioServer's, so a client cannot make the server buffer an unbounded request
+      BoundedLineReader in = new BoundedLineReader(clientSocket.getInputStream(), StandardCharsets.UTF_8, MAX_LINE_BYTES);
       // Keep reading requests until null
              String request;
       while (true) {
@@ -85,6 +110,10 @@ public ClientHandler(Socket socket) { this.clientSocket = socket; }
         } catch (java.net.SocketTimeoutException ste) {
           try { LOGGER.log(Level.INFO, "ClientHandler read timeout from " + clientSocket.getRemoteSocketAddress()); } catch (Exception ignore) { LOGGER.log(Level.INFO, "ClientHandler read timeout"); }
           break; // exit loop and close connection
+        } catch (BoundedLineReader.LineTooLongException tooLong) {
+          LOGGER.warning("SERVER LOG: Request line from " + clientSocket.getRemoteSocketAddress() + " exceeds " + MAX_LINE_BYTES + " bytes; closing.");
+          out.println("ERROR:REQUEST_TOO_LARGE:" + tooLong.getMessage());
+          break;
         }
         if (request == null) break;
          String response = processRequest(request);
@@ -102,25 +131,60 @@ public ClientHandler(Socket socket) { this.clientSocket = socket; }
       LOGGER.log(Level.SEVERE, "ClientHandler network error: " + e.getMessage(), e);
     } finally {
       // clear per-connection session on exit
-      this.currentUser = null;
+      onDisconnect();
       try { clientSocket.close(); } catch (IOException e) { /* ignored */ }
     }
   }
   
-  private String processRequest(String request) {
+  String processRequest(String request) {
+    if (request == null) return "ERROR:NO_REQUEST";
+    // SESSION:<token>:<command...> runs the command as the token's session (gateways multiplex users this way)
+    if (request.regionMatches(true, 0, "SESSION:", 0, 8)) {
+      int end = request.indexOf(':', 8);
+      if (end < 0) return "ERROR:Missing command after session token.";
+      SessionStore.Session session = SessionStore.getInstance().get(request.substring(8, end));
+      if (session == null) return "ERROR:SESSION_EXPIRED:Session is unknown or expired. Please log in again.";
+      this.requestSession = session;
+      try {
+        return route(request.substring(end + 1), true);
+      } finally {
+        this.requestSession = null;
+      }
+    }
+    // The bound session may have been revoked (password change elsewhere) or expired meanwhile.
+    SessionStore.Session bound = this.connectionSession;
+    if (bound != null && SessionStore.getInstance().get(bound.getToken()) != bound) {
+      this.connectionSession = null;
+      if (!request.regionMatches(true, 0, "LOGIN:", 0, 6) && !"PING".equalsIgnoreCase(request.trim())) {
+        return "ERROR:SESSION_EXPIRED:Session is unknown or expired. Please log in again.";
+      }
+    }
+    this.requestSession = this.connectionSession;
+    try {
+      return route(request, false);
+    } finally {
+      this.requestSession = null;
+    }
+  }
+
+  private String route(String request, boolean tokenRequest) {
     try {
-      if (request == null) return "ERROR:NO_REQUEST";
-      
       String[] parts = request.split(":");
       String command = parts[0].toUpperCase();
-      
+
+      // Liveness probe; answered before anything touches the database.
+      if (command.equals("PING")) {
+        return "SUCCESS:PONG";
+      }
+
       // --- CRITICAL STEP 1: Maintenance Mode Check (Rule #3) ---
   if (settingDAO.isMaintenanceModeOn()) {
         // Block write operations during maintenance. Note: admin creation commands
         // are represented as top-level commands (CREATE_STUDENT, CREATE_INSTRUCTOR, CREATE_COURSE_SECTION).
         if (command.equals("REGISTER") || command.equals("DROP_SECTION") || 
-          command.equals("RECORD_SCORE") || command.equals("COMPUTE_FINAL_GRADE") || // instructor grading
-          command.equals("CREATE_STUDENT") || command.equals("CREATE_INSTRUCTOR") || command.equals("CREATE_COURSE_SECTION")) {
+          command.equals("RECORD_SCORE") || command.equals("COMPUTE_FINAL_GRADE") || command.equals("COMPUTE_FINAL_GRADES_SECTION") || // instructor grading
+          command.equals("CREATE_STUDENT") || command.equals("CREATE_INSTRUCTOR") || command.equals("CREATE_COURSE_SECTION") ||
+          command.equals("JOIN_WAITLIST") || command.equals("LEAVE_WAITLIST") || command.equals("REGISTER_BATCH")) {
           
           LOGGER.warning(() -> "SERVER LOG: ACCESS DENIED: Command " + command + " blocked due to maintenance.");
           return "ERROR:MAINTENANCE_ON:The system is currently undergoing maintenance. Enrollment changes and grading operations are disabled.";
@@ -130,7 +194,7 @@ public ClientHandler(Socket socket) { this.clientSocket = socket; }
       // CENTRAL REQUEST ROUTER
   switch (command) {
         case "LOGIN":
-          return handleLogin(parts);
+          return handleLogin(parts, tokenRequest);
         case "LOGOUT":
           return handleLogout(parts);
         case "GET_GRADES":
@@ -143,8 +207,16 @@ public ClientHandler(Socket socket) { this.clientSocket = socket; }
           return handleGetCgpa(parts);
         case "REGISTER": 
           return handleRegisterCourse(parts);
+        case "REGISTER_BATCH":
+          return handleRegisterBatch(parts);
         case "DROP_SECTION": 
           return handleDropCourse(parts);
+        case "JOIN_WAITLIST":
+          return handleJoinWaitlist(parts);
+        case "LEAVE_WAITLIST":
+          return handleLeaveWaitlist(parts);
+        case "GET_WAITLIST_POSITION":
+          return handleGetWaitlistPosition(parts);
         case "CHANGE_PASSWORD": 
           return handleChangePassword(parts); 
         case "DOWNLOAD_TRANSCRIPT":
@@ -161,6 +233,8 @@ public ClientHandler(Socket socket) { this.clientSocket = socket; }
           return handleRecordScore(parts);
         case "COMPUTE_FINAL_GRADE":
           return handleComputeFinalGrade(parts);
+        case "COMPUTE_FINAL_GRADES_SECTION":
+          return handleComputeFinalGradesSection(parts);
         case "EXPORT_GRADES":
           return handleExportGrades(parts);
         case "IMPORT_GRADES":
@@ -180,9 +254,27 @@ public ClientHandler(Socket socket) { this.clientSocket = socket; }
   case "CHECK_MAINTENANCE":
     return handleCheckMaintenance();
   case "DB_BACKUP":
-    return handleDbBackup(parts);
+    // The single-line form read the whole dump into memory; backups are chunked downloads now.
+    throw new Exception("NOT_SUPPORTED:Use DB_BACKUP_BEGIN and DOWNLOAD_CHUNK for backups.");
   case "DB_RESTORE":
-    return handleDbRestore(parts);
+    // The single-line form decoded the whole dump in memory; restores are chunked uploads now.
+    throw new Exception("NOT_SUPPORTED:Send restores as a chunked upload (UPLOAD_BEGIN:DB_RESTORE:totalBytes).");
+  case "DB_BACKUP_BEGIN":
+    return handleDbBackupBegin();
+  case "DOWNLOAD_CHUNK":
+    return handleDownloadChunk(parts);
+  case "DOWNLOAD_END":
+    return handleDownloadEnd(parts);
+  case "GET_RESTORE_PROGRESS":
+    return handleGetRestoreProgress();
+  case "UPLOAD_BEGIN":
+    return handleUploadBegin(parts);
+  case "UPLOAD_CHUNK":
+    return handleUploadChunk(parts);
+  case "UPLOAD_END":
+    return handleUploadEnd(parts);
+  case "UPLOAD_ABORT":
+    return handleUploadAbort(parts);
   case "GET_ALL_COURSES":
       return handleGetAllCourses();
     case "GET_ALL_INSTRUCTORS":
@@ -197,6 +289,14 @@ public ClientHandler(Socket socket) { this.clientSocket = socket; }
     return handleSendNotification(parts);
   case "GET_NOTIFICATIONS":
     return handleGetNotifications(parts);
+  case "GET_SERVER_STATS":
+    return handleGetServerStats();
+  case "REBUILD_ACADEMIC_SUMMARY":
+    return handleRebuildAcademicSummary();
+  case "GET_CGPA_RANKING":
+    return handleGetCgpaRanking(parts);
+  case "IF_NONE_MATCH":
+    return handleIfNoneMatch(parts);
   default:
       return "ERROR:UNKNOWN_COMMAND";
   }
@@ -216,7 +316,7 @@ public ClientHandler(Socket socket) { this.clientSocket = socket; }
     private String handleGetInstructorSections(String[] parts) throws Exception {
         if (parts.length < 2) throw new Exception("Missing instructor ID.");
     // Require authenticated session and ensure caller is the instructor or an admin
-    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
+    requireAuthenticated();
     int instructorId;
     try {
       instructorId = Integer.parseInt(parts[1]);
@@ -225,8 +325,7 @@ public ClientHandler(Socket socket) { this.clientSocket = socket; }
     }
     
 
-    edu.univ.erp.access.AccessChecker checker = new edu.univ.erp.access.AccessChecker();
-    if (current.getUserId() != instructorId && !checker.isAdmin(current.getUserId())) {
+    if (!authz().actsFor(instructorId)) {
       throw new Exception("NOT_AUTHORIZED:Only the instructor or admins may view assigned sections.");
     }
 
@@ -240,8 +339,7 @@ public ClientHandler(Socket socket) { this.clientSocket = socket; }
  */
 private String handleCreateCourse(String[] parts) throws Exception {
   if (parts.length < 4) throw new Exception("Missing parameters. Expected CREATE_COURSE:code:title:credits");
-  edu.univ.erp.domain.UserAuth current = requireAuthenticated();
-  requireAdmin(current);
+  requireAdmin();
 
   String code = parts[1];
   String title = parts[2];
@@ -297,8 +395,7 @@ private String handleCreateCourse(String[] parts) throws Exception {
    */
   private String handleSetAdminEmail(String[] parts) throws Exception {
     if (parts.length < 2) throw new Exception("Missing email parameter. Expected SET_ADMIN_EMAIL:email");
-    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
-    requireAdmin(current);
+    requireAdmin();
     String email = parts[1];
     if (email == null || !email.contains("@")) throw new Exception("Invalid email format.");
     settingDAO.setSetting("ADMIN_EMAIL", email);
@@ -310,8 +407,7 @@ private String handleCreateCourse(String[] parts) throws Exception {
  */
 private String handleCreateSection(String[] parts) throws Exception {
   if (parts.length < 8) throw new Exception("Missing parameters. Expected CREATE_SECTION:courseCode:instructorId:dayTime:room:capacity:semester:year");
-  edu.univ.erp.domain.UserAuth current = requireAuthenticated();
-  requireAdmin(current);
+  requireAdmin();
 
   String courseCode = parts[1];
   int instrId;
@@ -337,7 +433,7 @@ private String handleCreateSection(String[] parts) throws Exception {
      */
     private String handleGetRoster(String[] parts) throws Exception {
         if (parts.length < 3) throw new Exception("Missing section ID or instructor ID for roster request.");
-    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
+    requireAuthenticated();
     int instructorId;
     int sectionId;
     try {
@@ -347,12 +443,11 @@ private String handleCreateSection(String[] parts) throws Exception {
       throw new Exception("Invalid ID format provided.");
     }
     // Only the assigned instructor or admin can view roster
-    edu.univ.erp.access.AccessChecker checker = new edu.univ.erp.access.AccessChecker();
-    if (current.getUserId() != instructorId && !checker.isAdmin(current.getUserId()) && !checker.isInstructorOfSection(instructorId, sectionId)) {
+    if (!authz().actsFor(instructorId)) {
       throw new Exception("NOT_AUTHORIZED:Only the instructor or admins may view the roster.");
     }
 
-    List<EnrollmentRecord> rosterRecords = instructorService.getSectionRoster(instructorId, sectionId);
+    List<EnrollmentRecord> rosterRecords = instructorService.getSectionRoster(authz(), sectionId);
     String jsonRoster = gson.toJson(rosterRecords);
     return "SUCCESS:" + jsonRoster;
     }
@@ -363,7 +458,7 @@ private String handleCreateSection(String[] parts) throws Exception {
      */
     private String handleRecordScore(String[] parts) throws Exception {
         if (parts.length < 5) throw new Exception("Missing one or more required parameters for grade recording.");
-    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
+    requireAuthenticated();
     int instructorId;
     int enrollmentId;
     String componentName;
@@ -377,12 +472,11 @@ private String handleCreateSection(String[] parts) throws Exception {
       throw new Exception("Invalid ID or score format provided.");
     }
 
-    edu.univ.erp.access.AccessChecker checker = new edu.univ.erp.access.AccessChecker();
-    if (current.getUserId() != instructorId && !checker.isAdmin(current.getUserId()) && !checker.isInstructorOfEnrollment(instructorId, enrollmentId)) {
+    if (!authz().actsFor(instructorId)) {
       throw new Exception("NOT_AUTHORIZED:Only the instructor for this enrollment or admins may record scores.");
     }
 
-    instructorService.recordScore(instructorId, enrollmentId, componentName, score);
+    instructorService.recordScore(authz(), enrollmentId, componentName, score);
     return "SUCCESS:Score recorded successfully for " + componentName + ".";
     }
 
@@ -392,7 +486,7 @@ private String handleCreateSection(String[] parts) throws Exception {
      */
     private String handleComputeFinalGrade(String[] parts) throws Exception {
         if (parts.length < 3) throw new Exception("Missing enrollment ID or instructor ID.");
-    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
+    requireAuthenticated();
     int instructorId;
     int enrollmentId;
     try {
@@ -403,22 +497,48 @@ private String handleCreateSection(String[] parts) throws Exception {
     }
 
     // Authorization: only the assigned instructor or admin may compute final grade
-    edu.univ.erp.access.AccessChecker checker = new edu.univ.erp.access.AccessChecker();
-    if (current.getUserId() != instructorId && !checker.isAdmin(current.getUserId()) && !checker.isInstructorOfEnrollment(instructorId, enrollmentId)) {
+    if (!authz().actsFor(instructorId)) {
       throw new Exception("NOT_AUTHORIZED:Only the instructor for this enrollment or admins may compute final grades.");
     }
 
-    String finalGrade = instructorService.computeAndRecordFinalGrade(instructorId, enrollmentId);
+    String finalGrade = instructorService.computeAndRecordFinalGrade(authz(), enrollmentId);
     return "SUCCESS:Final grade (" + finalGrade + ") computed and recorded successfully.";
     }
 
+    /**
+     * Handles COMPUTE_FINAL_GRADES_SECTION:sectionId. Finalizes every registered student in the
+     * section in one transaction; the caller must be the section's instructor or an admin.
+     * Returns {"sectionId":..,"graded":n,"distribution":{"A":..,"A-":..,...,"F":..}}.
+     */
+    private String handleComputeFinalGradesSection(String[] parts) throws Exception {
+        if (parts.length < 2) throw new Exception("Missing section ID.");
+    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
+    int sectionId;
+    try {
+      sectionId = Integer.parseInt(parts[1]);
+    } catch (NumberFormatException e) {
+      throw new Exception("Invalid ID format provided.");
+    }
+
+    java.util.Map<String,Integer> distribution =
+        instructorService.computeAndRecordFinalGradesForSection(authz(), sectionId);
+    int graded = 0;
+    for (int n : distribution.values()) graded += n;
+    java.util.Map<String,Object> result = new java.util.LinkedHashMap<>();
+    result.put("sectionId", sectionId);
+    result.put("graded", graded);
+    result.put("distribution", distribution);
+    LOGGER.info("SERVER LOG: Final grades computed for section " + sectionId + " by user " + current.getUserId() + ": " + distribution);
+    return "SUCCESS:" + gson.toJson(result);
+    }
+
   /**
    * Handles EXPORT_GRADES. Returns a base64-encoded CSV file content to avoid newlines in single-line protocol.
    * Command: EXPORT_GRADES:instructorId:sectionId
    */
   private String handleExportGrades(String[] parts) throws Exception {
     if (parts.length < 3) throw new Exception("Missing instructor ID or section ID for export.");
-    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
+    requireAuthenticated();
     int instructorId;
     int sectionId;
     try {
@@ -429,12 +549,11 @@ private String handleCreateSection(String[] parts) throws Exception {
     }
 
     // Only assigned instructor or admin may export
-    edu.univ.erp.access.AccessChecker checker = new edu.univ.erp.access.AccessChecker();
-    if (current.getUserId() != instructorId && !checker.isAdmin(current.getUserId()) && !checker.isInstructorOfSection(instructorId, sectionId)) {
+    if (!authz().actsFor(instructorId)) {
       throw new Exception("NOT_AUTHORIZED:Only the instructor or admins may export grades for this section.");
     }
 
-    String csv = instructorService.exportGradesCsv(instructorId, sectionId);
+    String csv = instructorService.exportGradesCsv(authz(), sectionId);
     String base64 = Base64.getEncoder().encodeToString(csv.getBytes(StandardCharsets.UTF_8));
     // Return as file download with a base64 payload
     return "FILE_DOWNLOAD:text/csv:grades_section_" + sectionId + ".csv:BASE64:" + base64;
@@ -468,26 +587,31 @@ private String handleCreateSection(String[] parts) throws Exception {
       base64 = sb.toString();
     }
 
-    // Authorization
-    edu.univ.erp.access.AccessChecker checker = new edu.univ.erp.access.AccessChecker();
-    if (current.getUserId() != instructorId && !checker.isAdmin(current.getUserId()) && !checker.isInstructorOfSection(instructorId, sectionId)) {
+    requireImportAuthorized(instructorId, sectionId);
+
+    byte[] decoded = Base64.getDecoder().decode(base64);
+    return importGrades(current, instructorId, sectionId, new String(decoded, StandardCharsets.UTF_8), decoded.length);
+  }
+
+  private void requireImportAuthorized(int instructorId, int sectionId) throws Exception {
+    if (!authz().actsFor(instructorId)) {
       throw new Exception("NOT_AUTHORIZED:Only the instructor or admins may import grades for this section.");
     }
+  }
 
-  byte[] decoded = Base64.getDecoder().decode(base64);
-  String csv = new String(decoded, StandardCharsets.UTF_8);
-
-  LOGGER.info(() -> "IMPORT_GRADES invoked by user " + current.getUserId() + " for instructorId=" + instructorId + " sectionId=" + sectionId + " payloadBytes=" + decoded.length);
+  /** Shared by IMPORT_GRADES and chunked uploads (UPLOAD_END). */
+  private String importGrades(edu.univ.erp.domain.UserAuth current, int instructorId, int sectionId, String csv, long payloadBytes) throws Exception {
+    LOGGER.info(() -> "IMPORT_GRADES invoked by user " + current.getUserId() + " for instructorId=" + instructorId + " sectionId=" + sectionId + " payloadBytes=" + payloadBytes);
 
-  String summary = instructorService.importGradesCsv(instructorId, sectionId, csv);
-  LOGGER.info(() -> "IMPORT_GRADES completed for instructorId=" + instructorId + " sectionId=" + sectionId + " summary=" + summary);
+    String summary = instructorService.importGradesCsv(authz(), instructorId, sectionId, csv);
+    LOGGER.info(() -> "IMPORT_GRADES completed for instructorId=" + instructorId + " sectionId=" + sectionId + " summary=" + summary);
     // The summary may contain newlines; encode as JSON string so the single-line protocol is preserved
     return "SUCCESS:" + gson.toJson(summary);
   }
   
   private String handleDownloadTranscript(String[] parts) throws Exception {
    if (parts.length < 2) throw new Exception("Missing user ID for transcript request.");
-    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
+    requireAuthenticated();
     int userId;
     try {
       userId = Integer.parseInt(parts[1]);
@@ -495,8 +619,7 @@ private String handleCreateSection(String[] parts) throws Exception {
       throw new Exception("Invalid user ID format provided.");
     }
     // Allow either the user themselves or an admin to download the transcript
-    edu.univ.erp.access.AccessChecker checker = new edu.univ.erp.access.AccessChecker();
-    if (current.getUserId() != userId && !checker.isAdmin(current.getUserId())) {
+    if (!authz().actsFor(userId)) {
       throw new Exception("NOT_AUTHORIZED:Only the student or admins may download this transcript.");
     }
 
@@ -507,7 +630,7 @@ private String handleCreateSection(String[] parts) throws Exception {
   
   private String handleGetTimetable(String[] parts) throws Exception {
     if (parts.length < 2) throw new Exception("Missing user ID for timetable request.");
-    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
+    requireAuthenticated();
     int userId;
     try {
       userId = Integer.parseInt(parts[1]);
@@ -515,8 +638,7 @@ private String handleCreateSection(String[] parts) throws Exception {
       throw new Exception("Invalid user ID format provided.");
     }
     // allow owner or admin
-    edu.univ.erp.access.AccessChecker checker = new edu.univ.erp.access.AccessChecker();
-    if (current.getUserId() != userId && !checker.isAdmin(current.getUserId())) {
+    if (!authz().actsFor(userId)) {
       throw new Exception("NOT_AUTHORIZED:Only the user or admins may fetch the timetable.");
     }
 
@@ -532,7 +654,7 @@ private String handleCreateSection(String[] parts) throws Exception {
    */
   private String handleGetCgpa(String[] parts) throws Exception {
     if (parts.length < 2) throw new Exception("Missing user ID for CGPA request.");
-    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
+    requireAuthenticated();
     int userId;
     try {
       userId = Integer.parseInt(parts[1]);
@@ -541,14 +663,15 @@ private String handleCreateSection(String[] parts) throws Exception {
     }
 
     // allow owner or admin
-    edu.univ.erp.access.AccessChecker checker = new edu.univ.erp.access.AccessChecker();
-    if (current.getUserId() != userId && !checker.isAdmin(current.getUserId())) {
+    if (!authz().actsFor(userId)) {
       throw new Exception("NOT_AUTHORIZED:Only the user or admins may fetch the CGPA.");
     }
 
   StudentService studentService = new StudentService();
-  double cgpa = studentService.computeCgpa(userId);
-  double creditsEarned = studentService.computeTotalCreditsEarned(userId);
+  // Single primary-key read of student_academic_summary.
+  edu.univ.erp.dao.grade.AcademicStandingDAO.Standing standing = studentService.getAcademicStanding(userId);
+  double cgpa = standing.cgpa() == null ? Double.NaN : standing.cgpa();
+  double creditsEarned = standing.creditsEarned();
 
 
     // Build JSON manually 
@@ -564,95 +687,219 @@ private String handleCreateSection(String[] parts) throws Exception {
     return "SUCCESS:" + json;
   }
 
+  /** Appends a line to db_backup_audit.log; failures are only logged. */
+  private void auditBackupOp(edu.univ.erp.domain.UserAuth current, String op, String sha256, long size) {
+    String auditLine = java.time.Instant.now().toString() + " | user=" + current.getUserId() + " | OP=" + op + " | sha256=" + sha256 + " | size=" + size + java.lang.System.lineSeparator();
+    try {
+      java.nio.file.Path audit = java.nio.file.Paths.get("db_backup_audit.log");
+      java.nio.file.Files.writeString(audit, auditLine, java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.APPEND);
+    } catch (Exception e) { LOGGER.log(Level.WARNING, "Failed to write " + op + " audit: " + e.getMessage()); }
+  }
+
   /**
-   * Handles DB_BACKUP. Only admins may invoke. Returns a gzipped SQL dump as BASE64 file download.
-   * Command: DB_BACKUP
+   * Handles DB_BACKUP_BEGIN: creates the backup on the server and opens it as a chunked download.
+   * Command: DB_BACKUP_BEGIN
+   * Response: SUCCESS:{"downloadId":..,"fileName":..,"contentType":..,"size":..,"sha256":..,"maxChunkBytes":..}
    */
-  private String handleDbBackup(String[] parts) throws Exception {
+  private String handleDbBackupBegin() throws Exception {
     edu.univ.erp.domain.UserAuth current = requireAuthenticated();
-    requireAdmin(current);
-
-    MysqldumpBackupService backupService = new MysqldumpBackupService();
-    Path gz = backupService.createGzippedBackup();
-    if (gz == null) throw new Exception("DB_BACKUP_FAILED:Backup service returned no file.");
-    try {
-      byte[] gzippedDump = Files.readAllBytes(gz);
-      if (gzippedDump == null || gzippedDump.length == 0) {
-        throw new Exception("DB_BACKUP_FAILED:Empty backup payload produced.");
-      }
-      // compute SHA-256 fingerprint for audit
-      java.security.MessageDigest md = java.security.MessageDigest.getInstance("SHA-256");
-      byte[] digest = md.digest(gzippedDump);
-      StringBuilder sb = new StringBuilder();
-      for (byte b : digest) sb.append(String.format("%02x", b));
-      String sha256 = sb.toString();
-      long size = gzippedDump.length;
-      // append audit line
-      String auditLine = java.time.Instant.now().toString() + " | user=" + current.getUserId() + " | OP=DB_BACKUP | sha256=" + sha256 + " | size=" + size + java.lang.System.lineSeparator();
-      try {
-        java.nio.file.Path audit = java.nio.file.Paths.get("db_backup_audit.log");
-        java.nio.file.Files.writeString(audit, auditLine, java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.APPEND);
-      } catch (Exception ignore) { LOGGER.log(Level.WARNING, "Failed to write DB backup audit: " + ignore.getMessage()); }
+    requireAdmin();
 
-      String base64 = Base64.getEncoder().encodeToString(gzippedDump);
-      return "FILE_DOWNLOAD:application/gzip:erp_backup.gz:BASE64:" + base64;
-    } finally {
-      try { Files.deleteIfExists(gz); } catch (Exception ignore) {}
+    edu.univ.erp.service.admin.BackupEngine.Backup backup = edu.univ.erp.service.admin.BackupEngine.configured().createBackup();
+    if (backup.size() == 0) {
+      try { Files.deleteIfExists(backup.file()); } catch (Exception ignore) {}
+      throw new Exception("DB_BACKUP_FAILED:Empty backup payload produced.");
     }
+    // The digest was computed while the backup was written.
+    DownloadRegistry.Opened opened = DownloadRegistry.getInstance().open(current.getUserId(), backup.file(),
+        backup.fileName(), backup.contentType(), backup.sha256());
+    auditBackupOp(current, "DB_BACKUP", opened.sha256(), opened.size());
+    return "SUCCESS:" + gson.toJson(opened);
   }
 
   /**
-   * Handles DB_RESTORE. Only admins may invoke. Accepts a BASE64 gzipped SQL dump and restores it.
-   * Command: DB_RESTORE:BASE64:<payload>
+   * Handles DOWNLOAD_CHUNK. Any offset may be requested, so a failed chunk is simply asked for again.
+   * Command: DOWNLOAD_CHUNK:downloadId:offset[:maxBytes]
+   * Response: SUCCESS:<base64> (empty at end of file)
    */
-  private String handleDbRestore(String[] parts) throws Exception {
+  private String handleDownloadChunk(String[] parts) throws Exception {
+    if (parts.length < 3) throw new Exception("Missing parameters for download chunk (downloadId, offset).");
     edu.univ.erp.domain.UserAuth current = requireAuthenticated();
-    requireAdmin(current);
-    if (parts.length < 3) throw new Exception("Missing payload encoding for DB_RESTORE. Expected BASE64 and payload.");
-    if (!"BASE64".equalsIgnoreCase(parts[1])) throw new Exception("Unsupported payload encoding. Expected BASE64.");
-
-    String base64 = parts[2];
-    if (parts.length > 3) {
-      StringBuilder sb = new StringBuilder(base64);
-      for (int i = 3; i < parts.length; i++) sb.append(":").append(parts[i]);
-      base64 = sb.toString();
+    long offset;
+    int maxBytes;
+    try {
+      offset = Long.parseLong(parts[2]);
+      maxBytes = parts.length > 3 ? Integer.parseInt(parts[3]) : 0;
+    } catch (NumberFormatException e) {
+      throw new Exception("Invalid download offset or length.");
     }
+    return "SUCCESS:" + DownloadRegistry.getInstance().readChunk(current.getUserId(), parts[1], offset, maxBytes);
+  }
 
-    byte[] gzipped = Base64.getDecoder().decode(base64);
-    MysqldumpBackupService backupService = new MysqldumpBackupService();
+  /** Command: DOWNLOAD_END:downloadId (deletes the server-side file) */
+  private String handleDownloadEnd(String[] parts) throws Exception {
+    if (parts.length < 2) throw new Exception("Missing download ID.");
+    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
+    DownloadRegistry.getInstance().close(current.getUserId(), parts[1]);
+    return "SUCCESS:Download closed.";
+  }
 
-    // Require server-side maintenance mode ON for restore
+  private void requireMaintenanceForRestore() throws Exception {
     if (!settingDAO.isMaintenanceModeOn()) {
       throw new Exception("NOT_ALLOWED:DB_RESTORE requires maintenance mode to be ON on the server.");
     }
+  }
+
+  /**
+   * Starts restoring a dump uploaded in chunks (see RestoreJobs; the job takes over and deletes
+   * the file) and drops every cache the restore invalidated once it ends. Returns at once; the
+   * client polls GET_RESTORE_PROGRESS.
+   */
+  private String restoreDatabase(edu.univ.erp.domain.UserAuth current, Path dump, String sha256, long size) throws Exception {
+    // append audit entry (pre-restore)
+    auditBackupOp(current, "DB_RESTORE", sha256, size);
+
+    edu.univ.erp.service.admin.RestoreProgress progress =
+        edu.univ.erp.service.admin.RestoreJobs.getInstance().start(dump, this::invalidateAfterRestore, this::rebuildAfterRestore);
+    return "SUCCESS:" + gson.toJson(progress.toMap());
+  }
 
-    Path tmp = Files.createTempFile("erp-restore-client-", ".sql.gz");
+  /** Runs after every restore attempt; a failed one may already have replaced tables. */
+  private void invalidateAfterRestore() {
+    // The restore replaced the settings table underneath the cache.
+    edu.univ.erp.dao.settings.SettingsCache.getInstance().invalidate();
+    edu.univ.erp.dao.course.CatalogSnapshot.getInstance().invalidate();
+    edu.univ.erp.dao.enrollment.SeatAllocator.getInstance().invalidate();
+    edu.univ.erp.service.student.WaitlistPromoter.getInstance().invalidate();
+    ResponseCache.getInstance().invalidateAll();
+    edu.univ.erp.dao.grade.AcademicSummaryCache.getInstance().invalidateAll();
+    edu.univ.erp.access.AuthorizationContext.ownershipChanged();
+  }
+
+  private void rebuildAfterRestore() {
+    // Older dumps may not carry student_academic_summary (or carry a stale one).
     try {
-      Files.write(tmp, gzipped);
-      // compute SHA-256 for audit
-      java.security.MessageDigest md = java.security.MessageDigest.getInstance("SHA-256");
-      byte[] digest = md.digest(gzipped);
-      StringBuilder sb = new StringBuilder();
-      for (byte b : digest) sb.append(String.format("%02x", b));
-      String sha256 = sb.toString();
-      long size = gzipped.length;
-      // append audit entry (pre-restore)
-      String auditLine = java.time.Instant.now().toString() + " | user=" + current.getUserId() + " | OP=DB_RESTORE | sha256=" + sha256 + " | size=" + size + java.lang.System.lineSeparator();
-      try {
-        java.nio.file.Path audit = java.nio.file.Paths.get("db_backup_audit.log");
-        java.nio.file.Files.writeString(audit, auditLine, java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.APPEND);
-      } catch (Exception ignore) { LOGGER.log(Level.WARNING, "Failed to write DB restore audit: " + ignore.getMessage()); }
+      adminService.rebuildAcademicSummary();
+    } catch (Exception e) {
+      LOGGER.log(Level.WARNING, "Academic summary rebuild after restore failed: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Handles GET_RESTORE_PROGRESS (admin): the running or most recent restore.
+   * Response: SUCCESS:{"state":"RUNNING|DONE|FAILED","bytesRead":..,"totalBytes":..,"percent":..,"statements":..,"elapsedMs":..[,"message":..]}
+   * or SUCCESS:{"state":"NONE"} when no restore ran since the server started.
+   */
+  private String handleGetRestoreProgress() throws Exception {
+    requireAdmin();
+    edu.univ.erp.service.admin.RestoreProgress progress = edu.univ.erp.service.admin.RestoreJobs.getInstance().getLatest();
+    if (progress == null) return "SUCCESS:" + gson.toJson(java.util.Map.of("state", "NONE"));
+    return "SUCCESS:" + gson.toJson(progress.toMap());
+  }
+
+  /**
+   * Handles UPLOAD_BEGIN: opens a chunked upload that UPLOAD_END hands to IMPORT_GRADES or DB_RESTORE.
+   * Command: UPLOAD_BEGIN:IMPORT_GRADES:totalBytes:instructorId:sectionId | UPLOAD_BEGIN:DB_RESTORE:totalBytes
+   * Authorization (and, for restores, maintenance mode) is checked here and again at UPLOAD_END.
+   */
+  private String handleUploadBegin(String[] parts) throws Exception {
+    if (parts.length < 3) throw new Exception("Missing parameters for upload (purpose, totalBytes).");
+    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
+    String purpose = parts[1].toUpperCase();
+    long totalBytes;
+    try {
+      totalBytes = Long.parseLong(parts[2]);
+    } catch (NumberFormatException e) {
+      throw new Exception("Invalid upload size provided.");
+    }
+    List<String> args = java.util.Arrays.asList(parts).subList(3, parts.length);
+    requireUploadAllowed(purpose, args);
+
+    UploadRegistry uploads = UploadRegistry.getInstance();
+    String uploadId = uploads.begin(current.getUserId(), purpose, args, totalBytes);
+    java.util.Map<String, Object> out = new java.util.LinkedHashMap<>();
+    out.put("uploadId", uploadId);
+    out.put("maxChunkBytes", uploads.getMaxChunkBytes());
+    return "SUCCESS:" + gson.toJson(out);
+  }
+
+  private void requireUploadAllowed(String purpose, List<String> args) throws Exception {
+    switch (purpose) {
+      case "IMPORT_GRADES":
+        if (args.size() < 2) throw new Exception("Missing parameters for import (instructorId, sectionId).");
+        try {
+          requireImportAuthorized(Integer.parseInt(args.get(0)), Integer.parseInt(args.get(1)));
+        } catch (NumberFormatException e) {
+          throw new Exception("Invalid ID format provided.");
+        }
+        break;
+      case "DB_RESTORE":
+        requireAdmin();
+        requireMaintenanceForRestore();
+        break;
+      default:
+        throw new Exception("UPLOAD_INVALID:Unknown upload purpose " + purpose + ".");
+    }
+  }
 
-      backupService.restoreFromGzippedDump(tmp);
+  /**
+   * Handles UPLOAD_CHUNK. Chunks are numbered from 0; resending a stored chunk is harmless.
+   * Command: UPLOAD_CHUNK:uploadId:seq:<base64>
+   */
+  private String handleUploadChunk(String[] parts) throws Exception {
+    if (parts.length < 4) throw new Exception("Missing parameters for upload chunk (uploadId, seq, payload).");
+    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
+    int seq;
+    try {
+      seq = Integer.parseInt(parts[2]);
+    } catch (NumberFormatException e) {
+      throw new Exception("Invalid chunk sequence number.");
+    }
+    long received = UploadRegistry.getInstance().appendChunk(current.getUserId(), parts[1], seq, parts[3]);
+    return "SUCCESS:" + received;
+  }
+
+  /**
+   * Handles UPLOAD_END: verifies the SHA-256 of everything received, then runs the import from
+   * the temp file (IMPORT_GRADES's response) or starts the restore in the background
+   * (GET_RESTORE_PROGRESS's response; poll that command until DONE or FAILED).
+   * Command: UPLOAD_END:uploadId:sha256hex
+   */
+  private String handleUploadEnd(String[] parts) throws Exception {
+    if (parts.length < 3) throw new Exception("Missing parameters for upload end (uploadId, sha256).");
+    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
+    UploadRegistry.Completed upload = UploadRegistry.getInstance().finish(current.getUserId(), parts[1], parts[2]);
+    boolean handedOff = false;
+    try {
+      // Re-checked: the role, section or maintenance mode may have changed during a long upload.
+      requireUploadAllowed(upload.purpose(), upload.args());
+      if ("IMPORT_GRADES".equals(upload.purpose())) {
+        int instructorId = Integer.parseInt(upload.args().get(0));
+        int sectionId = Integer.parseInt(upload.args().get(1));
+        String csv = Files.readString(upload.file(), StandardCharsets.UTF_8);
+        return importGrades(current, instructorId, sectionId, csv, upload.size());
+      }
+      String response = restoreDatabase(current, upload.file(), upload.sha256(), upload.size());
+      handedOff = true; // the restore job deletes the file when it finishes
+      return response;
     } finally {
-      try { Files.deleteIfExists(tmp); } catch (Exception ignore) {}
+      if (!handedOff) {
+        try { Files.deleteIfExists(upload.file()); } catch (Exception ignore) {}
+      }
     }
-    return "SUCCESS:DB restore completed.";
+  }
+
+  /** Command: UPLOAD_ABORT:uploadId */
+  private String handleUploadAbort(String[] parts) throws Exception {
+    if (parts.length < 2) throw new Exception("Missing upload ID.");
+    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
+    UploadRegistry.getInstance().abort(current.getUserId(), parts[1]);
+    return "SUCCESS:Upload aborted.";
   }
 
   private String handleDropCourse(String[] parts) throws Exception {
     if (parts.length < 3) throw new Exception("Missing user ID or section ID for drop request.");
-    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
+    requireAuthenticated();
     int userId;
     int sectionId;
     try {
@@ -662,19 +909,18 @@ private String handleCreateSection(String[] parts) throws Exception {
       throw new Exception("Invalid ID format provided.");
     }
     // only the same student or admin may drop
-    edu.univ.erp.access.AccessChecker checker = new edu.univ.erp.access.AccessChecker();
-    if (current.getUserId() != userId && !checker.isAdmin(current.getUserId())) {
+    if (!authz().actsFor(userId)) {
       throw new Exception("NOT_AUTHORIZED:Only the student or admins may drop a course.");
     }
 
     StudentService studentService = new StudentService();
-    String message = studentService.dropCourse(current.getUserId(), userId, sectionId);
+    String message = studentService.dropCourse(authz(), userId, sectionId);
     return "SUCCESS:" + message;
   }
 
   private String handleRegisterCourse(String[] parts) throws Exception {
     if (parts.length < 3) throw new Exception("Missing user ID or section ID for registration.");
-    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
+    requireAuthenticated();
     int userId;
     int sectionId;
     try {
@@ -684,44 +930,113 @@ private String handleCreateSection(String[] parts) throws Exception {
       throw new Exception("Invalid ID format provided.");
     }
     // only the same student or admin may register
-    edu.univ.erp.access.AccessChecker checker = new edu.univ.erp.access.AccessChecker();
-    if (current.getUserId() != userId && !checker.isAdmin(current.getUserId())) {
+    if (!authz().actsFor(userId)) {
       throw new Exception("NOT_AUTHORIZED:Only the student or admins may register for a course.");
     }
 
     StudentService studentService = new StudentService();
-    String message = studentService.registerCourse(current.getUserId(), userId, sectionId);
+    String message = studentService.registerCourse(authz(), userId, sectionId);
     return "SUCCESS:" + message;
   }
 
+  /**
+   * REGISTER_BATCH:userId:sectionId,sectionId,... (all or nothing).
+   * SUCCESS:{"registered":n,"results":[...]} or ERROR:BATCH_REJECTED:{same shape, registered 0}.
+   */
+  private String handleRegisterBatch(String[] parts) throws Exception {
+    if (parts.length < 3) throw new Exception("Missing user ID or section IDs for batch registration.");
+    requireAuthenticated();
+    int userId;
+    List<Integer> sectionIds = new java.util.ArrayList<>();
+    try {
+      userId = Integer.parseInt(parts[1]);
+      for (String id : parts[2].split(",")) {
+        if (!id.isBlank()) sectionIds.add(Integer.parseInt(id.trim()));
+      }
+    } catch (NumberFormatException e) {
+      throw new Exception("Invalid ID format provided.");
+    }
+    String json = new StudentService().registerCourses(authz(), userId, sectionIds);
+    return "SUCCESS:" + json;
+  }
+
+  /** JOIN_WAITLIST:userId:sectionId -> SUCCESS:{"sectionId":..,"position":..} */
+  private String handleJoinWaitlist(String[] parts) throws Exception {
+    requireAuthenticated();
+    int[] ids = parseUserAndSection(parts, "waitlist");
+    int position = new edu.univ.erp.service.student.WaitlistService().joinWaitlist(authz(), ids[0], ids[1]);
+    return "SUCCESS:{\"sectionId\":" + ids[1] + ",\"position\":" + position + "}";
+  }
+
+  /** LEAVE_WAITLIST:userId:sectionId */
+  private String handleLeaveWaitlist(String[] parts) throws Exception {
+    requireAuthenticated();
+    int[] ids = parseUserAndSection(parts, "waitlist");
+    new edu.univ.erp.service.student.WaitlistService().leaveWaitlist(authz(), ids[0], ids[1]);
+    return "SUCCESS:Removed from the waitlist for section ID: " + ids[1] + ".";
+  }
+
+  /** GET_WAITLIST_POSITION:userId:sectionId -> SUCCESS:{"sectionId":..,"position":..,"waiting":..} (position 0 = not waitlisted) */
+  private String handleGetWaitlistPosition(String[] parts) throws Exception {
+    requireAuthenticated();
+    int[] ids = parseUserAndSection(parts, "waitlist");
+    int[] pos = new edu.univ.erp.service.student.WaitlistService().getWaitlistPosition(authz(), ids[0], ids[1]);
+    return "SUCCESS:{\"sectionId\":" + ids[1] + ",\"position\":" + pos[0] + ",\"waiting\":" + pos[1] + "}";
+  }
+
+  private int[] parseUserAndSection(String[] parts, String what) throws Exception {
+    if (parts.length < 3) throw new Exception("Missing user ID or section ID for " + what + " request.");
+    try {
+      return new int[] { Integer.parseInt(parts[1]), Integer.parseInt(parts[2]) };
+    } catch (NumberFormatException e) {
+      throw new Exception("Invalid ID format provided.");
+    }
+  }
+
   private String handleGetCatalog() throws Exception {
-    StudentService studentService = new StudentService();
-    List<CourseCatalog> catalog = studentService.fetchCourseCatalog();
-    
-    String catalogJson = gson.toJson(catalog); 
-    return "SUCCESS:" + catalogJson;
+    // Served from the in-memory snapshot; the JSON is already serialized.
+    return "SUCCESS:" + cachedResponse("GET_CATALOG").payload();
   }
 
-  private String handleLogin(String[] parts) throws Exception {
+  /**
+   * Handles LOGIN:username:password. Opens a session and returns the user JSON with its
+   * {@code sessionToken}. A plain LOGIN also binds the session to this connection (desktop client);
+   * {@code SESSION:<any>:LOGIN...} is not accepted, and a gateway adds a 4th field {@code DETACHED}
+   * so the shared connection stays unbound and every later request carries the token.
+   */
+  private String handleLogin(String[] parts, boolean tokenRequest) throws Exception {
+    if (tokenRequest) throw new Exception("LOGIN cannot be sent with a session token.");
     if (parts.length < 3) throw new Exception("Missing username or password.");
     String username = parts[1];
     String password = parts[2];
     
     AuthService authService = new AuthService();
-  UserAuth user = authService.authenticate(username, password);
-  // set the per-connection authenticated user for this handler
-  this.currentUser = user;
-    
-    String userJson = gson.toJson(user);
-    return "SUCCESS:" + userJson;
+  UserAuth user;
+  try {
+    user = authService.authenticate(username, password);
+  } catch (Exception e) {
+    // Shedding during a login wave is expected; answer without the per-exception SEVERE log.
+    if (e.getMessage() != null && e.getMessage().startsWith("LOGIN_BUSY:")) return "ERROR:" + e.getMessage();
+    throw e;
+  }
+  SessionStore.Session session = SessionStore.getInstance().create(user, edu.univ.erp.access.AuthorizationContext.forUser(user));
+  boolean detached = parts.length > 3 && "DETACHED".equalsIgnoreCase(parts[3]);
+  if (!detached) {
+    // re-login on the same connection replaces its previous session
+    SessionStore.getInstance().invalidate(this.connectionSession);
+    this.connectionSession = session;
+  }
+
+    com.google.gson.JsonObject userJson = gson.toJsonTree(user).getAsJsonObject();
+    userJson.addProperty("sessionToken", session.getToken());
+    return "SUCCESS:" + gson.toJson(userJson);
   }
   
   private String handleGetGrades(String[] parts) throws Exception {
     if (parts.length < 2) throw new Exception("Missing user ID for grades request.");
-    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
+    requireAuthenticated();
     int userId = Integer.parseInt(parts[1]); 
-    edu.univ.erp.access.AccessChecker checker = new edu.univ.erp.access.AccessChecker();
-    if (current.getUserId() != userId && !checker.isAdmin(current.getUserId())) {
+    if (!authz().actsFor(userId)) {
       throw new Exception("NOT_AUTHORIZED:Only the user or admins may fetch grades.");
     }
 
@@ -732,12 +1047,13 @@ private String handleCreateSection(String[] parts) throws Exception {
   }
 
   /**
-   * Handles LOGOUT command which clears the per-connection authenticated user.
+   * Handles LOGOUT command which ends the request's session (the token's, or this connection's).
    * Command format: LOGOUT
    */
   private String handleLogout(String[] parts) throws Exception {
     // No parameters expected
-    this.currentUser = null;
+    SessionStore.getInstance().invalidate(this.requestSession);
+    if (this.requestSession == this.connectionSession) this.connectionSession = null;
     return "SUCCESS:Logged out";
   }
 
@@ -748,14 +1064,15 @@ private String handleCreateSection(String[] parts) throws Exception {
     String oldPassword = parts[2];
     String newPassword = parts[3];
     // allow user themselves or admin to change password
-    edu.univ.erp.access.AccessChecker checker = new edu.univ.erp.access.AccessChecker();
-    if (current.getUserId() != userId && !checker.isAdmin(current.getUserId())) {
+    if (!authz().actsFor(userId)) {
       throw new Exception("NOT_AUTHORIZED:Only the user or admins may change this password.");
     }
 
     AuthService authService = new AuthService();
     boolean success = authService.changePassword(userId, oldPassword, newPassword);
     if (success) {
+      // Other sessions of the user may be using a leaked token; only the one that changed it survives.
+      SessionStore.getInstance().invalidateUser(userId, current.getUserId() == userId ? this.requestSession : null);
       return "SUCCESS:Password successfully changed.";
     } else {
       return "ERROR:Failed to change password (Service returned false).";
@@ -767,9 +1084,8 @@ private String handleCreateSection(String[] parts) throws Exception {
   private String handleCreateStudent(String[] parts) throws Exception {
     if (parts.length < 2) throw new Exception("Missing student payload.");
     // only admins can create students
-    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
-    edu.univ.erp.access.AccessChecker checker = new edu.univ.erp.access.AccessChecker();
-    if (!checker.isAdmin(current.getUserId())) {
+    requireAuthenticated();
+    if (!authz().isAdmin()) {
       throw new Exception("NOT_AUTHORIZED:Only admins may create students.");
     }
 
@@ -798,9 +1114,8 @@ private String handleCreateSection(String[] parts) throws Exception {
 private String handleCreateCourseSection(String[] parts) throws Exception {
     if (parts.length < 2) throw new Exception("Missing course/section payload.");
     // only admins
-    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
-    edu.univ.erp.access.AccessChecker checker = new edu.univ.erp.access.AccessChecker();
-    if (!checker.isAdmin(current.getUserId())) {
+    requireAuthenticated();
+    if (!authz().isAdmin()) {
       throw new Exception("NOT_AUTHORIZED:Only admins may create course sections.");
     }
     
@@ -840,7 +1155,7 @@ private String handleCreateCourseSection(String[] parts) throws Exception {
 private String handleToggleMaintenance(String[] parts) throws Exception {
     if (parts.length < 2) throw new Exception("Missing maintenance toggle parameter.");
   edu.univ.erp.domain.UserAuth current = requireAuthenticated();
-  requireAdmin(current);
+  requireAdmin();
 
   boolean on = parts[1].equalsIgnoreCase("ON");
   adminService.toggleMaintenance(on);
@@ -870,39 +1185,132 @@ private String handleCheckMaintenance(){
   return "SUCCESS:" + (status ? "ON" : "OFF");
 }
 
-private String handleGetAllCourses() throws Exception {
-  edu.univ.erp.domain.UserAuth current = requireAuthenticated();
-  requireAdmin(current);
+  /**
+   * Handles GET_SERVER_STATS (admin only): JSON object of in-memory cache counters.
+   */
+  private String handleGetServerStats() throws Exception {
+    requireAdmin();
+    java.util.Map<String,Object> stats = new java.util.LinkedHashMap<>();
+    stats.put("settingsCache", edu.univ.erp.dao.settings.SettingsCache.getInstance().getStats());
+    stats.put("catalog", edu.univ.erp.dao.course.CatalogSnapshot.getInstance().getStats());
+    stats.put("seats", edu.univ.erp.dao.enrollment.SeatAllocator.getInstance().getStats());
+    stats.put("waitlist", edu.univ.erp.service.student.WaitlistPromoter.getInstance().getStats());
+    stats.put("responseCache", ResponseCache.getInstance().getStats());
+    stats.put("academicSummary", edu.univ.erp.dao.grade.AcademicSummaryCache.getInstance().getStats());
+    stats.put("uploads", UploadRegistry.getInstance().getStats());
+    stats.put("downloads", DownloadRegistry.getInstance().getStats());
+    stats.put("bcrypt", edu.univ.erp.security.PasswordVerifier.getInstance().getStats());
+    stats.put("passwordRehash", edu.univ.erp.service.auth.PasswordRehasher.getInstance().getStats());
+    stats.put("loginBookkeeping", edu.univ.erp.dao.auth.LoginBookkeeping.getInstance().getStats());
+    stats.put("dbPools", edu.univ.erp.dao.db.DBConnector.getPoolStats());
+    stats.put("authorization", edu.univ.erp.access.AuthorizationContext.getStats());
+    stats.put("sessions", SessionStore.getInstance().getStats());
+    return "SUCCESS:" + gson.toJson(stats);
+  }
 
-  List<CourseCatalog> courses = adminService.getAllCourses();
-  String json = gson.toJson(courses);
-  return "SUCCESS:" + json;
+  /**
+   * Handles REBUILD_ACADEMIC_SUMMARY (admin only): regenerates student_academic_summary from the grades.
+   */
+  private String handleRebuildAcademicSummary() throws Exception {
+    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
+    requireAdmin();
+    int students = adminService.rebuildAcademicSummary();
+    LOGGER.info("SERVER LOG: Academic summary rebuilt by admin " + current.getUserId() + " (" + students + " students).");
+    return "SUCCESS:Academic summary rebuilt for " + students + " students.";
+  }
+
+  /**
+   * Handles GET_CGPA_RANKING[:limit] (admin only, default 50): JSON array of
+   * {rank, studentId, rollNo, cgpa, creditsEarned}, best CGPA first.
+   */
+  private String handleGetCgpaRanking(String[] parts) throws Exception {
+    requireAdmin();
+    int limit = 50;
+    if (parts.length >= 2 && !parts[1].isEmpty()) {
+      try {
+        limit = Integer.parseInt(parts[1]);
+      } catch (NumberFormatException e) {
+        throw new Exception("Invalid ranking limit.");
+      }
+    }
+    java.util.List<java.util.Map<String,Object>> rows = new java.util.ArrayList<>();
+    int rank = 0;
+    for (edu.univ.erp.dao.grade.AcademicStandingDAO.Standing s : adminService.getCgpaRanking(limit)) {
+      java.util.Map<String,Object> row = new java.util.LinkedHashMap<>();
+      row.put("rank", ++rank);
+      row.put("studentId", s.studentId());
+      row.put("rollNo", s.rollNo());
+      row.put("cgpa", s.cgpa());
+      row.put("creditsEarned", s.creditsEarned());
+      rows.add(row);
+    }
+    return "SUCCESS:" + gson.toJson(rows);
+  }
+
+private String handleGetAllCourses() throws Exception {
+  return "SUCCESS:" + cachedResponse(ResponseCache.GET_ALL_COURSES).payload();
 }
 
 
 private String handleGetAllStudents() throws Exception {
-  edu.univ.erp.domain.UserAuth current = requireAuthenticated();
-  requireAdmin(current);
-
-  List<Student> students = adminService.getAllStudents();
-  String json = gson.toJson(students);
-  return "SUCCESS:" + json;
+  return "SUCCESS:" + cachedResponse(ResponseCache.GET_ALL_STUDENTS).payload();
 }
 
 private String handleGetAllInstructors() throws Exception {
-    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
-    requireAdmin(current);
-  java.util.List<java.util.Map<String,Object>> list = adminService.getAllInstructors();
-  String json = gson.toJson(list);
-    return "SUCCESS:" + json;
+  return "SUCCESS:" + cachedResponse(ResponseCache.GET_ALL_INSTRUCTORS).payload();
 }
 
+  /**
+   * Serialized payload for a cacheable read command, after the same authorization checks the
+   * plain command performs.
+   */
+  private ResponseCache.Entry cachedResponse(String command) throws Exception {
+    switch (command) {
+      case "GET_CATALOG":
+        return edu.univ.erp.dao.course.CatalogSnapshot.getInstance().getCatalogEntry();
+      case ResponseCache.GET_ALL_COURSES: {
+        requireAdmin();
+        return ResponseCache.getInstance().get(command, () -> {
+          List<CourseCatalog> courses = adminService.getAllCourses();
+          return gson.toJson(courses);
+        });
+      }
+      case ResponseCache.GET_ALL_STUDENTS: {
+        requireAdmin();
+        return ResponseCache.getInstance().get(command, () -> {
+          List<Student> students = adminService.getAllStudents();
+          return gson.toJson(students);
+        });
+      }
+      case ResponseCache.GET_ALL_INSTRUCTORS: {
+        requireAdmin();
+        return ResponseCache.getInstance().get(command, () -> gson.toJson(adminService.getAllInstructors()));
+      }
+      default:
+        throw new Exception("IF_NONE_MATCH is not supported for " + command);
+    }
+  }
+
+  /**
+   * Handles IF_NONE_MATCH:<token>:<COMMAND>. Replies NOT_MODIFIED:<token> when the client's
+   * copy is current, otherwise ETAG:<token>:<payload>. Use "-" as the token when nothing is cached.
+   */
+  private String handleIfNoneMatch(String[] parts) throws Exception {
+    if (parts.length < 3) throw new Exception("Missing parameters. Expected IF_NONE_MATCH:token:COMMAND");
+    String token = parts[1];
+    String command = parts[2].toUpperCase();
+    ResponseCache.Entry entry = cachedResponse(command);
+    if (entry.token().equals(token)) {
+      return "NOT_MODIFIED:" + entry.token();
+    }
+    return "ETAG:" + entry.token() + ":" + entry.payload();
+  }
+
 private String handleCreateInstructor(String[] parts) throws Exception {
   // Support two formats:
   // 1) CREATE_INSTRUCTOR:userId:username:role:name:department:password
   // 2) CREATE_INSTRUCTOR:username:role:name:department:password  (server will allocate userId)
-  edu.univ.erp.domain.UserAuth current = requireAuthenticated();
-  requireAdmin(current);
+  requireAdmin();
 
   String username, role, name, department, password;
   int userId = 0;
@@ -942,8 +1350,7 @@ private String handleCreateInstructor(String[] parts) throws Exception {
  */
 private String handleReassignInstructor(String[] parts) throws Exception {
   if (parts.length < 3) throw new Exception("Missing parameters. Expected REASSIGN_INSTRUCTOR:sectionId:newInstructorId");
-  edu.univ.erp.domain.UserAuth current = requireAuthenticated();
-  requireAdmin(current);
+  requireAdmin();
 
   int sectionId;
   int newInstructorId;
@@ -972,8 +1379,7 @@ private String handleReassignInstructor(String[] parts) throws Exception {
         return "ERROR:MAINTENANCE_ON:Cannot change settings while maintenance is ON.";
     }
 
-  edu.univ.erp.domain.UserAuth current = requireAuthenticated();
-  requireAdmin(current);
+  requireAdmin();
 
   this.adminService.setDropDeadline(isoDate);
   return "SUCCESS:Drop deadline set to " + isoDate;
@@ -984,7 +1390,7 @@ private String handleReassignInstructor(String[] parts) throws Exception {
    */
   private String handleSendNotification(String[] parts) throws Exception {
     edu.univ.erp.domain.UserAuth current = requireAuthenticated();
-    requireAdmin(current);
+    requireAdmin();
     if (parts.length < 5) throw new Exception("Missing parameters for SEND_NOTIFICATION. Expected SEND_NOTIFICATION:recipientType:recipientId:BASE64:<payload>");
     String recipientType = parts[1];
     int recipientId;
@@ -1018,7 +1424,7 @@ private String handleReassignInstructor(String[] parts) throws Exception {
    */
   private String handleGetNotifications(String[] parts) throws Exception {
     if (parts.length < 4) throw new Exception("Missing parameters. Expected GET_NOTIFICATIONS:userId:recipientType:limit");
-    edu.univ.erp.domain.UserAuth current = requireAuthenticated();
+    requireAuthenticated();
     int userId;
     try { userId = Integer.parseInt(parts[1]); } catch (NumberFormatException e) { throw new Exception("Invalid userId"); }
     String recipientType = parts[2];
@@ -1026,8 +1432,7 @@ private String handleReassignInstructor(String[] parts) throws Exception {
     try { limit = Integer.parseInt(parts[3]); } catch (NumberFormatException e) { limit = 10; }
 
     // allow the user themselves or admins
-    edu.univ.erp.access.AccessChecker checker = new edu.univ.erp.access.AccessChecker();
-    if (current.getUserId() != userId && !checker.isAdmin(current.getUserId())) {
+    if (!authz().actsFor(userId)) {
       throw new Exception("NOT_AUTHORIZED:Only the user or admins may fetch notifications.");
     }
 
@@ -0,0 +1,168 @@
+package edu.univ.erp.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs accepted client connections and applies admission control.
+ *
+ * Two modes are supported (selected with {@code -Derp.server.executor}):
+ * <ul>
+ *   <li>{@code virtual} (default) - one virtual thread per connection, so idle
+ *       persistent sessions blocked in {@code readLine} do not pin OS threads.</li>
+ *   <li>{@code pool} - a bounded platform thread pool of {@code erp.server.poolSize}
+ *       threads.</li>
+ * </ul>
+ * At most {@code erp.server.maxConnections} connections are served at once. Connections
+ * beyond that limit receive a single {@code ERROR:SERVER_BUSY:...} line and are closed,
+ * instead of queueing behind sessions that may stay open for minutes.
+ */
+public final class ConnectionExecutor implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(ConnectionExecutor.class.getName());
+
+    public enum Mode { VIRTUAL, POOL }
+
+    private static final int DEFAULT_MAX_VIRTUAL_CONNECTIONS = 5000;
+    private static final int DEFAULT_POOL_SIZE = 200;
+    private static final int REJECT_DRAIN_TIMEOUT_MS = 1000;
+
+    private final Mode mode;
+    private final int maxConnections;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public ConnectionExecutor(Mode mode, int poolSize, int maxConnections) {
+        if (maxConnections <= 0) throw new IllegalArgumentException("maxConnections must be positive");
+        this.mode = mode;
+        this.maxConnections = maxConnections;
+        this.permits = new Semaphore(maxConnections);
+        if (mode == Mode.POOL) {
+            if (poolSize <= 0) throw new IllegalArgumentException("poolSize must be positive");
+            if (maxConnections > poolSize) {
+                LOGGER.warning(() -> "SERVER LOG: erp.server.maxConnections (" + maxConnections + ") exceeds pool size ("
+                        + poolSize + "); admitted connections beyond the pool will wait for a free thread.");
+            }
+            AtomicInteger seq = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), r -> {
+                        Thread t = new Thread(r, "erp-conn-" + seq.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+        } else {
+            this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("erp-conn-", 1).factory());
+        }
+    }
+
+    /**
+     * Builds an executor from system properties:
+     * {@code erp.server.executor} (virtual|pool), {@code erp.server.poolSize},
+     * {@code erp.server.maxConnections}.
+     */
+    public static ConnectionExecutor fromSystemProperties() {
+        String modeProp = System.getProperty("erp.server.executor", "virtual").trim().toUpperCase(Locale.ROOT);
+        Mode mode;
+        try {
+            mode = Mode.valueOf(modeProp);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warning(() -> "SERVER LOG: Unknown erp.server.executor '" + modeProp + "', using VIRTUAL.");
+            mode = Mode.VIRTUAL;
+        }
+        int poolSize = Integer.getInteger("erp.server.poolSize", DEFAULT_POOL_SIZE);
+        int defaultMax = mode == Mode.POOL ? poolSize : DEFAULT_MAX_VIRTUAL_CONNECTIONS;
+        int maxConnections = Integer.getInteger("erp.server.maxConnections", defaultMax);
+        return new ConnectionExecutor(mode, poolSize, maxConnections);
+    }
+
+    /**
+     * Admits and runs a connection, or answers it with SERVER_BUSY when the limit is reached.
+     * @return true when the connection was admitted
+     */
+    public boolean submit(Socket socket, Runnable handler) {
+        if (!permits.tryAcquire()) {
+            reject(socket);
+            return false;
+        }
+        active.incrementAndGet();
+        accepted.increment();
+        try {
+            executor.execute(() -> {
+                try {
+                    handler.run();
+                } finally {
+                    active.decrementAndGet();
+                    permits.release();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            active.decrementAndGet();
+            permits.release();
+            reject(socket);
+            return false;
+        }
+    }
+
+    private void reject(Socket socket) {
+        rejected.increment();
+        // Answer off the accept loop: write the busy line, then drain whatever the client already
+        // sent so closing the socket does not turn into a RST that discards our reply.
+        Thread.ofVirtual().name("erp-conn-reject").start(() -> {
+            try (Socket s = socket) {
+                s.setSoTimeout(REJECT_DRAIN_TIMEOUT_MS);
+                OutputStream out = s.getOutputStream();
+                out.write(("ERROR:SERVER_BUSY:Server is at capacity (" + maxConnections
+                        + " connections). Please retry shortly.\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                s.shutdownOutput();
+                InputStream in = s.getInputStream();
+                byte[] buf = new byte[1024];
+                while (in.read(buf) != -1) { /* discard */ }
+            } catch (IOException ignore) {
+                // Client went away or the drain timed out; nothing else to do.
+            }
+        });
+    }
+
+    public Mode getMode() { return mode; }
+
+    public int getMaxConnections() { return maxConnections; }
+
+    public int getActiveConnections() { return active.get(); }
+
+    public long getAcceptedConnections() { return accepted.sum(); }
+
+    public long getRejectedConnections() { return rejected.sum(); }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                LOGGER.warning("SERVER LOG: Connection executor did not terminate within 5s.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "Connection executor shutdown", e);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package edu.univ.erp.server;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Server side of chunked downloads (DB_BACKUP_BEGIN / DOWNLOAD_CHUNK / DOWNLOAD_END).
+ *
+ * A download serves a file the server produced (a backup) in base64 chunks read at the offset
+ * the client asks for, so neither side holds the whole payload and a client can re-request
+ * any offset after a failed chunk. The SHA-256 (taken from the producer, or computed with one
+ * streaming pass when the download opens) is handed to the client to check what it wrote.
+ * Downloads belong to the user who opened them; the file is deleted on DOWNLOAD_END or after
+ * {@code erp.download.idleMs} (default 10 min) without requests. {@code erp.download.maxChunkBytes} (default 4 MiB)
+ * bounds one chunk.
+ */
+public final class DownloadRegistry {
+    private static final Logger LOGGER = Logger.getLogger(DownloadRegistry.class.getName());
+    private static final DownloadRegistry INSTANCE = new DownloadRegistry(
+            Integer.getInteger("erp.download.maxChunkBytes", 4 * 1024 * 1024),
+            Long.getLong("erp.download.idleMs", 600000L));
+
+    /** What the client needs to fetch and verify the file. */
+    public record Opened(String downloadId, String fileName, String contentType, long size, String sha256, int maxChunkBytes) { }
+
+    private static final class Download {
+        final String id;
+        final int ownerUserId;
+        final Path file;
+        final FileChannel channel;
+        final long size;
+        volatile long lastTouchNanos = System.nanoTime();
+
+        Download(String id, int ownerUserId, Path file, FileChannel channel, long size) {
+            this.id = id;
+            this.ownerUserId = ownerUserId;
+            this.file = file;
+            this.channel = channel;
+            this.size = size;
+        }
+    }
+
+    private final int maxChunkBytes;
+    private final long idleNanos;
+    private final Map<String, Download> downloads = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+
+    DownloadRegistry(int maxChunkBytes, long idleMs) {
+        this.maxChunkBytes = Math.max(1024, maxChunkBytes);
+        this.idleNanos = idleMs * 1_000_000L;
+    }
+
+    public static DownloadRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers {@code file} for download by the user and takes ownership of it (it is deleted
+     * when the download ends or expires, or here if opening fails).
+     */
+    public Opened open(int ownerUserId, Path file, String fileName, String contentType) throws Exception {
+        return open(ownerUserId, file, fileName, contentType, null);
+    }
+
+    /** As {@link #open(int, Path, String, String)} with the file's SHA-256 already known (null to compute it). */
+    public Opened open(int ownerUserId, Path file, String fileName, String contentType, String knownSha256) throws Exception {
+        expireIdle();
+        FileChannel channel = null;
+        try {
+            String sha256 = knownSha256 != null ? knownSha256 : sha256(file);
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            byte[] raw = new byte[16];
+            random.nextBytes(raw);
+            String id = HexFormat.of().formatHex(raw);
+            long size = channel.size();
+            downloads.put(id, new Download(id, ownerUserId, file, channel, size));
+            opened.increment();
+            LOGGER.info(() -> "Download " + id + " opened for user " + ownerUserId + ": " + fileName + " " + size + " bytes");
+            return new Opened(id, fileName, contentType, size, sha256, maxChunkBytes);
+        } catch (Exception e) {
+            if (channel != null) try { channel.close(); } catch (Exception ignore) { }
+            try { Files.deleteIfExists(file); } catch (Exception ignore) { }
+            throw e;
+        }
+    }
+
+    /**
+     * Up to {@code maxBytes} (capped at {@code erp.download.maxChunkBytes}) from {@code offset},
+     * base64-encoded; empty at the end of the file.
+     */
+    public String readChunk(int userId, String downloadId, long offset, int maxBytes) throws Exception {
+        Download d = lookup(userId, downloadId);
+        d.lastTouchNanos = System.nanoTime();
+        if (offset < 0 || offset > d.size) {
+            throw new Exception("DOWNLOAD_INVALID:Offset " + offset + " is outside the file (size " + d.size + ").");
+        }
+        int length = (int) Math.min(Math.min(maxBytes <= 0 ? maxChunkBytes : maxBytes, maxChunkBytes), d.size - offset);
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        // Positional reads do not move the channel, so concurrent requests for one download are safe.
+        while (buf.hasRemaining()) {
+            int n = d.channel.read(buf, offset + buf.position());
+            if (n < 0) break;
+        }
+        bytesSent.add(buf.position());
+        return Base64.getEncoder().encodeToString(buf.position() == length ? buf.array() : java.util.Arrays.copyOf(buf.array(), buf.position()));
+    }
+
+    /** Ends the download and deletes its file. */
+    public void close(int userId, String downloadId) throws Exception {
+        Download d = lookup(userId, downloadId);
+        if (release(d)) completed.increment();
+    }
+
+    private Download lookup(int userId, String downloadId) throws Exception {
+        Download d = downloadId == null ? null : downloads.get(downloadId);
+        if (d == null || d.ownerUserId != userId) {
+            throw new Exception("DOWNLOAD_NOT_FOUND:No open download " + downloadId + " for this user.");
+        }
+        return d;
+    }
+
+    private boolean release(Download d) {
+        if (!downloads.remove(d.id, d)) return false;
+        try { d.channel.close(); } catch (Exception ignore) { }
+        try { Files.deleteIfExists(d.file); } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Could not delete download file " + d.file + ": " + e.getMessage());
+        }
+        return true;
+    }
+
+    /** Deletes downloads nobody has touched for {@code erp.download.idleMs}. */
+    public void expireIdle() {
+        long now = System.nanoTime();
+        for (Download d : downloads.values()) {
+            if (now - d.lastTouchNanos >= idleNanos && release(d)) {
+                expired.increment();
+                LOGGER.info(() -> "Download " + d.id + " expired");
+            }
+        }
+    }
+
+    private static String sha256(Path file) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buf = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buf)) > 0) md.update(buf, 0, n);
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    /** Counters for GET_SERVER_STATS. */
+    public Map<String, Object> getStats() {
+        expireIdle();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("open", downloads.size());
+        stats.put("opened", opened.sum());
+        stats.put("completed", completed.sum());
+        stats.put("expired", expired.sum());
+        stats.put("bytesSent", bytesSent.sum());
+        stats.put("maxChunkBytes", maxChunkBytes);
+        return stats;
+    }
+}
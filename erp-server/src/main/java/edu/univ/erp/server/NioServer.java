@@ -0,0 +1,378 @@
+package edu.univ.erp.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Non-blocking transport for the line protocol (select with {@code -Derp.server.transport=nio}).
+ *
+ * A single selector thread accepts connections, frames incoming bytes into lines and writes
+ * queued responses. Complete lines are handed to a fixed worker pool that runs them through
+ * the connection's {@link ClientHandler}, so an idle logged-in session costs its buffers and
+ * session state rather than a blocked thread. Requests of one connection are processed in
+ * order, one at a time, exactly like the blocking transport; the wire format is identical.
+ *
+ * Settings: {@code erp.server.workers} (worker threads, default 32),
+ * {@code erp.server.maxConnections} (default 10000), {@code erp.server.maxLineBytes}
+ * (longest accepted request line, default one base64 upload chunk plus its command),
+ * {@code erp.server.maxPipelined} (requests plus unsent responses a connection may have queued
+ * before the server stops reading from it, default 32; reading resumes at half that) and {@code erp.socketReadTimeoutMs}
+ * (idle timeout, default 5 minutes).
+ */
+public class NioServer {
+    private static final Logger LOGGER = Logger.getLogger(NioServer.class.getName());
+
+    private static final int READ_BUFFER_BYTES = 16 * 1024;
+    private static final long IDLE_SWEEP_INTERVAL_MS = 1000;
+
+    private final int port;
+    private final int backlog;
+    private final int maxConnections;
+    private final int maxLineBytes;
+    private final int maxPipelined;
+    private final long idleTimeoutMs;
+    private final ExecutorService workers;
+    private final int workerCount;
+    // Shared by all connections: the selector thread is the only reader.
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_BYTES);
+    // Connections whose write queue gained data since the last select (interest ops may only change on the selector thread).
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder paused = new LongAdder();
+
+    private volatile Selector selector;
+    private volatile ServerSocketChannel serverChannel;
+    private volatile boolean running;
+
+    public NioServer(int port, int backlog) {
+        this(port, backlog,
+                Integer.getInteger("erp.server.workers", 32),
+                Integer.getInteger("erp.server.maxConnections", 10000),
+                ClientHandler.MAX_LINE_BYTES,
+                Long.getLong("erp.socketReadTimeoutMs", 300000L));
+    }
+
+    public NioServer(int port, int backlog, int workerCount, int maxConnections, int maxLineBytes, long idleTimeoutMs) {
+        this.port = port;
+        this.backlog = backlog;
+        this.workerCount = workerCount;
+        this.maxConnections = maxConnections;
+        this.maxLineBytes = maxLineBytes;
+        this.maxPipelined = Math.max(1, Integer.getInteger("erp.server.maxPipelined", 32));
+        this.idleTimeoutMs = idleTimeoutMs;
+        AtomicInteger seq = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "erp-nio-worker-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    public synchronized void bind() throws IOException {
+        if (serverChannel == null) {
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(port), backlog);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        }
+    }
+
+    /** Runs the selector loop until {@link #stop()} is called. */
+    public void serve() throws IOException {
+        bind();
+        running = true;
+        LOGGER.log(Level.INFO, "ERP SERVER STARTED. Listening on port {0} (NIO transport, {1} workers, max {2} connections)...",
+                new Object[] { String.valueOf(getLocalPort()), String.valueOf(workerCount), String.valueOf(maxConnections) });
+        long lastSweep = System.currentTimeMillis();
+        try {
+            while (running) {
+                selector.select(IDLE_SWEEP_INTERVAL_MS);
+                if (!running) break;
+                Connection c;
+                while ((c = pendingWrites.poll()) != null) {
+                    if (c.key.isValid()) {
+                        c.key.interestOps(c.key.interestOps() | SelectionKey.OP_WRITE);
+                        resumeIfDrained(c);
+                    }
+                }
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    try {
+                        if (!key.isValid()) continue;
+                        if (key.isAcceptable()) accept();
+                        if (key.isValid() && key.isReadable()) read((Connection) key.attachment());
+                        if (key.isValid() && key.isWritable()) write((Connection) key.attachment());
+                    } catch (IOException e) {
+                        Object att = key.attachment();
+                        if (att instanceof Connection conn) {
+                            LOGGER.log(Level.INFO, "NioServer network disconnect from " + conn.remote + ": " + e.getMessage());
+                            close(conn);
+                        }
+                    }
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastSweep >= IDLE_SWEEP_INTERVAL_MS) {
+                    lastSweep = now;
+                    closeIdle(now);
+                }
+            }
+        } catch (ClosedSelectorException e) {
+            // stop() closed the selector
+        } finally {
+            running = false;
+        }
+    }
+
+    public int getLocalPort() {
+        ServerSocketChannel ch = serverChannel;
+        if (ch != null && ch.socket().isBound()) return ch.socket().getLocalPort();
+        return port;
+    }
+
+    public int getOpenConnections() { return open.get(); }
+
+    public long getAcceptedConnections() { return accepted.sum(); }
+
+    public long getRejectedConnections() { return rejected.sum(); }
+
+    /** Times a connection stopped being read because its queued requests and responses hit the limit. */
+    public long getBackpressurePauses() { return paused.sum(); }
+
+    public void stop() {
+        running = false;
+        Selector sel = selector;
+        if (sel != null) {
+            try {
+                for (SelectionKey key : sel.keys()) {
+                    if (key.attachment() instanceof Connection conn) close(conn);
+                }
+            } catch (Exception ignore) { }
+            try { sel.close(); } catch (IOException ignore) { }
+        }
+        ServerSocketChannel ch = serverChannel;
+        if (ch != null) {
+            try { ch.close(); } catch (IOException ignore) { }
+        }
+        workers.shutdownNow();
+    }
+
+    // ----------------- selector-thread operations -----------------
+
+    private void accept() throws IOException {
+        SocketChannel ch;
+        while ((ch = serverChannel.accept()) != null) {
+            ch.configureBlocking(false);
+            ch.socket().setTcpNoDelay(true);
+            Connection conn = new Connection(ch);
+            conn.key = ch.register(selector, SelectionKey.OP_READ, conn);
+            if (open.incrementAndGet() > maxConnections) {
+                rejected.increment();
+                // Same reply as the blocking transport; input is ignored until the reply is flushed.
+                conn.rejected = true;
+                conn.closeAfterWrite = true;
+                enqueue(conn, "ERROR:SERVER_BUSY:Server is at capacity (" + maxConnections
+                        + " connections). Please retry shortly.");
+                write(conn);
+                continue;
+            }
+            accepted.increment();
+        }
+    }
+
+    private void read(Connection conn) throws IOException {
+        readBuffer.clear();
+        int n = conn.channel.read(readBuffer);
+        if (n < 0) {
+            close(conn);
+            return;
+        }
+        conn.lastActivity = System.currentTimeMillis();
+        if (conn.rejected) return;
+        readBuffer.flip();
+        while (readBuffer.hasRemaining()) {
+            byte b = readBuffer.get();
+            if (b == '\n') {
+                int len = conn.lineLength;
+                if (len > 0 && conn.line[len - 1] == '\r') len--;
+                conn.submit(new String(conn.line, 0, len, StandardCharsets.UTF_8));
+                conn.lineLength = 0;
+                if (conn.line.length > READ_BUFFER_BYTES) conn.line = new byte[256]; // release large request buffers
+                if (!conn.readPaused && conn.pending() >= maxPipelined) {
+                    // The client pipelines faster than it reads replies: stop reading until it catches up.
+                    // The rest of this read buffer is still framed, so at most one buffer's lines overshoot.
+                    conn.readPaused = true;
+                    conn.key.interestOps(conn.key.interestOps() & ~SelectionKey.OP_READ);
+                    paused.increment();
+                }
+            } else {
+                if (conn.lineLength == maxLineBytes) {
+                    LOGGER.warning(() -> "SERVER LOG: Request line from " + conn.remote + " exceeds " + maxLineBytes + " bytes; closing.");
+                    conn.rejected = true;
+                    conn.closeAfterWrite = true;
+                    enqueue(conn, "ERROR:REQUEST_TOO_LARGE:Request exceeds " + maxLineBytes + " bytes.");
+                    write(conn);
+                    return;
+                }
+                if (conn.lineLength == conn.line.length) {
+                    conn.line = Arrays.copyOf(conn.line, (int) Math.min((long) maxLineBytes, conn.line.length * 2L));
+                }
+                conn.line[conn.lineLength++] = b;
+            }
+        }
+    }
+
+    private void write(Connection conn) throws IOException {
+        ByteBuffer buf;
+        while ((buf = conn.writeQueue.peek()) != null) {
+            conn.channel.write(buf);
+            if (buf.hasRemaining()) {
+                conn.key.interestOps(conn.key.interestOps() | SelectionKey.OP_WRITE);
+                return; // socket send buffer full; resume on OP_WRITE
+            }
+            conn.writeQueue.poll();
+            conn.queuedResponses.decrementAndGet();
+        }
+        if (conn.key.isValid()) conn.key.interestOps(conn.key.interestOps() & ~SelectionKey.OP_WRITE);
+        if (conn.closeAfterWrite) {
+            close(conn);
+            return;
+        }
+        resumeIfDrained(conn);
+    }
+
+    /** Re-enables reading on a paused connection once its backlog is down to half the limit. */
+    private void resumeIfDrained(Connection conn) {
+        if (conn.readPaused && !conn.closed && conn.pending() <= maxPipelined / 2 && conn.key.isValid()) {
+            conn.readPaused = false;
+            conn.key.interestOps(conn.key.interestOps() | SelectionKey.OP_READ);
+        }
+    }
+
+    private void closeIdle(long now) {
+        if (idleTimeoutMs <= 0) return;
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection conn && !conn.busy && now - conn.lastActivity > idleTimeoutMs) {
+                LOGGER.log(Level.INFO, "NioServer read timeout from " + conn.remote);
+                close(conn);
+            }
+        }
+    }
+
+    private void close(Connection conn) {
+        if (conn.closed) return;
+        conn.closed = true;
+        open.decrementAndGet();
+        conn.key.cancel();
+        try { conn.channel.close(); } catch (IOException ignore) { }
+        synchronized (conn) {
+            if (!conn.busy) conn.handler.onDisconnect();
+        }
+    }
+
+    // ----------------- worker / selector hand-off -----------------
+
+    private void enqueue(Connection conn, String response) {
+        byte[] bytes = (response + "\n").getBytes(StandardCharsets.UTF_8);
+        conn.queuedResponses.incrementAndGet();
+        conn.writeQueue.add(ByteBuffer.wrap(bytes));
+    }
+
+    private void respond(Connection conn, String response) {
+        enqueue(conn, response);
+        pendingWrites.add(conn);
+        selector.wakeup();
+    }
+
+    /** Per-connection state. The line buffer is only touched by the selector thread. */
+    private final class Connection {
+        final SocketChannel channel;
+        final String remote;
+        final ClientHandler handler = new ClientHandler();
+        final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger queuedResponses = new AtomicInteger();
+        // Requests waiting for this connection's worker task; guarded by 'this'.
+        final Queue<String> requests = new ArrayDeque<>();
+        SelectionKey key;
+        byte[] line = new byte[256];
+        int lineLength;
+        volatile long lastActivity = System.currentTimeMillis();
+        volatile boolean busy;
+        volatile boolean closed;
+        boolean rejected;
+        boolean closeAfterWrite;
+        boolean readPaused; // OP_READ cleared for backpressure; selector thread only
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+            String addr;
+            try { addr = String.valueOf(channel.getRemoteAddress()); } catch (IOException e) { addr = "?"; }
+            this.remote = addr;
+        }
+
+        /** Requests not yet answered plus responses not yet written to the socket. */
+        int pending() {
+            synchronized (this) {
+                return requests.size() + (busy ? 1 : 0) + queuedResponses.get();
+            }
+        }
+
+        /** Queues a request; starts a worker task unless one is already draining this connection. */
+        void submit(String request) {
+            synchronized (this) {
+                requests.add(request);
+                if (busy) return;
+                busy = true;
+            }
+            workers.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                String request;
+                synchronized (this) {
+                    request = requests.poll();
+                    if (request == null || closed) {
+                        busy = false;
+                        if (closed) handler.onDisconnect();
+                        return;
+                    }
+                }
+                String response;
+                try {
+                    response = handler.processRequest(request);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.SEVERE, "NioServer worker error", e);
+                    response = "ERROR:" + e.getMessage();
+                }
+                lastActivity = System.currentTimeMillis();
+                respond(this, response);
+            }
+        }
+    }
+}
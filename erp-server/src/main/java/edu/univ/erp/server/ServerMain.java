@@ -1,32 +1,116 @@
 package edu.univ.erp.server;
 
+import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class ServerMain {
-    private static final int PORT = 9090;
+    private static final int PORT = Integer.getInteger("erp.server.port", 9090);
+    // Pending-connection queue for the listening socket (the JDK default is 50).
+    private static final int BACKLOG = Integer.getInteger("erp.server.backlog", 200);
     private static final Logger LOGGER = Logger.getLogger(ServerMain.class.getName());
 
+    private final int port;
+    private final int backlog;
+    private final ConnectionExecutor connectionExecutor;
+    private volatile ServerSocket serverSocket;
+    private volatile boolean running;
+
+    public ServerMain(int port, int backlog, ConnectionExecutor connectionExecutor) {
+        this.port = port;
+        this.backlog = backlog;
+        this.connectionExecutor = connectionExecutor;
+    }
+
     public static void main(String[] args) {
+        // Transport is chosen at startup: "blocking" (default, one task per connection) or "nio" (selector + worker pool).
+        String transport = System.getProperty("erp.server.transport", "blocking").trim();
+        // Warm the catalog snapshot and start its reconciliation job before taking traffic.
+        edu.univ.erp.dao.course.CatalogSnapshot.getInstance().start();
+        // Promote anyone whose seat was freed while the server was down, then sweep periodically.
+        edu.univ.erp.service.student.WaitlistPromoter.getInstance().start();
+        if ("nio".equalsIgnoreCase(transport)) {
+            NioServer server = new NioServer(PORT, BACKLOG);
+            addShutdownHook(server::stop);
+            try {
+                server.serve();
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Server critical exception: " + e.getMessage(), e);
+            }
+            return;
+        }
+
+        ServerMain server = new ServerMain(PORT, BACKLOG, ConnectionExecutor.fromSystemProperties());
+        addShutdownHook(server::stop);
+        try {
+            server.serve();
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Server critical exception: " + e.getMessage(), e);
+        }
+    }
+
+    private static void addShutdownHook(Runnable stopServer) {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             LOGGER.info("SERVER LOG: Shutting down, closing DB pools...");
+            stopServer.run();
+            try { edu.univ.erp.dao.auth.LoginBookkeeping.getInstance().flush(); } catch (Exception ex) { LOGGER.log(Level.WARNING, "Failed to flush login bookkeeping", ex); }
             try { edu.univ.erp.dao.db.DBConnector.shutdown(); } catch (Exception ex) { LOGGER.log(Level.WARNING, "Failed to shutdown DBConnector", ex); }
         }));
+    }
 
-        try (ServerSocket serverSocket = new ServerSocket(PORT)) {
-            LOGGER.log(Level.INFO, "ERP SERVER STARTED. Listening on port {0}...", PORT);
-            
-            while (true) {
-                Socket clientSocket = serverSocket.accept(); 
+    /**
+     * Binds the listening socket. Separate from {@link #serve()} so callers that start the
+     * server in the background (e.g. load tests) can read the bound port before serving.
+     */
+    public synchronized void bind() throws IOException {
+        if (serverSocket == null) {
+            serverSocket = new ServerSocket(port, backlog);
+        }
+    }
+
+    /** Accepts connections until {@link #stop()} is called. */
+    public void serve() throws IOException {
+        bind();
+        running = true;
+        LOGGER.log(Level.INFO, "ERP SERVER STARTED. Listening on port {0} ({1} executor, max {2} connections)...",
+                new Object[] { String.valueOf(getLocalPort()), connectionExecutor.getMode(), String.valueOf(connectionExecutor.getMaxConnections()) });
+        try {
+            while (running) {
+                Socket clientSocket;
+                try {
+                    clientSocket = serverSocket.accept();
+                } catch (SocketException se) {
+                    if (!running) break; // closed by stop()
+                    throw se;
+                }
                 // Connection accepted; avoid logging each client IP to reduce noisy logs.
-                
-                // Handle the client request in a new thread
-                new Thread(new ClientHandler(clientSocket)).start(); 
+                if (!connectionExecutor.submit(clientSocket, new ClientHandler(clientSocket))) {
+                    LOGGER.fine("SERVER LOG: Connection rejected with SERVER_BUSY.");
+                }
             }
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Server critical exception: " + e.getMessage(), e);
+        } finally {
+            running = false;
+        }
+    }
+
+    public int getLocalPort() {
+        ServerSocket ss = serverSocket;
+        return ss != null ? ss.getLocalPort() : port;
+    }
+
+    public ConnectionExecutor getConnectionExecutor() {
+        return connectionExecutor;
+    }
+
+    public void stop() {
+        running = false;
+        ServerSocket ss = serverSocket;
+        if (ss != null) {
+            try { ss.close(); } catch (IOException ignore) { }
         }
+        connectionExecutor.close();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,281 @@
+package edu.univ.erp.server;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Server side of the chunked upload sub-protocol (UPLOAD_BEGIN / UPLOAD_CHUNK / UPLOAD_END).
+ *
+ * Each upload is appended to its own temp file while a SHA-256 digest is updated chunk by
+ * chunk, so a large payload (a database dump) is never held on the heap and the consumer
+ * reads it back from disk. Chunks carry sequence numbers: the expected one is appended, a
+ * repeat of an already stored one is acknowledged without writing (a retry after a lost
+ * reply), anything else is rejected. Uploads belong to the user who began them rather than
+ * to the connection, so a client can reconnect and continue.
+ *
+ * Settings: {@code erp.upload.maxBytes} (one upload, default 1 GiB),
+ * {@code erp.upload.maxImportBytes} (one IMPORT_GRADES upload, which is read into memory, default 16 MiB),
+ * {@code erp.upload.maxChunkBytes} (decoded bytes per chunk, default 4 MiB; it also sets the
+ * default request line limit of both transports), {@code erp.upload.maxPerUser} (open uploads per
+ * user, default 4) and {@code erp.upload.idleMs} (abandoned uploads are deleted after this, default 10 min).
+ */
+public final class UploadRegistry {
+    private static final Logger LOGGER = Logger.getLogger(UploadRegistry.class.getName());
+    private static final UploadRegistry INSTANCE = new UploadRegistry(
+            Long.getLong("erp.upload.maxBytes", 1024L * 1024 * 1024),
+            Long.getLong("erp.upload.maxImportBytes", 16L * 1024 * 1024),
+            Integer.getInteger("erp.upload.maxChunkBytes", 4 * 1024 * 1024),
+            Integer.getInteger("erp.upload.maxPerUser", 4),
+            Long.getLong("erp.upload.idleMs", 600000L));
+
+    /** A completed, verified upload. The caller owns {@link #file()} and must delete it. */
+    public record Completed(String purpose, List<String> args, Path file, long size, String sha256) { }
+
+    private static final class Upload {
+        final String id;
+        final int ownerUserId;
+        final String purpose;
+        final List<String> args;
+        final long declaredBytes;
+        final Path file;
+        final OutputStream out;
+        final MessageDigest digest;
+        final ReentrantLock lock = new ReentrantLock();
+        long received;
+        int nextSeq;
+        volatile long lastTouchNanos = System.nanoTime();
+        boolean closed;
+
+        Upload(String id, int ownerUserId, String purpose, List<String> args, long declaredBytes, Path file) throws Exception {
+            this.id = id;
+            this.ownerUserId = ownerUserId;
+            this.purpose = purpose;
+            this.args = args;
+            this.declaredBytes = declaredBytes;
+            this.file = file;
+            this.out = Files.newOutputStream(file);
+            this.digest = MessageDigest.getInstance("SHA-256");
+        }
+    }
+
+    private final long maxBytes;
+    private final long maxImportBytes;
+    private final int maxChunkBytes;
+    private final int maxPerUser;
+    private final long idleNanos;
+    private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+
+    UploadRegistry(long maxBytes, long maxImportBytes, int maxChunkBytes, int maxPerUser, long idleMs) {
+        this.maxBytes = maxBytes;
+        this.maxImportBytes = Math.min(maxBytes, maxImportBytes);
+        this.maxChunkBytes = Math.max(1024, maxChunkBytes);
+        this.maxPerUser = Math.max(1, maxPerUser);
+        this.idleNanos = idleMs * 1_000_000L;
+    }
+
+    public static UploadRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    public int getMaxChunkBytes() {
+        return maxChunkBytes;
+    }
+
+    /** Length of the longest UPLOAD_CHUNK line: a full chunk in base64 plus the command and ids. */
+    public int maxRequestLineBytes() {
+        return (maxChunkBytes / 3 + 1) * 4 + 1024;
+    }
+
+    /**
+     * Opens an upload of {@code totalBytes} for the user.
+     * @return the upload id to send with every chunk
+     */
+    public String begin(int ownerUserId, String purpose, List<String> args, long totalBytes) throws Exception {
+        expireIdle();
+        if (totalBytes < 0) throw new Exception("UPLOAD_INVALID:Upload size must not be negative.");
+        if (totalBytes > maxBytes) {
+            throw new Exception("UPLOAD_TOO_LARGE:Upload of " + totalBytes + " bytes exceeds the server limit of " + maxBytes + " bytes.");
+        }
+        // A grade CSV is parsed in memory at UPLOAD_END, so it gets a much smaller cap than a dump.
+        if ("IMPORT_GRADES".equals(purpose) && totalBytes > maxImportBytes) {
+            throw new Exception("UPLOAD_TOO_LARGE:Grade imports may be at most " + maxImportBytes + " bytes.");
+        }
+        byte[] raw = new byte[16];
+        random.nextBytes(raw);
+        String id = HexFormat.of().formatHex(raw);
+        Path file = Files.createTempFile("erp-upload-", ".part");
+        try {
+            synchronized (uploads) { // count and insert together, so parallel begins cannot pass the cap
+                long open = uploads.values().stream().filter(u -> u.ownerUserId == ownerUserId).count();
+                if (open >= maxPerUser) {
+                    throw new Exception("UPLOAD_LIMIT:At most " + maxPerUser + " uploads may be open at once. Finish or abort one first.");
+                }
+                uploads.put(id, new Upload(id, ownerUserId, purpose, List.copyOf(args), totalBytes, file));
+            }
+        } catch (Exception e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        LOGGER.info(() -> "Upload " + id + " started by user " + ownerUserId + ": " + purpose + " " + totalBytes + " bytes");
+        return id;
+    }
+
+    /**
+     * Appends chunk {@code seq} (base64). A chunk already stored is acknowledged again without writing.
+     * @return bytes stored so far
+     */
+    public long appendChunk(int userId, String uploadId, int seq, String base64) throws Exception {
+        Upload u = lookup(userId, uploadId);
+        u.lock.lock();
+        try {
+            if (u.closed) throw new Exception("UPLOAD_NOT_FOUND:Upload " + uploadId + " is no longer open.");
+            u.lastTouchNanos = System.nanoTime();
+            if (seq < u.nextSeq) return u.received;
+            if (seq > u.nextSeq) {
+                throw new Exception("UPLOAD_OUT_OF_ORDER:Expected chunk " + u.nextSeq + " but got " + seq + ".");
+            }
+            if (base64.length() > (maxChunkBytes / 3 + 1) * 4) {
+                throw new Exception("UPLOAD_CHUNK_TOO_LARGE:Chunks may carry at most " + maxChunkBytes + " bytes.");
+            }
+            byte[] data;
+            try {
+                data = Base64.getDecoder().decode(base64);
+            } catch (IllegalArgumentException e) {
+                throw new Exception("UPLOAD_INVALID:Chunk " + seq + " is not valid base64.");
+            }
+            if (u.received + data.length > u.declaredBytes) {
+                discard(u, "more data than declared");
+                throw new Exception("UPLOAD_TOO_LARGE:Upload exceeded its declared size of " + u.declaredBytes + " bytes.");
+            }
+            try {
+                u.out.write(data);
+            } catch (java.io.IOException e) {
+                discard(u, "write failed: " + e.getMessage());
+                throw new Exception("UPLOAD_FAILED:Could not store chunk " + seq + ": " + e.getMessage());
+            }
+            u.digest.update(data);
+            u.received += data.length;
+            u.nextSeq++;
+            bytesReceived.add(data.length);
+            return u.received;
+        } finally {
+            u.lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the upload and checks its size and SHA-256. On success the upload leaves the
+     * registry and the caller takes the file; on failure the file is deleted.
+     */
+    public Completed finish(int userId, String uploadId, String sha256) throws Exception {
+        Upload u = lookup(userId, uploadId);
+        u.lock.lock();
+        try {
+            if (u.closed) throw new Exception("UPLOAD_NOT_FOUND:Upload " + uploadId + " is no longer open.");
+            if (u.received != u.declaredBytes) {
+                throw new Exception("UPLOAD_INCOMPLETE:Received " + u.received + " of " + u.declaredBytes + " bytes; next chunk is " + u.nextSeq + ".");
+            }
+            String actual = HexFormat.of().formatHex(u.digest.digest());
+            if (!actual.equalsIgnoreCase(sha256 == null ? "" : sha256.trim())) {
+                discard(u, "checksum mismatch");
+                throw new Exception("UPLOAD_CHECKSUM_MISMATCH:SHA-256 of the received data is " + actual + ".");
+            }
+            u.closed = true;
+            uploads.remove(u.id);
+            try {
+                u.out.close();
+            } catch (java.io.IOException e) {
+                Files.deleteIfExists(u.file);
+                discarded.increment();
+                throw new Exception("UPLOAD_FAILED:Could not store upload: " + e.getMessage());
+            }
+            completed.increment();
+            return new Completed(u.purpose, u.args, u.file, u.received, actual);
+        } finally {
+            u.lock.unlock();
+        }
+    }
+
+    /** Drops the upload and its temp file. */
+    public void abort(int userId, String uploadId) throws Exception {
+        Upload u = lookup(userId, uploadId);
+        u.lock.lock();
+        try {
+            if (!u.closed) discard(u, "aborted by client");
+        } finally {
+            u.lock.unlock();
+        }
+    }
+
+    private Upload lookup(int userId, String uploadId) throws Exception {
+        Upload u = uploadId == null ? null : uploads.get(uploadId);
+        // Someone else's upload id is reported like an unknown one.
+        if (u == null || u.ownerUserId != userId) {
+            throw new Exception("UPLOAD_NOT_FOUND:No open upload " + uploadId + " for this user.");
+        }
+        return u;
+    }
+
+    // Caller holds u.lock.
+    private void discard(Upload u, String reason) {
+        u.closed = true;
+        uploads.remove(u.id);
+        try { u.out.close(); } catch (Exception ignore) { }
+        try { Files.deleteIfExists(u.file); } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Could not delete upload file " + u.file + ": " + e.getMessage());
+        }
+        discarded.increment();
+        LOGGER.info(() -> "Upload " + u.id + " discarded: " + reason);
+    }
+
+    /** Deletes uploads nobody has touched for {@code erp.upload.idleMs}. */
+    public void expireIdle() {
+        long now = System.nanoTime();
+        for (Upload u : uploads.values()) {
+            if (now - u.lastTouchNanos < idleNanos) continue;
+            if (!u.lock.tryLock()) continue;
+            try {
+                if (!u.closed && now - u.lastTouchNanos >= idleNanos) {
+                    discard(u, "idle timeout");
+                    expired.increment();
+                }
+            } finally {
+                u.lock.unlock();
+            }
+        }
+    }
+
+    /** Counters for GET_SERVER_STATS. */
+    public Map<String, Object> getStats() {
+        expireIdle();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("open", uploads.size());
+        stats.put("completed", completed.sum());
+        stats.put("discarded", discarded.sum());
+        stats.put("expired", expired.sum());
+        stats.put("bytesReceived", bytesReceived.sum());
+        stats.put("maxBytes", maxBytes);
+        stats.put("maxImportBytes", maxImportBytes);
+        stats.put("maxChunkBytes", maxChunkBytes);
+        stats.put("maxPerUser", maxPerUser);
+        return stats;
+    }
+}
@@ -0,0 +1,191 @@
+package edu.univ.erp.server.session;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import edu.univ.erp.access.AuthorizationContext;
+import edu.univ.erp.domain.UserAuth;
+
+/**
+ * Server-side sessions keyed by opaque tokens, so a session is no longer tied to one socket.
+ *
+ * LOGIN issues a token (32 random bytes, base64url). A request prefixed with
+ * {@code SESSION:<token>:} runs as that token's user on whatever connection it arrives, which
+ * lets a gateway multiplex many users over a few connections. A desktop client that does not
+ * send tokens is bound to its session by its connection, as before. Sessions expire after
+ * {@code erp.session.idleMs} (default 30 min) without requests; at most
+ * {@code erp.session.maxSessions} (default 20000) exist at once, and at most
+ * {@code erp.session.maxPerUser} (default 16) per user: a further LOGIN ends that user's least
+ * recently used session, so repeated logins cannot fill the store.
+ */
+public final class SessionStore {
+    private static final Logger LOGGER = Logger.getLogger(SessionStore.class.getName());
+    private static final SessionStore INSTANCE = new SessionStore(
+            Long.getLong("erp.session.idleMs", 1_800_000L),
+            Integer.getInteger("erp.session.maxSessions", 20000),
+            Integer.getInteger("erp.session.maxPerUser", 16));
+    private static final long SWEEP_INTERVAL_NANOS = 10_000_000_000L; // idle sweeps at most every 10 s
+
+    /** One logged-in user: identity and authorization, shared by every request carrying the token. */
+    public static final class Session {
+        private final String token;
+        private final UserAuth user;
+        private final AuthorizationContext authContext;
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        private Session(String token, UserAuth user, AuthorizationContext authContext) {
+            this.token = token;
+            this.user = user;
+            this.authContext = authContext;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public UserAuth getUser() {
+            return user;
+        }
+
+        public AuthorizationContext getAuthContext() {
+            return authContext;
+        }
+    }
+
+    private final long idleNanos;
+    private final int maxSessions;
+    private final int maxPerUser;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicLong lastSweepNanos = new AtomicLong(System.nanoTime());
+    private final LongAdder created = new LongAdder();
+    private final LongAdder loggedOut = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder revoked = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    SessionStore(long idleMs, int maxSessions, int maxPerUser) {
+        this.idleNanos = idleMs * 1_000_000L;
+        this.maxSessions = Math.max(1, maxSessions);
+        this.maxPerUser = Math.max(1, maxPerUser);
+    }
+
+    public static SessionStore getInstance() {
+        return INSTANCE;
+    }
+
+    /** Opens a session for a user who just logged in. */
+    public Session create(UserAuth user, AuthorizationContext authContext) throws Exception {
+        sweepIfDue();
+        byte[] raw = new byte[32];
+        random.nextBytes(raw);
+        Session session = new Session(Base64.getUrlEncoder().withoutPadding().encodeToString(raw), user, authContext);
+        synchronized (this) { // count and insert together, so parallel logins cannot pass either cap
+            evictOverUserLimit(user.getUserId());
+            if (sessions.size() >= maxSessions) {
+                expireIdle();
+                if (sessions.size() >= maxSessions) {
+                    throw new Exception("SESSION_LIMIT:Too many active sessions. Please try again later.");
+                }
+            }
+            sessions.put(session.token, session);
+        }
+        created.increment();
+        return session;
+    }
+
+    // Caller holds this. Makes room for one more session of the user.
+    private void evictOverUserLimit(int userId) {
+        List<Session> own = new ArrayList<>();
+        for (Session s : sessions.values()) {
+            if (s.user.getUserId() == userId) own.add(s);
+        }
+        if (own.size() < maxPerUser) return;
+        own.sort(Comparator.comparingLong(s -> s.lastAccessNanos));
+        for (Session s : own.subList(0, own.size() - maxPerUser + 1)) {
+            if (sessions.remove(s.token, s)) evicted.increment();
+        }
+        LOGGER.info(() -> "SERVER LOG: User " + userId + " reached " + maxPerUser + " sessions; ended the least recently used");
+    }
+
+    /** The live session for {@code token} (marking it used), or null if unknown or expired. */
+    public Session get(String token) {
+        Session session = token == null ? null : sessions.get(token);
+        if (session == null) {
+            misses.increment();
+            return null;
+        }
+        long now = System.nanoTime();
+        if (now - session.lastAccessNanos >= idleNanos) {
+            if (sessions.remove(token, session)) expired.increment();
+            misses.increment();
+            return null;
+        }
+        session.lastAccessNanos = now;
+        return session;
+    }
+
+    /** Ends the session (LOGOUT, or the owning connection closed). */
+    public void invalidate(Session session) {
+        if (session != null && sessions.remove(session.token, session)) loggedOut.increment();
+    }
+
+    /**
+     * Ends every session of the user except {@code keep} (may be null), e.g. after a password
+     * change, so a leaked token stops working.
+     * @return the number of sessions ended
+     */
+    public int invalidateUser(int userId, Session keep) {
+        int before = sessions.size();
+        sessions.values().removeIf(s -> s != keep && s.user.getUserId() == userId);
+        int removed = Math.max(0, before - sessions.size());
+        revoked.add(removed);
+        if (removed > 0) LOGGER.info(() -> "SERVER LOG: Revoked " + removed + " sessions of user " + userId);
+        return removed;
+    }
+
+    private void sweepIfDue() {
+        long last = lastSweepNanos.get();
+        long now = System.nanoTime();
+        if (now - last >= SWEEP_INTERVAL_NANOS && lastSweepNanos.compareAndSet(last, now)) expireIdle();
+    }
+
+    /** Removes sessions idle for {@code erp.session.idleMs}. */
+    public void expireIdle() {
+        long now = System.nanoTime();
+        int before = sessions.size();
+        sessions.values().removeIf(s -> {
+            boolean idle = now - s.lastAccessNanos >= idleNanos;
+            if (idle) expired.increment();
+            return idle;
+        });
+        int removed = before - sessions.size();
+        if (removed > 0) LOGGER.fine(() -> "SERVER LOG: Expired " + removed + " idle sessions");
+    }
+
+    /** Counters for GET_SERVER_STATS. */
+    public Map<String, Object> getStats() {
+        sweepIfDue();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("active", sessions.size());
+        stats.put("created", created.sum());
+        stats.put("loggedOut", loggedOut.sum());
+        stats.put("expired", expired.sum());
+        stats.put("revoked", revoked.sum());
+        stats.put("evicted", evicted.sum());
+        stats.put("misses", misses.sum());
+        stats.put("maxSessions", maxSessions);
+        stats.put("maxPerUser", maxPerUser);
+        return stats;
+    }
+}
@@ -3,14 +3,20 @@ package edu.univ.erp.service.admin;
 import java.util.List;
 
 import edu.univ.erp.dao.admin.AdminDAO;
+import edu.univ.erp.dao.grade.AcademicStandingDAO;
 import edu.univ.erp.dao.settings.SettingDAO;
 import edu.univ.erp.domain.CourseCatalog;
 import edu.univ.erp.domain.Instructor;
 import edu.univ.erp.domain.Student;
+import edu.univ.erp.util.ResponseCache;
 
 public class AdminService {
 
+    private static final int MAX_RANKING = 1000;
+
     private final AdminDAO adminDAO = new AdminDAO();
+    private final AcademicStandingDAO academicStandingDAO = new AcademicStandingDAO();
+    private final ResponseCache responseCache = ResponseCache.getInstance();
 
     /** Reassigns the instructor for a given section. Only called by admin layer. */
     public String reassignInstructor(int sectionId, int newInstructorId) throws Exception {
@@ -21,6 +27,7 @@ public class AdminService {
 
         boolean ok = adminDAO.reassignInstructor(sectionId, newInstructorId);
         if (!ok) throw new Exception("Failed to reassign instructor. Check sectionId and instructorId.");
+        responseCache.invalidate(ResponseCache.GET_ALL_COURSES, ResponseCache.GET_ALL_INSTRUCTORS);
         // optional: could return previous instructor id if DAO returned it
         return "Instructor reassigned successfully.";
     }
@@ -39,6 +46,7 @@ public class AdminService {
         try {
             boolean created = adminDAO.createStudent(student, passwordHash);
             if (!created) throw new Exception("Failed to create student. Check DB constraints.");
+            responseCache.invalidate(ResponseCache.GET_ALL_STUDENTS);
             return "Student created successfully: " + student.getRollNo();
         } catch (java.sql.SQLException e) {
             // Map common SQL constraint violations to user-friendly messages
@@ -93,6 +101,7 @@ public class AdminService {
 
         boolean created = adminDAO.createCourseAndSection(course);
         if (!created) throw new Exception("Failed to create course and section.");
+        responseCache.invalidate(ResponseCache.GET_ALL_COURSES, ResponseCache.GET_ALL_INSTRUCTORS);
         return "Course and section created successfully: " + course.getCourseCode();
     }
 
@@ -107,6 +116,7 @@ public class AdminService {
 
         boolean created = adminDAO.createCourse(course);
         if (!created) throw new Exception("Failed to create course. Check DB constraints.");
+        responseCache.invalidate(ResponseCache.GET_ALL_COURSES);
         return "Course created successfully: " + course.getCourseCode();
     }
 
@@ -143,6 +153,7 @@ public class AdminService {
 
         boolean created = adminDAO.createSection(course);
         if (!created) throw new Exception("Failed to create section. Check DB constraints.");
+        responseCache.invalidate(ResponseCache.GET_ALL_COURSES, ResponseCache.GET_ALL_INSTRUCTORS);
         return "Section created successfully for course: " + course.getCourseCode();
     }
 
@@ -264,6 +275,30 @@ public class AdminService {
         }
     }
 
+    /**
+     * Regenerates student_academic_summary from the grades.
+     * @return number of students with a summary row
+     */
+    public int rebuildAcademicSummary() throws Exception {
+        try {
+            return academicStandingDAO.rebuildAll();
+        } catch (java.sql.SQLException e) {
+            throw new Exception("Failed to rebuild academic summary: " + e.getMessage());
+        }
+    }
+
+    /** Top {@code limit} students by CGPA from the materialized summary. */
+    public List<AcademicStandingDAO.Standing> getCgpaRanking(int limit) throws Exception {
+        if (limit <= 0 || limit > MAX_RANKING) {
+            throw new Exception("Ranking limit must be between 1 and " + MAX_RANKING + ".");
+        }
+        try {
+            return academicStandingDAO.getRanking(limit);
+        } catch (java.sql.SQLException e) {
+            throw new Exception("Failed to load CGPA ranking: " + e.getMessage());
+        }
+    }
+
     public boolean isMaintenanceModeOn() {
     return settingDAO.isMaintenanceModeOn();
     }
@@ -299,6 +334,7 @@ public class AdminService {
     try {
         boolean created = adminDAO.createInstructor(instructor, passwordHash);
         if (!created) throw new Exception("Failed to create instructor. Check DB constraints.");
+        responseCache.invalidate(ResponseCache.GET_ALL_INSTRUCTORS);
         return "Instructor created successfully: " + instructor.getName();
     } catch (java.sql.SQLException e) {
         String msg = e.getMessage() == null ? "" : e.getMessage().toLowerCase();
@@ -0,0 +1,42 @@
+package edu.univ.erp.service.admin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Creates and restores full database backups. Two implementations exist:
+ * {@link MysqldumpBackupService} (gzipped SQL from the mysqldump CLI) and
+ * {@link JdbcBackupService} (zip of per-table chunks exported over JDBC, no CLI tools needed).
+ * {@code erp.backup.engine} ({@code mysqldump}, the default, or {@code jdbc}) picks the one used
+ * for new backups; restores pick the engine from the file itself, so either kind restores
+ * regardless of the setting.
+ */
+public interface BackupEngine {
+
+    /** A finished backup file (the caller owns and deletes it) with its SHA-256. */
+    record Backup(Path file, long size, String sha256, String fileName, String contentType) { }
+
+    Backup createBackup() throws Exception;
+
+    /** Replaces the database contents with the backup, updating {@code progress} as it goes. */
+    void restore(Path backup, RestoreProgress progress) throws Exception;
+
+    /** The engine selected by {@code erp.backup.engine}. */
+    static BackupEngine configured() {
+        String engine = System.getProperty("erp.backup.engine", "mysqldump").trim().toLowerCase();
+        return "jdbc".equals(engine) ? new JdbcBackupService() : new MysqldumpBackupService();
+    }
+
+    /** The engine that wrote {@code backup}: zip archives are JDBC backups, anything else is a gzipped dump. */
+    static BackupEngine forFile(Path backup) throws IOException {
+        byte[] magic = new byte[4];
+        int n;
+        try (InputStream in = Files.newInputStream(backup)) {
+            n = in.readNBytes(magic, 0, magic.length);
+        }
+        boolean zip = n == 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4;
+        return zip ? new JdbcBackupService() : new MysqldumpBackupService();
+    }
+}
@@ -0,0 +1,522 @@
+package edu.univ.erp.service.admin;
+
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import edu.univ.erp.dao.db.DBConnector;
+
+/**
+ * Logical backups over JDBC, for servers without the MySQL CLI tools.
+ *
+ * A backup is a zip holding {@code manifest.json} (tables, their CREATE TABLE statements,
+ * columns, row counts and chunk entries) and, per table, gzipped JSON chunks of at most
+ * {@code erp.backup.jdbc.chunkRows} rows (default 50000): each chunk is an array of rows, each
+ * row an array of column values as strings (binary columns base64, NULL as null).
+ *
+ * Export runs {@code erp.backup.jdbc.threads} workers per database (default min(4, cores)), one
+ * table at a time each, largest first. Workers are capped by that database's pool
+ * ({@code erp.maxPool} or {@code erp.auth.maxPool}) so at least two connections stay free for
+ * requests, LOGIN included. Every worker reads inside its own consistent-snapshot transaction;
+ * the snapshots are opened under FLUSH TABLES WITH READ LOCK so they all see the same point in
+ * time. Without the RELOAD privilege that lock is skipped and the snapshots are only opened back
+ * to back (logged, and recorded as {@code "consistent": false} in the manifest).
+ *
+ * Restore drops and recreates every table in the manifest, then loads the chunks in parallel
+ * with batched inserts, foreign key and unique checks off. {@code erp.backup.includeAuth}
+ * (default false) adds auth_db to new backups; restores load whatever databases the archive has.
+ */
+public class JdbcBackupService implements BackupEngine {
+    private static final Logger LOGGER = Logger.getLogger(JdbcBackupService.class.getName());
+
+    static final String FORMAT = "erp-jdbc-backup";
+    private static final String MANIFEST = "manifest.json";
+    private static final int BATCH_ROWS = 1000;
+    // Pooled connections a backup or restore leaves to request handling in each pool.
+    private static final int POOL_HEADROOM = 2;
+
+    private static final Gson gson = new Gson();
+
+    private final int threads;
+    private final int chunkRows;
+    private final boolean includeAuth;
+
+    public JdbcBackupService() {
+        this.threads = Math.max(1, Integer.getInteger("erp.backup.jdbc.threads", Math.min(4, Runtime.getRuntime().availableProcessors())));
+        this.chunkRows = Math.max(1000, Integer.getInteger("erp.backup.jdbc.chunkRows", 50000));
+        this.includeAuth = Boolean.getBoolean("erp.backup.includeAuth");
+    }
+
+    // ----------------------------------------------------------------------------- manifest
+
+    static final class Manifest {
+        String format = FORMAT;
+        int version = 1;
+        String createdAt;
+        boolean consistent;
+        List<Database> databases = new ArrayList<>();
+    }
+
+    static final class Database {
+        String name; // "erp" or "auth"
+        List<Table> tables = new ArrayList<>();
+    }
+
+    static final class Table {
+        String name;
+        String createSql;
+        List<String> columns = new ArrayList<>();
+        List<Boolean> binary = new ArrayList<>();
+        long rows;
+        List<String> chunks = new ArrayList<>();
+    }
+
+    private interface ConnectionSource {
+        Connection get() throws SQLException;
+
+        /** Keeps a connection with unknown session state from going back into the pool. */
+        void evict(Connection conn);
+    }
+
+    private static ConnectionSource source(String database) {
+        boolean auth = "auth".equals(database);
+        return new ConnectionSource() {
+            @Override
+            public Connection get() throws SQLException {
+                return auth ? DBConnector.getAuthConnection() : DBConnector.getErpConnection();
+            }
+
+            @Override
+            public void evict(Connection conn) {
+                if (auth) DBConnector.evictAuthConnection(conn); else DBConnector.evictErpConnection(conn);
+            }
+        };
+    }
+
+    /**
+     * Worker connections for one database: {@code threads}, capped so that the pool keeps
+     * POOL_HEADROOM connections free while the workers (and {@code extra} others) hold theirs.
+     */
+    private int workersFor(String database, int extra) {
+        int pool = "auth".equals(database) ? DBConnector.getAuthMaxPool() : DBConnector.getErpMaxPool();
+        return Math.max(1, Math.min(threads, pool - POOL_HEADROOM - extra));
+    }
+
+    // ----------------------------------------------------------------------------- export
+
+    @Override
+    public Backup createBackup() throws Exception {
+        Path work = Files.createTempDirectory("erp-jdbc-backup-");
+        try {
+            Manifest manifest = new Manifest();
+            manifest.createdAt = java.time.Instant.now().toString();
+            manifest.consistent = true;
+            manifest.databases.add(exportDatabase("erp", work, manifest));
+            if (includeAuth) manifest.databases.add(exportDatabase("auth", work, manifest));
+            return writeArchive(manifest, work);
+        } finally {
+            deleteTree(work);
+        }
+    }
+
+    private Database exportDatabase(String name, Path work, Manifest manifest) throws Exception {
+        ConnectionSource source = source(name);
+        Database db = new Database();
+        db.name = name;
+        LinkedBlockingQueue<Table> queue = new LinkedBlockingQueue<>();
+        try (Connection conn = source.get()) {
+            for (String table : listTables(conn)) {
+                Table t = new Table();
+                t.name = table;
+                db.tables.add(t);
+                queue.add(t);
+            }
+        }
+        // The coordinator in openSnapshots holds one more connection while the snapshots open.
+        int workers = Math.min(workersFor(name, 1), Math.max(1, db.tables.size()));
+        List<Connection> conns = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(workers, r -> {
+            Thread th = new Thread(r, "erp-backup-export");
+            th.setDaemon(true);
+            return th;
+        });
+        try {
+            for (int i = 0; i < workers; i++) conns.add(source.get());
+            if (!openSnapshots(source, conns)) manifest.consistent = false;
+            List<Future<?>> futures = new ArrayList<>();
+            for (Connection conn : conns) {
+                futures.add(executor.submit(() -> {
+                    Table t;
+                    while ((t = queue.poll()) != null) exportTable(conn, name, t, work);
+                    return null;
+                }));
+            }
+            awaitAll(futures);
+        } finally {
+            executor.shutdownNow();
+            for (Connection conn : conns) {
+                try { conn.rollback(); } catch (SQLException ignore) { }
+                try { conn.close(); } catch (SQLException ignore) { }
+            }
+        }
+        return db;
+    }
+
+    /** Base tables, largest (estimated rows) first so the long ones start early. */
+    private static List<String> listTables(Connection conn) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(
+                 "SELECT TABLE_NAME, TABLE_TYPE FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() " +
+                 "ORDER BY TABLE_ROWS DESC, TABLE_NAME")) {
+            while (rs.next()) {
+                if ("BASE TABLE".equalsIgnoreCase(rs.getString(2))) {
+                    tables.add(rs.getString(1));
+                } else {
+                    LOGGER.warning("JDBC backup skips " + rs.getString(2) + " " + rs.getString(1));
+                }
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Starts a consistent-snapshot transaction on every worker connection while a global read
+     * lock is held, so all workers read the same state.
+     * @return false when the lock could not be taken
+     */
+    private static boolean openSnapshots(ConnectionSource source, List<Connection> conns) throws SQLException {
+        boolean locked = false;
+        try (Connection coordinator = source.get(); Statement lock = coordinator.createStatement()) {
+            try {
+                lock.execute("FLUSH TABLES WITH READ LOCK");
+                locked = true;
+            } catch (SQLException e) {
+                LOGGER.warning("JDBC backup could not take FLUSH TABLES WITH READ LOCK (" + e.getMessage() +
+                        "); table snapshots may differ slightly. Grant RELOAD or back up in maintenance mode.");
+            }
+            try {
+                for (Connection conn : conns) {
+                    conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+                    conn.setAutoCommit(false);
+                    try (Statement st = conn.createStatement()) {
+                        st.execute("START TRANSACTION WITH CONSISTENT SNAPSHOT, READ ONLY");
+                    }
+                }
+            } finally {
+                if (locked) lock.execute("UNLOCK TABLES");
+            }
+        }
+        return locked;
+    }
+
+    private void exportTable(Connection conn, String database, Table t, Path work) throws Exception {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SHOW CREATE TABLE " + quote(t.name))) {
+            if (rs.next()) t.createSql = rs.getString(2);
+        }
+        long started = System.nanoTime();
+        try (Statement st = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            st.setFetchSize(Integer.MIN_VALUE); // stream rows instead of buffering the table
+            try (ResultSet rs = st.executeQuery("SELECT * FROM " + quote(t.name))) {
+                ResultSetMetaData meta = rs.getMetaData();
+                int cols = meta.getColumnCount();
+                boolean[] binary = new boolean[cols];
+                for (int i = 0; i < cols; i++) {
+                    t.columns.add(meta.getColumnName(i + 1));
+                    binary[i] = isBinary(meta.getColumnType(i + 1));
+                    t.binary.add(binary[i]);
+                }
+                JsonWriter out = null;
+                long inChunk = 0;
+                try {
+                    while (rs.next()) {
+                        if (out == null) {
+                            String entry = database + "/" + t.name + "." + String.format("%04d", t.chunks.size()) + ".json.gz";
+                            t.chunks.add(entry);
+                            out = openChunk(work.resolve(entry));
+                        }
+                        out.beginArray();
+                        for (int i = 0; i < cols; i++) {
+                            if (binary[i]) {
+                                byte[] v = rs.getBytes(i + 1);
+                                if (v == null) out.nullValue(); else out.value(Base64.getEncoder().encodeToString(v));
+                            } else {
+                                String v = rs.getString(i + 1);
+                                if (v == null) out.nullValue(); else out.value(v);
+                            }
+                        }
+                        out.endArray();
+                        t.rows++;
+                        if (++inChunk == chunkRows) {
+                            closeChunk(out);
+                            out = null;
+                            inChunk = 0;
+                        }
+                    }
+                } finally {
+                    if (out != null) closeChunk(out);
+                }
+            }
+        }
+        LOGGER.info(() -> "JDBC backup exported " + database + "." + t.name + ": " + t.rows + " rows in "
+                + t.chunks.size() + " chunks, " + (System.nanoTime() - started) / 1_000_000 + " ms");
+    }
+
+    private static JsonWriter openChunk(Path file) throws Exception {
+        Files.createDirectories(file.getParent());
+        Writer w = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(file), 65536), StandardCharsets.UTF_8);
+        JsonWriter out = new JsonWriter(w);
+        out.beginArray();
+        return out;
+    }
+
+    private static void closeChunk(JsonWriter out) throws Exception {
+        out.endArray();
+        out.close();
+    }
+
+    /** Zips the (already gzipped) chunks without recompressing them, hashing the archive as it is written. */
+    private static Backup writeArchive(Manifest manifest, Path work) throws Exception {
+        Path zip = Files.createTempFile("erp-backup-", ".zip");
+        boolean ok = false;
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            try (OutputStream file = new java.io.BufferedOutputStream(Files.newOutputStream(zip), 262144);
+                 ZipOutputStream out = new ZipOutputStream(new DigestOutputStream(file, md))) {
+                out.putNextEntry(new ZipEntry(MANIFEST));
+                out.write(gson.toJson(manifest).getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+                out.setLevel(java.util.zip.Deflater.NO_COMPRESSION);
+                for (Database db : manifest.databases) {
+                    for (Table t : db.tables) {
+                        for (String entry : t.chunks) {
+                            out.putNextEntry(new ZipEntry(entry));
+                            Files.copy(work.resolve(entry), out);
+                            out.closeEntry();
+                        }
+                    }
+                }
+            }
+            Backup backup = new Backup(zip, Files.size(zip), HexFormat.of().formatHex(md.digest()), "erp_backup.zip", "application/zip");
+            ok = true;
+            return backup;
+        } finally {
+            if (!ok) Files.deleteIfExists(zip);
+        }
+    }
+
+    // ----------------------------------------------------------------------------- restore
+
+    @Override
+    public void restore(Path backup, RestoreProgress progress) throws Exception {
+        progress.start(Files.size(backup));
+        try (ZipFile zip = new ZipFile(backup.toFile())) {
+            ZipEntry manifestEntry = zip.getEntry(MANIFEST);
+            if (manifestEntry == null) throw new Exception("Not a JDBC backup: " + MANIFEST + " is missing.");
+            Manifest manifest;
+            try (Reader r = new InputStreamReader(zip.getInputStream(manifestEntry), StandardCharsets.UTF_8)) {
+                manifest = gson.fromJson(r, Manifest.class);
+            }
+            if (manifest == null || !FORMAT.equals(manifest.format)) throw new Exception("Not a JDBC backup: unknown manifest format.");
+            if (manifest.version != 1) throw new Exception("Unsupported JDBC backup version " + manifest.version + ".");
+
+            // Tables first (DDL commits implicitly anyway), then each database's chunks in parallel,
+            // with as many loaders as that database's pool can spare.
+            for (Database db : manifest.databases) recreateTables(source(db.name), db, progress);
+            for (Database db : manifest.databases) {
+                ConnectionSource source = source(db.name);
+                ExecutorService executor = Executors.newFixedThreadPool(workersFor(db.name, 0), r -> {
+                    Thread th = new Thread(r, "erp-backup-load");
+                    th.setDaemon(true);
+                    return th;
+                });
+                try {
+                    List<Future<?>> futures = new ArrayList<>();
+                    for (Table t : db.tables) {
+                        for (String entry : t.chunks) {
+                            futures.add(executor.submit(() -> {
+                                loadChunk(source, zip, entry, t, progress);
+                                return null;
+                            }));
+                        }
+                    }
+                    awaitAll(futures);
+                } finally {
+                    executor.shutdownNow();
+                }
+            }
+            progress.addBytesRead(Files.size(backup)); // capped at the total by RestoreProgress
+            audit("RESULT=OK");
+        } catch (Exception e) {
+            audit("RESULT=FAIL | msg=" + e.getMessage());
+            progress.fail(e.getMessage());
+            throw e;
+        }
+    }
+
+    private static void recreateTables(ConnectionSource source, Database db, RestoreProgress progress) throws SQLException {
+        try (Connection conn = source.get(); Statement st = conn.createStatement()) {
+            st.execute("SET FOREIGN_KEY_CHECKS = 0");
+            try {
+                for (Table t : db.tables) {
+                    st.execute("DROP TABLE IF EXISTS " + quote(t.name));
+                    st.execute(t.createSql);
+                    progress.statementExecuted();
+                }
+            } finally {
+                resetSessionChecks(source, conn);
+            }
+        }
+    }
+
+    private static void loadChunk(ConnectionSource source, ZipFile zip, String entry, Table t, RestoreProgress progress) throws Exception {
+        ZipEntry ze = zip.getEntry(entry);
+        if (ze == null) throw new Exception("JDBC backup is missing chunk " + entry + ".");
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(quote(t.name)).append(" (");
+        for (int i = 0; i < t.columns.size(); i++) sql.append(i == 0 ? "" : ", ").append(quote(t.columns.get(i)));
+        sql.append(") VALUES (").append("?, ".repeat(t.columns.size() - 1)).append("?)");
+        int cols = t.columns.size();
+
+        try (Connection conn = source.get()) {
+            try (Statement st = conn.createStatement()) {
+                st.execute("SET FOREIGN_KEY_CHECKS = 0, UNIQUE_CHECKS = 0");
+            }
+            conn.setAutoCommit(false);
+            try (PreparedStatement insert = conn.prepareStatement(sql.toString());
+                 JsonReader in = new JsonReader(new InputStreamReader(
+                         new GZIPInputStream(zip.getInputStream(ze), 65536), StandardCharsets.UTF_8))) {
+                int pending = 0;
+                in.beginArray();
+                while (in.hasNext()) {
+                    in.beginArray();
+                    for (int i = 0; i < cols; i++) {
+                        if (in.peek() == JsonToken.NULL) {
+                            in.nextNull();
+                            insert.setNull(i + 1, Types.NULL);
+                        } else if (t.binary.get(i)) {
+                            insert.setBytes(i + 1, Base64.getDecoder().decode(in.nextString()));
+                        } else {
+                            insert.setString(i + 1, in.nextString());
+                        }
+                    }
+                    in.endArray();
+                    insert.addBatch();
+                    if (++pending == BATCH_ROWS) {
+                        insert.executeBatch();
+                        progress.statementExecuted();
+                        pending = 0;
+                    }
+                }
+                in.endArray();
+                if (pending > 0) {
+                    insert.executeBatch();
+                    progress.statementExecuted();
+                }
+                conn.commit();
+            } catch (Exception e) {
+                try { conn.rollback(); } catch (SQLException ignore) { }
+                throw new Exception("Failed loading " + entry + ": " + e.getMessage(), e);
+            } finally {
+                // Pooled connection: put the session back the way other code expects it.
+                try { conn.setAutoCommit(true); } catch (SQLException ignore) { }
+                resetSessionChecks(source, conn);
+            }
+        }
+        progress.addBytesRead(ze.getCompressedSize());
+    }
+
+    // ----------------------------------------------------------------------------- helpers
+
+    /**
+     * Turns foreign key and unique checks back on before the connection returns to the pool. If
+     * that fails the connection is evicted, so no request ever runs with the checks off.
+     */
+    private static void resetSessionChecks(ConnectionSource source, Connection conn) {
+        try (Statement st = conn.createStatement()) {
+            st.execute("SET FOREIGN_KEY_CHECKS = 1, UNIQUE_CHECKS = 1");
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Could not reset session checks after restore, evicting the connection: " + e.getMessage());
+            source.evict(conn);
+        }
+    }
+
+    /** Waits for every task; on the first failure cancels the rest and rethrows its cause. */
+    private static void awaitAll(List<Future<?>> futures) throws Exception {
+        try {
+            for (Future<?> f : futures) f.get();
+        } catch (java.util.concurrent.ExecutionException e) {
+            for (Future<?> f : futures) f.cancel(true);
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception ex) throw ex;
+            throw new Exception(cause);
+        }
+    }
+
+    private static boolean isBinary(int sqlType) {
+        switch (sqlType) {
+            case Types.BINARY: case Types.VARBINARY: case Types.LONGVARBINARY: case Types.BLOB: case Types.BIT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static String quote(String identifier) {
+        return "`" + identifier.replace("`", "``") + "`";
+    }
+
+    private static void audit(String result) {
+        try {
+            String auditLine = java.time.Instant.now().toString() + " | user=unknown | OP=DB_RESTORE | ENGINE=jdbc | " + result + java.lang.System.lineSeparator();
+            Files.writeString(java.nio.file.Paths.get("db_backup_audit.log"), auditLine,
+                    java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.APPEND);
+        } catch (java.io.IOException ignore) {
+            // ignore audit write failures
+        }
+    }
+
+    private static void deleteTree(Path dir) {
+        try (java.util.stream.Stream<Path> walk = Files.walk(dir)) {
+            walk.sorted(java.util.Comparator.reverseOrder()).forEach(p -> {
+                try { Files.deleteIfExists(p); } catch (java.io.IOException ignore) { }
+            });
+        } catch (java.io.IOException e) {
+            LOGGER.log(Level.WARNING, "Could not remove backup work directory " + dir + ": " + e.getMessage());
+        }
+    }
+}
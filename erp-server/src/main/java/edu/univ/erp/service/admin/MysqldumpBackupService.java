@@ -6,7 +6,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Uses system-installed mysqldump/mysql to create and restore gzipped SQL dumps.
@@ -15,139 +14,164 @@ import java.util.Map;
  *  - erp.user
  *  - erp.pass
  */
-public class MysqldumpBackupService {
+public class MysqldumpBackupService implements BackupEngine {
 
     private static final java.util.logging.Logger LOG = java.util.logging.Logger.getLogger(MysqldumpBackupService.class.getName());
 
+    /** Deflate level for backups ({@code erp.backup.gzipLevel}, 1 = fastest .. 9 = smallest, default 6). */
+    private static final int GZIP_LEVEL = Math.max(1, Math.min(9, Integer.getInteger("erp.backup.gzipLevel", 6)));
+    /** Buffer between mysqldump and the compressor ({@code erp.backup.bufferBytes}, default 256 KiB). */
+    private static final int BUFFER_BYTES = Math.max(8192, Integer.getInteger("erp.backup.bufferBytes", 256 * 1024));
+
     public Path createGzippedBackup() throws Exception {
-        DbInfo info = parseJdbcUrl(edu.univ.erp.dao.db.DBConnector.getErpJdbcUrl());
-        String user = edu.univ.erp.dao.db.DBConnector.getErpUsername();
-        String pass = edu.univ.erp.dao.db.DBConnector.getErpPassword();
+        return createBackup().file();
+    }
 
-        Path tmpSql = Files.createTempFile("erp-backup-", ".sql");
+    /**
+     * Pipes mysqldump's stdout through gzip straight into the backup file, hashing the gzipped
+     * bytes as they are written; no uncompressed copy touches the disk. The file is deleted
+     * when mysqldump fails.
+     */
+    @Override
+    public Backup createBackup() throws Exception {
+        List<String> cmd = buildDumpCommand();
+        Path gz = Files.createTempFile("erp-backup-", ".sql.gz");
+        Path errFile = Files.createTempFile("erp-backup-err-", ".log");
+        boolean ok = false;
         try {
-            List<String> cmd = new ArrayList<>();
-            cmd.add("mysqldump");
-            // Avoid tablespace-related errors by disabling tablespaces in the dump
-            cmd.add("--no-tablespaces");
-            cmd.add("-h"); cmd.add(info.host);
-            cmd.add("-P"); cmd.add(String.valueOf(info.port));
-            cmd.add("-u"); cmd.add(user);
-            // Provide password explicitly to the child process to ensure it is used
-            cmd.add("--password=" + pass);
-            cmd.add(info.database);
-
-            // Ensure --no-tablespaces is present (defensive) to avoid tablespaces errors
-            if (!cmd.contains("--no-tablespaces")) {
-                cmd.add(1, "--no-tablespaces");
-                LOG.info("Enforced --no-tablespaces on mysqldump command");
-            }
-            runProcessToFile(cmd, Map.of("MYSQL_PWD", pass), tmpSql);
-
-            // gzip the SQL into .gz
-            Path gz = Files.createTempFile("erp-backup-", ".sql.gz");
-            try (InputStream in = Files.newInputStream(tmpSql); OutputStream out = Files.newOutputStream(gz); java.util.zip.GZIPOutputStream gzOut = new java.util.zip.GZIPOutputStream(out)) {
-                byte[] buf = new byte[8192];
+            ProcessBuilder pb = new ProcessBuilder(cmd);
+            pb.environment().put("MYSQL_PWD", edu.univ.erp.dao.db.DBConnector.getErpPassword());
+            // stderr goes to its own file so error text never ends up in the dump
+            pb.redirectError(errFile.toFile());
+            Process p = pb.start();
+            java.security.MessageDigest md = java.security.MessageDigest.getInstance("SHA-256");
+            try (InputStream in = p.getInputStream();
+                 OutputStream out = new java.security.DigestOutputStream(
+                         new java.io.BufferedOutputStream(Files.newOutputStream(gz), BUFFER_BYTES), md);
+                 OutputStream gzOut = new java.util.zip.GZIPOutputStream(out, BUFFER_BYTES) {
+                     { def.setLevel(GZIP_LEVEL); }
+                 }) {
+                byte[] buf = new byte[BUFFER_BYTES];
                 int r;
                 while ((r = in.read(buf)) > 0) gzOut.write(buf, 0, r);
+            } catch (java.io.IOException e) {
+                p.destroy();
+                throw e;
+            }
+            int rc = p.waitFor();
+            if (rc != 0) {
+                String err = "";
+                try {
+                    err = Files.readString(errFile);
+                } catch (java.io.IOException ignore) {
+                    // ignore read failures
+                }
+                throw new RuntimeException("Command failed with exit code " + rc + ": " + String.join(" ", cmd) + "\n" + err);
             }
-            return gz;
+            Backup backup = new Backup(gz, Files.size(gz), java.util.HexFormat.of().formatHex(md.digest()),
+                    "erp_backup.gz", "application/gzip");
+            ok = true;
+            return backup;
         } finally {
             try {
-                Files.deleteIfExists(tmpSql);
+                Files.deleteIfExists(errFile);
+                if (!ok) Files.deleteIfExists(gz);
             } catch (java.io.IOException ignore) {
                 // best-effort cleanup
             }
         }
     }
 
+    /** The mysqldump invocation for the ERP database; the password goes in MYSQL_PWD, never argv. */
+    private List<String> buildDumpCommand() throws Exception {
+        DbInfo info = parseJdbcUrl(edu.univ.erp.dao.db.DBConnector.getErpJdbcUrl());
+        String user = edu.univ.erp.dao.db.DBConnector.getErpUsername();
+
+        List<String> cmd = new ArrayList<>();
+        cmd.add("mysqldump");
+        // Avoid tablespace-related errors by disabling tablespaces in the dump
+        cmd.add("--no-tablespaces");
+        cmd.add("-h"); cmd.add(info.host);
+        cmd.add("-P"); cmd.add(String.valueOf(info.port));
+        cmd.add("-u"); cmd.add(user);
+        cmd.add(info.database);
+        return cmd;
+    }
+
     public void restoreFromGzippedDump(Path gzFile) throws Exception {
-        // db credentials are obtained via DBConnector inside used methods; local copies not needed here
-        // Pre-scan the gzipped dump for known error patterns (e.g., mysqldump errors) to avoid executing error text as SQL
-        try (InputStream gzIn = new java.util.zip.GZIPInputStream(Files.newInputStream(gzFile));
-             java.io.BufferedReader scanner = new java.io.BufferedReader(new java.io.InputStreamReader(gzIn))) {
-            String ln;
-            while ((ln = scanner.readLine()) != null) {
-                String t = ln.trim();
-                if (t.startsWith("mysqldump:") || t.toLowerCase().contains("error") || t.toLowerCase().contains("access denied")) {
-                    // Provide a clearer, actionable error when mysqldump wrote errors into the dump
-                    String lower = t.toLowerCase();
-                    String advice = "Possible causes: the dump contains mysqldump error output. If the dump was taken with mysqldump, recreate it using --no-tablespaces or grant the PROCESS privilege to the dumping user.";
-                    if (lower.contains("tablespace") || lower.contains("tablespaces") || lower.contains("process privilege")) {
-                        advice = "mysqldump reported a tablespaces/PROCESS privilege error. Recreate the dump with --no-tablespaces, or grant the PROCESS privilege to the dumping user (recommended: use --no-tablespaces).";
-                    }
-                    String msg = "Dump file contains error output from mysqldump: " + ln + " -- " + advice;
-                    LOG.severe(msg);
-                    throw new RuntimeException(msg);
-                }
-            }
-        }
+        restoreFromGzippedDump(gzFile, new RestoreProgress());
+    }
+
+    @Override
+    public void restore(Path backup, RestoreProgress progress) throws Exception {
+        restoreFromGzippedDump(backup, progress);
+    }
 
-        // Execute the SQL dump over JDBC using the server's configured connection.
+    /**
+     * Restores a gzipped SQL dump over JDBC in one decompression pass. Statements run as they are
+     * read; the first line of each statement is checked for tool error output (a dump captured
+     * with mysqldump's stderr) and the restore stops there. Note that MySQL commits DDL
+     * implicitly, so a dump rejected part-way leaves the tables it already recreated; restore a
+     * good dump afterwards. {@code progress} is updated with compressed bytes read and statements run.
+     */
+    public void restoreFromGzippedDump(Path gzFile, RestoreProgress progress) throws Exception {
+        progress.start(Files.size(gzFile));
         try (java.sql.Connection conn = edu.univ.erp.dao.db.DBConnector.getErpConnection()) {
             conn.setAutoCommit(false);
             // DELIMITER-aware parsing: default delimiter is ';'
-            try (InputStream gzIn2 = new java.util.zip.GZIPInputStream(Files.newInputStream(gzFile));
-                 java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.InputStreamReader(gzIn2))) {
+            try (InputStream raw = new java.io.BufferedInputStream(Files.newInputStream(gzFile), 65536);
+                 InputStream counted = new java.io.FilterInputStream(raw) {
+                     @Override
+                     public int read() throws java.io.IOException {
+                         int b = super.read();
+                         if (b >= 0) progress.addBytesRead(1);
+                         return b;
+                     }
+
+                     @Override
+                     public int read(byte[] buf, int off, int len) throws java.io.IOException {
+                         int n = super.read(buf, off, len);
+                         if (n > 0) progress.addBytesRead(n);
+                         return n;
+                     }
+                 };
+                 java.io.BufferedReader reader = new java.io.BufferedReader(
+                         new java.io.InputStreamReader(new java.util.zip.GZIPInputStream(counted, 65536)), 65536)) {
 
                 String delimiter = ";";
                 StringBuilder sb = new StringBuilder();
                 String line;
+                long lineNo = 0;
                 try (java.sql.Statement stmt = conn.createStatement()) {
                     while ((line = reader.readLine()) != null) {
+                        lineNo++;
                         String trimmed = line.trim();
                         if (trimmed.isEmpty() || trimmed.startsWith("--") || trimmed.startsWith("#")) continue;
                         // Capture DELIMITER directive
                         if (trimmed.toUpperCase().startsWith("DELIMITER ")) {
                             // commit any pending statement with previous delimiter
                             if (sb.length() > 0) {
-                                String sql = sb.toString();
-                                try {
-                                    stmt.execute(sql);
-                                } catch (java.sql.SQLException e) {
-                                    try {
-                                        conn.rollback();
-                                    } catch (java.sql.SQLException ignore) {
-                                        // ignore rollback failure
-                                    }
-                                    throw new RuntimeException("Failed executing SQL during restore: " + e.getMessage() + "\nStatement:\n" + sql, e);
-                                }
+                                execute(conn, stmt, sb.toString(), progress);
                                 sb.setLength(0);
                             }
                             delimiter = trimmed.substring("DELIMITER ".length());
                             continue;
                         }
+                        // Only statement headers are checked; later lines are data and may say anything.
+                        if (sb.length() == 0) checkStatementHeader(line, lineNo);
 
                         sb.append(line).append('\n');
-                        if (sb.toString().trim().endsWith(delimiter)) {
+                        // Blank lines are skipped above, so the statement ends where this line does.
+                        if (trimmed.endsWith(delimiter)) {
                             // remove final delimiter
-                            int end = sb.length() - delimiter.length();
-                            String sql = sb.substring(0, Math.max(0, end));
-                            try {
-                                stmt.execute(sql);
-                            } catch (java.sql.SQLException e) {
-                                try {
-                                    conn.rollback();
-                                } catch (java.sql.SQLException ignore) {
-                                    // ignore rollback failure
-                                }
-                                throw new RuntimeException("Failed executing SQL during restore: " + e.getMessage() + "\nStatement:\n" + sql, e);
-                            }
+                            int end = sb.lastIndexOf(delimiter);
+                            execute(conn, stmt, sb.substring(0, Math.max(0, end)), progress);
                             sb.setLength(0);
                         }
                     }
                     // any remaining SQL
                     if (sb.length() > 0) {
-                        try {
-                            stmt.execute(sb.toString());
-                        } catch (java.sql.SQLException e) {
-                            try {
-                                conn.rollback();
-                            } catch (java.sql.SQLException ignore) {
-                                // ignore rollback failure
-                            }
-                            throw new RuntimeException("Failed executing trailing SQL during restore: " + e.getMessage(), e);
-                        }
+                        execute(conn, stmt, sb.toString(), progress);
                     }
                 }
                 conn.commit();
@@ -165,6 +189,7 @@ public class MysqldumpBackupService {
                     } catch (java.io.IOException ignore) {
                         // ignore audit write failures
                     }
+                    progress.fail(ex.getMessage());
                     throw ex;
                 }
             // write a post-restore success audit
@@ -175,6 +200,41 @@ public class MysqldumpBackupService {
             } catch (java.io.IOException ignore) {
                 // ignore audit write failures
             }
+        } catch (Exception e) {
+            // connection failures land here without passing the handler above
+            progress.fail(e.getMessage());
+            throw e;
+        }
+    }
+
+    private static void execute(java.sql.Connection conn, java.sql.Statement stmt, String sql, RestoreProgress progress) {
+        try {
+            stmt.execute(sql);
+            progress.statementExecuted();
+        } catch (java.sql.SQLException e) {
+            try {
+                conn.rollback();
+            } catch (java.sql.SQLException ignore) {
+                // ignore rollback failure
+            }
+            String shown = sql.length() > 2000 ? sql.substring(0, 2000) + "..." : sql;
+            throw new RuntimeException("Failed executing SQL during restore: " + e.getMessage() + "\nStatement:\n" + shown, e);
+        }
+    }
+
+    /** Rejects text mysqldump / mysql wrote instead of SQL (e.g. a dump captured together with stderr). */
+    private static void checkStatementHeader(String line, long lineNo) {
+        String t = line.trim();
+        String lower = t.toLowerCase();
+        if (t.startsWith("mysqldump:") || t.startsWith("mysql:") || lower.startsWith("error") || lower.contains("access denied")) {
+            // Provide a clearer, actionable error when mysqldump wrote errors into the dump
+            String advice = "Possible causes: the dump contains mysqldump error output. If the dump was taken with mysqldump, recreate it using --no-tablespaces or grant the PROCESS privilege to the dumping user.";
+            if (lower.contains("tablespace") || lower.contains("tablespaces") || lower.contains("process privilege")) {
+                advice = "mysqldump reported a tablespaces/PROCESS privilege error. Recreate the dump with --no-tablespaces, or grant the PROCESS privilege to the dumping user (recommended: use --no-tablespaces).";
+            }
+            String msg = "Dump file contains error output from mysqldump at line " + lineNo + ": " + line + " -- " + advice;
+            LOG.severe(msg);
+            throw new RuntimeException(msg);
         }
     }
 
@@ -201,31 +261,4 @@ public class MysqldumpBackupService {
         DbInfo info = new DbInfo();
         info.host = host; info.port = port; info.database = db; return info;
     }
-
-    private void runProcessToFile(List<String> cmd, Map<String,String> env, Path outputFile) throws Exception {
-        ProcessBuilder pb = new ProcessBuilder(cmd);
-        if (env != null) pb.environment().putAll(env);
-        // redirect stdout to outputFile and stderr to a separate temp file so we don't mix error text into the dump
-        Path errFile = Files.createTempFile("erp-backup-err-", ".log");
-        pb.redirectOutput(outputFile.toFile());
-        pb.redirectError(errFile.toFile());
-        Process p = pb.start();
-        int rc = p.waitFor();
-        if (rc != 0) {
-            String err = "";
-            try {
-                err = Files.readString(errFile);
-            } catch (java.io.IOException ignore) {
-                // ignore read failures
-            }
-            throw new RuntimeException("Command failed with exit code " + rc + ": " + String.join(" ", cmd) + "\n" + err);
-        }
-        try {
-            Files.deleteIfExists(errFile);
-        } catch (java.io.IOException ignore) {
-            // ignore cleanup failures
-        }
-    }
-
-    
 }
@@ -0,0 +1,85 @@
+package edu.univ.erp.service.admin;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs database restores one at a time on a background thread, so the admin client can poll
+ * GET_RESTORE_PROGRESS while a long restore streams in. The last restore's progress stays
+ * readable after it finishes.
+ */
+public final class RestoreJobs {
+    private static final Logger LOGGER = Logger.getLogger(RestoreJobs.class.getName());
+    private static final RestoreJobs INSTANCE = new RestoreJobs();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "erp-restore");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile RestoreProgress latest;
+
+    private RestoreJobs() {
+    }
+
+    public static RestoreJobs getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts restoring {@code dump} (either engine's backup, see {@link BackupEngine#forFile}) and takes ownership of the file, which is
+     * deleted when the restore ends. {@code invalidateCaches} runs whenever the restore ends, even
+     * after a failure: DROP/CREATE autocommit, so a partial restore has already changed the data.
+     * {@code afterSuccess} runs only after a successful restore, before the progress reports DONE.
+     */
+    public RestoreProgress start(Path dump, Runnable invalidateCaches, Runnable afterSuccess) throws Exception {
+        lock.lock();
+        try {
+            if (latest != null && !latest.isFinished()) {
+                throw new Exception("RESTORE_IN_PROGRESS:A database restore is already running.");
+            }
+            RestoreProgress progress = new RestoreProgress();
+            latest = progress;
+            executor.execute(() -> {
+                String failure = null;
+                try {
+                    BackupEngine.forFile(dump).restore(dump, progress);
+                } catch (Throwable e) {
+                    LOGGER.log(Level.SEVERE, "DB restore failed: " + e.getMessage(), e);
+                    failure = e.getMessage() == null ? e.toString() : e.getMessage();
+                } finally {
+                    try {
+                        invalidateCaches.run();
+                    } catch (Throwable e) {
+                        LOGGER.log(Level.SEVERE, "Cache invalidation after restore failed: " + e.getMessage(), e);
+                    }
+                    try { Files.deleteIfExists(dump); } catch (Exception ignore) { }
+                }
+                if (failure != null) {
+                    progress.fail(failure);
+                    return;
+                }
+                try {
+                    afterSuccess.run();
+                } catch (Throwable e) {
+                    LOGGER.log(Level.WARNING, "Post-restore step failed: " + e.getMessage(), e);
+                }
+                progress.done("DB restore completed.");
+            });
+            return progress;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Progress of the running or most recent restore, or null when none ran since startup. */
+    public RestoreProgress getLatest() {
+        return latest;
+    }
+}
@@ -0,0 +1,88 @@
+package edu.univ.erp.service.admin;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live counters of one restore, written by {@link MysqldumpBackupService} and read by
+ * GET_RESTORE_PROGRESS. Bytes are compressed bytes of the dump file, so
+ * {@code bytesRead / totalBytes} is the fraction done.
+ */
+public class RestoreProgress {
+
+    public enum State { PENDING, RUNNING, DONE, FAILED }
+
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong statements = new AtomicLong();
+    private volatile long totalBytes;
+    private volatile State state = State.PENDING;
+    private volatile String message;
+    private volatile long startedAtMillis;
+    private volatile long finishedAtMillis;
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    void start(long totalBytes) {
+        this.totalBytes = totalBytes;
+        this.startedAtMillis = System.currentTimeMillis();
+        this.state = State.RUNNING;
+    }
+
+    void addBytesRead(long n) {
+        bytesRead.addAndGet(n);
+    }
+
+    void statementExecuted() {
+        statements.incrementAndGet();
+    }
+
+    /** Called by the restore's owner once the post-restore steps are done too. */
+    public void done(String message) {
+        this.message = message;
+        this.finishedAtMillis = System.currentTimeMillis();
+        this.state = State.DONE;
+        finished.countDown();
+    }
+
+    public void fail(String message) {
+        if (state == State.FAILED) return;
+        this.message = message;
+        this.finishedAtMillis = System.currentTimeMillis();
+        this.state = State.FAILED;
+        finished.countDown();
+    }
+
+    /** Blocks until the restore is done or failed. */
+    public void await() throws InterruptedException {
+        finished.await();
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isFinished() {
+        return state == State.DONE || state == State.FAILED;
+    }
+
+    /** Snapshot for the protocol. */
+    public Map<String, Object> toMap() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        long total = totalBytes;
+        long read = Math.min(bytesRead.get(), total);
+        m.put("state", state.name());
+        m.put("bytesRead", read);
+        m.put("totalBytes", total);
+        m.put("percent", total == 0 ? 0.0 : Math.round(read * 1000.0 / total) / 10.0);
+        m.put("statements", statements.get());
+        long end = finishedAtMillis != 0 ? finishedAtMillis : System.currentTimeMillis();
+        m.put("elapsedMs", startedAtMillis == 0 ? 0 : end - startedAtMillis);
+        if (message != null) m.put("message", message);
+        return m;
+    }
+}
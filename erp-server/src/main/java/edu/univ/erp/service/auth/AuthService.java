@@ -4,15 +4,24 @@ import java.time.temporal.ChronoUnit;
 
 import edu.univ.erp.dao.auth.AuthDAO;
 import edu.univ.erp.dao.auth.AuthDAO.AuthDetails;
+import edu.univ.erp.dao.auth.LoginBookkeeping;
 import edu.univ.erp.domain.UserAuth;
 import edu.univ.erp.security.PasswordHasher;
+import edu.univ.erp.security.PasswordVerifier;
 
 public class AuthService {
     
     private final AuthDAO authDAO;
+    private final LoginBookkeeping loginBookkeeping;
 
     public AuthService() {
-        this.authDAO = new AuthDAO();
+        this(new AuthDAO(), LoginBookkeeping.getInstance());
+    }
+
+    /** Reads accounts through {@code authDAO} and hands successful logins to {@code loginBookkeeping}. */
+    AuthService(AuthDAO authDAO, LoginBookkeeping loginBookkeeping) {
+        this.authDAO = authDAO;
+        this.loginBookkeeping = loginBookkeeping;
     }
 
     /**
@@ -73,20 +82,19 @@ public class AuthService {
         
         String storedHash = details.passwordHash(); 
         
-        // 3. Verify the submitted password
-        if (PasswordHasher.verifyPassword(password, storedHash)) {
-            
-            // SUCCESS: Reset attempts and proceed
-            authDAO.updateLoginAttempts(userId, true); 
-            // Update last_login timestamp
-            authDAO.updateLastLogin(userId);
+        // 3. Verify the submitted password (on the bounded BCrypt pool; LOGIN_BUSY leaves attempts untouched)
+        if (PasswordVerifier.getInstance().verify(password, storedHash)) {
             
-            // Fetch the latest details to get the updated last_login value
-            AuthDetails refreshed = authDAO.findUserByUserId(userId);
-            String lastLoginStr = null;
-            if (refreshed != null && refreshed.lastLogin() != null) {
-                lastLoginStr = refreshed.lastLogin().toString(); // ISO-8601 from LocalDateTime
+            // SUCCESS: reset attempts and set last_login in one write. The timestamp is taken here
+            // (second precision, like the column) so it need not be read back.
+            LocalDateTime loginAt = LocalDateTime.now().withNano(0);
+            boolean hadFailures = details.failedAttempts() > 0 || details.lockedUntil() != null;
+            loginBookkeeping.recordSuccess(userId, loginAt, hadFailures);
+            // Hash made with a different erp.bcrypt.cost: upgrade it in the background, not on this response.
+            if (PasswordHasher.needsRehash(storedHash)) {
+                PasswordRehasher.getInstance().schedule(userId, password, storedHash);
             }
+            String lastLoginStr = loginAt.toString(); // ISO-8601 from LocalDateTime
 
             UserAuth user = new UserAuth(
                 userId,
@@ -125,7 +133,7 @@ public class AuthService {
         }
         
         // 1. Verify old password (Security Check)
-        if (!PasswordHasher.verifyPassword(oldPassword, details.passwordHash())) {
+        if (!PasswordVerifier.getInstance().verify(oldPassword, details.passwordHash())) {
             throw new Exception("Old password does not match.");
         }
         
@@ -0,0 +1,95 @@
+package edu.univ.erp.service.auth;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.univ.erp.dao.auth.AuthDAO;
+import edu.univ.erp.security.PasswordHasher;
+
+/**
+ * Moves stored hashes to the configured {@code erp.bcrypt.cost} as users log in.
+ *
+ * After a successful login whose hash has another cost, AuthService hands the plaintext here
+ * and returns; one background thread computes the new hash and swaps it in only if the stored
+ * hash is still the one that was verified. Pending work is bounded by
+ * {@code erp.bcrypt.rehashQueue} (default 1000) with one entry per user. Anything dropped is
+ * picked up again at that user's next login.
+ */
+public final class PasswordRehasher {
+    private static final Logger LOGGER = Logger.getLogger(PasswordRehasher.class.getName());
+    private static final PasswordRehasher INSTANCE = new PasswordRehasher(Integer.getInteger("erp.bcrypt.rehashQueue", 1000));
+
+    private final ThreadPoolExecutor executor;
+    private final AuthDAO authDAO = new AuthDAO();
+    private final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder rehashed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private PasswordRehasher(int queueSize) {
+        this.executor = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)), r -> {
+                    Thread t = new Thread(r, "erp-rehash");
+                    t.setDaemon(true);
+                    // Logins come first; upgrades use leftover CPU.
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                });
+    }
+
+    public static PasswordRehasher getInstance() {
+        return INSTANCE;
+    }
+
+    /** Queues a rehash of a password that was just verified against {@code verifiedHash}. */
+    public void schedule(int userId, String plaintextPassword, String verifiedHash) {
+        if (!pending.add(userId)) return;
+        try {
+            executor.execute(() -> {
+                try {
+                    String newHash = PasswordHasher.hashPassword(plaintextPassword);
+                    if (authDAO.updatePasswordHash(userId, newHash, verifiedHash)) {
+                        rehashed.increment();
+                        LOGGER.fine(() -> "SERVER LOG: Rehashed password of user " + userId + " from cost "
+                                + PasswordHasher.costOf(verifiedHash) + " to " + PasswordHasher.targetCost());
+                    } else {
+                        skipped.increment(); // password changed meanwhile, or the update failed
+                    }
+                } catch (Exception e) {
+                    failed.increment();
+                    LOGGER.log(Level.WARNING, "SERVER LOG: Rehash failed for user " + userId + ": " + e.getMessage());
+                } finally {
+                    pending.remove(userId);
+                }
+            });
+            scheduled.increment();
+        } catch (RejectedExecutionException e) {
+            pending.remove(userId);
+            dropped.increment();
+        }
+    }
+
+    /** Counters for GET_SERVER_STATS. */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("targetCost", PasswordHasher.targetCost());
+        stats.put("pending", pending.size());
+        stats.put("scheduled", scheduled.sum());
+        stats.put("rehashed", rehashed.sum());
+        stats.put("skipped", skipped.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("failed", failed.sum());
+        return stats;
+    }
+}
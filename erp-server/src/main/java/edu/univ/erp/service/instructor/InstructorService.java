@@ -4,26 +4,38 @@ import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 
-import edu.univ.erp.access.AccessChecker;
+import edu.univ.erp.access.AuthorizationContext;
 import edu.univ.erp.dao.instructor.InstructorDAO;
 import edu.univ.erp.domain.EnrollmentRecord;
 import edu.univ.erp.domain.Section;
 
 /**
- * Service layer for Instructor operations. Enforces access rules, 
+ * Service layer for Instructor operations. Enforces access rules against the caller's
+ * {@link AuthorizationContext} (section ownership from memory, no per-request role lookups),
  * maintenance mode checks (delegated to the ClientHandler), and 
  * handles the crucial grade calculation logic.
  */
 public class InstructorService {
     
-    private final InstructorDAO instructorDAO = new InstructorDAO();
-    private final AccessChecker accessChecker = new AccessChecker(); 
+    private final InstructorDAO instructorDAO;
     
     // FINAL GRADE WEIGHTING RULE: Quiz 15%, Assignment 20%, Midterm 30%, Endterm 35%
     private static final double W_QUIZ = 0.15;
     private static final double W_ASSIGNMENT = 0.20;
     private static final double W_MIDTERM = 0.30;
     private static final double W_ENDTERM = 0.35;
+
+    // Letter grades, best first (distribution order).
+    private static final String[] LETTERS = { "A", "A-", "B", "B-", "C", "C-", "D", "F" };
+
+    public InstructorService() {
+        this(new InstructorDAO());
+    }
+
+    /** Grades against the given roster source rather than MySQL; rights come from each caller's context. */
+    InstructorService(InstructorDAO instructorDAO) {
+        this.instructorDAO = instructorDAO;
+    }
     
     
     /** Fetches all sections assigned to the instructor. */
@@ -35,12 +47,12 @@ public class InstructorService {
         }
     }
     
-    /** Fetches the roster for a section, but only if the instructor is assigned to it. 
+    /** Fetches the roster for a section, but only for its instructor or an admin.
      * Enforces Authorization (Who rule).
      */
-    public List<EnrollmentRecord> getSectionRoster(int instructorId, int sectionId) throws Exception {
+    public List<EnrollmentRecord> getSectionRoster(AuthorizationContext actor, int sectionId) throws Exception {
         // 1. Authorization Check: Must be the instructor of the section
-        if (!accessChecker.isInstructorOfSection(instructorId, sectionId)) {
+        if (!actor.ownsSection(sectionId) && !actor.isAdmin()) {
              throw new Exception("Access Denied: You are not authorized to view this section's roster.");
         }
         
@@ -53,11 +65,11 @@ public class InstructorService {
     }
     
     /** Records a score component, enforcing authorization. */
-    public void recordScore(int instructorId, int enrollmentId, String componentName, double score) throws Exception {
+    public void recordScore(AuthorizationContext actor, int enrollmentId, String componentName, double score) throws Exception {
         // Maintenance Mode is assumed to be checked by the ClientHandler for this write operation.
 
         // 1. Authorization Check: Must be the instructor of the enrollment record
-        if (!accessChecker.isInstructorOfEnrollment(instructorId, enrollmentId)) {
+        if (!actor.ownsEnrollment(enrollmentId) && !actor.isAdmin()) {
              throw new Exception("Access Denied: You cannot modify grades for this enrollment record.");
         }
 
@@ -80,11 +92,11 @@ public class InstructorService {
     /** * Computes and records the final grade based on weighted average. 
      * FIX: Now uses the new getSingleEnrollmentRecord DAO method.
      */
-    public String computeAndRecordFinalGrade(int instructorId, int enrollmentId) throws Exception {
+    public String computeAndRecordFinalGrade(AuthorizationContext actor, int enrollmentId) throws Exception {
         // Maintenance Mode is assumed to be checked by the ClientHandler for this write operation.
 
         // 1. Authorization Check
-        if (!accessChecker.isInstructorOfEnrollment(instructorId, enrollmentId)) {
+        if (!actor.ownsEnrollment(enrollmentId) && !actor.isAdmin()) {
              throw new Exception("Access Denied: You cannot finalize grades for this enrollment.");
         }
         
@@ -101,7 +113,57 @@ public class InstructorService {
             throw new Exception("Error fetching component scores for calculation: " + e.getMessage());
         }
 
-        // 3. Weighted Average Calculation
+        // 3-4. Weighted average and letter
+        String finalLetter = computeLetter(record);
+        
+        // 5. Record final grade
+        try {
+            // Grade, Completed status and the student's CGPA row commit together.
+            instructorDAO.recordFinalGrade(enrollmentId, finalLetter);
+        } catch (SQLException e) {
+            throw new Exception("Database error while recording final grade: " + e.getMessage());
+        }
+        
+        return finalLetter;
+    }
+
+    /**
+     * Computes and records final grades for every registered student in the section in one
+     * transaction: one roster query, letters computed in memory with the same weights as
+     * {@link #computeAndRecordFinalGrade}, batched writes.
+     * @return letter -> count for the students graded, in grade order (A first)
+     */
+    public Map<String, Integer> computeAndRecordFinalGradesForSection(AuthorizationContext actor, int sectionId) throws Exception {
+        if (!actor.ownsSection(sectionId) && !actor.isAdmin()) {
+            throw new Exception("NOT_AUTHORIZED:Only the instructor or admins may finalize grades for this section.");
+        }
+
+        List<EnrollmentRecord> roster;
+        try {
+            roster = instructorDAO.getEnrollmentRoster(sectionId);
+        } catch (SQLException e) {
+            throw new Exception("Database error while fetching roster: " + e.getMessage());
+        }
+
+        Map<String, Integer> distribution = new java.util.LinkedHashMap<>();
+        for (String letter : LETTERS) distribution.put(letter, 0);
+        List<InstructorDAO.FinalGradeWrite> writes = new java.util.ArrayList<>(roster.size());
+        for (EnrollmentRecord r : roster) {
+            writes.add(new InstructorDAO.FinalGradeWrite(r.getEnrollmentId(), r.getStudentId(), computeLetter(r)));
+        }
+
+        List<InstructorDAO.FinalGradeWrite> written;
+        try {
+            written = instructorDAO.recordFinalGrades(sectionId, writes);
+        } catch (SQLException e) {
+            throw new Exception("Database error while recording final grades: " + e.getMessage());
+        }
+        for (InstructorDAO.FinalGradeWrite w : written) distribution.merge(w.finalGrade(), 1, Integer::sum);
+        return distribution;
+    }
+
+    /** Weighted final score (missing components count as 0) mapped to a letter grade. */
+    static String computeLetter(EnrollmentRecord record) {
         // Use the 'Safe' getter methods (e.g., getQuizScoreSafe()) which return 0.0 if the score is null.
         double quizScore = record.getQuizScoreSafe(); 
         double assignmentScore = record.getAssignmentScoreSafe();
@@ -116,52 +178,39 @@ public class InstructorService {
             (midtermScore * W_MIDTERM) +    // 30%
             (endtermScore * W_ENDTERM);   // 35% (FIXED)
             
-        // 4. Letter Grade Assignment with minus grades (no D-):
-        // Thresholds:
-    
-        String finalLetter;
+        // Letter Grade Assignment with minus grades (no D-):
         if (finalNumericScore >= 90.0) {
-            finalLetter = "A";
+            return "A";
         } else if (finalNumericScore >= 80.0) {
-            finalLetter = "A-";
+            return "A-";
         } else if (finalNumericScore >= 70.0) {
-            finalLetter = "B";
+            return "B";
         } else if (finalNumericScore >= 60.0) {
-            finalLetter = "B-";
+            return "B-";
         } else if (finalNumericScore >= 50.0) {
-            finalLetter = "C";
+            return "C";
         } else if (finalNumericScore >= 40.0) {
-            finalLetter = "C-";
+            return "C-";
         } else if (finalNumericScore >= 30.0) {
-            finalLetter = "D";
+            return "D";
         } else {
-            finalLetter = "F";
-        }
-        
-        // 5. Record final grade
-        try {
-            instructorDAO.updateFinalGrade(enrollmentId, finalLetter);
-            instructorDAO.updateEnrollmentStatus(enrollmentId, "Completed");
-        } catch (SQLException e) {
-            throw new Exception("Database error while recording final grade: " + e.getMessage());
+            return "F";
         }
-        
-        return finalLetter;
     }
 
     /**
      * Exports the roster and component scores for a section as CSV.
      * CSV columns: enrollmentId,studentId,studentName,rollNo,quiz,assignment,midterm,endterm,finalGrade
      */
-    public String exportGradesCsv(int instructorId, int sectionId) throws Exception {
+    public String exportGradesCsv(AuthorizationContext actor, int sectionId) throws Exception {
         // Authorization
-        if (!accessChecker.isInstructorOfSection(instructorId, sectionId) && !accessChecker.isAdmin(instructorId)) {
+        if (!actor.ownsSection(sectionId) && !actor.isAdmin()) {
             throw new Exception("NOT_AUTHORIZED:Only the instructor or admins may export grades for this section.");
         }
 
         List<EnrollmentRecord> roster;
         try {
-            roster = getSectionRoster(instructorId, sectionId);
+            roster = getSectionRoster(actor, sectionId);
         } catch (Exception e) {
             throw new Exception("Failed to fetch roster for export: " + e.getMessage(), e);
         }
@@ -185,15 +234,29 @@ public class InstructorService {
      * Expected CSV columns: enrollmentId,quiz,assignment,midterm,endterm
      * Returns a summary report string.
      */
-    public String importGradesCsv(int instructorId, int sectionId, String csvContent) throws Exception {
-        if (!accessChecker.isInstructorOfSection(instructorId, sectionId) && !accessChecker.isAdmin(instructorId)) {
+    public String importGradesCsv(AuthorizationContext actor, int instructorId, int sectionId, String csvContent) throws Exception {
+        boolean owner = actor.ownsSection(sectionId);
+        if (!owner && !actor.isAdmin()) {
             throw new Exception("NOT_AUTHORIZED:Only the instructor or admins may import grades for this section.");
         }
 
         String[] lines = csvContent.split("\r?\n");
         if (lines.length < 2) return "No data to import.";
 
+        // Security: the enrollments this caller may grade, fetched once and checked per row in memory
+        long t0 = System.nanoTime();
+        java.util.Set<Integer> allowed;
+        try {
+            allowed = owner
+                    ? instructorDAO.getEnrollmentIdsForInstructorSection(actor.getUserId(), sectionId)
+                    : instructorDAO.getEnrollmentIdsForSection(sectionId); // admin
+        } catch (SQLException e) {
+            throw new Exception("Database error while checking enrollments: " + e.getMessage());
+        }
+        long authNanos = System.nanoTime() - t0;
+
         // First pass: parse and validate all rows, collect updates per enrollment
+        t0 = System.nanoTime();
         Map<Integer, Map<String, Double>> updates = new java.util.HashMap<>();
         int processed = 0;
         int errors = 0;
@@ -207,7 +270,7 @@ public class InstructorService {
                 int enrollmentId = Integer.parseInt(cols[0].trim());
 
                 // Security: ensure this enrollment belongs to the section and instructor
-                if (!instructorDAO.isInstructorOfEnrollmentRecord(instructorId, enrollmentId)) {
+                if (!allowed.contains(enrollmentId)) {
                     errors++;
                     errorDetails.append("Enrollment ").append(enrollmentId).append(": not authorized or not in section.\n");
                     continue;
@@ -239,24 +302,30 @@ public class InstructorService {
             }
         }
 
+        long parseNanos = System.nanoTime() - t0;
+
         // If any parsing/validation errors occurred, abort before making DB changes
         if (errors > 0) {
             // Abort import on parsing/validation errors and return a summary to the caller.
             StringBuilder summary = new StringBuilder();
             summary.append("Parsed: ").append(processed).append(", Errors: ").append(errors);
+            summary.append("\nTimings: ").append(importTimings(parseNanos, authNanos, -1));
             summary.append("\nDetails:\n").append(errorDetails.toString());
             return summary.toString();
         }
 
         // Second pass: apply all updates atomically using DAO transaction
+        t0 = System.nanoTime();
         try {
             instructorDAO.applyGradeUpdatesTransactional(updates);
         } catch (SQLException e) {
             throw new Exception("Database error while applying grade updates: " + e.getMessage());
         }
+        long writeNanos = System.nanoTime() - t0;
 
         StringBuilder summary = new StringBuilder();
         summary.append("Imported and applied updates for ").append(processed).append(" rows.");
+        summary.append("\nTimings: ").append(importTimings(parseNanos, authNanos, writeNanos));
 
         // Audit logging: record a minimal fingerprint of the imported CSV and who performed the import.
         try {
@@ -267,7 +336,7 @@ public class InstructorService {
             String csvSha = hex.toString();
 
             String auditLine = String.format("%s | actor=%d | instructor=%d | section=%d | rows=%d | sha256=%s\n",
-                    java.time.Instant.now().toString(), /* actorUserId to be filled by caller? */ -1, instructorId, sectionId, processed, csvSha);
+                    java.time.Instant.now().toString(), actor.getUserId(), instructorId, sectionId, processed, csvSha);
             java.nio.file.Files.write(java.nio.file.Path.of("import_audit.log"), auditLine.getBytes(java.nio.charset.StandardCharsets.UTF_8), java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.APPEND);
         } catch (Exception ex) {
             // don't fail the import because audit logging failed; just log it server-side
@@ -276,4 +345,11 @@ public class InstructorService {
         return summary.toString();
     }
 
+    // "parse=1.2ms auth=0.8ms write=3.4ms"; a negative write time means nothing was written.
+    private static String importTimings(long parseNanos, long authNanos, long writeNanos) {
+        return String.format(java.util.Locale.ROOT, "parse=%.1fms auth=%.1fms write=%s",
+                parseNanos / 1e6, authNanos / 1e6,
+                writeNanos < 0 ? "skipped" : String.format(java.util.Locale.ROOT, "%.1fms", writeNanos / 1e6));
+    }
+
 }
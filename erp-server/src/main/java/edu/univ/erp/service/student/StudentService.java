@@ -1,29 +1,30 @@
 package edu.univ.erp.service.student;
 
 import java.time.LocalDate;
-import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.logging.Logger;
 
+import edu.univ.erp.access.AuthorizationContext;
 import edu.univ.erp.dao.course.CourseDAO;
 import edu.univ.erp.dao.enrollment.EnrollmentDAO; 
+import edu.univ.erp.dao.grade.AcademicStandingDAO;
+import edu.univ.erp.dao.grade.AcademicSummaryCache;
 import edu.univ.erp.dao.grade.GradeDAO;
 import edu.univ.erp.dao.grade.GradeDAO.RawGradeResult;
 import edu.univ.erp.dao.settings.SettingDAO;
 import edu.univ.erp.dao.student.StudentDAO;
-import edu.univ.erp.domain.AssessmentComponent;
 import edu.univ.erp.domain.CourseCatalog;
 import edu.univ.erp.domain.Grade;
 import edu.univ.erp.util.GradeUtils;
+import edu.univ.erp.util.TimeSlot;
 import edu.univ.erp.util.TranscriptFormatter; 
 
 public class StudentService {
     private static final Logger LOGGER = Logger.getLogger(StudentService.class.getName());
     
     private final GradeDAO gradeDAO = new GradeDAO();
+    private final AcademicStandingDAO academicStandingDAO = new AcademicStandingDAO();
     private final CourseDAO courseDAO = new CourseDAO();
     private final EnrollmentDAO enrollmentDAO = new EnrollmentDAO();
     private final SettingDAO settingDAO = new SettingDAO();
@@ -39,17 +40,16 @@ public class StudentService {
      * @return A success message.
      */
     /**
-     * Drops a student from a course section. Performs owner/admin check using actorUserId.
-     * @param actorUserId the user id of the caller (must be the student or an admin)
+     * Drops a student from a course section. Performs owner/admin check using the caller's session.
+     * @param actor authorization context of the caller (must be the student or an admin)
      */
-    public String dropCourse(int actorUserId, int userId, int sectionId) throws Exception {
+    public String dropCourse(AuthorizationContext actor, int userId, int sectionId) throws Exception {
         // Service-level maintenance check (defense-in-depth)
         if (settingDAO.isMaintenanceModeOn()) {
             throw new Exception("The system is currently under maintenance. Please try later.");
         }
         // Authorization: caller must be the same student or an admin
-        edu.univ.erp.access.AccessChecker checker = new edu.univ.erp.access.AccessChecker();
-        if (actorUserId != userId && !checker.isAdmin(actorUserId)) {
+        if (!actor.actsFor(userId)) {
             throw new Exception("NOT_AUTHORIZED:Only the student or admins may drop a course.");
         }
         if (userId <= 0 || sectionId <= 0) {
@@ -76,6 +76,9 @@ public class StudentService {
             throw new Exception("Enrollment record not found or course was not in 'Registered' status.");
         }
         
+        // Offer the released seat to the section's waitlist (batched, in the background).
+        WaitlistPromoter.getInstance().requestPromotion(sectionId);
+
         LOGGER.info("Student " + userId + " successfully dropped section " + sectionId);
         return "Successfully dropped section ID: " + sectionId + ".";
     }
@@ -88,9 +91,9 @@ public class StudentService {
      * Registers a student in a specific course section, applying all business rules.
      */
     /**
-     * Registers a student in a specific course section. actorUserId must be the student or an admin.
+     * Registers a student in a specific course section. The actor must be the student or an admin.
      */
-    public String registerCourse(int actorUserId, int userId, int sectionId) throws Exception {
+    public String registerCourse(AuthorizationContext actor, int userId, int sectionId) throws Exception {
         // Service-level maintenance check (defense-in-depth)
         if (settingDAO.isMaintenanceModeOn()) {
             throw new Exception("The system is currently under maintenance. Please try later.");
@@ -99,192 +102,139 @@ public class StudentService {
             throw new IllegalArgumentException("Invalid Student ID or Section ID.");
         }
         // Authorization: caller must be the same student or an admin
-        edu.univ.erp.access.AccessChecker checker = new edu.univ.erp.access.AccessChecker();
-        if (actorUserId != userId && !checker.isAdmin(actorUserId)) {
+        if (!actor.actsFor(userId)) {
             throw new Exception("NOT_AUTHORIZED:Only the student or admins may register for a course.");
         }
         
-        // --- 1. Check Capacity ---
-        int remainingSeats = enrollmentDAO.getRemainingCapacity(sectionId);
-        if (remainingSeats <= 0) {
-            throw new Exception("Section is full. Registration failed.");
-        }
-        
-        // --- 2. Check Existing Enrollment ---
-        if (enrollmentDAO.isStudentRegistered(userId, sectionId)) {
-            throw new Exception("You are already registered in this section.");
-        }
-
-        // --- 2b. Prevent registering for another section of the same course ---
-        if (enrollmentDAO.isRegisteredForSameCourseInAnotherSection(userId, sectionId)) {
-            throw new Exception("You are already registered in another section of this course.");
-        }
-
-        // --- 2c. Prevent registering again for a course already completed in any section ---
-        if (enrollmentDAO.hasCompletedCourseForSameCode(userId, sectionId)) {
-            throw new Exception("You have completed this course");
+        // --- 0. Seats released in a waitlisted section go to the waitlist, in order ---
+        if (WaitlistPromoter.getInstance().hasWaitlist(sectionId)) {
+            throw new Exception("Section is full. Registration failed. Other students are waiting for this section; join the waitlist instead.");
         }
 
-        // --- 3. Check Prerequisites (Placeholder for future feature) ---
-        // if (!PrerequisiteDAO.check(userId, sectionId)) {
-        //      throw new Exception("Prerequisites not met for this course.");
-        // }
-
-        // --- 4. Check Time Conflict (Simplified Logic) ---
-        CourseCatalog targetSection = courseDAO.getCatalogItemBySectionId(sectionId); 
-        if (targetSection == null) {
-            throw new Exception("Target section data not found.");
-        }
-        
-        java.util.Map<Integer, String> currentSchedule = enrollmentDAO.getStudentScheduleEntries(userId);
-        String newSectionDayTime = targetSection.getDayTime();
-
-        // Robust conflict check: check every registered section for overlap even on a single day
-        for (java.util.Map.Entry<Integer, String> e : currentSchedule.entrySet()) {
-            Integer existingSectionId = e.getKey();
-            String existingTime = e.getValue();
-            if (hasTimeConflict(existingTime, newSectionDayTime)) {
-                // Get course info for the conflicting section so client can display useful details
-                CourseCatalog existing = courseDAO.getCatalogItemBySectionId(existingSectionId);
-                String existingCourseCode = existing == null ? "" : existing.getCourseCode();
-                String existingCourseTitle = existing == null ? "" : existing.getCourseTitle();
+        // --- 1-5. Eligibility checks and registration in one transaction ---
+        // Capacity, existing enrollment, other section of the same course, completed course and
+        // time conflicts are checked on one connection while the section row is locked, so the
+        // checks cannot go stale before the insert.
+        // (Prerequisites remain a placeholder for a future feature.)
+        EnrollmentDAO.RegistrationResult result =
+                enrollmentDAO.registerStudentChecked(userId, sectionId, this::hasTimeConflict);
+
+        switch (result.status()) {
+            case SECTION_FULL:
+                throw new Exception("Section is full. Registration failed.");
+            case ALREADY_REGISTERED:
+                throw new Exception("You are already registered in this section.");
+            case REGISTERED_OTHER_SECTION:
+                throw new Exception("You are already registered in another section of this course.");
+            case COURSE_COMPLETED:
+                throw new Exception("You have completed this course");
+            case TIME_CONFLICT: {
+                EnrollmentDAO.ScheduledSection existing = result.conflict();
                 // Return a structured conflict error so client can parse it
                 String json = "{\"type\":\"time_conflict\"," +
-                        "\"existingSectionId\":" + existingSectionId + "," +
-                        "\"existingDayTime\":\"" + escapeForJson(existingTime) + "\"," +
-                        "\"existingCourseCode\":\"" + escapeForJson(existingCourseCode) + "\"," +
-                        "\"existingCourseTitle\":\"" + escapeForJson(existingCourseTitle) + "\"}";
+                        "\"existingSectionId\":" + existing.sectionId() + "," +
+                        "\"existingDayTime\":\"" + escapeForJson(existing.dayTime()) + "\"," +
+                        "\"existingCourseCode\":\"" + escapeForJson(existing.courseCode()) + "\"," +
+                        "\"existingCourseTitle\":\"" + escapeForJson(existing.courseTitle()) + "\"}";
                 throw new Exception("CONFLICT:" + json);
             }
+            default:
+                break;
         }
         
-        // --- 5. Final Registration Transaction ---
-        enrollmentDAO.registerStudent(userId, sectionId);
-        
         LOGGER.info("Student " + userId + " successfully registered in section " + sectionId);
-        return "Successfully registered for section ID: " + sectionId + " (" + targetSection.getCourseCode() + ")";
+        return "Successfully registered for section ID: " + sectionId + " (" + result.courseCode() + ")";
     }
     
+    /** Largest cart accepted by REGISTER_BATCH. */
+    static final int MAX_BATCH_SECTIONS = 12;
+
     /**
-     * VERY SIMPLIFIED: Placeholder for robust time conflict logic. 
+     * Registers the student in every section of the cart or in none of them (REGISTER_BATCH).
+     * @return JSON {"registered":n,"results":[{"sectionId":..,"status":"REGISTERED","message":..},..]}
+     * @throws Exception "BATCH_REJECTED:{json}" with the same shape (registered = 0) when any section
+     *         fails; each result then carries that section's own status and message
      */
-    private boolean hasTimeConflict(String existingTime, String newTime) {
-        if (existingTime == null || newTime == null) return false;
+    public String registerCourses(AuthorizationContext actor, int userId, List<Integer> sectionIds) throws Exception {
+        if (settingDAO.isMaintenanceModeOn()) {
+            throw new Exception("The system is currently under maintenance. Please try later.");
+        }
+        if (userId <= 0 || sectionIds == null || sectionIds.isEmpty()) {
+            throw new IllegalArgumentException("Invalid Student ID or empty section list.");
+        }
+        if (sectionIds.size() > MAX_BATCH_SECTIONS) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SECTIONS + " sections can be registered at once.");
+        }
+        for (int sid : sectionIds) {
+            if (sid <= 0) throw new IllegalArgumentException("Invalid Section ID: " + sid);
+        }
+        if (!actor.actsFor(userId)) {
+            throw new Exception("NOT_AUTHORIZED:Only the student or admins may register for a course.");
+        }
 
-        try {
-            // Split into optional day part and time part. Examples:
-            // "Mon/Wed 09:00-10:30" => days="Mon/Wed", times="09:00-10:30"
-            String[] exParts = existingTime.trim().split("\\s+", 2);
-            String[] newParts = newTime.trim().split("\\s+", 2);
-
-            String exDaysPart = exParts.length == 2 ? exParts[0] : "";
-            String exTimePart = exParts.length == 2 ? exParts[1] : exParts[0];
-
-            String newDaysPart = newParts.length == 2 ? newParts[0] : "";
-            String newTimePart = newParts.length == 2 ? newParts[1] : newParts[0];
-
-            Set<String> exDays = parseDays(exDaysPart);
-            Set<String> newDays = parseDays(newDaysPart);
-
-            // If neither provides an explicit day, conservatively assume possible overlap (treat as overlap candidate)
-            boolean daysOverlap = false;
-            if (exDays.isEmpty() || newDays.isEmpty()) {
-                daysOverlap = true;
-            } else {
-                for (String d : exDays) {
-                    if (newDays.contains(d)) { daysOverlap = true; break; }
-                }
+        WaitlistPromoter waitlist = WaitlistPromoter.getInstance();
+        List<EnrollmentDAO.BatchItem> items =
+                enrollmentDAO.registerStudentBatch(userId, sectionIds, waitlist::hasWaitlist, this::hasTimeConflict);
+
+        boolean allRegistered = true;
+        List<java.util.Map<String, Object>> results = new ArrayList<>(items.size());
+        for (EnrollmentDAO.BatchItem item : items) {
+            java.util.Map<String, Object> r = new java.util.LinkedHashMap<>();
+            r.put("sectionId", item.sectionId());
+            r.put("status", item.status().name());
+            r.put("message", batchMessage(item, waitlist.hasWaitlist(item.sectionId())));
+            if (item.conflict() != null) {
+                r.put("conflictSectionId", item.conflict().sectionId());
+                r.put("conflictCourseCode", item.conflict().courseCode());
+                r.put("conflictDayTime", item.conflict().dayTime());
             }
-
-            if (!daysOverlap) return false;
-
-            // Parse time ranges: "HH:mm-HH:mm" or "H:mm-H:mm"
-            String[] exTimes = exTimePart.split("-", 2);
-            String[] newTimes = newTimePart.split("-", 2);
-            if (exTimes.length < 2 || newTimes.length < 2) return false;
-            java.time.format.DateTimeFormatter fmt = java.time.format.DateTimeFormatter.ofPattern("H:mm");
-
-            LocalTime exStart = LocalTime.parse(exTimes[0].trim(), fmt);
-            LocalTime exEnd = LocalTime.parse(exTimes[1].trim(), fmt);
-            LocalTime newStart = LocalTime.parse(newTimes[0].trim(), fmt);
-            LocalTime newEnd = LocalTime.parse(newTimes[1].trim(), fmt);
-
-            // Overlap exists unless one ends before the other starts
-            return !(exEnd.compareTo(newStart) <= 0 || newEnd.compareTo(exStart) <= 0);
-        } catch (Exception e) {
-            // Parsing errors: log and conservatively assume no conflict to avoid blocking valid registrations.
-            LOGGER.warning(() -> "Could not parse timetable strings for conflict check: '" + existingTime + "' vs '" + newTime + "' - " + e.getMessage());
-            return false;
+            results.add(r);
+            allRegistered &= item.status() == EnrollmentDAO.RegistrationStatus.REGISTERED;
+        }
+        java.util.Map<String, Object> body = new java.util.LinkedHashMap<>();
+        body.put("registered", allRegistered ? items.size() : 0);
+        body.put("results", results);
+        String json = new com.google.gson.Gson().toJson(body);
+        if (!allRegistered) {
+            throw new Exception("BATCH_REJECTED:" + json);
         }
+        LOGGER.info("Student " + userId + " registered " + items.size() + " sections in one batch: " + sectionIds);
+        return json;
     }
 
-    private Set<String> parseDays(String daysPart) {
-        Set<String> days = new HashSet<>();
-        if (daysPart == null) return days;
-        String cleaned = daysPart.trim();
-        if (cleaned.isEmpty()) return days;
-
-        // Accept separators '/', ',', or whitespace
-        String[] tokens = cleaned.split("[\\/\\,\\s]+");
-        for (String t : tokens) {
-            if (t.isEmpty()) continue;
-            // If token looks like compact codes e.g., MWF, TTh, parse char-by-char
-            if (t.matches("(?i)^[MTWThfhr]+$")) {
-                // iterate and detect 'Th' as Thursday
-                for (int i = 0; i < t.length(); i++) {
-                    char c = t.charAt(i);
-                    if (c == 'M' || c == 'm') {
-                        days.add("mon");
-                    } else if (c == 'W' || c == 'w') {
-                        days.add("wed");
-                    } else if (c == 'F' || c == 'f') {
-                        days.add("fri");
-                    } else if (c == 'T' || c == 't') {
-                        // Could be 'Th' for Thursday
-                        if (i + 1 < t.length() && (t.charAt(i + 1) == 'h' || t.charAt(i + 1) == 'H')) {
-                            days.add("thu");
-                            i++; // skip the 'h'
-                        } else {
-                            days.add("tue");
-                        }
-                    } else if (c == 'h' || c == 'H') {
-                        // standalone 'h' unlikely, skip
-                        continue;
-                    } else {
-                        // fallback to generic handling below
-                        String norm = t.substring(0, Math.min(3, t.length())).toLowerCase();
-                        switch (norm) {
-                            case "mon": days.add("mon"); break;
-                            case "tue": days.add("tue"); break;
-                            case "wed": days.add("wed"); break;
-                            case "thu": days.add("thu"); break;
-                            case "fri": days.add("fri"); break;
-                            case "sat": days.add("sat"); break;
-                            case "sun": days.add("sun"); break;
-                            default:
-                                days.add(norm);
-                        }
-                        break;
-                    }
-                }
-            } else {
-                String norm = t.substring(0, Math.min(3, t.length())).toLowerCase();
-                // normalize common day names/abbreviations
-                switch (norm) {
-                    case "mon": days.add("mon"); break;
-                    case "tue": days.add("tue"); break;
-                    case "wed": days.add("wed"); break;
-                    case "thu": days.add("thu"); break;
-                    case "fri": days.add("fri"); break;
-                    case "sat": days.add("sat"); break;
-                    case "sun": days.add("sun"); break;
-                    default:
-                        // unknown token: attempt to use first three letters
-                        days.add(norm);
-                }
-            }
+    private static String batchMessage(EnrollmentDAO.BatchItem item, boolean waitlisted) {
+        switch (item.status()) {
+            case REGISTERED:
+                return "Successfully registered for section ID: " + item.sectionId() + " (" + item.courseCode() + ")";
+            case SECTION_FULL:
+                return waitlisted
+                        ? "Section is full. Registration failed. Other students are waiting for this section; join the waitlist instead."
+                        : "Section is full. Registration failed.";
+            case ALREADY_REGISTERED:
+                return "You are already registered in this section.";
+            case REGISTERED_OTHER_SECTION:
+                return "You are already registered in another section of this course.";
+            case COURSE_COMPLETED:
+                return "You have completed this course";
+            case TIME_CONFLICT:
+                return "Time conflict with " + item.conflict().courseCode() + " (section " + item.conflict().sectionId()
+                        + ", " + item.conflict().dayTime() + ").";
+            case DUPLICATE_COURSE:
+                return "Section " + item.conflict().sectionId() + " of the same course is also in this request.";
+            case SECTION_NOT_FOUND:
+                return "Section ID not found: " + item.sectionId();
+            default:
+                return "Not registered because other sections in this request failed.";
         }
-        return days;
+    }
+
+    /**
+     * True when two day_time strings overlap on a shared day. Both are compiled once into
+     * {@link TimeSlot}s (cached), so this is a mask test and two integer comparisons.
+     */
+    boolean hasTimeConflict(String existingTime, String newTime) {
+        if (existingTime == null || newTime == null) return false;
+        return TimeSlot.of(existingTime).conflictsWith(TimeSlot.of(newTime));
     }
 
     /** Escape a string to be safely embedded in a JSON string value (very small helper). */
@@ -308,7 +258,7 @@ public class StudentService {
         }
     LOGGER.info("Fetching timetable for student " + userId);
         
-        List<CourseCatalog> schedule = courseDAO.getStudentTimetable(userId);
+        List<CourseCatalog> schedule = getAcademicSummary(userId).timetable();
         
         LOGGER.info("Timetable retrieved. Contains " + schedule.size() + " sections.");
         return schedule;
@@ -321,7 +271,7 @@ public class StudentService {
 
     public List<CourseCatalog> fetchCourseCatalog() throws Exception {
         LOGGER.info("Fetching full course catalog.");
-        List<CourseCatalog> catalog = courseDAO.getCourseCatalog();
+        List<CourseCatalog> catalog = edu.univ.erp.dao.course.CatalogSnapshot.getInstance().getCatalog();
         LOGGER.info("Successfully retrieved " + catalog.size() + " sections for the catalog.");
         return catalog;
     }
@@ -336,18 +286,33 @@ public class StudentService {
             throw new Exception("Invalid user ID provided.");
         }
         
-        List<RawGradeResult> rawResults = gradeDAO.getRawGradeResultsByUserId(userId); 
-        List<Grade> finalGrades = new ArrayList<>();
-        
-        for (RawGradeResult raw : rawResults) {
-            List<AssessmentComponent> components = gradeDAO.getComponentsByEnrollmentId(raw.enrollmentId());
-            finalGrades.add(new Grade(
-                raw.courseTitle(),
-                raw.finalGrade(),
-                components
-            ));
+        return getAcademicSummary(userId).grades();
+    }
+
+    /**
+     * CGPA, credits, grades and timetable for the student, from {@link AcademicSummaryCache}
+     * when present. A miss costs three queries and serves all four dashboard reads.
+     */
+    public AcademicSummaryCache.Summary getAcademicSummary(int userId) throws Exception {
+        return AcademicSummaryCache.getInstance().get(userId, () -> loadAcademicSummary(userId));
+    }
+
+    private AcademicSummaryCache.Summary loadAcademicSummary(int userId) throws Exception {
+        List<RawGradeResult> rawResults = gradeDAO.getRawGradeResultsByUserId(userId);
+        // One query for all enrollments and their components (was one query per enrollment).
+        List<Grade> grades = gradeDAO.getGradesByUserId(userId);
+        List<CourseCatalog> timetable = courseDAO.getStudentTimetable(userId);
+        java.util.Set<Integer> enrollmentIds = new java.util.HashSet<>();
+        // The grade DAOs swallow SQL errors; without enrollment ids a partial read (or a change
+        // between the two queries) is served once but not cached.
+        if (grades.size() == rawResults.size()) {
+            for (RawGradeResult raw : rawResults) enrollmentIds.add(raw.enrollmentId());
         }
-        return finalGrades;
+        return new AcademicSummaryCache.Summary(
+                computeCgpa(rawResults), computeTotalCreditsEarned(rawResults),
+                java.util.Collections.unmodifiableList(grades),
+                java.util.Collections.unmodifiableList(timetable),
+                java.util.Collections.unmodifiableSet(enrollmentIds));
     }
 
     // ----------------------------------------------------------------------
@@ -375,9 +340,29 @@ public class StudentService {
      */
     public double computeCgpa(int userId) throws Exception {
         if (userId <= 0) throw new IllegalArgumentException("Invalid userId");
+        AcademicStandingDAO.Standing standing = getAcademicStanding(userId);
+        return standing.cgpa() == null ? Double.NaN : standing.cgpa();
+    }
 
-        List<RawGradeResult> rawResults = gradeDAO.getRawGradeResultsByUserId(userId);
+    /**
+     * CGPA and credits earned from the materialized {@code student_academic_summary} row (one
+     * primary-key read). A student without a row has nothing graded yet. Falls back to
+     * computing from the grades when the table is unavailable (migration not applied).
+     */
+    public AcademicStandingDAO.Standing getAcademicStanding(int userId) throws Exception {
+        if (userId <= 0) throw new IllegalArgumentException("Invalid userId");
+        try {
+            AcademicStandingDAO.Standing standing = academicStandingDAO.get(userId);
+            return standing != null ? standing : new AcademicStandingDAO.Standing(userId, null, null, 0.0);
+        } catch (java.sql.SQLException e) {
+            LOGGER.warning("student_academic_summary unavailable, computing CGPA from grades: " + e.getMessage());
+            AcademicSummaryCache.Summary summary = getAcademicSummary(userId);
+            return new AcademicStandingDAO.Standing(userId, null,
+                    Double.isNaN(summary.cgpa()) ? null : summary.cgpa(), summary.creditsEarned());
+        }
+    }
 
+    private static double computeCgpa(List<RawGradeResult> rawResults) {
         double totalWeightedPoints = 0.0;
         double totalCredits = 0.0;
 
@@ -417,9 +402,10 @@ public class StudentService {
      */
     public double computeTotalCreditsEarned(int userId) throws Exception {
         if (userId <= 0) throw new IllegalArgumentException("Invalid userId");
+        return getAcademicStanding(userId).creditsEarned();
+    }
 
-        List<RawGradeResult> rawResults = gradeDAO.getRawGradeResultsByUserId(userId);
-
+    private static double computeTotalCreditsEarned(List<RawGradeResult> rawResults) {
         double totalEarned = 0.0;
     // Quiet: avoid verbose info logs during credits computation
         for (RawGradeResult raw : rawResults) {
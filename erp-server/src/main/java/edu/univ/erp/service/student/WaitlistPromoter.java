@@ -0,0 +1,167 @@
+package edu.univ.erp.service.student;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.univ.erp.dao.enrollment.WaitlistDAO;
+import edu.univ.erp.dao.settings.SettingDAO;
+
+/**
+ * Background promotion of waitlisted students.
+ *
+ * Seat releases call {@link #requestPromotion(int)}; requests are coalesced per section and
+ * processed in one batch on a single thread after {@code erp.waitlist.batchDelayMs} (default
+ * 200 ms), so a burst of drops in a section costs one promotion pass. A periodic sweep every
+ * {@code erp.waitlist.sweepMs} (default 30 s) also retries every waitlisted section, covering
+ * failed passes, maintenance windows and seats freed outside this server.
+ *
+ * Also tracks which sections have anyone waiting, so direct REGISTER can leave released seats
+ * to the head of the queue instead of whoever retries first.
+ */
+public final class WaitlistPromoter {
+    private static final Logger LOGGER = Logger.getLogger(WaitlistPromoter.class.getName());
+    private static final WaitlistPromoter INSTANCE = new WaitlistPromoter();
+
+    private final long batchDelayMs = Long.getLong("erp.waitlist.batchDelayMs", 200L);
+    private final long sweepMs = Long.getLong("erp.waitlist.sweepMs", 30000L);
+    private final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> waitlisted = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder promoted = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "erp-waitlist-promoter");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile boolean loaded;
+    private boolean started;
+
+    private WaitlistPromoter() {
+    }
+
+    public static WaitlistPromoter getInstance() {
+        return INSTANCE;
+    }
+
+    /** Loads the waitlisted sections and starts the periodic sweep (promoting once right away). */
+    public synchronized void start() {
+        if (started) return;
+        started = true;
+        if (sweepMs > 0) {
+            executor.scheduleWithFixedDelay(this::sweep, 0, sweepMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** A seat in the section was released. */
+    public void requestPromotion(int sectionId) {
+        if (!hasWaitlist(sectionId)) return;
+        pending.add(sectionId);
+        if (scheduled.compareAndSet(false, true)) {
+            executor.schedule(this::runBatch, batchDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** True when anyone may be waiting for the section. */
+    public boolean hasWaitlist(int sectionId) {
+        ensureLoaded();
+        return waitlisted.contains(sectionId);
+    }
+
+    void onJoined(int sectionId) {
+        waitlisted.add(sectionId);
+    }
+
+    /**
+     * A promotion pass found no one waiting. A join may have committed after that read (its
+     * onJoined then found the section still present), so the table is checked again after the
+     * removal and the section put back, with a pass of its own, if anyone is waiting now.
+     */
+    void onEmpty(int sectionId) {
+        if (!waitlisted.remove(sectionId)) return;
+        try {
+            if (new WaitlistDAO().countWaiting(sectionId) == 0) return;
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "SERVER LOG: Could not re-check waitlist of section " + sectionId + ": " + e.getMessage());
+        }
+        waitlisted.add(sectionId);
+        requestPromotion(sectionId);
+    }
+
+    /** The waitlist table was replaced (e.g. restore); reload which sections have waiters. */
+    public void invalidate() {
+        loaded = false;
+        ensureLoaded();
+        for (int sectionId : new ArrayList<>(waitlisted)) requestPromotion(sectionId);
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        synchronized (this) {
+            if (loaded) return;
+            try {
+                Set<Integer> fromDb = new WaitlistDAO().getWaitlistedSections();
+                waitlisted.retainAll(fromDb);
+                waitlisted.addAll(fromDb);
+                loaded = true;
+            } catch (Exception e) {
+                // Serve with what we know rather than querying on every REGISTER; the sweep retries.
+                loaded = true;
+                LOGGER.log(Level.WARNING, "SERVER LOG: Could not load waitlisted sections: " + e.getMessage());
+            }
+        }
+    }
+
+    private void sweep() {
+        loaded = false;
+        ensureLoaded();
+        pending.addAll(waitlisted);
+        runBatch();
+    }
+
+    private void runBatch() {
+        scheduled.set(false);
+        if (pending.isEmpty()) return;
+        if (new SettingDAO().isMaintenanceModeOn()) {
+            // Registration is frozen; the sweep retries after maintenance.
+            return;
+        }
+        List<Integer> sections = new ArrayList<>(pending);
+        pending.removeAll(sections);
+        batches.increment();
+        WaitlistService service = new WaitlistService();
+        for (int sectionId : sections) {
+            try {
+                int n = service.promote(sectionId);
+                promoted.add(n);
+                if (n > 0) LOGGER.info("SERVER LOG: Promoted " + n + " waitlisted student(s) into section " + sectionId);
+            } catch (Exception e) {
+                failures.increment();
+                LOGGER.log(Level.WARNING, "SERVER LOG: Waitlist promotion failed for section " + sectionId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /** Counters for GET_SERVER_STATS. */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("waitlistedSections", waitlisted.size());
+        stats.put("pending", pending.size());
+        stats.put("batches", batches.sum());
+        stats.put("promoted", promoted.sum());
+        stats.put("failures", failures.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,129 @@
+package edu.univ.erp.service.student;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+import edu.univ.erp.access.AuthorizationContext;
+import edu.univ.erp.dao.enrollment.EnrollmentDAO;
+import edu.univ.erp.dao.enrollment.WaitlistDAO;
+import edu.univ.erp.dao.notification.NotificationDAO;
+import edu.univ.erp.dao.settings.SettingDAO;
+import edu.univ.erp.domain.Notification;
+
+/**
+ * Waitlist for full sections. Students queue once with JOIN_WAITLIST instead of retrying
+ * REGISTER; when a seat is released {@link WaitlistPromoter} calls {@link #promote(int)}, which
+ * registers waiting students in order through the normal registration transaction and notifies
+ * them of the outcome.
+ */
+public class WaitlistService {
+    private static final Logger LOGGER = Logger.getLogger(WaitlistService.class.getName());
+
+    // Students examined per waitlist query during promotion.
+    private static final int PROMOTION_BATCH = 20;
+
+    private final WaitlistDAO waitlistDAO = new WaitlistDAO();
+    private final EnrollmentDAO enrollmentDAO = new EnrollmentDAO();
+    private final NotificationDAO notificationDAO = new NotificationDAO();
+    private final SettingDAO settingDAO = new SettingDAO();
+    private final StudentService studentService = new StudentService();
+
+    /**
+     * Adds the student to the section's waitlist.
+     * @return the student's 1-based position
+     */
+    public int joinWaitlist(AuthorizationContext actor, int userId, int sectionId) throws Exception {
+        if (settingDAO.isMaintenanceModeOn()) {
+            throw new Exception("The system is currently under maintenance. Please try later.");
+        }
+        checkActor(actor, userId, "join a waitlist");
+        if (userId <= 0 || sectionId <= 0) {
+            throw new IllegalArgumentException("Invalid Student ID or Section ID.");
+        }
+        if (enrollmentDAO.isStudentRegistered(userId, sectionId)) {
+            throw new Exception("You are already registered in this section.");
+        }
+        // Throws "Section ID not found" for unknown sections.
+        int remaining = enrollmentDAO.getRemainingCapacity(sectionId);
+        if (remaining > 0 && !WaitlistPromoter.getInstance().hasWaitlist(sectionId)) {
+            throw new Exception("Section has open seats. Register for it directly.");
+        }
+        if (!waitlistDAO.join(userId, sectionId)) {
+            throw new Exception("You are already on the waitlist for this section.");
+        }
+        WaitlistPromoter.getInstance().onJoined(sectionId);
+        // A seat may have opened between the capacity check and the insert.
+        if (remaining > 0) WaitlistPromoter.getInstance().requestPromotion(sectionId);
+        int position = waitlistDAO.getPosition(userId, sectionId);
+        LOGGER.info("Student " + userId + " joined waitlist for section " + sectionId + " at position " + position);
+        return position;
+    }
+
+    public void leaveWaitlist(AuthorizationContext actor, int userId, int sectionId) throws Exception {
+        checkActor(actor, userId, "leave a waitlist");
+        if (waitlistDAO.leave(userId, sectionId) == 0) {
+            throw new Exception("You are not on the waitlist for this section.");
+        }
+        LOGGER.info("Student " + userId + " left waitlist for section " + sectionId);
+    }
+
+    /** @return {position (0 = not waitlisted), total waiting} */
+    public int[] getWaitlistPosition(AuthorizationContext actor, int userId, int sectionId) throws Exception {
+        checkActor(actor, userId, "view a waitlist position");
+        return new int[] { waitlistDAO.getPosition(userId, sectionId), waitlistDAO.countWaiting(sectionId) };
+    }
+
+    private void checkActor(AuthorizationContext actor, int userId, String action) throws Exception {
+        if (!actor.actsFor(userId)) {
+            throw new Exception("NOT_AUTHORIZED:Only the student or admins may " + action + ".");
+        }
+    }
+
+    /**
+     * Registers waiting students in waitlist order until the section is full or the waitlist is
+     * empty. Students who are no longer eligible (already registered elsewhere in the course,
+     * completed it, or now have a clash) are removed and told why. Each student's registration and
+     * waitlist removal commit together in one transaction.
+     * @return number of students registered
+     */
+    public int promote(int sectionId) throws Exception {
+        int promoted = 0;
+        while (true) {
+            List<Integer> head = waitlistDAO.getHead(sectionId, PROMOTION_BATCH);
+            if (head.isEmpty()) {
+                WaitlistPromoter.getInstance().onEmpty(sectionId);
+                return promoted;
+            }
+            for (int studentId : head) {
+                EnrollmentDAO.RegistrationResult result =
+                        enrollmentDAO.registerFromWaitlist(studentId, sectionId, studentService::hasTimeConflict);
+                String message;
+                switch (result.status()) {
+                    case SECTION_FULL:
+                        return promoted;
+                    case REGISTERED:
+                        promoted++;
+                        message = "A seat opened in section " + sectionId + " (" + result.courseCode()
+                                + ") and you have been registered from the waitlist.";
+                        break;
+                    case TIME_CONFLICT:
+                        message = "A seat opened in section " + sectionId + " but it clashes with "
+                                + result.conflict().courseCode() + " (" + result.conflict().dayTime()
+                                + "). You have been removed from the waitlist.";
+                        break;
+                    default:
+                        message = "You were removed from the waitlist for section " + sectionId
+                                + " because you are no longer eligible to register for it.";
+                }
+                notify(studentId, message);
+                LOGGER.info("Waitlist section " + sectionId + ": student " + studentId + " -> " + result.status());
+            }
+        }
+    }
+
+    private void notify(int studentId, String message) {
+        Notification n = new Notification(0, 0, "STUDENT", studentId, "Waitlist", message,
+                java.time.LocalDateTime.now(), false);
+        notificationDAO.insertNotification(n);
+    }
+}
@@ -0,0 +1,183 @@
+package edu.univ.erp.tools;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import edu.univ.erp.dao.db.DBConnector;
+import edu.univ.erp.service.admin.BackupEngine;
+import edu.univ.erp.service.admin.MysqldumpBackupService;
+
+/**
+ * Compares the backup path DB_BACKUP used to take (mysqldump into a temp .sql file, then gzip it
+ * with an 8 KB buffer into a second file and hash that) with the piped
+ * {@link MysqldumpBackupService#createBackup()} on a database grown by a generated table.
+ *
+ * Usage (needs mysqldump on the PATH and the ERP database configured as for the server; use a
+ * dev/seed database):
+ *   java [-Derp.backup.gzipLevel=6] [-Derp.backup.bufferBytes=262144] \
+ *        edu.univ.erp.tools.BackupPipelineBenchmark [rows] [iterations]
+ *
+ * rows (default 1000000) go into a scratch table {@code bench_backup_rows} that is dropped again
+ * at the end. Both paths must produce the same SQL (ignoring mysqldump's "Dump completed"
+ * timestamp). Disk bytes written count every file each path creates.
+ */
+public class BackupPipelineBenchmark {
+
+    private static final String TABLE = "bench_backup_rows";
+    private static final String[] WORDS = { "alpha", "bravo", "charlie", "delta", "echo", "foxtrot",
+            "golf", "hotel", "india", "juliett", "kilo", "lima", "mike", "november" };
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        MysqldumpBackupService service = new MysqldumpBackupService();
+        LatencyRecorder legacyLatency = new LatencyRecorder();
+        LatencyRecorder pipedLatency = new LatencyRecorder();
+        long legacyDisk = 0;
+        long pipedDisk = 0;
+        long gzSize = 0;
+        boolean same = true;
+        try {
+            generate(rows);
+            for (int i = 0; i < iterations; i++) {
+                long t0 = System.nanoTime();
+                Legacy legacy = legacyBackup();
+                legacyLatency.record(System.nanoTime() - t0);
+
+                t0 = System.nanoTime();
+                BackupEngine.Backup piped = service.createBackup();
+                pipedLatency.record(System.nanoTime() - t0);
+
+                try {
+                    if (!sqlDigest(legacy.gz).equals(sqlDigest(piped.file()))) same = false;
+                    legacyDisk += legacy.sqlBytes + Files.size(legacy.gz);
+                    pipedDisk += piped.size();
+                    gzSize = piped.size();
+                } finally {
+                    Files.deleteIfExists(legacy.gz);
+                    Files.deleteIfExists(piped.file());
+                }
+            }
+        } finally {
+            drop();
+            DBConnector.shutdown();
+        }
+
+        System.out.printf("%d generated rows, %d iterations, gzip level %s, buffer %s bytes, dumps %s%n",
+                rows, iterations, System.getProperty("erp.backup.gzipLevel", "6"),
+                System.getProperty("erp.backup.bufferBytes", "262144"), same ? "identical" : "DIFFER");
+        System.out.printf("  temp .sql + gzip: %s, %.1f MB written per backup%n",
+                legacyLatency.summary(), legacyDisk / (double) iterations / 1048576.0);
+        System.out.printf("  piped:            %s, %.1f MB written per backup (backup %.1f MB)%n",
+                pipedLatency.summary(), pipedDisk / (double) iterations / 1048576.0, gzSize / 1048576.0);
+        if (!same) {
+            System.out.println("FAIL: the two paths produced different dumps");
+            System.exit(1);
+        }
+    }
+
+    private record Legacy(Path gz, long sqlBytes) { }
+
+    /** What createGzippedBackup and DB_BACKUP did before the pipe, including hashing the result. */
+    private static Legacy legacyBackup() throws Exception {
+        List<String> cmd = dumpCommand();
+        Path sql = Files.createTempFile("erp-bench-", ".sql");
+        Path err = Files.createTempFile("erp-bench-err-", ".log");
+        try {
+            ProcessBuilder pb = new ProcessBuilder(cmd);
+            pb.environment().put("MYSQL_PWD", DBConnector.getErpPassword());
+            pb.redirectOutput(sql.toFile());
+            pb.redirectError(err.toFile());
+            int rc = pb.start().waitFor();
+            if (rc != 0) throw new RuntimeException("mysqldump failed (" + rc + "): " + Files.readString(err));
+
+            Path gz = Files.createTempFile("erp-bench-", ".sql.gz");
+            try (InputStream in = Files.newInputStream(sql); OutputStream out = Files.newOutputStream(gz);
+                 java.util.zip.GZIPOutputStream gzOut = new java.util.zip.GZIPOutputStream(out)) {
+                byte[] buf = new byte[8192];
+                int r;
+                while ((r = in.read(buf)) > 0) gzOut.write(buf, 0, r);
+            }
+            MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(gz));
+            return new Legacy(gz, Files.size(sql));
+        } finally {
+            Files.deleteIfExists(sql);
+            Files.deleteIfExists(err);
+        }
+    }
+
+    // The same mysqldump arguments the service uses; the password goes in MYSQL_PWD.
+    private static List<String> dumpCommand() {
+        URI url = URI.create(DBConnector.getErpJdbcUrl().substring("jdbc:".length()));
+        return List.of("mysqldump", "--no-tablespaces", "-h", url.getHost(),
+                "-P", String.valueOf(url.getPort() < 0 ? 3306 : url.getPort()),
+                "-u", DBConnector.getErpUsername(), url.getPath().substring(1));
+    }
+
+    // SHA-256 of the uncompressed dump without the completion timestamp line.
+    private static String sqlDigest(Path gz) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(gz), 65536), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.startsWith("-- Dump completed")) continue;
+                md.update(line.getBytes(StandardCharsets.UTF_8));
+                md.update((byte) '\n');
+            }
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private static void generate(int rows) throws SQLException {
+        drop();
+        try (Connection conn = DBConnector.getErpConnection()) {
+            try (Statement st = conn.createStatement()) {
+                st.executeUpdate("CREATE TABLE " + TABLE + " (id INT AUTO_INCREMENT PRIMARY KEY, " +
+                        "label VARCHAR(64) NOT NULL, note VARCHAR(255) NOT NULL, amount DECIMAL(10,2) NOT NULL)");
+            }
+            conn.setAutoCommit(false);
+            Random random = new Random(42);
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO " + TABLE + " (label, note, amount) VALUES (?, ?, ?)")) {
+                for (int i = 1; i <= rows; i++) {
+                    insert.setString(1, WORDS[random.nextInt(WORDS.length)] + "-" + i);
+                    StringBuilder note = new StringBuilder();
+                    for (int w = 0; w < 12; w++) note.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+                    note.append(Long.toHexString(random.nextLong()));
+                    insert.setString(2, note.toString());
+                    insert.setBigDecimal(3, java.math.BigDecimal.valueOf(random.nextInt(1_000_000), 2));
+                    insert.addBatch();
+                    if (i % 5000 == 0) {
+                        insert.executeBatch();
+                        conn.commit();
+                    }
+                }
+                insert.executeBatch();
+                conn.commit();
+            }
+        }
+    }
+
+    private static void drop() throws SQLException {
+        try (Connection conn = DBConnector.getErpConnection(); Statement st = conn.createStatement()) {
+            st.executeUpdate("DROP TABLE IF EXISTS " + TABLE);
+        }
+    }
+}
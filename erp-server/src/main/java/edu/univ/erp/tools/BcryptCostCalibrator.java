@@ -0,0 +1,62 @@
+package edu.univ.erp.tools;
+
+import java.util.Arrays;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import edu.univ.erp.security.PasswordHasher;
+
+/**
+ * Measures BCrypt time per cost on this machine and recommends {@code erp.bcrypt.cost}: the
+ * highest cost whose median hash time stays within the latency budget of one password check.
+ *
+ * Usage (no database):
+ *   java [-Derp.bcrypt.threads=N] edu.univ.erp.tools.BcryptCostCalibrator [budgetMs] [samples]
+ *
+ * budgetMs defaults to 250, samples per cost to 5. Costs are tried from 8 upwards until one takes
+ * more than twice the budget. The report also gives the login rate the verification pool
+ * ({@code erp.bcrypt.threads}, default: cores) sustains at each cost. Run it on the server
+ * hardware while the server is idle; a changed cost applies to existing users as they log in.
+ */
+public class BcryptCostCalibrator {
+
+    private static final String PASSWORD = "calibration-password-1";
+
+    public static void main(String[] args) {
+        long budgetMs = args.length > 0 ? Long.parseLong(args[0]) : 250;
+        int samples = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int threads = Integer.getInteger("erp.bcrypt.threads", Runtime.getRuntime().availableProcessors());
+
+        // Warm up the JIT so the first cost measured is not inflated.
+        BCrypt.hashpw(PASSWORD, BCrypt.gensalt(6));
+        BCrypt.hashpw(PASSWORD, BCrypt.gensalt(6));
+
+        System.out.printf("Budget %d ms per check, %d samples per cost, %d verification threads%n", budgetMs, samples, threads);
+        System.out.println("cost  median ms     min ms  logins/s");
+        int recommended = -1;
+        for (int cost = 8; cost <= 30; cost++) {
+            String hash = BCrypt.hashpw(PASSWORD, BCrypt.gensalt(cost));
+            double[] ms = new double[samples];
+            for (int i = 0; i < samples; i++) {
+                long t0 = System.nanoTime();
+                BCrypt.checkpw(PASSWORD, hash);
+                ms[i] = (System.nanoTime() - t0) / 1e6;
+            }
+            Arrays.sort(ms);
+            double median = ms[samples / 2];
+            System.out.printf("%4d %11.1f %10.1f %9.1f%n", cost, median, ms[0], threads * 1000.0 / median);
+            if (median <= budgetMs) recommended = cost;
+            if (median > 2 * budgetMs) break;
+        }
+
+        System.out.println();
+        if (recommended < 0) {
+            System.out.println("Even cost 8 exceeds the budget; keep the current cost and raise the budget or the hardware.");
+        } else {
+            System.out.printf("Recommended: -Derp.bcrypt.cost=%d (currently %d)%n", recommended, PasswordHasher.targetCost());
+            if (recommended < 10) {
+                System.out.println("Warning: costs below 10 are weak against offline guessing; prefer a larger budget.");
+            }
+        }
+    }
+}
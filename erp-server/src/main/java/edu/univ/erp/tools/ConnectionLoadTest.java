@@ -0,0 +1,121 @@
+package edu.univ.erp.tools;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.univ.erp.server.ConnectionExecutor;
+import edu.univ.erp.server.NioServer;
+import edu.univ.erp.server.ServerMain;
+
+/**
+ * Load test for the connection model: starts an in-process server on an ephemeral port,
+ * opens N persistent sessions (same line protocol as the client's ClientConnection) and
+ * sends PING requests over each of them while the sessions stay open.
+ *
+ * Usage:
+ *   java [-Derp.server.transport=blocking|nio] [-Derp.server.executor=virtual|pool]
+ *        [-Derp.server.poolSize=200] [-Derp.server.maxConnections=5000]
+ *        edu.univ.erp.tools.ConnectionLoadTest [sessions] [requestsPerSession] [thinkMs]
+ *
+ * Reports peak platform thread count, RSS, p99 request latency and how many sessions were
+ * turned away with SERVER_BUSY. PING never touches the database, so no DB is required.
+ * Client sessions run on virtual threads so the load generator itself does not inflate the
+ * platform thread count being measured.
+ */
+public class ConnectionLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int requestsPerSession = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int thinkMs = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long rssBefore = LatencyRecorder.residentSetKb();
+        int threadsBefore = threads.getThreadCount();
+
+        boolean nio = "nio".equalsIgnoreCase(System.getProperty("erp.server.transport", "blocking"));
+        ConnectionExecutor executor = nio ? null : ConnectionExecutor.fromSystemProperties();
+        ServerMain blockingServer = nio ? null : new ServerMain(0, Math.max(sessions, 50), executor);
+        NioServer nioServer = nio ? new NioServer(0, Math.max(sessions, 50)) : null;
+        if (nio) nioServer.bind(); else blockingServer.bind();
+        Thread acceptor = new Thread(() -> {
+            try {
+                if (nio) nioServer.serve(); else blockingServer.serve();
+            } catch (Exception e) {
+                System.err.println("Server stopped: " + e.getMessage());
+            }
+        }, "load-test-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        int port = nio ? nioServer.getLocalPort() : blockingServer.getLocalPort();
+
+        System.out.printf("Transport=%s sessions=%d requests/session=%d think=%dms%n",
+                nio ? "NIO" : "blocking/" + executor.getMode() + " (max " + executor.getMaxConnections() + ")",
+                sessions, requestsPerSession, thinkMs);
+
+        LatencyRecorder latencies = new LatencyRecorder();
+        AtomicInteger busy = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        CountDownLatch connected = new CountDownLatch(sessions);
+        CountDownLatch done = new CountDownLatch(sessions);
+        List<Thread> clients = new ArrayList<>(sessions);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < sessions; i++) {
+            clients.add(Thread.ofVirtual().start(() -> {
+                boolean counted = false;
+                try (Socket socket = new Socket("localhost", port);
+                     PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+                     BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+                    socket.setSoTimeout(30000);
+                    connected.countDown();
+                    counted = true;
+                    // Hold every session open before sending so the server sees N concurrent sessions.
+                    connected.await();
+                    for (int r = 0; r < requestsPerSession; r++) {
+                        long t0 = System.nanoTime();
+                        out.println("PING");
+                        String resp = in.readLine();
+                        long elapsed = System.nanoTime() - t0;
+                        if (resp == null) { failed.incrementAndGet(); break; }
+                        if (resp.startsWith("ERROR:SERVER_BUSY")) { busy.incrementAndGet(); break; }
+                        latencies.record(elapsed);
+                        if (thinkMs > 0) Thread.sleep(thinkMs);
+                    }
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                } finally {
+                    if (!counted) connected.countDown();
+                    done.countDown();
+                }
+            }));
+        }
+
+        int peakThreads = 0;
+        long peakRss = rssBefore;
+        while (done.getCount() > 0) {
+            peakThreads = Math.max(peakThreads, threads.getThreadCount());
+            peakRss = Math.max(peakRss, LatencyRecorder.residentSetKb());
+            Thread.sleep(100);
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        for (Thread t : clients) t.join();
+        long acceptedCount = nio ? nioServer.getAcceptedConnections() : executor.getAcceptedConnections();
+        long rejectedCount = nio ? nioServer.getRejectedConnections() : executor.getRejectedConnections();
+        if (nio) nioServer.stop(); else blockingServer.stop();
+
+        System.out.printf("Completed in %d ms; accepted=%d, rejected(SERVER_BUSY)=%d, busy replies seen=%d, failed=%d%n",
+                elapsedMs, acceptedCount, rejectedCount, busy.get(), failed.get());
+        System.out.printf("Platform threads: before=%d peak=%d%n", threadsBefore, peakThreads);
+        System.out.printf("RSS: before=%d KiB peak=%d KiB%n", rssBefore, peakRss);
+        System.out.println("PING latency: " + latencies.summary());
+    }
+}
@@ -0,0 +1,220 @@
+package edu.univ.erp.tools;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import edu.univ.erp.dao.db.DBConnector;
+import edu.univ.erp.dao.grade.GradeDAO;
+import edu.univ.erp.dao.grade.GradeDAO.RawGradeResult;
+import edu.univ.erp.domain.AssessmentComponent;
+import edu.univ.erp.domain.Grade;
+
+/**
+ * Compares the per-enrollment grade loading GET_GRADES used to do (one components query per
+ * enrollment) with the single-query {@link GradeDAO#getGradesByUserId} for a student whose
+ * history is grown to 10x and 100x its seeded size.
+ *
+ * Usage (needs the ERP database configured as for the server; use a dev/seed database):
+ *   java edu.univ.erp.tools.GradeLoaderBenchmark studentId [iterations] [multipliers]
+ *
+ * multipliers defaults to "10,100". For each multiplier the student gets synthetic courses
+ * (code BENCHnnnn), one section each taught by an existing instructor, an enrollment and a
+ * FinalGrade plus four component scores, until it has baseline x multiplier enrollments. All
+ * synthetic rows are deleted again at the end. Round trips are the MySQL global
+ * {@code Questions} delta per load, so run it against an otherwise idle server.
+ */
+public class GradeLoaderBenchmark {
+
+    private static final String CODE_PREFIX = "BENCH";
+    private static final String[] COMPONENTS = { "Quiz", "Assignment", "Midterm", "EndSem" };
+    private static final String[] LETTERS = { "A", "A-", "B", "B-", "C", "C-", "D", "F" };
+
+    private static final GradeDAO gradeDAO = new GradeDAO();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: GradeLoaderBenchmark studentId [iterations] [multipliers]");
+            System.exit(2);
+        }
+        int studentId = Integer.parseInt(args[0]);
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        String[] multipliers = (args.length > 2 ? args[2] : "10,100").split(",");
+
+        boolean ok = true;
+        try {
+            cleanup();
+            int baseline = gradeDAO.getRawGradeResultsByUserId(studentId).size();
+            System.out.printf("Student %d: %d seeded enrollments, %d iterations per pass%n",
+                    studentId, baseline, iterations);
+            int target = Math.max(baseline, 1);
+            ok &= run(studentId, iterations, "1x");
+            for (String m : multipliers) {
+                int factor = Integer.parseInt(m.trim());
+                grow(studentId, target * factor - gradeDAO.getRawGradeResultsByUserId(studentId).size());
+                ok &= run(studentId, iterations, factor + "x");
+            }
+        } finally {
+            cleanup();
+            DBConnector.shutdown();
+        }
+        if (!ok) {
+            System.out.println("FAIL: loaders returned different grades");
+            System.exit(1);
+        }
+    }
+
+    private static boolean run(int studentId, int iterations, String label) throws SQLException {
+        List<Grade> legacy = legacyLoad(studentId);
+        List<Grade> single = gradeDAO.getGradesByUserId(studentId);
+        boolean same = sameGrades(legacy, single);
+
+        LatencyRecorder legacyLatency = new LatencyRecorder();
+        LatencyRecorder singleLatency = new LatencyRecorder();
+        long before = questions();
+        for (int i = 0; i < iterations; i++) {
+            long t0 = System.nanoTime();
+            legacyLoad(studentId);
+            legacyLatency.record(System.nanoTime() - t0);
+        }
+        long legacyQueries = questions() - before - 1;
+        before = questions();
+        for (int i = 0; i < iterations; i++) {
+            long t0 = System.nanoTime();
+            gradeDAO.getGradesByUserId(studentId);
+            singleLatency.record(System.nanoTime() - t0);
+        }
+        long singleQueries = questions() - before - 1;
+
+        System.out.printf("%n[%s] %d enrollments, results %s%n", label, single.size(), same ? "identical" : "DIFFER");
+        System.out.printf("  per-enrollment: %.1f round trips/load, %s%n",
+                (double) legacyQueries / iterations, legacyLatency.summary());
+        System.out.printf("  single query:   %.1f round trips/load, %s%n",
+                (double) singleQueries / iterations, singleLatency.summary());
+        return same;
+    }
+
+    /** What StudentService.fetchGrades did before the single-query loader. */
+    private static List<Grade> legacyLoad(int studentId) {
+        List<Grade> grades = new ArrayList<>();
+        for (RawGradeResult raw : gradeDAO.getRawGradeResultsByUserId(studentId)) {
+            grades.add(new Grade(raw.courseTitle(), raw.finalGrade(),
+                    gradeDAO.getComponentsByEnrollmentId(raw.enrollmentId())));
+        }
+        return grades;
+    }
+
+    // Same enrollments, final grades and component sets; row order is not defined by either query.
+    private static boolean sameGrades(List<Grade> a, List<Grade> b) {
+        if (a.size() != b.size()) return false;
+        List<String> left = new ArrayList<>();
+        List<String> right = new ArrayList<>();
+        for (Grade g : a) left.add(describe(g));
+        for (Grade g : b) right.add(describe(g));
+        left.sort(null);
+        right.sort(null);
+        return Objects.equals(left, right);
+    }
+
+    private static String describe(Grade g) {
+        List<String> comps = new ArrayList<>();
+        for (AssessmentComponent c : g.getComponents()) comps.add(c.getComponentName() + "=" + c.getScore());
+        comps.sort(null);
+        return g.getCourseName() + "|" + g.getFinalGrade() + "|" + comps;
+    }
+
+    /** Adds {@code count} graded enrollments in fresh synthetic courses. */
+    private static void grow(int studentId, int count) throws SQLException {
+        if (count <= 0) return;
+        try (Connection conn = DBConnector.getErpConnection()) {
+            conn.setAutoCommit(false);
+            int instructorId;
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT instructor_id FROM sections LIMIT 1")) {
+                if (!rs.next()) throw new SQLException("No sections in the database to copy an instructor from.");
+                instructorId = rs.getInt(1);
+            }
+            int next;
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM courses WHERE code LIKE '" + CODE_PREFIX + "%'")) {
+                next = rs.next() ? rs.getInt(1) : 0;
+            }
+            try (PreparedStatement course = conn.prepareStatement(
+                     "INSERT INTO courses (code, title, credits) VALUES (?, ?, 4)");
+                 PreparedStatement section = conn.prepareStatement(
+                     "INSERT INTO sections (course_code, instructor_id, day_time, room, capacity, semester, year) " +
+                     "VALUES (?, ?, 'Sat 08:00-09:00', 'BENCH', 1, 'Monsoon', 2000)",
+                     Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement enrollment = conn.prepareStatement(
+                     "INSERT INTO enrollments (student_id, section_id, status) VALUES (?, ?, 'Completed')",
+                     Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement grade = conn.prepareStatement(
+                     "INSERT INTO grades (enrollment_id, component, score, final_grade) VALUES (?, ?, ?, ?)")) {
+                for (int i = 0; i < count; i++) {
+                    String code = String.format("%s%04d", CODE_PREFIX, next + i);
+                    course.setString(1, code);
+                    course.setString(2, "Benchmark Course " + (next + i));
+                    course.executeUpdate();
+
+                    section.setString(1, code);
+                    section.setInt(2, instructorId);
+                    section.executeUpdate();
+                    int sectionId = generatedKey(section);
+
+                    enrollment.setInt(1, studentId);
+                    enrollment.setInt(2, sectionId);
+                    enrollment.executeUpdate();
+                    int enrollmentId = generatedKey(enrollment);
+
+                    for (int c = 0; c < COMPONENTS.length; c++) {
+                        grade.setInt(1, enrollmentId);
+                        grade.setString(2, COMPONENTS[c]);
+                        grade.setDouble(3, 50 + (i * 7 + c * 11) % 50);
+                        grade.setNull(4, java.sql.Types.VARCHAR);
+                        grade.addBatch();
+                    }
+                    grade.setInt(1, enrollmentId);
+                    grade.setString(2, "FinalGrade");
+                    grade.setNull(3, java.sql.Types.DOUBLE);
+                    grade.setString(4, LETTERS[i % LETTERS.length]);
+                    grade.addBatch();
+                    grade.executeBatch();
+                }
+            }
+            conn.commit();
+        }
+    }
+
+    private static int generatedKey(PreparedStatement stmt) throws SQLException {
+        try (ResultSet keys = stmt.getGeneratedKeys()) {
+            if (!keys.next()) throw new SQLException("No generated key returned.");
+            return keys.getInt(1);
+        }
+    }
+
+    private static void cleanup() throws SQLException {
+        String benchSections = "SELECT section_id FROM sections WHERE course_code LIKE '" + CODE_PREFIX + "%'";
+        try (Connection conn = DBConnector.getErpConnection();
+             Statement st = conn.createStatement()) {
+            st.executeUpdate("DELETE g FROM grades g JOIN enrollments e ON g.enrollment_id = e.enrollment_id " +
+                    "WHERE e.section_id IN (" + benchSections + ")");
+            st.executeUpdate("DELETE e FROM enrollments e JOIN sections s ON e.section_id = s.section_id " +
+                    "WHERE s.course_code LIKE '" + CODE_PREFIX + "%'");
+            st.executeUpdate("DELETE FROM sections WHERE course_code LIKE '" + CODE_PREFIX + "%'");
+            st.executeUpdate("DELETE FROM courses WHERE code LIKE '" + CODE_PREFIX + "%'");
+        }
+    }
+
+    private static long questions() throws SQLException {
+        try (Connection conn = DBConnector.getErpConnection();
+             PreparedStatement stmt = conn.prepareStatement("SHOW GLOBAL STATUS LIKE 'Questions'");
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getLong(2) : 0L;
+        }
+    }
+}
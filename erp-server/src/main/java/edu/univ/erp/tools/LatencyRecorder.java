@@ -0,0 +1,62 @@
+package edu.univ.erp.tools;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Thread-safe collector of latency samples (nanoseconds) used by the load-test and
+ * benchmark tools in this package.
+ */
+public class LatencyRecorder {
+    private long[] samples = new long[1024];
+    private int count;
+
+    public synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, samples.length * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    /** Percentile in milliseconds, e.g. {@code percentileMillis(99.0)}. */
+    public synchronized double percentileMillis(double percentile) {
+        if (count == 0) return Double.NaN;
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int idx = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        idx = Math.max(0, Math.min(count - 1, idx));
+        return sorted[idx] / 1_000_000.0;
+    }
+
+    public synchronized double meanMillis() {
+        if (count == 0) return Double.NaN;
+        double sum = 0;
+        for (int i = 0; i < count; i++) sum += samples[i];
+        return sum / count / 1_000_000.0;
+    }
+
+    /** One-line summary: count, mean, p50, p95, p99, max. */
+    public String summary() {
+        return String.format(Locale.ROOT, "n=%d mean=%.2fms p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms",
+                count(), meanMillis(), percentileMillis(50), percentileMillis(95), percentileMillis(99),
+                percentileMillis(100));
+    }
+
+    /** Resident set size of this JVM in KiB from /proc/self/status, or -1 when unavailable. */
+    public static long residentSetKb() {
+        try {
+            for (String line : java.nio.file.Files.readAllLines(java.nio.file.Paths.get("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (Exception ignore) {
+            // Not Linux, or /proc not mounted.
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,163 @@
+package edu.univ.erp.tools;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.univ.erp.dao.auth.AuthDAO;
+import edu.univ.erp.dao.auth.AuthDAO.AuthDetails;
+import edu.univ.erp.dao.auth.LoginBookkeeping;
+import edu.univ.erp.dao.db.DBConnector;
+import edu.univ.erp.security.PasswordHasher;
+import edu.univ.erp.security.PasswordVerifier;
+
+/**
+ * Auth-pool cost of a successful login, before and after collapsing its bookkeeping:
+ * <ul>
+ *   <li>{@code legacy} - lookup, reset attempts, set last_login, re-read last_login (4 round trips);</li>
+ *   <li>{@code combined} - lookup plus one UPDATE with last_login computed in Java (2);</li>
+ *   <li>{@code writeBehind} - lookup, bookkeeping batched by {@link LoginBookkeeping} (1 + batches).</li>
+ * </ul>
+ * Each mode runs the same number of logins from {@code concurrency} virtual threads over
+ * generated accounts {@code bench_login_N}, which are deleted at the end. A sampler reads the
+ * auth pool every 5 ms and reports mean/peak active connections and peak waiting threads.
+ *
+ * Usage (needs the auth database configured as for the server; use a dev/seed database):
+ *   java -Derp.bcrypt.cost=4 [-Derp.auth.maxPool=5] \
+ *        edu.univ.erp.tools.LoginRoundTripBenchmark [logins] [concurrency] [accounts]
+ *
+ * A low erp.bcrypt.cost keeps the hash from hiding the database time; the password check runs
+ * on {@link PasswordVerifier} as in the server.
+ */
+public class LoginRoundTripBenchmark {
+
+    private static final String PREFIX = "bench_login_";
+    private static final String PASSWORD = "bench-password";
+    // Write-behind regardless of -Derp.auth.loginWriteBehind, so all three modes run in one go.
+    private static final LoginBookkeeping BATCHED = new LoginBookkeeping(new AuthDAO(), true,
+            Long.getLong("erp.auth.writeBehindMs", 200L));
+
+    private enum Mode { LEGACY, COMBINED, WRITE_BEHIND }
+
+    public static void main(String[] args) throws Exception {
+        int logins = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int accounts = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+
+        AuthDAO authDAO = new AuthDAO();
+        try {
+            createAccounts(accounts);
+            System.out.printf("%d logins, %d concurrent, %d accounts, bcrypt cost %d, auth pool %s%n", logins, concurrency,
+                    accounts, PasswordHasher.targetCost(), System.getProperty("erp.auth.maxPool", "5"));
+            for (Mode mode : Mode.values()) {
+                run(mode, authDAO, logins, concurrency, accounts);
+            }
+        } finally {
+            deleteAccounts();
+            DBConnector.shutdown();
+        }
+    }
+
+    private static void run(Mode mode, AuthDAO authDAO, int logins, int concurrency, int accounts) throws Exception {
+        LatencyRecorder latency = new LatencyRecorder();
+        AtomicInteger remaining = new AtomicInteger(logins);
+        AtomicInteger failed = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+        long[] activeSum = new long[1];
+        int[] samples = new int[1];
+        int[] peakActive = new int[1];
+        int[] peakWaiting = new int[1];
+
+        Thread sampler = Thread.ofPlatform().daemon().start(() -> {
+            while (running.get()) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> auth = (Map<String, Object>) DBConnector.getPoolStats().get("auth");
+                Object active = auth.get("active");
+                Object waiting = auth.get("waiting");
+                if (active instanceof Integer a) {
+                    activeSum[0] += a;
+                    samples[0]++;
+                    peakActive[0] = Math.max(peakActive[0], a);
+                }
+                if (waiting instanceof Integer w) peakWaiting[0] = Math.max(peakWaiting[0], w);
+                try { Thread.sleep(5); } catch (InterruptedException e) { return; }
+            }
+        });
+
+        long start = System.nanoTime();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(Thread.ofVirtual().start(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    String username = PREFIX + ThreadLocalRandom.current().nextInt(accounts);
+                    long t0 = System.nanoTime();
+                    try {
+                        if (login(mode, authDAO, username)) latency.record(System.nanoTime() - t0);
+                        else failed.incrementAndGet();
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Thread t : workers) t.join();
+        if (mode == Mode.WRITE_BEHIND) BATCHED.flush();
+        long elapsedNanos = System.nanoTime() - start;
+        running.set(false);
+        sampler.join();
+
+        int max = Integer.parseInt(System.getProperty("erp.auth.maxPool", "5"));
+        double meanActive = samples[0] == 0 ? Double.NaN : activeSum[0] / (double) samples[0];
+        System.out.printf("%-12s %.0f logins/s, auth pool active mean %.2f (%.0f%% of %d) peak %d, peak waiting %d, failed %d%n",
+                mode.name().toLowerCase(), latency.count() / (elapsedNanos / 1e9), meanActive, meanActive * 100.0 / max, max,
+                peakActive[0], peakWaiting[0], failed.get());
+        System.out.println("             " + latency.summary());
+    }
+
+    /** One successful login the way each mode does it. */
+    private static boolean login(Mode mode, AuthDAO authDAO, String username) throws Exception {
+        AuthDetails details = authDAO.findUserByUsername(username);
+        if (details == null || !PasswordVerifier.getInstance().verify(PASSWORD, details.passwordHash())) return false;
+        switch (mode) {
+            case LEGACY -> {
+                authDAO.updateLoginAttempts(details.userID(), true);
+                authDAO.updateLastLogin(details.userID());
+                AuthDetails refreshed = authDAO.findUserByUserId(details.userID());
+                return refreshed != null && refreshed.lastLogin() != null;
+            }
+            case COMBINED -> authDAO.recordLoginSuccess(details.userID(), LocalDateTime.now().withNano(0));
+            case WRITE_BEHIND -> BATCHED.recordSuccess(details.userID(), LocalDateTime.now().withNano(0), false);
+        }
+        return true;
+    }
+
+    private static void createAccounts(int accounts) throws SQLException {
+        deleteAccounts();
+        String hash = PasswordHasher.hashPassword(PASSWORD); // one hash shared by all accounts
+        try (Connection conn = DBConnector.getAuthConnection();
+             PreparedStatement insert = conn.prepareStatement(
+                     "INSERT INTO users_auth (username, role, password_hash) VALUES (?, 'Student', ?)")) {
+            for (int i = 0; i < accounts; i++) {
+                insert.setString(1, PREFIX + i);
+                insert.setString(2, hash);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private static void deleteAccounts() throws SQLException {
+        try (Connection conn = DBConnector.getAuthConnection();
+             PreparedStatement delete = conn.prepareStatement("DELETE FROM users_auth WHERE username LIKE ?")) {
+            delete.setString(1, PREFIX + "%");
+            delete.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package edu.univ.erp.tools;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.gson.Gson;
+
+import edu.univ.erp.security.PasswordHasher;
+import edu.univ.erp.security.PasswordVerifier;
+
+/**
+ * Simulates a login wave against the password check as the server runs it: every login and
+ * every other request is a virtual thread, as with {@code erp.server.executor=virtual}.
+ *
+ * Two rounds run back to back:
+ * <ul>
+ *   <li>{@code inline} - BCrypt on the request thread (what LOGIN did before the pool);</li>
+ *   <li>{@code pool} - {@link PasswordVerifier}, retrying LOGIN_BUSY after retryAfterMs like the client.</li>
+ * </ul>
+ * Meanwhile {@code otherClients} sessions each send a CPU-light request (serializing a
+ * catalog-sized payload, like a cached GET_CATALOG) every {@code intervalMs}. The report gives login
+ * throughput and latency, busy replies, and the other requests' p99.
+ *
+ * Usage (needs jBCrypt on the classpath, no database):
+ *   java [-Derp.bcrypt.threads=N] [-Derp.bcrypt.queueSize=N] [-Derp.bcrypt.maxWaitMs=5000] \
+ *        edu.univ.erp.tools.LoginStormBenchmark [logins] [otherClients] [intervalMs]
+ *
+ * Keep otherClients / intervalMs well below what the cores can serve: the point is the latency
+ * of a normal load during the wave, not a second overload.
+ */
+public class LoginStormBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+    private static final Gson gson = new Gson();
+
+    public static void main(String[] args) throws Exception {
+        int logins = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int otherClients = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int intervalMs = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+        String hash = PasswordHasher.hashPassword(PASSWORD);
+        List<Map<String, Object>> catalog = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("sectionId", i);
+            row.put("courseCode", "CSE" + (100 + i));
+            row.put("title", "Course title number " + i);
+            row.put("instructor", "Instructor " + (i % 40));
+            row.put("capacity", 60);
+            row.put("enrolled", i % 60);
+            catalog.add(row);
+        }
+
+        System.out.printf("%d logins, %d other clients every %d ms, %d cores%n", logins, otherClients, intervalMs,
+                Runtime.getRuntime().availableProcessors());
+        round("inline", false, logins, otherClients, intervalMs, hash, catalog);
+        round("pool  ", true, logins, otherClients, intervalMs, hash, catalog);
+        System.out.println("pool stats: " + PasswordVerifier.getInstance().getStats());
+    }
+
+    private static void round(String label, boolean pooled, int logins, int otherClients, int intervalMs, String hash,
+                              List<Map<String, Object>> catalog) throws Exception {
+        LatencyRecorder loginLatency = new LatencyRecorder();
+        LatencyRecorder otherLatency = new LatencyRecorder();
+        AtomicInteger busyReplies = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicBoolean storming = new AtomicBoolean(true);
+        CountDownLatch loginsDone = new CountDownLatch(logins);
+
+        List<Thread> others = new ArrayList<>();
+        for (int i = 0; i < otherClients; i++) {
+            others.add(Thread.ofVirtual().start(() -> {
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextInt(intervalMs + 1));
+                    while (storming.get()) {
+                        long t0 = System.nanoTime();
+                        if (gson.toJson(catalog).isEmpty()) failed.incrementAndGet();
+                        otherLatency.record(System.nanoTime() - t0);
+                        Thread.sleep(intervalMs);
+                    }
+                } catch (InterruptedException ignore) {
+                    // round over
+                }
+            }));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < logins; i++) {
+            Thread.ofVirtual().start(() -> {
+                long t0 = System.nanoTime();
+                try {
+                    boolean ok = pooled ? verifyRetrying(hash, busyReplies) : PasswordHasher.verifyPassword(PASSWORD, hash);
+                    if (ok) loginLatency.record(System.nanoTime() - t0); else failed.incrementAndGet();
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                } finally {
+                    loginsDone.countDown();
+                }
+            });
+        }
+        loginsDone.await();
+        long elapsedNanos = System.nanoTime() - start;
+        storming.set(false);
+        for (Thread t : others) t.join();
+
+        System.out.printf("%s: %.1f logins/s over %.1f s, busy replies=%d, failed=%d%n", label,
+                loginLatency.count() / (elapsedNanos / 1e9), elapsedNanos / 1e9, busyReplies.get(), failed.get());
+        System.out.println("        login: " + loginLatency.summary());
+        System.out.println("        other: " + otherLatency.summary());
+    }
+
+    /** What the client does: wait retryAfterMs (plus jitter) and try again. */
+    private static boolean verifyRetrying(String hash, AtomicInteger busyReplies) throws Exception {
+        while (true) {
+            try {
+                return PasswordVerifier.getInstance().verify(PASSWORD, hash);
+            } catch (Exception e) {
+                String msg = e.getMessage();
+                if (msg == null || !msg.startsWith("LOGIN_BUSY:")) throw e;
+                busyReplies.incrementAndGet();
+                long retryAfterMs = Long.parseLong(msg.split(":", 3)[1]);
+                Thread.sleep(retryAfterMs + ThreadLocalRandom.current().nextLong(retryAfterMs / 2 + 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package edu.univ.erp.tools;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+import edu.univ.erp.dao.course.CourseDAO;
+import edu.univ.erp.dao.db.DBConnector;
+import edu.univ.erp.dao.enrollment.EnrollmentDAO;
+
+/**
+ * Compares the old multi-query registration chain with the single-transaction path
+ * ({@link EnrollmentDAO#registerStudentChecked}) for many students hitting one hot section.
+ *
+ * Usage (needs the ERP database configured as for the server):
+ *   java edu.univ.erp.tools.RegistrationBenchmark sectionId firstStudentId students [threads]
+ *
+ * Students firstStudentId .. firstStudentId+students-1 must exist. Each pass first drops those
+ * students from the section (status 'Dropped', as a normal drop would), then registers them all
+ * concurrently. Round trips are the MySQL global {@code Questions} delta per attempt, so run it
+ * against an otherwise idle server; the figure includes commit/rollback and autocommit toggles.
+ * The legacy pass skips the CPU-only time-conflict comparison but issues all of its queries.
+ */
+public class RegistrationBenchmark {
+
+    private static final EnrollmentDAO enrollmentDAO = new EnrollmentDAO();
+    private static final CourseDAO courseDAO = new CourseDAO();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: RegistrationBenchmark sectionId firstStudentId students [threads]");
+            System.exit(2);
+        }
+        int sectionId = Integer.parseInt(args[0]);
+        int firstStudent = Integer.parseInt(args[1]);
+        int students = Integer.parseInt(args[2]);
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 32;
+
+        System.out.printf("Hot section %d, %d students, %d threads%n", sectionId, students, threads);
+        try {
+            run("legacy chain", sectionId, firstStudent, students, threads, RegistrationBenchmark::legacyRegister);
+            run("single transaction", sectionId, firstStudent, students, threads, RegistrationBenchmark::checkedRegister);
+        } finally {
+            reset(sectionId, firstStudent, students);
+            DBConnector.shutdown();
+        }
+    }
+
+    private interface Attempt {
+        String register(int studentId, int sectionId) throws Exception;
+    }
+
+    private static void run(String label, int sectionId, int firstStudent, int students, int threads,
+                            Attempt attempt) throws Exception {
+        reset(sectionId, firstStudent, students);
+        LatencyRecorder latencies = new LatencyRecorder();
+        Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(students);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        long questionsBefore = questions();
+        long start = System.nanoTime();
+        for (int i = 0; i < students; i++) {
+            int studentId = firstStudent + i;
+            pool.execute(() -> {
+                long t0 = System.nanoTime();
+                String outcome;
+                try {
+                    outcome = attempt.register(studentId, sectionId);
+                } catch (Exception e) {
+                    outcome = "error: " + e.getMessage();
+                }
+                latencies.record(System.nanoTime() - t0);
+                outcomes.computeIfAbsent(outcome, k -> new LongAdder()).increment();
+                done.countDown();
+            });
+        }
+        done.await();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        // The Questions query itself counts once.
+        long roundTrips = questions() - questionsBefore - 1;
+        pool.shutdown();
+
+        System.out.printf("%n[%s] %d ms, %.1f round trips/attempt%n", label, elapsedMs, (double) roundTrips / students);
+        System.out.println("  latency: " + latencies.summary());
+        outcomes.forEach((k, v) -> System.out.println("  " + k + ": " + v.sum()));
+    }
+
+    /** The chain StudentService.registerCourse used before the single-transaction path. */
+    private static String legacyRegister(int studentId, int sectionId) throws Exception {
+        if (enrollmentDAO.getRemainingCapacity(sectionId) <= 0) return "full";
+        if (enrollmentDAO.isStudentRegistered(studentId, sectionId)) return "already registered";
+        if (enrollmentDAO.isRegisteredForSameCourseInAnotherSection(studentId, sectionId)) return "other section";
+        if (enrollmentDAO.hasCompletedCourseForSameCode(studentId, sectionId)) return "completed";
+        if (courseDAO.getCatalogItemBySectionId(sectionId) == null) return "section not found";
+        enrollmentDAO.getStudentScheduleEntries(studentId);
+        try {
+            enrollmentDAO.registerStudent(studentId, sectionId);
+        } catch (SQLException e) {
+            if (e.getMessage() != null && e.getMessage().startsWith("Section is full")) return "full";
+            throw e;
+        }
+        return "registered";
+    }
+
+    private static String checkedRegister(int studentId, int sectionId) throws Exception {
+        EnrollmentDAO.RegistrationResult result =
+                enrollmentDAO.registerStudentChecked(studentId, sectionId, (a, b) -> false);
+        switch (result.status()) {
+            case REGISTERED: return "registered";
+            case SECTION_FULL: return "full";
+            case ALREADY_REGISTERED: return "already registered";
+            case REGISTERED_OTHER_SECTION: return "other section";
+            case COURSE_COMPLETED: return "completed";
+            default: return result.status().name().toLowerCase();
+        }
+    }
+
+    private static void reset(int sectionId, int firstStudent, int students) throws SQLException {
+        for (int i = 0; i < students; i++) {
+            enrollmentDAO.dropStudent(firstStudent + i, sectionId);
+        }
+    }
+
+    private static long questions() throws SQLException {
+        try (Connection conn = DBConnector.getErpConnection();
+             PreparedStatement stmt = conn.prepareStatement("SHOW GLOBAL STATUS LIKE 'Questions'");
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getLong(2) : 0L;
+        }
+    }
+}
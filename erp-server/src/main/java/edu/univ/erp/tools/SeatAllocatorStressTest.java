@@ -0,0 +1,160 @@
+package edu.univ.erp.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import edu.univ.erp.dao.db.DBConnector;
+import edu.univ.erp.dao.enrollment.EnrollmentDAO;
+import edu.univ.erp.dao.enrollment.SeatAllocator;
+
+/**
+ * Registration storm against one section: hundreds of virtual threads try to register at the
+ * same instant and the run fails (exit code 1) if the section ends up oversubscribed.
+ *
+ * Usage:
+ *   java edu.univ.erp.tools.SeatAllocatorStressTest [simulate] [threads] [capacity] [txMillis]
+ *   java edu.univ.erp.tools.SeatAllocatorStressTest db sectionId firstStudentId students
+ *
+ * simulate (default: 500 threads, 30 seats, 5 ms) needs no database: the "transaction" is a lock
+ * held for txMillis that re-checks the count, like the section row lock. It runs once without and
+ * once with the {@link SeatAllocator} and reports how many attempts reached the lock.
+ *
+ * db registers real students through {@link EnrollmentDAO#registerStudentChecked} (students
+ * firstStudentId.. must exist; they are dropped from the section again afterwards).
+ */
+public class SeatAllocatorStressTest {
+
+    public static void main(String[] args) throws Exception {
+        boolean ok;
+        if (args.length > 0 && "db".equalsIgnoreCase(args[0])) {
+            ok = runAgainstDatabase(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+        } else {
+            int offset = args.length > 0 && "simulate".equalsIgnoreCase(args[0]) ? 1 : 0;
+            int threads = args.length > offset ? Integer.parseInt(args[offset]) : 500;
+            int capacity = args.length > offset + 1 ? Integer.parseInt(args[offset + 1]) : 30;
+            long txMillis = args.length > offset + 2 ? Long.parseLong(args[offset + 2]) : 5;
+            ok = simulate(threads, capacity, txMillis, false) & simulate(threads, capacity, txMillis, true);
+        }
+        System.out.println(ok ? "PASS: no oversubscription" : "FAIL: section oversubscribed");
+        if (!ok) System.exit(1);
+    }
+
+    /** Stand-in for the section row: a lock plus the committed registration count. */
+    private static final class SimulatedSection {
+        final int capacity;
+        int registered;
+        final AtomicInteger transactions = new AtomicInteger();
+        // Not synchronized: a monitor would pin the virtual threads and hide the queueing time.
+        private final ReentrantLock rowLock = new ReentrantLock();
+
+        SimulatedSection(int capacity) {
+            this.capacity = capacity;
+        }
+
+        boolean register(long txMillis) throws InterruptedException {
+            transactions.incrementAndGet();
+            rowLock.lock();
+            try {
+                Thread.sleep(txMillis);
+                if (registered >= capacity) return false;
+                registered++;
+                return true;
+            } finally {
+                rowLock.unlock();
+            }
+        }
+    }
+
+    private static boolean simulate(int threads, int capacity, long txMillis, boolean withAllocator) throws Exception {
+        SimulatedSection section = new SimulatedSection(capacity);
+        SeatAllocator allocator = new SeatAllocator(sid -> new int[] { section.capacity, 0 }, 60000L);
+        LatencyRecorder latencies = new LatencyRecorder();
+        AtomicInteger admitted = new AtomicInteger();
+        AtomicInteger full = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>(threads);
+
+        for (int i = 0; i < threads; i++) {
+            workers.add(Thread.ofVirtual().start(() -> {
+                try {
+                    start.await();
+                    long t0 = System.nanoTime();
+                    boolean registered;
+                    if (withAllocator) {
+                        SeatAllocator.Reservation seat = allocator.tryReserve(1);
+                        if (seat == null) {
+                            registered = false;
+                        } else if (section.register(txMillis)) {
+                            seat.commit();
+                            registered = true;
+                        } else {
+                            seat.abortFull();
+                            registered = false;
+                        }
+                    } else {
+                        registered = section.register(txMillis);
+                    }
+                    latencies.record(System.nanoTime() - t0);
+                    (registered ? admitted : full).incrementAndGet();
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                }
+            }));
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        for (Thread t : workers) t.join();
+        long elapsedMs = (System.nanoTime() - t0) / 1_000_000;
+
+        System.out.printf("%n[%s] %d threads, %d seats, %d ms per transaction: %d ms total%n",
+                withAllocator ? "with SeatAllocator" : "row lock only", threads, capacity, txMillis, elapsedMs);
+        System.out.printf("  registered=%d full=%d errors=%d, transactions reaching the lock=%d%n",
+                admitted.get(), full.get(), errors.get(), section.transactions.get());
+        System.out.println("  latency: " + latencies.summary());
+        if (withAllocator) System.out.println("  ledger held=" + allocator.getHeld(1));
+        return section.registered <= capacity && admitted.get() == section.registered
+                && section.registered == Math.min(capacity, threads) && errors.get() == 0;
+    }
+
+    private static boolean runAgainstDatabase(int sectionId, int firstStudent, int students) throws Exception {
+        EnrollmentDAO dao = new EnrollmentDAO();
+        AtomicInteger registered = new AtomicInteger();
+        AtomicInteger full = new AtomicInteger();
+        AtomicInteger other = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>(students);
+        try {
+            int remainingBefore = dao.getRemainingCapacity(sectionId);
+            for (int i = 0; i < students; i++) {
+                int studentId = firstStudent + i;
+                workers.add(Thread.ofVirtual().start(() -> {
+                    try {
+                        start.await();
+                        EnrollmentDAO.RegistrationResult r = dao.registerStudentChecked(studentId, sectionId, (a, b) -> false);
+                        if (r.status() == EnrollmentDAO.RegistrationStatus.REGISTERED) registered.incrementAndGet();
+                        else if (r.status() == EnrollmentDAO.RegistrationStatus.SECTION_FULL) full.incrementAndGet();
+                        else other.incrementAndGet();
+                    } catch (Exception e) {
+                        other.incrementAndGet();
+                    }
+                }));
+            }
+            start.countDown();
+            for (Thread t : workers) t.join();
+            int remainingAfter = dao.getRemainingCapacity(sectionId);
+            System.out.printf("Section %d: %d seats free before, registered=%d full=%d other=%d, %d seats free after%n",
+                    sectionId, remainingBefore, registered.get(), full.get(), other.get(), remainingAfter);
+            System.out.println("Seat ledger: " + SeatAllocator.getInstance().getStats());
+            return remainingAfter >= 0 && registered.get() <= Math.max(remainingBefore, 0);
+        } finally {
+            for (int i = 0; i < students; i++) {
+                try { dao.dropStudent(firstStudent + i, sectionId); } catch (Exception ignore) { }
+            }
+            DBConnector.shutdown();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package edu.univ.erp.tools;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import edu.univ.erp.util.TimeSlot;
+
+/**
+ * Compares the original string-parsing conflict check with {@link TimeSlot}.
+ *
+ * Usage: java edu.univ.erp.tools.TimeSlotBenchmark [iterations]
+ *
+ * Uses the day_time strings found in the seed data and docs plus a few malformed ones, first
+ * verifies that both implementations agree on every pair, then times all-pairs checks. Each
+ * registration compares the target section against every registered section, so one pass over
+ * the pairs approximates a registration storm across the catalog. Plain main with warm-up rounds
+ * (JMH is not part of this build).
+ */
+public class TimeSlotBenchmark {
+
+    private static final String[] DAY_TIMES = {
+        "Mon 09:00-11:00", "Tue 11:00-13:00", "Wed 14:00-16:00",
+        "MWF 09:00-10:00", "MWF 10:00-11:00", "Mon/Wed 09:00-10:30", "Mon/Wed/Fri 09:00-10:00",
+        "TTh 11:00-12:30", "TTh 14:00-15:30", "Daily 08:00-09:00",
+        "Thu 12:00-13:30", "Fri 09:30-10:30", "Tue/Thu 14:30-16:00", "9:00-10:00",
+        "Mon 9:00-10:00", "Fr 09:00-10:00", "Mon 09:00 - 10:00", "Sat TBA", "", "Mon 25:00-26:00",
+    };
+
+    // Consumes results so the timed loops cannot be optimised away.
+    private static volatile int sink;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        java.util.logging.Logger.getLogger(TimeSlot.class.getName()).setLevel(java.util.logging.Level.OFF);
+
+        int mismatches = 0;
+        for (String a : DAY_TIMES) {
+            for (String b : DAY_TIMES) {
+                boolean legacy = legacyHasTimeConflict(a, b);
+                boolean compiled = TimeSlot.of(a).conflictsWith(TimeSlot.of(b));
+                if (legacy != compiled) {
+                    mismatches++;
+                    System.out.printf("MISMATCH '%s' vs '%s': legacy=%b compiled=%b%n", a, b, legacy, compiled);
+                }
+            }
+        }
+        int pairs = DAY_TIMES.length * DAY_TIMES.length;
+        System.out.printf("Equivalence: %d pairs, %d mismatches%n", pairs, mismatches);
+
+        List<long[]> results = new ArrayList<>();
+        for (int round = 0; round < 5; round++) {
+            boolean measure = round >= 2; // first rounds are warm-up
+            long legacyNs = timeLegacy(iterations);
+            long compiledNs = timeCompiled(iterations);
+            if (measure) results.add(new long[] { legacyNs, compiledNs });
+        }
+        long legacyBest = Long.MAX_VALUE;
+        long compiledBest = Long.MAX_VALUE;
+        for (long[] r : results) {
+            legacyBest = Math.min(legacyBest, r[0]);
+            compiledBest = Math.min(compiledBest, r[1]);
+        }
+        long checks = (long) iterations * pairs;
+        System.out.printf("legacy parser : %8.1f ns/check%n", (double) legacyBest / checks);
+        System.out.printf("TimeSlot      : %8.1f ns/check (%.0fx)%n", (double) compiledBest / checks,
+                (double) legacyBest / Math.max(1, compiledBest));
+        if (mismatches > 0) System.exit(1);
+    }
+
+    private static long timeLegacy(int iterations) {
+        int hits = 0;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            for (String a : DAY_TIMES) {
+                for (String b : DAY_TIMES) {
+                    if (legacyHasTimeConflict(a, b)) hits++;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - t0;
+        sink += hits;
+        return elapsed;
+    }
+
+    private static long timeCompiled(int iterations) {
+        int hits = 0;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            for (String a : DAY_TIMES) {
+                TimeSlot target = TimeSlot.of(a);
+                for (String b : DAY_TIMES) {
+                    if (target.conflictsWith(TimeSlot.of(b))) hits++;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - t0;
+        sink += hits;
+        return elapsed;
+    }
+
+    /** StudentService.hasTimeConflict before TimeSlot, kept verbatim for comparison. */
+    static boolean legacyHasTimeConflict(String existingTime, String newTime) {
+        if (existingTime == null || newTime == null) return false;
+
+        try {
+            // Split into optional day part and time part. Examples:
+            // "Mon/Wed 09:00-10:30" => days="Mon/Wed", times="09:00-10:30"
+            String[] exParts = existingTime.trim().split("\\s+", 2);
+            String[] newParts = newTime.trim().split("\\s+", 2);
+
+            String exDaysPart = exParts.length == 2 ? exParts[0] : "";
+            String exTimePart = exParts.length == 2 ? exParts[1] : exParts[0];
+
+            String newDaysPart = newParts.length == 2 ? newParts[0] : "";
+            String newTimePart = newParts.length == 2 ? newParts[1] : newParts[0];
+
+            Set<String> exDays = parseDays(exDaysPart);
+            Set<String> newDays = parseDays(newDaysPart);
+
+            // If neither provides an explicit day, conservatively assume possible overlap (treat as overlap candidate)
+            boolean daysOverlap = false;
+            if (exDays.isEmpty() || newDays.isEmpty()) {
+                daysOverlap = true;
+            } else {
+                for (String d : exDays) {
+                    if (newDays.contains(d)) { daysOverlap = true; break; }
+                }
+            }
+
+            if (!daysOverlap) return false;
+
+            // Parse time ranges: "HH:mm-HH:mm" or "H:mm-H:mm"
+            String[] exTimes = exTimePart.split("-", 2);
+            String[] newTimes = newTimePart.split("-", 2);
+            if (exTimes.length < 2 || newTimes.length < 2) return false;
+            java.time.format.DateTimeFormatter fmt = java.time.format.DateTimeFormatter.ofPattern("H:mm");
+
+            LocalTime exStart = LocalTime.parse(exTimes[0].trim(), fmt);
+            LocalTime exEnd = LocalTime.parse(exTimes[1].trim(), fmt);
+            LocalTime newStart = LocalTime.parse(newTimes[0].trim(), fmt);
+            LocalTime newEnd = LocalTime.parse(newTimes[1].trim(), fmt);
+
+            // Overlap exists unless one ends before the other starts
+            return !(exEnd.compareTo(newStart) <= 0 || newEnd.compareTo(exStart) <= 0);
+        } catch (Exception e) {
+            // Parsing errors: log and conservatively assume no conflict to avoid blocking valid registrations.
+            return false;
+        }
+    }
+
+    private static Set<String> parseDays(String daysPart) {
+        Set<String> days = new HashSet<>();
+        if (daysPart == null) return days;
+        String cleaned = daysPart.trim();
+        if (cleaned.isEmpty()) return days;
+
+        // Accept separators '/', ',', or whitespace
+        String[] tokens = cleaned.split("[\\/\\,\\s]+");
+        for (String t : tokens) {
+            if (t.isEmpty()) continue;
+            // If token looks like compact codes e.g., MWF, TTh, parse char-by-char
+            if (t.matches("(?i)^[MTWThfhr]+$")) {
+                // iterate and detect 'Th' as Thursday
+                for (int i = 0; i < t.length(); i++) {
+                    char c = t.charAt(i);
+                    if (c == 'M' || c == 'm') {
+                        days.add("mon");
+                    } else if (c == 'W' || c == 'w') {
+                        days.add("wed");
+                    } else if (c == 'F' || c == 'f') {
+                        days.add("fri");
+                    } else if (c == 'T' || c == 't') {
+                        // Could be 'Th' for Thursday
+                        if (i + 1 < t.length() && (t.charAt(i + 1) == 'h' || t.charAt(i + 1) == 'H')) {
+                            days.add("thu");
+                            i++; // skip the 'h'
+                        } else {
+                            days.add("tue");
+                        }
+                    } else if (c == 'h' || c == 'H') {
+                        // standalone 'h' unlikely, skip
+                        continue;
+                    } else {
+                        // fallback to generic handling below
+                        String norm = t.substring(0, Math.min(3, t.length())).toLowerCase();
+                        switch (norm) {
+                            case "mon": days.add("mon"); break;
+                            case "tue": days.add("tue"); break;
+                            case "wed": days.add("wed"); break;
+                            case "thu": days.add("thu"); break;
+                            case "fri": days.add("fri"); break;
+                            case "sat": days.add("sat"); break;
+                            case "sun": days.add("sun"); break;
+                            default:
+                                days.add(norm);
+                        }
+                        break;
+                    }
+                }
+            } else {
+                String norm = t.substring(0, Math.min(3, t.length())).toLowerCase();
+                // normalize common day names/abbreviations
+                switch (norm) {
+                    case "mon": days.add("mon"); break;
+                    case "tue": days.add("tue"); break;
+                    case "wed": days.add("wed"); break;
+                    case "thu": days.add("thu"); break;
+                    case "fri": days.add("fri"); break;
+                    case "sat": days.add("sat"); break;
+                    case "sun": days.add("sun"); break;
+                    default:
+                        // unknown token: attempt to use first three letters
+                        days.add(norm);
+                }
+            }
+        }
+        return days;
+    }
+}
@@ -14,36 +14,44 @@ package edu.univ.erp.util;
  *
  * Notes:
  *  - Grades are compared case-insensitively and trimmed.
- *  - Unknown or malformed grades return Optional.empty() so callers can decide
+ *  - Unknown or malformed grades return null so callers can decide
  *    whether to treat them as 0 or skip.
  */
 public class GradeUtils {
 
+    // Letter -> points, in descending order. Also rendered into SQL by pointsSqlCase.
+    private static final java.util.Map<String, Double> POINTS = new java.util.LinkedHashMap<>();
+    static {
+        POINTS.put("A", 10.0);
+        POINTS.put("A-", 9.0);
+        POINTS.put("B", 8.0);
+        POINTS.put("B-", 7.0);
+        POINTS.put("C", 6.0);
+        POINTS.put("C-", 5.0);
+        POINTS.put("D", 4.0);
+        POINTS.put("F", 0.0);
+    }
+
     /**
      * Convert a letter grade to its numeric points on a 10-point scale.
-     * Returns Double.NaN if the grade should be ignored (e.g., null/empty or "IP").
+     * Returns null if the grade should be ignored (e.g., null/empty, "IP" or an unknown format).
      */
     public static Double gradeToPoints(String letter) {
         if (letter == null) return null;
         String g = letter.trim().toUpperCase();
-        if (g.isEmpty()) return null;
-
-        // Skip in-progress marker (commonly "IP")
-        if (g.equals("IP")) return null;
+        // Empty, the in-progress marker ("IP") and unknown formats are not in the table.
+        return POINTS.get(g);
+    }
 
-        // Direct matches
-        switch (g) {
-            case "A": return 10.0;
-            case "A-": return 9.0;
-            case "B": return 8.0;
-            case "B-": return 7.0;
-            case "C": return 6.0;
-            case "C-": return 5.0;
-            case "D": return 4.0;
-            case "F": return 0.0;
-            default:
-                // Accept possible whitespace or lower/upper variants already normalized.
-                return null; // unknown format -> caller will decide to skip
+    /**
+     * The same mapping as {@link #gradeToPoints(String)} as a SQL expression over a letter
+     * column, NULL where gradeToPoints returns null.
+     */
+    public static String pointsSqlCase(String column) {
+        StringBuilder sb = new StringBuilder("CASE UPPER(TRIM(").append(column).append("))");
+        for (java.util.Map.Entry<String, Double> e : POINTS.entrySet()) {
+            sb.append(" WHEN '").append(e.getKey()).append("' THEN ").append(e.getValue());
         }
+        return sb.append(" ELSE NULL END").toString();
     }
 }
@@ -0,0 +1,114 @@
+package edu.univ.erp.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of serialized read responses (e.g. GET_ALL_COURSES) keyed by command name.
+ *
+ * Each entry carries a content token (truncated SHA-256 of the payload) that clients echo
+ * back with {@code IF_NONE_MATCH:<token>:<COMMAND>}; an unchanged payload is answered with
+ * {@code NOT_MODIFIED}. Write paths call {@link #invalidate(String...)} for the commands whose
+ * payload they affect; {@code erp.responseCache.ttlMs} (default 60 s) bounds staleness after
+ * edits made outside this server.
+ */
+public final class ResponseCache {
+    public static final String GET_ALL_COURSES = "GET_ALL_COURSES";
+    public static final String GET_ALL_STUDENTS = "GET_ALL_STUDENTS";
+    public static final String GET_ALL_INSTRUCTORS = "GET_ALL_INSTRUCTORS";
+
+    private static final ResponseCache INSTANCE = new ResponseCache(Long.getLong("erp.responseCache.ttlMs", 60000L));
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /** A serialized payload and its content token. */
+    public record Entry(String token, String payload) { }
+
+    private record Cached(Entry entry, long generation, long loadedAtNanos) { }
+
+    private final long ttlNanos;
+    private final Map<String, Cached> entries = new ConcurrentHashMap<>();
+    // Bumped on invalidation; a load that started under an older generation is not retained.
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    ResponseCache(long ttlMs) {
+        this.ttlNanos = ttlMs * 1_000_000L;
+    }
+
+    public static ResponseCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the cached entry for the key, or runs the loader (which returns the serialized
+     * payload) and caches the result. Empty lists ("[]") are not retained, so a transient DB
+     * failure that a DAO turned into an empty result is not served for a whole TTL.
+     */
+    public Entry get(String key, Callable<String> loader) throws Exception {
+        long gen = generation(key).get();
+        Cached c = entries.get(key);
+        if (c != null && c.generation() == gen && System.nanoTime() - c.loadedAtNanos() < ttlNanos) {
+            hits.increment();
+            return c.entry();
+        }
+        misses.increment();
+        String payload = loader.call();
+        Entry entry = new Entry(tokenFor(payload), payload);
+        if (!"[]".equals(payload) && generation(key).get() == gen) {
+            entries.put(key, new Cached(entry, gen, System.nanoTime()));
+        }
+        return entry;
+    }
+
+    public void invalidate(String... keys) {
+        for (String key : keys) {
+            generation(key).incrementAndGet();
+            entries.remove(key);
+        }
+        invalidations.increment();
+    }
+
+    public void invalidateAll() {
+        for (AtomicLong g : generations.values()) g.incrementAndGet();
+        entries.clear();
+        invalidations.increment();
+    }
+
+    private AtomicLong generation(String key) {
+        return generations.computeIfAbsent(key, k -> new AtomicLong());
+    }
+
+    /** Content token for a payload: first 64 bits of its SHA-256, as hex. */
+    public static String tokenFor(String payload) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(payload.getBytes(StandardCharsets.UTF_8));
+            char[] out = new char[16];
+            for (int i = 0; i < 8; i++) {
+                out[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+                out[i * 2 + 1] = HEX[digest[i] & 0xF];
+            }
+            return new String(out);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /** Counters for GET_SERVER_STATS. */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("entries", entries.size());
+        return stats;
+    }
+}
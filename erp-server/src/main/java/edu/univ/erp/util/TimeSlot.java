@@ -0,0 +1,177 @@
+package edu.univ.erp.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Compiled form of a section's {@code day_time} string (e.g. "Mon/Wed 09:00-10:30", "TTh 14:00-15:30").
+ *
+ * Days become a bitmask and the time range a pair of minute-of-day values, so a conflict check is
+ * a mask AND plus two integer comparisons. Strings are compiled once and interned in a small
+ * cache ({@link #of(String)}); the catalog warms it when it loads.
+ *
+ * Semantics follow the original string parser exactly: the first whitespace-separated token is
+ * the day part when there are two; compact codes (MWF, TTh) are read letter by letter; a missing
+ * day part overlaps every day; unrecognised day tokens only match the same token; and a time part
+ * that does not parse as "H:mm-H:mm" never conflicts.
+ */
+public final class TimeSlot {
+    private static final Logger LOGGER = Logger.getLogger(TimeSlot.class.getName());
+
+    private static final String[] DAY_NAMES = { "mon", "tue", "wed", "thu", "fri", "sat", "sun" };
+    private static final int MAX_CACHED = 4096;
+    private static final Map<String, TimeSlot> CACHE = new ConcurrentHashMap<>();
+
+    /** Slot for a null day_time: never conflicts. */
+    public static final TimeSlot NONE = new TimeSlot(0, true, new String[0], false, 0, 0);
+
+    private final int dayMask;          // bit i = DAY_NAMES[i]
+    private final boolean anyDay;       // no day part given: overlaps every day
+    private final String[] otherDays;   // unrecognised day tokens, sorted
+    private final boolean timed;        // time range parsed
+    private final int startMinute;
+    private final int endMinute;
+
+    private TimeSlot(int dayMask, boolean anyDay, String[] otherDays, boolean timed, int startMinute, int endMinute) {
+        this.dayMask = dayMask;
+        this.anyDay = anyDay;
+        this.otherDays = otherDays;
+        this.timed = timed;
+        this.startMinute = startMinute;
+        this.endMinute = endMinute;
+    }
+
+    /** Compiled slot for a day_time string (cached). */
+    public static TimeSlot of(String dayTime) {
+        if (dayTime == null) return NONE;
+        TimeSlot slot = CACHE.get(dayTime);
+        if (slot != null) return slot;
+        slot = compile(dayTime);
+        // day_time values are a small, slowly changing set; reset rather than evict if that ever stops being true
+        if (CACHE.size() >= MAX_CACHED) CACHE.clear();
+        CACHE.put(dayTime, slot);
+        return slot;
+    }
+
+    /** True when the two slots share a day and their time ranges overlap (touching ends do not). */
+    public boolean conflictsWith(TimeSlot other) {
+        if (!timed || !other.timed) return false;
+        if (startMinute >= other.endMinute || other.startMinute >= endMinute) return false;
+        return anyDay || other.anyDay || (dayMask & other.dayMask) != 0 || sharesOtherDay(other);
+    }
+
+    private boolean sharesOtherDay(TimeSlot other) {
+        if (otherDays.length == 0 || other.otherDays.length == 0) return false;
+        for (String d : otherDays) {
+            if (Arrays.binarySearch(other.otherDays, d) >= 0) return true;
+        }
+        return false;
+    }
+
+    /** Compiles without caching. */
+    public static TimeSlot compile(String dayTime) {
+        String[] parts = dayTime.trim().split("\\s+", 2);
+        String daysPart = parts.length == 2 ? parts[0] : "";
+        String timePart = parts.length == 2 ? parts[1] : parts[0];
+
+        int mask = 0;
+        java.util.TreeSet<String> other = new java.util.TreeSet<>();
+        for (String t : daysPart.trim().split("[\\/\\,\\s]+")) {
+            if (t.isEmpty()) continue;
+            if (isCompactCode(t)) {
+                for (int i = 0; i < t.length(); i++) {
+                    char c = Character.toLowerCase(t.charAt(i));
+                    if (c == 'm') {
+                        mask |= 1 << 0;
+                    } else if (c == 'w') {
+                        mask |= 1 << 2;
+                    } else if (c == 'f') {
+                        mask |= 1 << 4;
+                    } else if (c == 't') {
+                        if (i + 1 < t.length() && Character.toLowerCase(t.charAt(i + 1)) == 'h') {
+                            mask |= 1 << 3;
+                            i++;
+                        } else {
+                            mask |= 1 << 1;
+                        }
+                    } else if (c == 'h') {
+                        continue;
+                    } else {
+                        // 'r': the whole token is taken as a day name and the rest of it ignored
+                        mask = addDayName(t, mask, other);
+                        break;
+                    }
+                }
+            } else {
+                mask = addDayName(t, mask, other);
+            }
+        }
+        boolean anyDay = mask == 0 && other.isEmpty();
+
+        int start = -1;
+        int end = -1;
+        String[] times = timePart.split("-", 2);
+        if (times.length == 2) {
+            start = parseMinutes(times[0].trim());
+            end = parseMinutes(times[1].trim());
+        }
+        boolean timed = start >= 0 && end >= 0;
+        if (!timed) {
+            LOGGER.warning(() -> "Could not parse timetable string '" + dayTime + "'; it will not be checked for conflicts.");
+        }
+        return new TimeSlot(mask, anyDay, other.toArray(new String[0]), timed, start, end);
+    }
+
+    // Same acceptance as the original "(?i)^[MTWThfhr]+$" check.
+    private static boolean isCompactCode(String t) {
+        for (int i = 0; i < t.length(); i++) {
+            switch (Character.toLowerCase(t.charAt(i))) {
+                case 'm': case 't': case 'w': case 'h': case 'f': case 'r':
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return !t.isEmpty();
+    }
+
+    private static int addDayName(String token, int mask, java.util.Set<String> other) {
+        String norm = token.substring(0, Math.min(3, token.length())).toLowerCase();
+        for (int d = 0; d < DAY_NAMES.length; d++) {
+            if (DAY_NAMES[d].equals(norm)) return mask | (1 << d);
+        }
+        other.add(norm);
+        return mask;
+    }
+
+    /** "H:mm" or "HH:mm" to minute of day, -1 when invalid. */
+    private static int parseMinutes(String s) {
+        int colon = s.indexOf(':');
+        if (colon < 1 || s.length() - colon != 3) return -1;
+        int hours = 0;
+        for (int i = 0; i < colon; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            hours = hours * 10 + (c - '0');
+            if (hours > 23) return -1;
+        }
+        char m1 = s.charAt(colon + 1);
+        char m2 = s.charAt(colon + 2);
+        if (m1 < '0' || m1 > '5' || m2 < '0' || m2 > '9') return -1;
+        return hours * 60 + (m1 - '0') * 10 + (m2 - '0');
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (anyDay) sb.append("any");
+        for (int d = 0; d < DAY_NAMES.length; d++) {
+            if ((dayMask & (1 << d)) != 0) sb.append(sb.length() == 0 ? "" : "/").append(DAY_NAMES[d]);
+        }
+        for (String o : otherDays) sb.append(sb.length() == 0 ? "" : "/").append(o);
+        if (!timed) return sb.append(" (no time)").toString();
+        return sb.append(String.format(" %02d:%02d-%02d:%02d", startMinute / 60, startMinute % 60, endMinute / 60, endMinute % 60)).toString();
+    }
+}
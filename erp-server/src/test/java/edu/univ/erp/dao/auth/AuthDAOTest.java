@@ -0,0 +1,93 @@
+package edu.univ.erp.dao.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+class AuthDAOTest {
+
+    /** What a statement was prepared with and the parameter rows it batched. */
+    private static final class Sent {
+        final List<String> sql = new ArrayList<>();
+        final List<Map<Integer, Object>> rows = new ArrayList<>();
+        int executeBatchCalls;
+    }
+
+    /** A JDBC connection that executes nothing and only records what it receives. */
+    private static Connection recordingConnection(Sent sent) {
+        return (Connection) Proxy.newProxyInstance(AuthDAOTest.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (conn, method, args) -> {
+                    switch (method.getName()) {
+                        case "prepareStatement":
+                            sent.sql.add((String) args[0]);
+                            return recordingStatement(sent);
+                        case "close":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static PreparedStatement recordingStatement(Sent sent) {
+        Map<Integer, Object> row = new TreeMap<>();
+        return (PreparedStatement) Proxy.newProxyInstance(AuthDAOTest.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, (stmt, method, args) -> {
+                    switch (method.getName()) {
+                        case "setTimestamp":
+                        case "setInt":
+                            row.put((Integer) args[0], args[1]);
+                            return null;
+                        case "addBatch":
+                            sent.rows.add(new TreeMap<>(row));
+                            row.clear();
+                            return null;
+                        case "executeBatch":
+                            sent.executeBatchCalls++;
+                            return new int[sent.rows.size()];
+                        case "close":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @Test
+    void deferredLastLoginsLeaveTheLockoutColumnsAlone() throws Exception {
+        LocalDateTime first = LocalDateTime.of(2026, 10, 18, 9, 0);
+        LocalDateTime second = first.plusMinutes(3);
+        Map<Integer, LocalDateTime> logins = new LinkedHashMap<>();
+        logins.put(1, first);
+        logins.put(2, second);
+        Sent sent = new Sent();
+
+        new AuthDAO().recordLastLogins(recordingConnection(sent), logins);
+
+        assertEquals(1, sent.sql.size());
+        String sql = sent.sql.get(0).toLowerCase();
+        assertFalse(sql.contains("failed_attempts"), sql);
+        assertFalse(sql.contains("locked_until"), sql);
+        assertTrue(sql.contains("set last_login = ? where"), sql);
+        // An older deferred value must not overwrite a newer login written directly.
+        assertTrue(sql.contains("last_login < ?"), sql);
+
+        assertEquals(List.of(
+                Map.of(1, Timestamp.valueOf(first), 2, 1, 3, Timestamp.valueOf(first)),
+                Map.of(1, Timestamp.valueOf(second), 2, 2, 3, Timestamp.valueOf(second))), sent.rows);
+        assertEquals(1, sent.executeBatchCalls);
+    }
+}
@@ -0,0 +1,89 @@
+package edu.univ.erp.dao.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class LoginBookkeepingTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2026, 10, 18, 9, 0);
+    // Long enough that the background batch never runs during a test; tests call flush() themselves.
+    private static final long NO_TIMER = 3_600_000L;
+
+    /** users_auth as seen by the bookkeeping: immediate writes and batches, in order. */
+    private static final class UsersAuth extends AuthDAO {
+        final List<Integer> immediate = new ArrayList<>();
+        final List<Map<Integer, LocalDateTime>> batches = new ArrayList<>();
+        int batchesToFail;
+
+        @Override
+        public void recordLoginSuccess(int userId, LocalDateTime at) {
+            immediate.add(userId);
+        }
+
+        @Override
+        public void recordLastLogins(Map<Integer, LocalDateTime> logins) throws SQLException {
+            if (batchesToFail > 0) {
+                batchesToFail--;
+                throw new SQLException("auth_db unavailable");
+            }
+            batches.add(new HashMap<>(logins));
+        }
+    }
+
+    @Test
+    void accountWithFailuresIsResetAtOnceEvenWithWriteBehind() {
+        UsersAuth db = new UsersAuth();
+        LoginBookkeeping bookkeeping = new LoginBookkeeping(db, true, NO_TIMER);
+        bookkeeping.recordSuccess(7, T, true);
+        assertEquals(List.of(7), db.immediate);
+        bookkeeping.flush();
+        assertTrue(db.batches.isEmpty(), "nothing was deferred");
+    }
+
+    @Test
+    void cleanLoginsAreCoalescedPerUserIntoOneBatch() {
+        UsersAuth db = new UsersAuth();
+        LoginBookkeeping bookkeeping = new LoginBookkeeping(db, true, NO_TIMER);
+        bookkeeping.recordSuccess(1, T, false);
+        bookkeeping.recordSuccess(2, T, false);
+        bookkeeping.recordSuccess(1, T.plusMinutes(5), false);
+        bookkeeping.recordSuccess(1, T.minusMinutes(5), false);
+        assertTrue(db.immediate.isEmpty());
+
+        bookkeeping.flush();
+        assertEquals(List.of(Map.of(1, T.plusMinutes(5), 2, T)), db.batches);
+        assertEquals(2L, bookkeeping.getStats().get("rowsWritten"));
+    }
+
+    @Test
+    void withoutWriteBehindEveryLoginIsWrittenAtOnce() {
+        UsersAuth db = new UsersAuth();
+        new LoginBookkeeping(db, false, NO_TIMER).recordSuccess(1, T, false);
+        assertEquals(List.of(1), db.immediate);
+    }
+
+    @Test
+    void failedBatchStaysPendingForTheNextFlush() {
+        UsersAuth db = new UsersAuth();
+        db.batchesToFail = 1;
+        LoginBookkeeping bookkeeping = new LoginBookkeeping(db, true, NO_TIMER);
+        bookkeeping.recordSuccess(1, T, false);
+
+        bookkeeping.flush();
+        assertTrue(db.batches.isEmpty());
+        assertEquals(1, bookkeeping.getStats().get("pending"));
+
+        bookkeeping.flush();
+        assertEquals(List.of(Map.of(1, T)), db.batches);
+        assertEquals(0, bookkeeping.getStats().get("pending"));
+    }
+}
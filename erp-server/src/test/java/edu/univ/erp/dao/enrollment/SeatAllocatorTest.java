@@ -0,0 +1,104 @@
+package edu.univ.erp.dao.enrollment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class SeatAllocatorTest {
+
+    private static final int SECTION = 7;
+
+    @Test
+    void rejectsOnceCapacityIsHeld() throws Exception {
+        SeatAllocator allocator = new SeatAllocator(id -> new int[] { 3, 1 }, 60000);
+        assertNotNull(allocator.tryReserve(SECTION));
+        assertNotNull(allocator.tryReserve(SECTION));
+        assertNull(allocator.tryReserve(SECTION));
+        assertEquals(3, allocator.getHeld(SECTION));
+    }
+
+    @Test
+    void abortAndReleaseReturnSeats() throws Exception {
+        SeatAllocator allocator = new SeatAllocator(id -> new int[] { 2, 0 }, 60000);
+        SeatAllocator.Reservation first = allocator.tryReserve(SECTION);
+        SeatAllocator.Reservation second = allocator.tryReserve(SECTION);
+        assertNull(allocator.tryReserve(SECTION));
+
+        first.abort();
+        first.abort(); // a second call must not return the seat twice
+        assertEquals(1, allocator.getHeld(SECTION));
+
+        second.commit();
+        allocator.release(SECTION);
+        assertEquals(0, allocator.getHeld(SECTION));
+    }
+
+    @Test
+    void concurrentReservationsNeverExceedCapacity() throws Exception {
+        int capacity = 50;
+        int threads = 16;
+        int attemptsPerThread = 200;
+        SeatAllocator allocator = new SeatAllocator(id -> new int[] { capacity, 0 }, 60000);
+        ConcurrentLinkedQueue<SeatAllocator.Reservation> granted = new ConcurrentLinkedQueue<>();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < attemptsPerThread; i++) {
+                        SeatAllocator.Reservation r = allocator.tryReserve(SECTION);
+                        if (r == null) rejected.incrementAndGet(); else granted.add(r);
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) worker.join();
+
+        assertEquals(capacity, granted.size());
+        assertEquals(threads * attemptsPerThread - capacity, rejected.get());
+        assertEquals(capacity, allocator.getHeld(SECTION));
+    }
+
+    @Test
+    void abortFullReseedsFromTheDatabase() throws Exception {
+        AtomicInteger registered = new AtomicInteger(0);
+        AtomicInteger loads = new AtomicInteger();
+        SeatAllocator allocator = new SeatAllocator(id -> {
+            loads.incrementAndGet();
+            return new int[] { 2, registered.get() };
+        }, 60000);
+
+        SeatAllocator.Reservation r = allocator.tryReserve(SECTION);
+        // Another server filled the section; the transaction found it full.
+        registered.set(2);
+        r.abortFull();
+
+        assertNull(allocator.tryReserve(SECTION));
+        assertEquals(2, loads.get());
+        assertEquals(2, allocator.getHeld(SECTION));
+    }
+
+    @Test
+    void unknownSectionIsNotTracked() throws Exception {
+        SeatAllocator allocator = new SeatAllocator(id -> null, 60000);
+        SeatAllocator.Reservation r = allocator.tryReserve(SECTION);
+        assertNotNull(r);
+        r.abort();
+        assertEquals(-1, allocator.getHeld(SECTION));
+    }
+}
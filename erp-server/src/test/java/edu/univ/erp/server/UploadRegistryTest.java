@@ -0,0 +1,26 @@
+package edu.univ.erp.server;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class UploadRegistryTest {
+
+    @Test
+    void gradeImportHasItsOwnSmallerCap() throws Exception {
+        UploadRegistry registry = new UploadRegistry(1 << 20, 1024, 1024, 4, 60000);
+        Exception e = assertThrows(Exception.class,
+                () -> registry.begin(1, "IMPORT_GRADES", List.of("7", "42"), 1025));
+        assertTrue(e.getMessage().startsWith("UPLOAD_TOO_LARGE:"), e.getMessage());
+
+        String restore = registry.begin(1, "DB_RESTORE", List.of(), 1025);
+        assertNotNull(restore);
+        registry.abort(1, restore);
+        String csv = registry.begin(1, "IMPORT_GRADES", List.of("7", "42"), 1024);
+        registry.abort(1, csv);
+    }
+}
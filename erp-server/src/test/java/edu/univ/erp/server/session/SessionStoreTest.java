@@ -0,0 +1,91 @@
+package edu.univ.erp.server.session;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import edu.univ.erp.domain.UserAuth;
+
+class SessionStoreTest {
+
+    private static UserAuth user(int userId) {
+        return new UserAuth(userId, "user" + userId, "STUDENT");
+    }
+
+    @Test
+    void tokenResolvesToItsSession() throws Exception {
+        SessionStore store = new SessionStore(60000, 10, 10);
+        SessionStore.Session session = store.create(user(1), null);
+        assertSame(session, store.get(session.getToken()));
+        assertNull(store.get("not-a-token"));
+        assertNull(store.get(null));
+    }
+
+    @Test
+    void idleSessionExpires() throws Exception {
+        SessionStore store = new SessionStore(50, 10, 10);
+        SessionStore.Session session = store.create(user(1), null);
+        Thread.sleep(120);
+        assertNull(store.get(session.getToken()));
+        assertEquals(1L, store.getStats().get("expired"));
+        assertEquals(0, store.getStats().get("active"));
+    }
+
+    @Test
+    void useKeepsASessionAlive() throws Exception {
+        SessionStore store = new SessionStore(400, 10, 10);
+        SessionStore.Session session = store.create(user(1), null);
+        for (int i = 0; i < 4; i++) {
+            Thread.sleep(150);
+            assertNotNull(store.get(session.getToken()), "touched every 150 ms with a 400 ms idle limit");
+        }
+    }
+
+    @Test
+    void expireIdleFreesRoomAtTheLimit() throws Exception {
+        SessionStore store = new SessionStore(50, 2, 10);
+        store.create(user(1), null);
+        store.create(user(2), null);
+        Exception e = assertThrows(Exception.class, () -> store.create(user(3), null));
+        assertTrue(e.getMessage().startsWith("SESSION_LIMIT:"), e.getMessage());
+        Thread.sleep(120);
+        // create() expires the idle sessions before giving up.
+        assertNotNull(store.create(user(3), null));
+        assertEquals(1, store.getStats().get("active"));
+    }
+
+    @Test
+    void invalidateUserKeepsOnlyTheGivenSession() throws Exception {
+        SessionStore store = new SessionStore(60000, 10, 10);
+        SessionStore.Session current = store.create(user(1), null);
+        SessionStore.Session other = store.create(user(1), null);
+        SessionStore.Session someoneElse = store.create(user(2), null);
+
+        assertEquals(1, store.invalidateUser(1, current));
+        assertSame(current, store.get(current.getToken()));
+        assertNull(store.get(other.getToken()));
+        assertSame(someoneElse, store.get(someoneElse.getToken()));
+    }
+
+    @Test
+    void loginPastThePerUserCapEndsTheLeastRecentlyUsedSession() throws Exception {
+        SessionStore store = new SessionStore(60000, 10, 2);
+        SessionStore.Session first = store.create(user(1), null);
+        SessionStore.Session second = store.create(user(1), null);
+        SessionStore.Session someoneElse = store.create(user(2), null);
+        Thread.sleep(5);
+        store.get(first.getToken());
+
+        SessionStore.Session third = store.create(user(1), null);
+        assertSame(first, store.get(first.getToken()));
+        assertNull(store.get(second.getToken()));
+        assertSame(third, store.get(third.getToken()));
+        assertSame(someoneElse, store.get(someoneElse.getToken()));
+        assertEquals(1L, store.getStats().get("evicted"));
+    }
+}
@@ -0,0 +1,114 @@
+package edu.univ.erp.service.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import edu.univ.erp.dao.auth.AuthDAO;
+import edu.univ.erp.dao.auth.LoginBookkeeping;
+import edu.univ.erp.security.PasswordHasher;
+
+/** Which auth_db calls a LOGIN makes, and when the lockout rules stop it. */
+class AuthServiceTest {
+
+    private static final int ALICE = 42;
+    private static final String PASSWORD = "correct horse";
+    // Hashed at the configured cost, so a successful login does not queue a background rehash.
+    private static final String HASH = PasswordHasher.hashPassword(PASSWORD);
+
+    /** The "alice" account; each DAO call the service makes is appended to {@link #calls}. */
+    private static final class AliceAccount extends AuthDAO {
+        final List<String> calls = new ArrayList<>();
+        final AuthDetails details;
+
+        AliceAccount(int failedAttempts, LocalDateTime lockedUntil) {
+            details = new AuthDetails(ALICE, HASH, "STUDENT", failedAttempts, lockedUntil, null);
+        }
+
+        @Override
+        public AuthDetails findUserByUsername(String username) {
+            calls.add("findUserByUsername");
+            return "alice".equals(username) ? details : null;
+        }
+
+        @Override
+        public AuthDetails findUserByUserId(int userId) {
+            calls.add("findUserByUserId");
+            return details;
+        }
+
+        @Override
+        public void updateLoginAttempts(int userId, boolean success) {
+            calls.add("updateLoginAttempts:" + success);
+        }
+
+        @Override
+        public void updateLastLogin(int userId) {
+            calls.add("updateLastLogin");
+        }
+
+        @Override
+        public void recordLoginSuccess(int userId, LocalDateTime at) {
+            calls.add("recordLoginSuccess");
+        }
+
+        @Override
+        public void recordLastLogins(Map<Integer, LocalDateTime> logins) {
+            calls.add("recordLastLogins:" + logins.keySet());
+        }
+    }
+
+    private static LoginBookkeeping bookkeeping(AliceAccount account, boolean writeBehind) {
+        return new LoginBookkeeping(account, writeBehind, 3_600_000L);
+    }
+
+    @Test
+    void successfulLoginIsOneLookupAndOneWrite() throws Exception {
+        AliceAccount account = new AliceAccount(2, null);
+        new AuthService(account, bookkeeping(account, false)).authenticate("alice", PASSWORD);
+        assertEquals(List.of("findUserByUsername", "recordLoginSuccess"), account.calls);
+    }
+
+    @Test
+    void cleanLoginIsDeferredWithWriteBehind() throws Exception {
+        AliceAccount account = new AliceAccount(0, null);
+        LoginBookkeeping bookkeeping = bookkeeping(account, true);
+        new AuthService(account, bookkeeping).authenticate("alice", PASSWORD);
+        assertEquals(List.of("findUserByUsername"), account.calls);
+
+        bookkeeping.flush();
+        assertEquals(List.of("findUserByUsername", "recordLastLogins:[42]"), account.calls);
+    }
+
+    @Test
+    void loginAfterAnExpiredLockResetsItImmediately() throws Exception {
+        AliceAccount account = new AliceAccount(5, LocalDateTime.now().minusMinutes(1));
+        new AuthService(account, bookkeeping(account, true)).authenticate("alice", PASSWORD);
+        assertEquals(List.of("findUserByUsername", "recordLoginSuccess"), account.calls);
+    }
+
+    @Test
+    void lockedAccountIsRefusedWithoutAnyWrite() {
+        AliceAccount account = new AliceAccount(5, LocalDateTime.now().plusMinutes(10).plusSeconds(30));
+        Exception e = assertThrows(Exception.class,
+                () -> new AuthService(account, bookkeeping(account, false)).authenticate("alice", PASSWORD));
+        assertTrue(e.getMessage().contains("10 minutes"), e.getMessage());
+        assertEquals(List.of("findUserByUsername"), account.calls);
+    }
+
+    @Test
+    void wrongPasswordCountsAFailedAttempt() {
+        AliceAccount account = new AliceAccount(0, null);
+        Exception e = assertThrows(Exception.class,
+                () -> new AuthService(account, bookkeeping(account, false)).authenticate("alice", "wrong"));
+        assertEquals("Invalid username or password.", e.getMessage());
+        assertEquals(List.of("findUserByUsername", "updateLoginAttempts:false"), account.calls);
+    }
+}
@@ -0,0 +1,102 @@
+package edu.univ.erp.service.instructor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import edu.univ.erp.access.AuthorizationContext;
+import edu.univ.erp.dao.instructor.InstructorDAO;
+import edu.univ.erp.domain.EnrollmentRecord;
+import edu.univ.erp.domain.UserAuth;
+
+class InstructorServiceTest {
+
+    private static final int SECTION = 11;
+
+    /** In-memory section: a roster to grade, and the batch the service hands back to be stored. */
+    private static final class SectionRoster extends InstructorDAO {
+        final List<EnrollmentRecord> roster = new ArrayList<>();
+        final List<FinalGradeWrite> batch = new ArrayList<>();
+        int droppedEnrollmentId = -1;
+        int rosterReads;
+
+        @Override
+        public List<EnrollmentRecord> getEnrollmentRoster(int sectionId) {
+            rosterReads++;
+            return roster;
+        }
+
+        @Override
+        public List<FinalGradeWrite> recordFinalGrades(int sectionId, List<FinalGradeWrite> writes) {
+            batch.addAll(writes);
+            // A student who dropped before the batch locked the section is not graded.
+            List<FinalGradeWrite> applied = new ArrayList<>(writes);
+            applied.removeIf(w -> w.enrollmentId() == droppedEnrollmentId);
+            return applied;
+        }
+    }
+
+    // Admin and student contexts are decided from the role alone; no ownership load is needed.
+    private static AuthorizationContext actor(int userId, String role) {
+        return AuthorizationContext.forUser(new UserAuth(userId, "user" + userId, role));
+    }
+
+    private static EnrollmentRecord record(int enrollmentId, int studentId, Double quiz, Double assignment,
+            Double midterm, Double endterm) {
+        EnrollmentRecord r = new EnrollmentRecord();
+        r.setEnrollmentId(enrollmentId);
+        r.setStudentId(studentId);
+        r.setQuizScore(quiz);
+        r.setAssignmentScore(assignment);
+        r.setMidtermScore(midterm);
+        r.setEndtermScore(endterm);
+        return r;
+    }
+
+    @Test
+    void letterUsesWeightedComponentsWithMissingScoresAsZero() {
+        assertEquals("A", InstructorService.computeLetter(record(1, 1, 100.0, 100.0, 100.0, 100.0)));
+        assertEquals("A-", InstructorService.computeLetter(record(1, 1, 85.0, 85.0, 85.0, 85.0)));
+        assertEquals("B-", InstructorService.computeLetter(record(1, 1, 65.0, 65.0, 65.0, 65.0)));
+        // Endterm alone is worth 35 points.
+        assertEquals("D", InstructorService.computeLetter(record(1, 1, null, null, null, 100.0)));
+        assertEquals("F", InstructorService.computeLetter(record(1, 1, null, null, null, null)));
+    }
+
+    @Test
+    void sectionBatchGradesEveryStudentAndCountsOnlyAppliedGrades() throws Exception {
+        SectionRoster section = new SectionRoster();
+        section.roster.add(record(101, 1, 100.0, 100.0, 100.0, 100.0));
+        section.roster.add(record(102, 2, 65.0, 65.0, 65.0, 65.0));
+        section.roster.add(record(103, 3, null, null, null, null));
+        section.roster.add(record(104, 4, 100.0, 100.0, 100.0, 100.0));
+        section.droppedEnrollmentId = 104;
+
+        Map<String, Integer> distribution = new InstructorService(section)
+                .computeAndRecordFinalGradesForSection(actor(1, "ADMIN"), SECTION);
+
+        assertEquals(List.of(
+                new InstructorDAO.FinalGradeWrite(101, 1, "A"),
+                new InstructorDAO.FinalGradeWrite(102, 2, "B-"),
+                new InstructorDAO.FinalGradeWrite(103, 3, "F"),
+                new InstructorDAO.FinalGradeWrite(104, 4, "A")), section.batch);
+        assertEquals(List.of("A", "A-", "B", "B-", "C", "C-", "D", "F"), new ArrayList<>(distribution.keySet()));
+        assertEquals(Map.of("A", 1, "A-", 0, "B", 0, "B-", 1, "C", 0, "C-", 0, "D", 0, "F", 1), distribution);
+    }
+
+    @Test
+    void sectionBatchRejectsCallersWhoDoNotTeachTheSection() {
+        SectionRoster section = new SectionRoster();
+        Exception e = assertThrows(Exception.class, () -> new InstructorService(section)
+                .computeAndRecordFinalGradesForSection(actor(2, "STUDENT"), SECTION));
+        assertTrue(e.getMessage().startsWith("NOT_AUTHORIZED:"));
+        assertEquals(0, section.rosterReads);
+        assertTrue(section.batch.isEmpty());
+    }
+}
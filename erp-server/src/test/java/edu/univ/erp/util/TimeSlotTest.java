@@ -0,0 +1,58 @@
+package edu.univ.erp.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class TimeSlotTest {
+
+    @Test
+    void parsesDayListsCompactCodesAndFullNames() {
+        assertEquals("mon/wed 09:00-10:30", TimeSlot.compile("Mon/Wed 09:00-10:30").toString());
+        assertEquals("tue/thu 14:00-15:30", TimeSlot.compile("TTh 14:00-15:30").toString());
+        assertEquals("mon/wed/fri 09:00-09:50", TimeSlot.compile("MWF 9:00-9:50").toString());
+        assertEquals("thu 10:00-11:00", TimeSlot.compile("Thursday 10:00-11:00").toString());
+        assertEquals("mon/tue 08:00-09:00", TimeSlot.compile("  Mon,Tue   08:00 - 09:00 ").toString());
+    }
+
+    @Test
+    void missingDayPartMeansEveryDay() {
+        assertEquals("any 10:00-11:00", TimeSlot.compile("10:00-11:00").toString());
+        assertTrue(TimeSlot.compile("10:00-11:00").conflictsWith(TimeSlot.compile("Sat 10:30-11:30")));
+    }
+
+    @Test
+    void unparsableTimesNeverConflict() {
+        TimeSlot words = TimeSlot.compile("Mon 9am-10am");
+        TimeSlot badHour = TimeSlot.compile("Mon 24:00-25:00");
+        assertEquals("mon (no time)", words.toString());
+        assertEquals("mon (no time)", badHour.toString());
+        assertFalse(words.conflictsWith(TimeSlot.compile("Mon 09:00-10:00")));
+        assertFalse(TimeSlot.NONE.conflictsWith(TimeSlot.compile("10:00-11:00")));
+    }
+
+    @Test
+    void overlapNeedsASharedDayAndIntersectingTimes() {
+        TimeSlot monMorning = TimeSlot.compile("Mon 09:00-10:00");
+        assertTrue(monMorning.conflictsWith(TimeSlot.compile("Mon/Wed 09:30-11:00")));
+        assertTrue(TimeSlot.compile("Mon/Wed 09:30-11:00").conflictsWith(monMorning));
+        assertFalse(monMorning.conflictsWith(TimeSlot.compile("Mon 10:00-11:00")), "touching ends do not overlap");
+        assertFalse(monMorning.conflictsWith(TimeSlot.compile("TTh 09:00-10:00")));
+    }
+
+    @Test
+    void unknownDayTokensOnlyMatchTheSameToken() {
+        TimeSlot xyz = TimeSlot.compile("Xyz 09:00-10:00");
+        assertTrue(xyz.conflictsWith(TimeSlot.compile("Xyzzy 09:30-10:30")));
+        assertFalse(xyz.conflictsWith(TimeSlot.compile("Mon 09:00-10:00")));
+    }
+
+    @Test
+    void ofCachesCompiledSlots() {
+        assertSame(TimeSlot.NONE, TimeSlot.of(null));
+        assertSame(TimeSlot.of("Fri 13:00-14:00"), TimeSlot.of("Fri 13:00-14:00"));
+    }
+}